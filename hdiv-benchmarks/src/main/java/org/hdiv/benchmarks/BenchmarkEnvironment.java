@@ -0,0 +1,107 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.Map;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.http.HttpSessionEvent;
+
+import org.hdiv.config.HDIVConfig;
+import org.hdiv.context.RequestContextFactory;
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.dataComposer.DataComposerFactory;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.init.RequestInitializer;
+import org.hdiv.listener.InitListener;
+import org.hdiv.util.HDIVUtil;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+/**
+ * Hdiv application initialized with mock Servlet API objects, shared by the benchmarks.
+ * <p>
+ * All the requests created by an instance belong to the same user session, as it happens with the pages of a real user.
+ * </p>
+ */
+public class BenchmarkEnvironment {
+
+	private static final String CONFIG_LOCATION = "classpath:/org/hdiv/benchmarks/hdiv-benchmarks.xml";
+
+	private final MockServletContext servletContext = new MockServletContext();
+
+	private final MockHttpSession session = new MockHttpSession(servletContext);
+
+	private final XmlWebApplicationContext applicationContext = new XmlWebApplicationContext();
+
+	private final InitListener initListener = new InitListener();
+
+	public BenchmarkEnvironment() {
+
+		applicationContext.setServletContext(servletContext);
+		applicationContext.setConfigLocation(CONFIG_LOCATION);
+		servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+		applicationContext.refresh();
+
+		initListener.contextInitialized(new ServletContextEvent(servletContext));
+		initListener.sessionCreated(new HttpSessionEvent(session));
+	}
+
+	/**
+	 * Creates the context of a new request, as the Hdiv filter does.
+	 *
+	 * @param method HTTP method
+	 * @param uri request uri
+	 * @param parameters request parameters, may be null
+	 * @return initialized request context with a data composer
+	 */
+	public RequestContextHolder createRequestContext(final String method, final String uri, final Map<String, String[]> parameters) {
+
+		MockHttpServletRequest request = new MockHttpServletRequest(servletContext, method, uri);
+		request.setSession(session);
+		if (parameters != null) {
+			request.setParameters(parameters);
+		}
+
+		RequestInitializer requestInitializer = getBean(RequestInitializer.class);
+		RequestContextHolder context = getBean(RequestContextFactory.class).create(requestInitializer, request,
+				new MockHttpServletResponse(), servletContext);
+
+		IDataComposer dataComposer = getBean(DataComposerFactory.class).newInstance(context);
+		HDIVUtil.setDataComposer(dataComposer, request);
+		context.setDataComposer(dataComposer);
+		return context;
+	}
+
+	public <T> T getBean(final Class<T> type) {
+		return applicationContext.getBean(type);
+	}
+
+	public HDIVConfig getConfig() {
+		return getBean(HDIVConfig.class);
+	}
+
+	public void close() {
+		initListener.sessionDestroyed(new HttpSessionEvent(session));
+		initListener.contextDestroyed(new ServletContextEvent(servletContext));
+		applicationContext.close();
+	}
+
+}
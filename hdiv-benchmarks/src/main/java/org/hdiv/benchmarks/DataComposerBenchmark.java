@@ -0,0 +1,99 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.util.Constants;
+import org.hdiv.util.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Composition of pages with {@link IDataComposer#compose(String, String, boolean)} and
+ * {@link IDataComposer#composeParams(String, Method, String)}.
+ * <p>
+ * Each invocation renders a whole page, including storing it in session, so the page history stays bounded.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataComposerBenchmark {
+
+	@Param({ "10", "500" })
+	public int size;
+
+	private BenchmarkEnvironment environment;
+
+	private RequestContextHolder context;
+
+	@Setup
+	public void setup() {
+		environment = new BenchmarkEnvironment();
+		context = environment.createRequestContext(Method.GET.name(), Fixtures.LIST_ACTION, null);
+	}
+
+	/**
+	 * Page with a grid form of <code>size</code> rows.
+	 */
+	@Benchmark
+	public Object compose() {
+		IDataComposer dataComposer = context.getDataComposer();
+		dataComposer.startPage();
+		Object parameters = Fixtures.composeGridForm(context, size);
+		dataComposer.endPage();
+		return parameters;
+	}
+
+	/**
+	 * Page with <code>size</code> links.
+	 */
+	@Benchmark
+	public String composeParams() {
+		IDataComposer dataComposer = context.getDataComposer();
+		dataComposer.startPage();
+		String result = null;
+		for (int i = 0; i < size; i++) {
+			dataComposer.beginRequest(Method.GET, Fixtures.LIST_ACTION);
+			result = dataComposer.composeParams(Fixtures.listQuery(i), Method.GET, Constants.ENCODING_UTF_8);
+			dataComposer.endRequest();
+		}
+		dataComposer.endPage();
+		return result;
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+}
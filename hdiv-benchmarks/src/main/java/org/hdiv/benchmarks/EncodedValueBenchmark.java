@@ -0,0 +1,91 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.util.Constants;
+import org.hdiv.util.HDIVUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link HDIVUtil#isTheSameEncodedValue(String, String)} compared with the previous implementation, that encoded and decoded both values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodedValueBenchmark {
+
+	/**
+	 * Different values, as in the options of a select that are not selected.
+	 */
+	@Param({ "option-17|option-42", "Jos\u00C3\u00A9 Mar\u00C3\u00ADa|Jos\u00E9 Mar\u00EDa", "a b c|a+b+c" })
+	public String values;
+
+	private String parameterValue;
+
+	private String value;
+
+	@Setup
+	public void setup() {
+		int separator = values.indexOf('|');
+		parameterValue = values.substring(0, separator);
+		value = values.substring(separator + 1);
+	}
+
+	@Benchmark
+	public boolean isTheSameEncodedValue() {
+		return HDIVUtil.isTheSameEncodedValue(parameterValue, value);
+	}
+
+	@Benchmark
+	public boolean reDecodingBaseline() {
+		if (parameterValue.replace(" ", "+").equalsIgnoreCase(value)) {
+			return true;
+		}
+		String fix = reDecodeValue(value);
+		if (fix != null && fix.equals(parameterValue)) {
+			return true;
+		}
+		fix = reDecodeValue(parameterValue);
+		return fix != null && fix.equals(value);
+	}
+
+	private static String reDecodeValue(final String value) {
+		try {
+			return URLDecoder.decode(URLEncoder.encode(value, Constants.ENCODING_ISO_8859_1), Constants.ENCODING_UTF_8);
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+}
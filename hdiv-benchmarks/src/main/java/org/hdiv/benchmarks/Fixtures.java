@@ -0,0 +1,110 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.util.Constants;
+import org.hdiv.util.Method;
+
+/**
+ * Realistic forms and links used as input of the benchmarks.
+ */
+public final class Fixtures {
+
+	public static final String GRID_ACTION = "/app/grid.html";
+
+	public static final String LIST_ACTION = "/app/list.html";
+
+	private static final String[] COLUMNS = { "id", "name", "quantity", "status" };
+
+	private static final String[] STATUS_OPTIONS = { "pending", "approved", "rejected", "archived" };
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Query string of a paginated list link.
+	 */
+	public static String listQuery(final int index) {
+		return "page=" + index + "&size=20&sort=name,asc&filter=status%3Dapproved&lang=en_US";
+	}
+
+	/**
+	 * Link of a paginated list.
+	 */
+	public static String listUrl(final int index) {
+		return LIST_ACTION + "?" + listQuery(index);
+	}
+
+	/**
+	 * Composes a grid editing form with <code>rows</code> rows. Each row has a hidden id, two editable text fields and a select.
+	 *
+	 * @param context request context with a started page
+	 * @param rows number of rows
+	 * @return submitted parameters of the form, including the Hdiv state
+	 */
+	public static Map<String, String[]> composeGridForm(final RequestContextHolder context, final int rows) {
+
+		IDataComposer dataComposer = context.getDataComposer();
+		Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+
+		dataComposer.beginRequest(Method.POST, GRID_ACTION);
+		for (int i = 0; i < rows; i++) {
+			String prefix = "row[" + i + "].";
+			parameters.put(prefix + COLUMNS[0],
+					new String[] { dataComposer.compose(prefix + COLUMNS[0], String.valueOf(1000 + i), false) });
+			parameters.put(prefix + COLUMNS[1],
+					new String[] { dataComposer.compose(prefix + COLUMNS[1], "Item " + i, true, "text") });
+			parameters.put(prefix + COLUMNS[2], new String[] { dataComposer.compose(prefix + COLUMNS[2], "1", true, "text") });
+			String selected = null;
+			for (int j = 0; j < STATUS_OPTIONS.length; j++) {
+				String composed = dataComposer.compose(prefix + COLUMNS[3], STATUS_OPTIONS[j], false);
+				if (j == i % STATUS_OPTIONS.length) {
+					selected = composed;
+				}
+			}
+			parameters.put(prefix + COLUMNS[3], new String[] { selected });
+		}
+		String stateId = dataComposer.endRequest();
+
+		parameters.put(context.getHdivParameterName(), new String[] { stateId });
+		return parameters;
+	}
+
+	/**
+	 * Composes the links of a paginated list.
+	 *
+	 * @param context request context with a started page
+	 * @param links number of links
+	 * @return state id of the last link
+	 */
+	public static String composeListLinks(final RequestContextHolder context, final int links) {
+
+		IDataComposer dataComposer = context.getDataComposer();
+		String stateId = null;
+		for (int i = 0; i < links; i++) {
+			dataComposer.beginRequest(Method.GET, LIST_ACTION);
+			dataComposer.composeParams(listQuery(i), Method.GET, Constants.ENCODING_UTF_8);
+			stateId = dataComposer.endRequest();
+		}
+		return stateId;
+	}
+
+}
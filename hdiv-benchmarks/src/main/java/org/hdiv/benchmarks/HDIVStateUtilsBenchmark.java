@@ -0,0 +1,72 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.util.HDIVStateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and parsing of state identifiers with {@link HDIVStateUtils}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HDIVStateUtilsBenchmark {
+
+	private UUID pageId;
+
+	private String stateId;
+
+	private String encodedPageId;
+
+	@Setup
+	public void setup() {
+		pageId = UUID.randomUUID();
+		stateId = HDIVStateUtils.encode(pageId, 27, "A1B2C3D4E5F6A7B8C9D0E1F2A3B4C5D6");
+		encodedPageId = HDIVStateUtils.uuidToString(pageId);
+	}
+
+	@Benchmark
+	public String encode() {
+		return HDIVStateUtils.encode(pageId, 27, "A1B2C3D4E5F6A7B8C9D0E1F2A3B4C5D6");
+	}
+
+	@Benchmark
+	public UUID parsePageId() {
+		return HDIVStateUtils.parsePageId(encodedPageId);
+	}
+
+	@Benchmark
+	public UUID getPageId() {
+		return HDIVStateUtils.getPageId(stateId);
+	}
+
+}
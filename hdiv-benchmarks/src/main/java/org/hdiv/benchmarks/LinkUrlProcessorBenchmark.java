@@ -0,0 +1,87 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.urlProcessor.LinkUrlProcessor;
+import org.hdiv.util.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processing of the links of a page with {@link LinkUrlProcessor#processUrl(RequestContextHolder, String)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkUrlProcessorBenchmark {
+
+	private static final int LINKS = 50;
+
+	private final String[] urls = new String[LINKS];
+
+	private BenchmarkEnvironment environment;
+
+	private LinkUrlProcessor linkUrlProcessor;
+
+	private RequestContextHolder context;
+
+	@Setup
+	public void setup() {
+		environment = new BenchmarkEnvironment();
+		linkUrlProcessor = environment.getBean(LinkUrlProcessor.class);
+		context = environment.createRequestContext(Method.GET.name(), Fixtures.LIST_ACTION, null);
+		for (int i = 0; i < LINKS; i++) {
+			urls[i] = i % 5 == 0 ? "/static/img/logo" + i + ".png" : Fixtures.listUrl(i);
+		}
+	}
+
+	/**
+	 * Page with {@value #LINKS} links, some of them to excluded resources. Reported time is per link.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LINKS)
+	public String processUrl() {
+		context.getDataComposer().startPage();
+		String result = null;
+		for (String url : urls) {
+			result = linkUrlProcessor.processUrl(context, url);
+		}
+		context.getDataComposer().endPage();
+		return result;
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.services.InvocationMethodProvider;
+import org.hdiv.services.Path;
+import org.hdiv.services.Path.RecordingMethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.objenesis.ObjenesisStd;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Per call cost of {@link Path#on(Class)}, that reuses the generated proxy classes, compared with the previous implementation, that
+ * configured a new {@link Enhancer} for every proxy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathBenchmark {
+
+	private static final ObjenesisStd OBJENESIS = new ObjenesisStd();
+
+	@Setup
+	public void setup() {
+		Path.registerInvocationMethodProvider(new BenchmarkInvocationMethodProvider());
+	}
+
+	@Benchmark
+	public String pathOn() {
+		return Path.path(Path.on(Order.class).getCustomer().getName());
+	}
+
+	/**
+	 * Concurrent calls, that share the cached proxy classes and instantiators.
+	 */
+	@Benchmark
+	@Threads(4)
+	public String pathOnContended() {
+		return Path.path(Path.on(Order.class).getCustomer().getName());
+	}
+
+	@Benchmark
+	public String enhancerPerCallBaseline() {
+		RecordingMethodInterceptor interceptor = new RecordingMethodInterceptor(Order.class);
+		Order order = enhance(Order.class, interceptor);
+		Customer customer = order.getCustomer();
+		customer.getName();
+		return interceptor.getInvocation().toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T enhance(final Class<T> type, final RecordingMethodInterceptor interceptor) {
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(type);
+		enhancer.setInterfaces(new Class<?>[] { InvocationAware.class });
+		enhancer.setCallbackType(org.springframework.cglib.proxy.MethodInterceptor.class);
+		enhancer.setClassLoader(type.getClassLoader());
+
+		Factory factory = (Factory) OBJENESIS.newInstance(enhancer.createClass());
+		factory.setCallbacks(new Callback[] { interceptor });
+		return (T) factory;
+	}
+
+	public static class Order {
+
+		private Customer customer;
+
+		public Customer getCustomer() {
+			return customer;
+		}
+
+	}
+
+	public static class Customer {
+
+		private String name;
+
+		public String getName() {
+			return name;
+		}
+
+	}
+
+	public interface InvocationAware {
+
+		Object getLastInvocation();
+
+		Object getObjectParameters();
+
+	}
+
+	static class BenchmarkInvocationMethodProvider implements InvocationMethodProvider {
+
+		private static final Method lastInvocationDefMethod = ReflectionUtils.findMethod(InvocationAware.class, "getLastInvocation");
+
+		private static final Method objectParametersDefMethod = ReflectionUtils.findMethod(InvocationAware.class, "getObjectParameters");
+
+		public Method getLastInvocationMethod(final Object object) {
+			return ((Invocation) ((InvocationAware) object).getLastInvocation()).method;
+		}
+
+		public Method getLastInvocationDefMethod() {
+			return lastInvocationDefMethod;
+		}
+
+		public Method getObjectParametersDefMethod() {
+			return objectParametersDefMethod;
+		}
+
+		public Class<?> getInvokationAwareClass() {
+			return InvocationAware.class;
+		}
+
+		public Object getMethodInvocationIntance(final Class<?> targetType, final Method method, final Object[] arguments,
+				final Object invocation) {
+			return new Invocation(method, (Invocation) invocation);
+		}
+
+	}
+
+	static class Invocation {
+
+		private final Method method;
+
+		private final Invocation parent;
+
+		Invocation(final Method method, final Invocation parent) {
+			this.method = method;
+			this.parent = parent;
+		}
+
+		@Override
+		public String toString() {
+			String property = Introspector.decapitalize(method.getName().substring(3));
+			return parent != null ? parent.toString() + "." + property : property;
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.state.IState;
+import org.hdiv.state.StateUtil;
+import org.hdiv.util.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Restoration of the state of a request with {@link StateUtil#restoreState(RequestContextHolder, String)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateUtilBenchmark {
+
+	private BenchmarkEnvironment environment;
+
+	private StateUtil stateUtil;
+
+	private RequestContextHolder context;
+
+	private String stateId;
+
+	@Setup
+	public void setup() {
+		environment = new BenchmarkEnvironment();
+		stateUtil = environment.getBean(StateUtil.class);
+
+		RequestContextHolder render = environment.createRequestContext(Method.GET.name(), Fixtures.LIST_ACTION, null);
+		render.getDataComposer().startPage();
+		stateId = Fixtures.composeListLinks(render, 20);
+		render.getDataComposer().endPage();
+
+		context = environment.createRequestContext(Method.GET.name(), Fixtures.LIST_ACTION, null);
+	}
+
+	@Benchmark
+	public IState restoreState() {
+		return stateUtil.restoreState(context, stateId);
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+}
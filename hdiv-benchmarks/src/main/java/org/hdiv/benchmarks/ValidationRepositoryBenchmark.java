@@ -0,0 +1,72 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.validator.IValidation;
+import org.hdiv.validator.ValidationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of the editable validations of a parameter with {@link ValidationRepository#findValidations(String, String)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationRepositoryBenchmark {
+
+	private static final String[][] TARGETS = { { "/app/grid.html", "row[3].name" }, { "/app/grid.html", "row[42].quantity" },
+			{ "/app/list.html", "filter" }, { "/app/search.html", "q" }, { "/other/page.html", "comment" } };
+
+	private BenchmarkEnvironment environment;
+
+	private ValidationRepository validationRepository;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		environment = new BenchmarkEnvironment();
+		validationRepository = environment.getBean(ValidationRepository.class);
+	}
+
+	@Benchmark
+	public List<IValidation> findValidations() {
+		String[] target = TARGETS[next++ % TARGETS.length];
+		return validationRepository.findValidations(target[0], target[1]);
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+}
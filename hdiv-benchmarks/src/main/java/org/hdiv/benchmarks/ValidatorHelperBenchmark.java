@@ -0,0 +1,96 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.filter.IValidationHelper;
+import org.hdiv.filter.ValidationContextImpl;
+import org.hdiv.filter.ValidatorHelperResult;
+import org.hdiv.util.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of a submitted grid form with {@link IValidationHelper#validate(org.hdiv.filter.ValidationContext)}.
+ * <p>
+ * Each invocation validates a new request, as the request wrapper keeps the validated parameters.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatorHelperBenchmark {
+
+	@Param({ "10", "500" })
+	public int rows;
+
+	private BenchmarkEnvironment environment;
+
+	private IValidationHelper helper;
+
+	private Map<String, String[]> parameters;
+
+	private RequestContextHolder request;
+
+	@Setup
+	public void setup() {
+		environment = new BenchmarkEnvironment();
+		helper = environment.getBean(IValidationHelper.class);
+
+		RequestContextHolder render = environment.createRequestContext(Method.GET.name(), Fixtures.GRID_ACTION, null);
+		render.getDataComposer().startPage();
+		parameters = Fixtures.composeGridForm(render, rows);
+		render.getDataComposer().endPage();
+
+		newRequest();
+		if (!validate().isValid()) {
+			throw new IllegalStateException("Benchmark form is not valid");
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void newRequest() {
+		request = environment.createRequestContext(Method.POST.name(), Fixtures.GRID_ACTION, parameters);
+	}
+
+	@Benchmark
+	public ValidatorHelperResult validate() {
+		return helper.validate(new ValidationContextImpl(request, helper, false));
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+}
@@ -17,7 +17,10 @@ package org.hdiv.config.annotation.builders;
 
 import org.hdiv.config.HDIVConfig;
 import org.hdiv.config.Strategy;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.InMemoryMetrics;
 import org.hdiv.regex.PatternMatcherFactory;
+import org.hdiv.session.PageStore;
 
 /**
  * Creates a new instance of {@link HDIVConfig}.
@@ -28,6 +31,20 @@ public class SecurityConfigBuilder {
 
 	protected int maxPagesPerSession;
 
+	protected long maxPageBytesPerSession;
+
+	protected PageStore pageStore;
+
+	protected HdivMetrics metrics;
+
+	protected boolean jmxMetrics;
+
+	protected String signedStateSecret;
+
+	protected int signedStateMaxAge;
+
+	protected boolean signedStateEncryption = true;
+
 	protected SessionExpiredConfigure sessionExpiredConfigure = new SessionExpiredConfigure();
 
 	public SecurityConfigBuilder(final PatternMatcherFactory patternMatcherFactory) {
@@ -86,7 +103,6 @@ public class SecurityConfigBuilder {
 		return this;
 	}
 
-	@Deprecated
 	public SecurityConfigBuilder strategy(final Strategy strategy) {
 		config.setStrategy(strategy);
 		return this;
@@ -109,6 +125,49 @@ public class SecurityConfigBuilder {
 		return this;
 	}
 
+	public SecurityConfigBuilder maxPageBytesPerSession(final long maxPageBytesPerSession) {
+		this.maxPageBytesPerSession = maxPageBytesPerSession;
+		return this;
+	}
+
+	public SecurityConfigBuilder pageStore(final PageStore pageStore) {
+		this.pageStore = pageStore;
+		return this;
+	}
+
+	public SecurityConfigBuilder metrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Publishes the metrics as an MBean of the application. Metrics are aggregated in memory if no other {@link InMemoryMetrics} is
+	 * configured.
+	 *
+	 * @param jmxMetrics true to publish the metrics
+	 * @return this builder
+	 * @since 4.0.0
+	 */
+	public SecurityConfigBuilder jmxMetrics(final boolean jmxMetrics) {
+		this.jmxMetrics = jmxMetrics;
+		return this;
+	}
+
+	public SecurityConfigBuilder signedStateSecret(final String signedStateSecret) {
+		this.signedStateSecret = signedStateSecret;
+		return this;
+	}
+
+	public SecurityConfigBuilder signedStateMaxAge(final int signedStateMaxAge) {
+		this.signedStateMaxAge = signedStateMaxAge;
+		return this;
+	}
+
+	public SecurityConfigBuilder signedStateEncryption(final boolean signedStateEncryption) {
+		this.signedStateEncryption = signedStateEncryption;
+		return this;
+	}
+
 	public SecurityConfigBuilder urlObfuscation(final boolean urlObfuscation) {
 		config.setUrlObfuscation(urlObfuscation);
 		return this;
@@ -124,6 +183,26 @@ public class SecurityConfigBuilder {
 		return this;
 	}
 
+	public SecurityConfigBuilder compactPageSerialization(final boolean compactPageSerialization) {
+		config.setCompactPageSerialization(compactPageSerialization);
+		return this;
+	}
+
+	public SecurityConfigBuilder htmlResponseRewriting(final boolean htmlResponseRewriting) {
+		config.setHtmlResponseRewriting(htmlResponseRewriting);
+		return this;
+	}
+
+	public SecurityConfigBuilder multipartStreamingValidation(final boolean multipartStreamingValidation) {
+		config.setMultipartStreamingValidation(multipartStreamingValidation);
+		return this;
+	}
+
+	public SecurityConfigBuilder writeBehindSession(final boolean writeBehindSession) {
+		config.setWriteBehindSession(writeBehindSession);
+		return this;
+	}
+
 	public SessionExpiredConfigure sessionExpired() {
 		return sessionExpiredConfigure;
 	}
@@ -136,6 +215,34 @@ public class SecurityConfigBuilder {
 		return maxPagesPerSession;
 	}
 
+	public long getMaxPageBytesPerSession() {
+		return maxPageBytesPerSession;
+	}
+
+	public PageStore getPageStore() {
+		return pageStore;
+	}
+
+	public HdivMetrics getMetrics() {
+		return metrics;
+	}
+
+	public boolean isJmxMetrics() {
+		return jmxMetrics;
+	}
+
+	public String getSignedStateSecret() {
+		return signedStateSecret;
+	}
+
+	public int getSignedStateMaxAge() {
+		return signedStateMaxAge;
+	}
+
+	public boolean isSignedStateEncryption() {
+		return signedStateEncryption;
+	}
+
 	public class SessionExpiredConfigure {
 
 		public SessionExpiredConfigure homePage(final String sessionExpiredHomePage) {
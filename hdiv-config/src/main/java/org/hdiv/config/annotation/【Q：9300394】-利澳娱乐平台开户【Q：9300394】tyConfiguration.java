@@ -54,15 +54,24 @@ import org.hdiv.init.SessionInitializer;
 import org.hdiv.logs.IUserData;
 import org.hdiv.logs.Logger;
 import org.hdiv.logs.UserData;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.InMemoryMetrics;
+import org.hdiv.metrics.JmxMetricsExporter;
+import org.hdiv.metrics.NoOpMetrics;
+import org.hdiv.regex.IndexedPatternMatcherFactory;
 import org.hdiv.regex.PatternMatcher;
 import org.hdiv.regex.PatternMatcherFactory;
+import org.hdiv.session.ConcurrentStateCache;
 import org.hdiv.session.ISession;
 import org.hdiv.session.IStateCache;
+import org.hdiv.session.PageStore;
 import org.hdiv.session.SessionHDIV;
-import org.hdiv.session.StateCache;
+import org.hdiv.session.SessionPageStore;
+import org.hdiv.state.SignedStateCodec;
 import org.hdiv.state.StateUtil;
 import org.hdiv.state.scope.AppStateScope;
 import org.hdiv.state.scope.DefaultStateScopeManager;
+import org.hdiv.state.scope.SignedStateScope;
 import org.hdiv.state.scope.StateScope;
 import org.hdiv.state.scope.StateScopeManager;
 import org.hdiv.state.scope.UserSessionStateScope;
@@ -73,6 +82,7 @@ import org.hdiv.validator.DefaultEditableDataValidationProvider;
 import org.hdiv.validator.DefaultValidationRepository;
 import org.hdiv.validator.EditableDataValidationProvider;
 import org.hdiv.validator.IValidation;
+import org.hdiv.validator.LinearEditableDataValidationProvider;
 import org.hdiv.validator.Validation;
 import org.hdiv.validator.ValidationRepository;
 import org.hdiv.validator.ValidationTarget;
@@ -187,7 +197,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 
 	@Bean
 	public PatternMatcherFactory patternMatcherFactory() {
-		return new PatternMatcherFactory();
+		return new IndexedPatternMatcherFactory();
 	}
 
 	@Bean
@@ -224,17 +234,53 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 
 		SecurityConfigBuilder builder = securityConfigBuilder();
 		int maxPagesPerSession = builder.getMaxPagesPerSession();
+		long maxPageBytesPerSession = builder.getMaxPageBytesPerSession();
 
-		StateCache stateCache = new StateCache();
+		ConcurrentStateCache stateCache = new ConcurrentStateCache();
 		if (maxPagesPerSession > 0) {
 			stateCache.setMaxSize(maxPagesPerSession);
 		}
+		if (maxPageBytesPerSession > 0) {
+			stateCache.setMaxBytes(maxPageBytesPerSession);
+		}
 		return stateCache;
 	}
 
+	@Bean
+	public PageStore pageStore() {
+		PageStore pageStore = securityConfigBuilder().getPageStore();
+		return pageStore != null ? pageStore : new SessionPageStore();
+	}
+
+	@Bean
+	public HdivMetrics securityMetrics() {
+		SecurityConfigBuilder builder = securityConfigBuilder();
+		HdivMetrics metrics = builder.getMetrics();
+		if (metrics == null && builder.isJmxMetrics()) {
+			metrics = new InMemoryMetrics();
+		}
+		return metrics != null ? metrics : NoOpMetrics.INSTANCE;
+	}
+
+	/**
+	 * Publishes the metrics when {@link SecurityConfigBuilder#jmxMetrics(boolean)} is enabled. Otherwise the exporter registers nothing.
+	 */
+	@Bean(initMethod = "init")
+	public JmxMetricsExporter securityMetricsExporter() {
+		JmxMetricsExporter exporter = new JmxMetricsExporter();
+		HdivMetrics metrics = securityMetrics();
+		if (securityConfigBuilder().isJmxMetrics() && metrics instanceof InMemoryMetrics) {
+			exporter.setMetrics((InMemoryMetrics) metrics);
+		}
+		return exporter;
+	}
+
 	@Bean
 	public ISession securitySession() {
-		return new SessionHDIV();
+		SessionHDIV session = new SessionHDIV();
+		session.setPageStore(pageStore());
+		session.setMetrics(securityMetrics());
+		return session;
 	}
 
 	@Bean
@@ -243,6 +289,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		stateUtil.setConfig(hdivConfig());
 		stateUtil.setSession(securitySession());
 		stateUtil.setStateScopeManager(stateScopeManager());
+		stateUtil.setMetrics(securityMetrics());
 		stateUtil.init();
 		return stateUtil;
 	}
@@ -259,6 +306,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		List<StateScope> stateScopes = new ArrayList<StateScope>();
 		stateScopes.add(userSessionStateScope());
 		stateScopes.add(appStateScope());
+		stateScopes.add(signedStateScope());
 		return new DefaultStateScopeManager(stateScopes);
 	}
 
@@ -274,6 +322,26 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		return new AppStateScope();
 	}
 
+	@Bean
+	public SignedStateCodec signedStateCodec() {
+
+		SecurityConfigBuilder builder = securityConfigBuilder();
+		SignedStateCodec codec = new SignedStateCodec();
+		codec.setSecret(builder.getSignedStateSecret());
+		if (builder.getSignedStateMaxAge() > 0) {
+			codec.setMaxAge(builder.getSignedStateMaxAge());
+		}
+		codec.setEncryption(builder.isSignedStateEncryption());
+		return codec;
+	}
+
+	@Bean
+	public SignedStateScope signedStateScope() {
+		SignedStateScope scope = new SignedStateScope();
+		scope.setCodec(signedStateCodec());
+		return scope;
+	}
+
 	@Bean
 	public DataComposerFactory dataComposerFactory() {
 		DataComposerFactory dataComposerFactory = new DataComposerFactory();
@@ -282,6 +350,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		dataComposerFactory.setStateUtil(stateUtil());
 		dataComposerFactory.setUidGenerator(uidGenerator());
 		dataComposerFactory.setStateScopeManager(stateScopeManager());
+		dataComposerFactory.setMetrics(securityMetrics());
 		return dataComposerFactory;
 	}
 
@@ -296,6 +365,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		validatorHelperRequest.setUrlProcessor(basicUrlProcessor());
 		validatorHelperRequest.setDataComposerFactory(dataComposerFactory());
 		validatorHelperRequest.setStateScopeManager(stateScopeManager());
+		validatorHelperRequest.setMetrics(securityMetrics());
 		validatorHelperRequest.init();
 		return validatorHelperRequest;
 	}
@@ -305,6 +375,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		DefaultRequestInitializer requestInitializer = new DefaultRequestInitializer();
 		requestInitializer.setConfig(hdivConfig());
 		requestInitializer.setSession(securitySession());
+		requestInitializer.setMetrics(securityMetrics());
 		return requestInitializer;
 	}
 
@@ -322,6 +393,7 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 	public SessionInitializer securitySessionInitializer() {
 		DefaultSessionInitializer sessionInitializer = new DefaultSessionInitializer();
 		sessionInitializer.setConfig(hdivConfig());
+		sessionInitializer.setPageStore(pageStore());
 		return sessionInitializer;
 	}
 
@@ -349,7 +421,18 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 	@Bean
 	public EditableDataValidationProvider editableDataValidationProvider() {
 
-		DefaultEditableDataValidationProvider provider = new DefaultEditableDataValidationProvider();
+		ValidationConfigurer validationConfigurer = new ValidationConfigurer();
+		configureEditableValidation(validationConfigurer);
+
+		DefaultEditableDataValidationProvider provider;
+		if (validationConfigurer.isLinearMatching()) {
+			LinearEditableDataValidationProvider linearProvider = new LinearEditableDataValidationProvider();
+			linearProvider.setMaxValueLength(validationConfigurer.getMaxValueLength());
+			provider = linearProvider;
+		}
+		else {
+			provider = new DefaultEditableDataValidationProvider();
+		}
 		provider.setValidationRepository(editableValidationRepository());
 		return provider;
 	}
@@ -365,9 +448,15 @@ public abstract class AbstractHdivWebSecurityConfiguration {
 		// Validation configuration
 		Map<ValidationTarget, List<IValidation>> validationsData = getValidationsData(defaultRules, customRules);
 
+		ValidationConfigurer validationConfigurer = new ValidationConfigurer();
+		configureEditableValidation(validationConfigurer);
+
 		DefaultValidationRepository repository = new DefaultValidationRepository();
 		repository.setValidations(validationsData);
 		repository.setDefaultValidations(defaultRules);
+		if (validationConfigurer.getCacheSize() > 0) {
+			repository.setCacheSize(validationConfigurer.getCacheSize());
+		}
 		return repository;
 	}
 
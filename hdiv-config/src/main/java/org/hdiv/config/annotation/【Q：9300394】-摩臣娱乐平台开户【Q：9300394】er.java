@@ -31,6 +31,12 @@ public class ValidationConfigurer {
 
 	private final List<ValidationConfig> validationConfigs = new ArrayList<ValidationConfig>();
 
+	private int cacheSize;
+
+	private boolean linearMatching;
+
+	private int maxValueLength;
+
 	/**
 	 * Add an editable validation for all urls.
 	 * 
@@ -56,11 +62,65 @@ public class ValidationConfigurer {
 		return validationConfig.getEditableValidationConfigurer();
 	}
 
+	/**
+	 * Max number of urls whose editable validations are cached.
+	 * 
+	 * @param cacheSize cache size
+	 * @return this configurer
+	 * @since 4.0.0
+	 */
+	public ValidationConfigurer cacheSize(final int cacheSize) {
+		Assert.isTrue(cacheSize > 0, "Cache size must be greater than 0");
+		this.cacheSize = cacheSize;
+		return this;
+	}
+
+	/**
+	 * Evaluate the editable validation patterns with the linear-time engine. Patterns are combined in a single automaton and each value
+	 * is scanned once, so the cost does not depend on the pattern. Patterns with constructs that the engine does not support are evaluated
+	 * with <code>java.util.regex</code>.
+	 * 
+	 * @return this configurer
+	 * @since 4.0.0
+	 */
+	public ValidationConfigurer linearMatching() {
+		linearMatching = true;
+		return this;
+	}
+
+	/**
+	 * Max length of the values validated with the linear-time engine. Longer values are rejected without being scanned.
+	 * 
+	 * @param maxValueLength max number of characters
+	 * @return this configurer
+	 * @since 4.0.0
+	 */
+	public ValidationConfigurer maxValueLength(final int maxValueLength) {
+		Assert.isTrue(maxValueLength > 0, "Max value length must be greater than 0");
+		this.maxValueLength = maxValueLength;
+		return this;
+	}
+
 	protected List<ValidationConfig> getValidationConfigs() {
 
 		return validationConfigs;
 	}
 
+	protected int getCacheSize() {
+
+		return cacheSize;
+	}
+
+	protected boolean isLinearMatching() {
+
+		return linearMatching;
+	}
+
+	protected int getMaxValueLength() {
+
+		return maxValueLength;
+	}
+
 	public class ValidationConfig {
 
 		private String urlPattern;
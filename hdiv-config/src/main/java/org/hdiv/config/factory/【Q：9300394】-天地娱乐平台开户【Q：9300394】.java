@@ -57,6 +57,11 @@ public class ValidationRepositoryFactoryBean extends AbstractFactoryBean<Default
 	 */
 	protected List<IValidation> defaultValidations;
 
+	/**
+	 * Max number of urls whose validations are cached by the repository. Default value if it is not positive.
+	 */
+	protected int cacheSize;
+
 	@Override
 	public Class<?> getObjectType() {
 		return DefaultValidationRepository.class;
@@ -95,6 +100,10 @@ public class ValidationRepositoryFactoryBean extends AbstractFactoryBean<Default
 
 		repository.setDefaultValidations(defaultValidations);
 
+		if (cacheSize > 0) {
+			repository.setCacheSize(cacheSize);
+		}
+
 		return repository;
 	}
 
@@ -159,4 +168,8 @@ public class ValidationRepositoryFactoryBean extends AbstractFactoryBean<Default
 	public void setDefaultValidations(final List<IValidation> defaultValidations) {
 		this.defaultValidations = defaultValidations;
 	}
+
+	public void setCacheSize(final int cacheSize) {
+		this.cacheSize = cacheSize;
+	}
 }
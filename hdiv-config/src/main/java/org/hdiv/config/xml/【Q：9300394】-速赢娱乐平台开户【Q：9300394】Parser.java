@@ -58,14 +58,25 @@ import org.hdiv.init.SessionInitializer;
 import org.hdiv.logs.IUserData;
 import org.hdiv.logs.Logger;
 import org.hdiv.logs.UserData;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.InMemoryMetrics;
+import org.hdiv.metrics.JmxMetricsExporter;
+import org.hdiv.metrics.NoOpMetrics;
+import org.hdiv.regex.IndexedPatternMatcherFactory;
 import org.hdiv.regex.PatternMatcherFactory;
+import org.hdiv.session.ConcurrentStateCache;
 import org.hdiv.session.ISession;
 import org.hdiv.session.IStateCache;
+import org.hdiv.session.KeyValuePageStore;
+import org.hdiv.session.OffHeapPageStore;
+import org.hdiv.session.PageStore;
 import org.hdiv.session.SessionHDIV;
-import org.hdiv.session.StateCache;
+import org.hdiv.session.SessionPageStore;
+import org.hdiv.state.SignedStateCodec;
 import org.hdiv.state.StateUtil;
 import org.hdiv.state.scope.AppStateScope;
 import org.hdiv.state.scope.DefaultStateScopeManager;
+import org.hdiv.state.scope.SignedStateScope;
 import org.hdiv.state.scope.StateScopeManager;
 import org.hdiv.state.scope.UserSessionStateScope;
 import org.hdiv.urlProcessor.BasicUrlProcessor;
@@ -113,6 +124,8 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 
 	private static final String CONFIG = "config";
 
+	private static final String METRICS = "metrics";
+
 	public static final String CONFIG_BEAN_NAME = HDIVConfig.class.getName();
 
 	public static final String PATTERN_MATCHER_FACTORY_NAME = PatternMatcherFactory.class.getName();
@@ -207,6 +220,12 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 
 	protected RuntimeBeanReference validatorErrorHandlerRef;
 
+	protected RuntimeBeanReference pageStoreRef;
+
+	protected RuntimeBeanReference metricsRef;
+
+	protected RuntimeBeanReference signedStateScopeRef;
+
 	protected boolean springVersionGrEqThan4() {
 		String springVersion = SpringVersion.getVersion();
 		if (springVersion == null || springVersion.compareTo(MIN_SPRING_VERSION) >= 0) {
@@ -227,7 +246,10 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		createPageIdGenerator(source, parserContext);
 		userDataRef = createUserData(element, source, parserContext);
 
+		pageStoreRef = createPageStore(element, source, parserContext);
+		metricsRef = createMetrics(element, source, parserContext);
 		sessionRef = createSession(source, parserContext);
+		signedStateScopeRef = createSignedStateScope(element, source, parserContext);
 		stateScopeManagerRef = createStateScopeManager(source, parserContext);
 		validatorErrorHandlerRef = createValidatorErrorHandler(source, parserContext);
 		loggerRef = createLogger(source, parserContext);
@@ -289,7 +311,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 
 	protected RuntimeBeanReference createPatternMatcherFactory(final Object source, final ParserContext parserContext) {
 
-		return createSimpleBean(source, parserContext, PatternMatcherFactory.class, PATTERN_MATCHER_FACTORY_NAME);
+		return createSimpleBean(source, parserContext, IndexedPatternMatcherFactory.class, PATTERN_MATCHER_FACTORY_NAME);
 	}
 
 	protected RuntimeBeanReference createPageIdGenerator(final Object source, final ParserContext parserContext) {
@@ -338,7 +360,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 	}
 
 	protected RuntimeBeanReference createStateCache(final Element element, final Object source, final ParserContext parserContext) {
-		RootBeanDefinition bean = new RootBeanDefinition(StateCache.class);
+		RootBeanDefinition bean = new RootBeanDefinition(ConcurrentStateCache.class);
 		bean.setSource(source);
 		bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
 		bean.setScope(BeanDefinition.SCOPE_PROTOTYPE);
@@ -348,12 +370,53 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 			bean.getPropertyValues().addPropertyValue("maxSize", maxSize);
 		}
 
+		String maxBytes = element.getAttribute("maxPageBytesPerSession");
+		if (StringUtils.hasText(maxBytes)) {
+			bean.getPropertyValues().addPropertyValue("maxBytes", maxBytes);
+		}
+
 		return registerBean(bean, IStateCache.class.getName(), parserContext);
 	}
 
+	protected RuntimeBeanReference createPageStore(final Element element, final Object source, final ParserContext parserContext) {
+
+		Class<?> pageStoreClass = SessionPageStore.class;
+		String pageStore = element.getAttribute("pageStore");
+		if ("off-heap".equals(pageStore)) {
+			pageStoreClass = OffHeapPageStore.class;
+		}
+		else if ("key-value".equals(pageStore)) {
+			pageStoreClass = KeyValuePageStore.class;
+		}
+		return this.createSimpleBean(source, parserContext, pageStoreClass, PageStore.class.getName());
+	}
+
+	protected RuntimeBeanReference createMetrics(final Element element, final Object source, final ParserContext parserContext) {
+
+		String metrics = element.getAttribute(METRICS);
+		if (!"memory".equals(metrics) && !"jmx".equals(metrics)) {
+			return this.createSimpleBean(source, parserContext, NoOpMetrics.class, HdivMetrics.class.getName());
+		}
+		RuntimeBeanReference ref = this.createSimpleBean(source, parserContext, InMemoryMetrics.class, HdivMetrics.class.getName());
+		if ("jmx".equals(metrics)) {
+			RootBeanDefinition bean = new RootBeanDefinition(JmxMetricsExporter.class);
+			bean.setSource(source);
+			bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+			bean.setInitMethodName("init");
+			bean.getPropertyValues().addPropertyValue(METRICS, ref);
+			registerBean(bean, JmxMetricsExporter.class.getName(), parserContext);
+		}
+		return ref;
+	}
+
 	protected RuntimeBeanReference createSession(final Object source, final ParserContext parserContext) {
+		RootBeanDefinition bean = new RootBeanDefinition(SessionHDIV.class);
+		bean.setSource(source);
+		bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		bean.getPropertyValues().addPropertyValue("pageStore", pageStoreRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
-		return this.createSimpleBean(source, parserContext, SessionHDIV.class, ISession.class.getName());
+		return registerBean(bean, ISession.class.getName(), parserContext);
 	}
 
 	protected RuntimeBeanReference createStateUtil(final Object source, final ParserContext parserContext) {
@@ -364,6 +427,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.getPropertyValues().addPropertyValue(CONFIG, configRef);
 		bean.getPropertyValues().addPropertyValue(SESSION, sessionRef);
 		bean.getPropertyValues().addPropertyValue(STATE_SCOPE_MANAGER, stateScopeManagerRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
 		return registerBean(bean, StateUtil.class.getName(), parserContext);
 	}
@@ -385,6 +449,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		ManagedList<RuntimeBeanReference> defs = new ManagedList<RuntimeBeanReference>();
 		defs.add(createUserSessionStateScope(source, parserContext));
 		defs.add(this.createSimpleBean(source, parserContext, AppStateScope.class));
+		defs.add(signedStateScopeRef);
 
 		RootBeanDefinition listBean = new RootBeanDefinition(ListFactoryBean.class);
 		listBean.setSource(source);
@@ -396,6 +461,34 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		return registerBean(bean, StateScopeManager.class.getName(), parserContext);
 	}
 
+	protected RuntimeBeanReference createSignedStateScope(final Element element, final Object source,
+			final ParserContext parserContext) {
+
+		RootBeanDefinition codec = new RootBeanDefinition(SignedStateCodec.class);
+		codec.setSource(source);
+		codec.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+
+		String secret = element.getAttribute("signedStateSecret");
+		String maxAge = element.getAttribute("signedStateMaxAge");
+		String encryption = element.getAttribute("signedStateEncryption");
+		if (StringUtils.hasText(secret)) {
+			codec.getPropertyValues().addPropertyValue("secret", secret);
+		}
+		if (StringUtils.hasText(maxAge)) {
+			codec.getPropertyValues().addPropertyValue("maxAge", maxAge);
+		}
+		if (StringUtils.hasText(encryption)) {
+			codec.getPropertyValues().addPropertyValue("encryption", encryption);
+		}
+
+		RootBeanDefinition bean = new RootBeanDefinition(SignedStateScope.class);
+		bean.setSource(source);
+		bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		bean.getPropertyValues().addPropertyValue("codec", registerBean(codec, SignedStateCodec.class.getName(), parserContext));
+
+		return registerBean(bean, SignedStateScope.class.getName(), parserContext);
+	}
+
 	protected RuntimeBeanReference createUserSessionStateScope(final Object source, final ParserContext parserContext) {
 		RootBeanDefinition bean = new RootBeanDefinition(UserSessionStateScope.class);
 		bean.setSource(source);
@@ -415,6 +508,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.getPropertyValues().addPropertyValue(STATE_UTIL, stateUtilRef);
 		bean.getPropertyValues().addPropertyValue("uidGenerator", uidGeneratorRef);
 		bean.getPropertyValues().addPropertyValue(STATE_SCOPE_MANAGER, stateScopeManagerRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
 		return registerBean(bean, DataComposerFactory.class.getName(), parserContext);
 	}
@@ -432,6 +526,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.getPropertyValues().addPropertyValue("urlProcessor", basicUrlProcessorRef);
 		bean.getPropertyValues().addPropertyValue("dataComposerFactory", dataComposerFactoryRef);
 		bean.getPropertyValues().addPropertyValue(STATE_SCOPE_MANAGER, stateScopeManagerRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
 		return registerBean(bean, IValidationHelper.class.getName(), parserContext);
 	}
@@ -443,6 +538,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
 		bean.getPropertyValues().addPropertyValue(CONFIG, configRef);
 		bean.getPropertyValues().addPropertyValue(SESSION, sessionRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
 		return registerBean(bean, RequestInitializer.class.getName(), parserContext);
 	}
@@ -466,6 +562,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.setSource(source);
 		bean.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
 		bean.getPropertyValues().addPropertyValue(CONFIG, configRef);
+		bean.getPropertyValues().addPropertyValue("pageStore", pageStoreRef);
 
 		return registerBean(bean, SessionInitializer.class.getName(), parserContext);
 	}
@@ -563,6 +660,10 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		String reuseExistingPageInAjaxRequest = element.getAttribute("reuseExistingPageInAjaxRequest");
 		String editableFieldsRequiredByDefault = element.getAttribute("editableFieldsRequiredByDefault");
 		String multipartIntegration = element.getAttribute("multipartIntegration");
+		String compactPageSerialization = element.getAttribute("compactPageSerialization");
+		String htmlResponseRewriting = element.getAttribute("htmlResponseRewriting");
+		String multipartStreamingValidation = element.getAttribute("multipartStreamingValidation");
+		String writeBehindSession = element.getAttribute("writeBehindSession");
 
 		if (StringUtils.hasText(confidentiality)) {
 			bean.getPropertyValues().addPropertyValue("confidentiality", confidentiality);
@@ -620,6 +721,22 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 			bean.getPropertyValues().addPropertyValue("multipartIntegration", multipartIntegration);
 		}
 
+		if (StringUtils.hasText(compactPageSerialization)) {
+			bean.getPropertyValues().addPropertyValue("compactPageSerialization", compactPageSerialization);
+		}
+
+		if (StringUtils.hasText(htmlResponseRewriting)) {
+			bean.getPropertyValues().addPropertyValue("htmlResponseRewriting", htmlResponseRewriting);
+		}
+
+		if (StringUtils.hasText(multipartStreamingValidation)) {
+			bean.getPropertyValues().addPropertyValue("multipartStreamingValidation", multipartStreamingValidation);
+		}
+
+		if (StringUtils.hasText(writeBehindSession)) {
+			bean.getPropertyValues().addPropertyValue("writeBehindSession", writeBehindSession);
+		}
+
 		bean.getPropertyValues().addPropertyValue("editableDataValidationProvider",
 				new RuntimeBeanReference(EditableValidationsBeanDefinitionParser.EDITABLE_VALIDATION_PROVIDER_BEAN_NAME));
 
@@ -668,6 +785,7 @@ public class ConfigBeanDefinitionParser implements BeanDefinitionParser {
 		bean.getPropertyValues().addPropertyValue("urlProcessor", basicUrlProcessorRef);
 		bean.getPropertyValues().addPropertyValue("dataComposerFactory", dataComposerFactoryRef);
 		bean.getPropertyValues().addPropertyValue(STATE_SCOPE_MANAGER, stateScopeManagerRef);
+		bean.getPropertyValues().addPropertyValue(METRICS, metricsRef);
 
 		return registerBean(bean, IValidationHelper.class.getName(), parserContext);
 	}
@@ -26,6 +26,7 @@ import org.hdiv.config.validations.DefaultValidationParser;
 import org.hdiv.config.validations.DefaultValidationParser.ValidationParam;
 import org.hdiv.validator.DefaultEditableDataValidationProvider;
 import org.hdiv.validator.IValidation;
+import org.hdiv.validator.LinearEditableDataValidationProvider;
 import org.hdiv.validator.Validation;
 import org.hdiv.validator.ValidationRepository;
 import org.hdiv.web.validator.EditableParameterValidator;
@@ -39,6 +40,7 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.AbstractSingleBeanDefinitionParser;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -56,6 +58,12 @@ public class EditableValidationsBeanDefinitionParser extends AbstractSingleBeanD
 
 	public static final String EDITABLE_VALIDATOR_BEAN_NAME = "hdivEditableValidator";
 
+	/**
+	 * Value of the <code>regexEngine</code> attribute that selects the linear-time engine.
+	 * @since 4.0.0
+	 */
+	public static final String LINEAR_REGEX_ENGINE = "linear";
+
 	/**
 	 * Is Spring MVC in classpath?
 	 */
@@ -92,6 +100,9 @@ public class EditableValidationsBeanDefinitionParser extends AbstractSingleBeanD
 	 */
 	@Override
 	protected Class<?> getBeanClass(final Element element) {
+		if (isLinearEngine(element)) {
+			return LinearEditableDataValidationProvider.class;
+		}
 		return DefaultEditableDataValidationProvider.class;
 	}
 
@@ -112,6 +123,17 @@ public class EditableValidationsBeanDefinitionParser extends AbstractSingleBeanD
 		RuntimeBeanReference repositoryRef = createValidationRepository(source, parserContext, validationsData, defaultValidations);
 		bean.getBeanDefinition().getPropertyValues().addPropertyValue("validationRepository", repositoryRef);
 
+		String cacheSize = element.getAttribute("cacheSize");
+		if (StringUtils.hasText(cacheSize)) {
+			BeanDefinition repositoryDef = parserContext.getRegistry().getBeanDefinition(repositoryRef.getBeanName());
+			repositoryDef.getPropertyValues().addPropertyValue("cacheSize", cacheSize);
+		}
+
+		String maxValueLength = element.getAttribute("maxValueLength");
+		if (StringUtils.hasText(maxValueLength) && isLinearEngine(element)) {
+			bean.addPropertyValue("maxValueLength", maxValueLength);
+		}
+
 		// Register default editable validation
 		boolean registerDefaults = true;
 		Node named = element.getAttributes().getNamedItem("registerDefaults");
@@ -281,4 +303,8 @@ public class EditableValidationsBeanDefinitionParser extends AbstractSingleBeanD
 		return bean;
 	}
 
+	private boolean isLinearEngine(final Element element) {
+		return LINEAR_REGEX_ENGINE.equals(element.getAttribute("regexEngine"));
+	}
+
 }
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.config.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hdiv.config.annotation.configuration.HdivWebSecurityConfigurerAdapter;
+import org.hdiv.validator.EditableDataValidationProvider;
+import org.hdiv.validator.EditableDataValidationResult;
+import org.hdiv.validator.LinearEditableDataValidationProvider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+// ApplicationContext will be loaded from the static inner ContextConfiguration class
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class)
+public class LinearMatchingTest {
+
+	@Configuration
+	@EnableHdivWebSecurity
+	static class ContextConfiguration extends HdivWebSecurityConfigurerAdapter {
+
+		// @formatter:off
+		@Override
+		public void configureEditableValidation(final ValidationConfigurer validationConfigurer) {
+
+			validationConfigurer
+				.linearMatching()
+				.maxValueLength(10);
+			validationConfigurer
+				.addValidation("/secure/.*");
+		}
+		// @formatter:on
+	}
+
+	@Autowired
+	private EditableDataValidationProvider validationProvider;
+
+	@Test
+	public void provider() {
+
+		assertTrue(validationProvider instanceof LinearEditableDataValidationProvider);
+		assertEquals(10, ((LinearEditableDataValidationProvider) validationProvider).getMaxValueLength());
+	}
+
+	@Test
+	public void validate() {
+
+		assertTrue(validationProvider.validate("/secure/action", "param", new String[] { "text" }, "text").isValid());
+		// Default rules
+		assertFalse(validationProvider.validate("/secure/action", "param", new String[] { "<script>" }, "text").isValid());
+
+		EditableDataValidationResult result = validationProvider.validate("/secure/action", "param", new String[] { "long text value" },
+				"text");
+		assertFalse(result.isValid());
+		assertEquals(LinearEditableDataValidationProvider.MAX_VALUE_LENGTH_VALIDATION_ID, result.getValidationId());
+	}
+
+}
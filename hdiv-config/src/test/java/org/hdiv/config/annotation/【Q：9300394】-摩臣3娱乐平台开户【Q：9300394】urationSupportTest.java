@@ -18,10 +18,17 @@ package org.hdiv.config.annotation;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import org.hdiv.config.HDIVConfig;
 import org.hdiv.config.annotation.builders.SecurityConfigBuilder;
 import org.hdiv.state.scope.StateScopeType;
 import org.hdiv.util.Method;
+import org.hdiv.validator.DefaultValidationRepository;
+import org.hdiv.validator.IValidation;
+import org.hdiv.validator.ValidationTarget;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -122,4 +129,26 @@ public class HdivWebSecurityConfigurationSupportTest {
 		assertEquals(null, config.isLongLivingPages("/noLongLiving.html"));
 	}
 
+	@Test
+	public void validationsDataHook() {
+		HdivWebSecurityConfigurationSupport custom = new HdivWebSecurityConfigurationSupport() {
+
+			@Override
+			public void configureEditableValidation(final ValidationConfigurer validationConfigurer) {
+
+				validationConfigurer.addValidation("/secure/.*");
+				validationConfigurer.cacheSize(10);
+			}
+
+			@Override
+			protected Map<ValidationTarget, List<IValidation>> getValidationsData(final List<IValidation> defaultRules,
+					final Map<String, IValidation> customRules) {
+				return Collections.emptyMap();
+			}
+		};
+
+		DefaultValidationRepository repository = (DefaultValidationRepository) custom.editableValidationRepository();
+		assertEquals(0, repository.getValidations().size());
+	}
+
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.config.xml;
+
+import org.hdiv.validator.EditableDataValidationProvider;
+import org.hdiv.validator.EditableDataValidationResult;
+import org.hdiv.validator.LinearEditableDataValidationProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import junit.framework.TestCase;
+
+public class LinearEngineSchemaTest extends TestCase {
+
+	private ApplicationContext context;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		this.context = new ClassPathXmlApplicationContext("org/hdiv/config/xml/hdiv-config-test-schema-linear.xml");
+	}
+
+	public void testProvider() {
+
+		EditableDataValidationProvider provider = this.context.getBean(EditableDataValidationProvider.class);
+		assertTrue(provider instanceof LinearEditableDataValidationProvider);
+		assertEquals(10, ((LinearEditableDataValidationProvider) provider).getMaxValueLength());
+
+		assertTrue(provider.validate("/secure/action", "param", new String[] { "text" }, "text").isValid());
+		// Default rules
+		assertFalse(provider.validate("/secure/action", "param", new String[] { "<script>" }, "text").isValid());
+
+		EditableDataValidationResult result = provider.validate("/secure/action", "param", new String[] { "long text value" }, "text");
+		assertFalse(result.isValid());
+		assertEquals(LinearEditableDataValidationProvider.MAX_VALUE_LENGTH_VALIDATION_ID, result.getValidationId());
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.config.multipart;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemHeadersSupport;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletRequestContext;
+import org.apache.commons.fileupload.util.Streams;
+import org.hdiv.filter.StreamingMultipartValidator;
+import org.hdiv.filter.ValidationErrorException;
+
+/**
+ * Parses multipart requests with the streaming API of Commons FileUpload, validating each part with a
+ * {@link StreamingMultipartValidator} as soon as it arrives.
+ * <p>
+ * Files are validated before their content is stored, so a file received before the Hdiv state is rejected. If a part is rejected the
+ * body is not read any further and the items already stored are deleted.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public final class StreamingMultipartParser {
+
+	private StreamingMultipartParser() {
+	}
+
+	/**
+	 * Parses the request, returning the same items as {@link FileUploadBase#parseRequest(org.apache.commons.fileupload.RequestContext)}.
+	 *
+	 * @param upload configured upload, with its size limits and item factory
+	 * @param request multipart request
+	 * @param encoding encoding of the text fields, the platform default if null
+	 * @param validator validator of the parts
+	 * @return text and file items, in the order they were received
+	 * @throws FileUploadException if the request can not be parsed or exceeds the configured limits
+	 * @throws IOException if the request can not be read
+	 * @throws ValidationErrorException if a part is not valid
+	 */
+	public static List<FileItem> parseRequest(final FileUploadBase upload, final HttpServletRequest request, final String encoding,
+			final StreamingMultipartValidator validator) throws FileUploadException, IOException {
+
+		List<FileItem> items = new ArrayList<FileItem>();
+		boolean successful = false;
+		try {
+			FileItemIterator iterator = upload.getItemIterator(new ServletRequestContext(request));
+			FileItemFactory factory = upload.getFileItemFactory();
+			if (factory == null) {
+				throw new IllegalStateException("No FileItemFactory has been set.");
+			}
+
+			while (iterator.hasNext()) {
+				FileItemStream stream = iterator.next();
+				String name = stream.getFieldName();
+				if (!stream.isFormField()) {
+					validator.validateFile(name);
+				}
+
+				FileItem item = factory.createItem(name, stream.getContentType(), stream.isFormField(), stream.getName());
+				items.add(item);
+				Streams.copy(stream.openStream(), item.getOutputStream(), true);
+				if (item instanceof FileItemHeadersSupport) {
+					((FileItemHeadersSupport) item).setHeaders(stream.getHeaders());
+				}
+
+				if (item.isFormField()) {
+					validator.validateField(name, getString(item, encoding));
+				}
+			}
+			successful = true;
+			return items;
+		}
+		catch (FileUploadBase.FileUploadIOException e) {
+			// Size limits exceeded while reading a part
+			throw (FileUploadException) e.getCause();
+		}
+		finally {
+			if (!successful) {
+				for (FileItem item : items) {
+					try {
+						item.delete();
+					}
+					catch (Exception e) {
+						// Ignore, the original exception is more relevant
+					}
+				}
+			}
+		}
+	}
+
+	private static String getString(final FileItem item, final String encoding) {
+		if (encoding != null) {
+			try {
+				return item.getString(encoding);
+			}
+			catch (UnsupportedEncodingException e) {
+				// Use the default encoding
+			}
+		}
+		return item.getString();
+	}
+
+}
@@ -18,14 +18,17 @@ package org.hdiv.config;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.regex.DefaultPatternMatcherIndex;
 import org.hdiv.regex.PatternMatcher;
 import org.hdiv.regex.PatternMatcherFactory;
+import org.hdiv.regex.PatternMatcherIndex;
 import org.hdiv.state.IPage;
 import org.hdiv.state.scope.StateScopeType;
 import org.hdiv.util.Method;
@@ -62,11 +65,25 @@ public class HDIVConfig implements Serializable {
 	 */
 	protected StartPage[] startPages = new StartPage[0];
 
+	/**
+	 * Start pages indexed by their url pattern.
+	 * 
+	 * @since 4.0.0
+	 */
+	protected PatternMatcherIndex<StartPage> startPageIndex;
+
 	/**
 	 * List with the parameters that will not be validated by the HDIV filter. The init parameters are initialized by the Spring factory.
 	 */
 	protected List<PatternMatcher> startParameters = new ArrayList<PatternMatcher>();
 
+	/**
+	 * Index of the start parameter patterns.
+	 * 
+	 * @since 4.0.0
+	 */
+	protected PatternMatcherIndex<PatternMatcher> startParameterIndex;
+
 	/**
 	 * Url of the error page to which HDIV will redirect the request if it doesn't pass the HDIV validation.
 	 */
@@ -99,6 +116,13 @@ public class HDIVConfig implements Serializable {
 	 */
 	protected Map<PatternMatcher, List<PatternMatcher>> paramsWithoutValidation;
 
+	/**
+	 * Parameter patterns without validation indexed by their url pattern.
+	 * 
+	 * @since 4.0.0
+	 */
+	protected PatternMatcherIndex<List<PatternMatcher>> paramsWithoutValidationIndex;
+
 	/**
 	 * Validation provider for editable fields (text/textarea).
 	 */
@@ -156,6 +180,13 @@ public class HDIVConfig implements Serializable {
 	 */
 	protected Map<PatternMatcher, String> longLivingPages = new HashMap<PatternMatcher, String>();
 
+	/**
+	 * Long-living page scopes indexed by their url pattern.
+	 * 
+	 * @since 4.0.0
+	 */
+	protected PatternMatcherIndex<String> longLivingPageIndex;
+
 	/**
 	 * True if URLs should be obfuscated
 	 */
@@ -176,8 +207,41 @@ public class HDIVConfig implements Serializable {
 	 */
 	private boolean multipartIntegration = true;
 
-	@Deprecated
+	/**
+	 * Serialize the pages stored in session with a compact binary encoding.
+	 * @since 4.0.0
+	 */
+	private boolean compactPageSerialization = false;
+
+	/**
+	 * Protect the links and forms of HTML responses rewriting the markup instead of using the tag libraries.
+	 * @since 4.0.0
+	 */
+	private boolean htmlResponseRewriting = false;
+
+	/**
+	 * Validate the fields of multipart requests while the body is parsed, rejecting tampered uploads before their files are stored.
+	 * @since 4.0.0
+	 */
+	private boolean multipartStreamingValidation = false;
+
+	/**
+	 * Buffer the session attributes stored during a request and write each one once when the request ends.
+	 * @since 4.0.0
+	 */
+	private boolean writeBehindSession = false;
+
+	/**
+	 * Strategy to store the states.
+	 * @since 4.0.0
+	 */
+	private Strategy strategy = Strategy.MEMORY;
+
+	/**
+	 * @param strategy the strategy to set
+	 */
 	public void setStrategy(final Strategy strategy) {
+		this.strategy = strategy == null ? Strategy.MEMORY : strategy;
 	}
 
 	/**
@@ -188,12 +252,7 @@ public class HDIVConfig implements Serializable {
 	 */
 	public boolean isStartParameter(final String parameter) {
 
-		for (PatternMatcher matcher : startParameters) {
-			if (matcher.matches(parameter)) {
-				return true;
-			}
-		}
-		return false;
+		return startParameterIndex != null && startParameterIndex.matches(parameter);
 	}
 
 	private void addStartPage(final StartPage startPage) {
@@ -205,6 +264,11 @@ public class HDIVConfig implements Serializable {
 		List<StartPage> pages = new ArrayList<StartPage>(Arrays.asList(startPages));
 		pages.add(startPage);
 		startPages = pages.toArray(new StartPage[pages.size()]);
+
+		if (startPageIndex == null) {
+			startPageIndex = createPatternMatcherIndex();
+		}
+		startPageIndex.add(startPage.compiledPattern, startPage);
 	}
 
 	/**
@@ -219,11 +283,12 @@ public class HDIVConfig implements Serializable {
 	}
 
 	public StartPage getStartPage(final String target, final Method method) {
-		for (int i = 0; i < startPages.length; i++) {
-			StartPage startPage = startPages[i];
-			PatternMatcher m = startPage.compiledPattern;
 
-			if (m.matches(target) && (startPage.isAnyMethod() || startPage.method == method)) {
+		if (startPageIndex == null) {
+			return null;
+		}
+		for (StartPage startPage : startPageIndex.findAll(target)) {
+			if (startPage.isAnyMethod() || startPage.method == method) {
 				return startPage;
 			}
 		}
@@ -292,25 +357,42 @@ public class HDIVConfig implements Serializable {
 			return false;
 		}
 
-		if (paramsWithoutValidation == null) {
+		if (paramsWithoutValidationIndex == null) {
 			return false;
 		}
 
-		for (Entry<PatternMatcher, List<PatternMatcher>> entry : paramsWithoutValidation.entrySet()) {
+		for (List<PatternMatcher> paramMatchers : paramsWithoutValidationIndex.findAll(action)) {
 
-			if (entry.getKey().matches(action)) {
+			for (PatternMatcher paramMatcher : paramMatchers) {
 
-				for (PatternMatcher paramMatcher : entry.getValue()) {
-
-					if (paramMatcher.matches(parameter)) {
-						return true;
-					}
+				if (paramMatcher.matches(parameter)) {
+					return true;
 				}
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Obtains the parameter patterns defined by the user as no required validation parameters for the action <code>action</code>.
+	 * 
+	 * @param action action name
+	 * @return Parameter patterns that need no validation. Empty list if there is none.
+	 * @since 4.0.0
+	 */
+	public List<PatternMatcher> getParamsWithoutValidation(final String action) {
+
+		if (action == null || paramsWithoutValidationIndex == null) {
+			return Collections.emptyList();
+		}
+
+		List<PatternMatcher> paramMatchers = new ArrayList<PatternMatcher>();
+		for (List<PatternMatcher> matchers : paramsWithoutValidationIndex.findAll(action)) {
+			paramMatchers.addAll(matchers);
+		}
+		return paramMatchers;
+	}
+
 	/**
 	 * Calculates if the provided url path is configured as a long-living pages.
 	 * 
@@ -319,15 +401,11 @@ public class HDIVConfig implements Serializable {
 	 */
 	public StateScopeType isLongLivingPages(final String url) {
 
-		for (Map.Entry<PatternMatcher, String> page : longLivingPages.entrySet()) {
-
-			PatternMatcher m = page.getKey();
-
-			if (m.matches(url)) {
-				return StateScopeType.byName(page.getValue());
-			}
+		if (longLivingPageIndex == null) {
+			return null;
 		}
-		return null;
+		String scope = longLivingPageIndex.findFirst(url);
+		return scope == null ? null : StateScopeType.byName(scope);
 	}
 
 	/**
@@ -415,6 +493,11 @@ public class HDIVConfig implements Serializable {
 				paramMatchers.add(paramMatcher);
 			}
 		}
+
+		paramsWithoutValidationIndex = createPatternMatcherIndex();
+		for (Entry<PatternMatcher, List<PatternMatcher>> entry : this.paramsWithoutValidation.entrySet()) {
+			paramsWithoutValidationIndex.add(entry.getKey(), entry.getValue());
+		}
 	}
 
 	/**
@@ -440,8 +523,13 @@ public class HDIVConfig implements Serializable {
 	 */
 	public void setUserStartParameters(final List<String> userStartParameters) {
 
+		if (startParameterIndex == null) {
+			startParameterIndex = createPatternMatcherIndex();
+		}
 		for (String useStartParameter : userStartParameters) {
-			startParameters.add(patternMatcherFactory.getPatternMatcher(useStartParameter));
+			PatternMatcher matcher = patternMatcherFactory.getPatternMatcher(useStartParameter);
+			startParameters.add(matcher);
+			startParameterIndex.add(matcher, matcher);
 		}
 	}
 
@@ -540,9 +628,11 @@ public class HDIVConfig implements Serializable {
 		}
 	}
 
-	@Deprecated
+	/**
+	 * @return the strategy
+	 */
 	public Strategy getStrategy() {
-		return Strategy.MEMORY;
+		return strategy;
 	}
 
 	/**
@@ -635,10 +725,14 @@ public class HDIVConfig implements Serializable {
 	 */
 	public void setLongLivingPages(final Map<String, String> longLivingPages) {
 
+		if (longLivingPageIndex == null) {
+			longLivingPageIndex = createPatternMatcherIndex();
+		}
 		for (Map.Entry<String, String> page : longLivingPages.entrySet()) {
 			PatternMatcher pattern = patternMatcherFactory.getPatternMatcher(page.getKey());
 			String scope = page.getValue();
 			this.longLivingPages.put(pattern, scope);
+			longLivingPageIndex.add(pattern, scope);
 		}
 	}
 
@@ -680,6 +774,38 @@ public class HDIVConfig implements Serializable {
 		this.multipartIntegration = multipartIntegration;
 	}
 
+	public boolean isCompactPageSerialization() {
+		return compactPageSerialization;
+	}
+
+	public void setCompactPageSerialization(final boolean compactPageSerialization) {
+		this.compactPageSerialization = compactPageSerialization;
+	}
+
+	public boolean isHtmlResponseRewriting() {
+		return htmlResponseRewriting;
+	}
+
+	public void setHtmlResponseRewriting(final boolean htmlResponseRewriting) {
+		this.htmlResponseRewriting = htmlResponseRewriting;
+	}
+
+	public boolean isMultipartStreamingValidation() {
+		return multipartStreamingValidation;
+	}
+
+	public void setMultipartStreamingValidation(final boolean multipartStreamingValidation) {
+		this.multipartStreamingValidation = multipartStreamingValidation;
+	}
+
+	public boolean isWriteBehindSession() {
+		return writeBehindSession;
+	}
+
+	public void setWriteBehindSession(final boolean writeBehindSession) {
+		this.writeBehindSession = writeBehindSession;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder().append("");
@@ -701,10 +827,21 @@ public class HDIVConfig implements Serializable {
 		result.append(" debugMode=").append(isDebugMode());
 		result.append(" showErrorPageOnEditableValidation=").append(showErrorPageOnEditableValidation);
 		result.append(" multipartIntegration=").append(multipartIntegration);
+		result.append(" compactPageSerialization=").append(compactPageSerialization);
+		result.append(" htmlResponseRewriting=").append(htmlResponseRewriting);
+		result.append(" multipartStreamingValidation=").append(multipartStreamingValidation);
+		result.append(" writeBehindSession=").append(writeBehindSession);
 
 		return result.toString();
 	}
 
+	private <T> PatternMatcherIndex<T> createPatternMatcherIndex() {
+		if (patternMatcherFactory == null) {
+			return new DefaultPatternMatcherIndex<T>();
+		}
+		return patternMatcherFactory.getPatternMatcherIndex();
+	}
+
 	private void noLongerSupportedDisclaimer(final String feature) {
 		System.err.println("**************************************************************");
 		System.err.println("*                                                            *");
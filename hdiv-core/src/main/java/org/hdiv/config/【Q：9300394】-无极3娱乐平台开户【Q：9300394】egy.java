@@ -25,6 +25,13 @@ public enum Strategy {
 	/**
 	 * All the states of the page are stored in the user's HttpSession.
 	 */
-	MEMORY
+	MEMORY,
+
+	/**
+	 * The states are signed and sent to the client, nothing is stored in the user's HttpSession.
+	 *
+	 * @since 4.0.0
+	 */
+	SIGNED
 
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.context;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.session.SessionModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SessionModel} that creates the {@link HttpSession} of the request only when an attribute is stored in it. Reading or removing
+ * attributes never creates a session, so requests that don't store pages, cookies or the page id generator remain sessionless.
+ * <p>
+ * The session is resolved on every access, so a session invalidated during the request is not used again. Writes that can not be stored
+ * are never ignored: if the session has to be created once the response is committed a {@link HDIVException} is thrown, so callers that
+ * store attributes while the response is rendered must invoke {@link #createSession()} before.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class LazyHttpSessionModel implements SessionModel {
+
+	private static final Logger log = LoggerFactory.getLogger(LazyHttpSessionModel.class);
+
+	private final HttpServletRequest request;
+
+	public LazyHttpSessionModel(final HttpServletRequest request) {
+		this.request = request;
+	}
+
+	public Object getAttribute(final String name) {
+		HttpSession session = getHttpSession(false);
+		if (session != null) {
+			try {
+				return session.getAttribute(name);
+			}
+			catch (IllegalStateException e) {
+				log.debug("It was not possible to get an attribute from HttpSession. Msg: {}", e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	public void removeAttribute(final String name) {
+		HttpSession session = getHttpSession(false);
+		if (session != null) {
+			try {
+				session.removeAttribute(name);
+			}
+			catch (IllegalStateException e) {
+				log.debug("It was not possible to remove an attribute from HttpSession. Msg: {}", e.getMessage());
+			}
+		}
+	}
+
+	public void setAttribute(final String name, final Object value) {
+		if (value == null) {
+			// Same as HttpSession.setAttribute with a null value, without creating the session
+			removeAttribute(name);
+			return;
+		}
+		HttpSession session = getHttpSession(true);
+		if (session != null) {
+			try {
+				session.setAttribute(name, value);
+			}
+			catch (IllegalStateException e) {
+				// The session has been invalidated by another request
+				log.error("It was not possible to set the attribute '" + name + "' in HttpSession.", e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the session of the request if it doesn't have one. Must be invoked before the response is committed.
+	 *
+	 * @throws HDIVException if the session can not be created
+	 * @since 4.0.0
+	 */
+	public void createSession() {
+		getHttpSession(true);
+	}
+
+	/**
+	 * @return true if the request has a session
+	 */
+	public boolean hasSession() {
+		return getHttpSession(false) != null;
+	}
+
+	/**
+	 * @return id of the session of the request or null if the request doesn't have a valid session
+	 * @since 4.0.0
+	 */
+	public String getSessionId() {
+		HttpSession session = getHttpSession(false);
+		if (session != null) {
+			try {
+				return session.getId();
+			}
+			catch (IllegalStateException e) {
+				log.debug("It was not possible to get the id of the HttpSession. Msg: {}", e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Obtains the session of the request.
+	 *
+	 * @param create create the session if the request doesn't have one
+	 * @return session or null if it doesn't exist and <code>create</code> is false
+	 * @throws HDIVException if the session has to be created and the response is already committed
+	 */
+	protected HttpSession getHttpSession(final boolean create) {
+		try {
+			return request.getSession(create);
+		}
+		catch (IllegalStateException e) {
+			if (create) {
+				throw new HDIVException("The HttpSession can not be created, the response is already committed.", e);
+			}
+			log.debug("It was not possible to get the HttpSession. Msg: {}", e.getMessage());
+			return null;
+		}
+	}
+
+}
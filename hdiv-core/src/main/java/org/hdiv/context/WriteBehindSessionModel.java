@@ -0,0 +1,200 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.context;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
+import org.hdiv.session.SessionModel;
+
+/**
+ * {@link SessionModel} that buffers the attributes stored or removed during a request and writes each of them once, in
+ * {@link #flush()}. Hdiv updates some attributes several times per request (the state cache, the page id generator, the cookies), and
+ * containers that replicate the session do it on every <code>setAttribute</code>.
+ * <p>
+ * Reads see the buffered values, but other requests of the same session don't see them until the buffer is flushed. Writes are not
+ * buffered while the delegate has no session, so the session is created before the response is committed, nor after
+ * {@link #flush()}, so asynchronous processing that outlives the request is not lost.
+ * </p>
+ * <p>
+ * The buffer belongs to the session that was current when it was filled. If that session is invalidated or replaced during the
+ * request, the buffered writes are dropped instead of being copied to a new session.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class WriteBehindSessionModel implements SessionModel {
+
+	/**
+	 * Marks a buffered removal.
+	 */
+	private static final Object REMOVED = new Object();
+
+	private final SessionModel delegate;
+
+	private final HdivMetrics metrics;
+
+	private final Map<String, Object> pending = new LinkedHashMap<String, Object>();
+
+	private boolean flushed;
+
+	private String sessionId;
+
+	private int absorbedWrites;
+
+	private int flushedWrites;
+
+	public WriteBehindSessionModel(final SessionModel delegate) {
+		this(delegate, NoOpMetrics.INSTANCE);
+	}
+
+	public WriteBehindSessionModel(final SessionModel delegate, final HdivMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	public synchronized Object getAttribute(final String name) {
+		checkSession();
+		Object value = pending.get(name);
+		if (value != null) {
+			return value == REMOVED ? null : value;
+		}
+		return delegate.getAttribute(name);
+	}
+
+	public synchronized void removeAttribute(final String name) {
+		if (flushed) {
+			delegate.removeAttribute(name);
+			return;
+		}
+		buffer(name, REMOVED);
+	}
+
+	public synchronized void setAttribute(final String name, final Object value) {
+		if (value == null) {
+			removeAttribute(name);
+			return;
+		}
+		if (flushed || !hasSession()) {
+			pending.remove(name);
+			delegate.setAttribute(name, value);
+			return;
+		}
+		buffer(name, value);
+	}
+
+	/**
+	 * Writes the buffered attributes to the delegate, once each, in the order they were first modified. Later writes go straight to
+	 * the delegate. Nothing is written if the session the writes were buffered for is no longer the current one.
+	 */
+	public synchronized void flush() {
+		checkSession();
+		for (Iterator<Map.Entry<String, Object>> it = pending.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Object> entry = it.next();
+			if (entry.getValue() == REMOVED) {
+				delegate.removeAttribute(entry.getKey());
+			}
+			else {
+				delegate.setAttribute(entry.getKey(), entry.getValue());
+			}
+			it.remove();
+			flushedWrites++;
+		}
+		if (!flushed) {
+			flushed = true;
+			if (metrics.isEnabled()) {
+				metrics.increment(HdivMetrics.SESSION_WRITES, null, flushedWrites);
+				metrics.increment(HdivMetrics.SESSION_WRITES_ABSORBED, null, absorbedWrites);
+			}
+		}
+	}
+
+	/**
+	 * @return true if there are writes pending to be flushed
+	 */
+	public synchronized boolean hasPendingWrites() {
+		return !pending.isEmpty();
+	}
+
+	/**
+	 * @return number of writes replaced by a later write of the same attribute
+	 */
+	public synchronized int getAbsorbedWrites() {
+		return absorbedWrites;
+	}
+
+	/**
+	 * @return number of writes made to the delegate by {@link #flush()}
+	 */
+	public synchronized int getFlushedWrites() {
+		return flushedWrites;
+	}
+
+	public SessionModel getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Creates the session of the delegate if it is a {@link LazyHttpSessionModel} without session.
+	 *
+	 * @see LazyHttpSessionModel#createSession()
+	 */
+	public void createSession() {
+		if (delegate instanceof LazyHttpSessionModel) {
+			((LazyHttpSessionModel) delegate).createSession();
+		}
+		else if (delegate instanceof WriteBehindSessionModel) {
+			((WriteBehindSessionModel) delegate).createSession();
+		}
+	}
+
+	/**
+	 * Writes are buffered only when the delegate already has a session. Otherwise the first write creates it, while the response can
+	 * still carry the session cookie.
+	 */
+	protected boolean hasSession() {
+		return !(delegate instanceof LazyHttpSessionModel) || ((LazyHttpSessionModel) delegate).hasSession();
+	}
+
+	/**
+	 * @return id of the current session of the delegate or null if it is unknown or there is no session
+	 */
+	protected String getSessionId() {
+		return delegate instanceof LazyHttpSessionModel ? ((LazyHttpSessionModel) delegate).getSessionId() : null;
+	}
+
+	/**
+	 * Drops the buffered writes if the session they were buffered for was invalidated or replaced.
+	 */
+	private void checkSession() {
+		String current = getSessionId();
+		if (sessionId != null && !sessionId.equals(current)) {
+			pending.clear();
+		}
+		sessionId = current;
+	}
+
+	private void buffer(final String name, final Object value) {
+		checkSession();
+		if (pending.put(name, value) != null) {
+			absorbedWrites++;
+		}
+	}
+
+}
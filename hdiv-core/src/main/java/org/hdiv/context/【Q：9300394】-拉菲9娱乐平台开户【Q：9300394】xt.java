@@ -93,9 +93,13 @@ public class RequestContext implements RequestContextHolder {
 		doCreateSession();
 	}
 
+	/**
+	 * Creates the {@link SessionModel} of the request. The {@link javax.servlet.http.HttpSession} itself is created on demand, the first
+	 * time an attribute is stored.
+	 */
 	@Deprecated
 	public void doCreateSession() {
-		session = new HttpSessionModel(request.getSession());
+		session = new LazyHttpSessionModel(request);
 	}
 
 	public final void update(final HttpServletRequest request, final HttpServletResponse response) {
@@ -126,6 +130,16 @@ public class RequestContext implements RequestContextHolder {
 		return session;
 	}
 
+	/**
+	 * Replaces the {@link SessionModel} of the request, for instance with a decorator of the current one.
+	 *
+	 * @param session the session to set
+	 * @since 4.0.0
+	 */
+	public void setSession(final SessionModel session) {
+		this.session = session;
+	}
+
 	public String getHdivParameterName() {
 		return hdivParameterName;
 	}
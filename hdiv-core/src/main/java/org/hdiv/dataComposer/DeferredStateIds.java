@@ -0,0 +1,120 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.dataComposer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hdiv.context.RequestContextHolder;
+
+/**
+ * Identifiers of the states published before their request ends, while the real identifier can't be calculated yet.
+ * <p>
+ * Signed states include all their parameters in the identifier, but some integrations write the state of a form before its fields. In
+ * that case the data composer publishes a placeholder, that the response replaces with the real identifier when the state is ended. The
+ * response retains the content written while there are placeholders pending.
+ * </p>
+ * <p>
+ * Placeholders contain a random key of the request followed by <code>-[stateId]-</code>, so they can't be guessed nor confused with
+ * other placeholders or content of the response.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class DeferredStateIds {
+
+	private static final String ATTRIBUTE_NAME = DeferredStateIds.class.getName();
+
+	private final String key = UUID.randomUUID().toString().replace("-", "");
+
+	private final Map<String, String> ids = new HashMap<String, String>();
+
+	private int pending;
+
+	/**
+	 * Obtains the deferred identifiers of the request.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param create true to create them if the request doesn't have deferred identifiers
+	 * @return deferred identifiers or null
+	 */
+	public static DeferredStateIds get(final RequestContextHolder context, final boolean create) {
+		DeferredStateIds deferred = (DeferredStateIds) context.getAttribute(ATTRIBUTE_NAME);
+		if (deferred == null && create) {
+			deferred = new DeferredStateIds();
+			context.setAttribute(ATTRIBUTE_NAME, deferred);
+		}
+		return deferred;
+	}
+
+	/**
+	 * Creates the placeholder of a state.
+	 *
+	 * @param stateId state identifier
+	 * @return placeholder to publish instead of the state identifier
+	 */
+	public String defer(final int stateId) {
+		pending++;
+		return new StringBuilder(key.length() + 12).append(key).append('-').append(stateId).append('-').toString();
+	}
+
+	/**
+	 * Sets the real identifier of a placeholder.
+	 *
+	 * @param placeholder placeholder returned by {@link #defer(int)}
+	 * @param stateId real state identifier
+	 */
+	public void resolve(final String placeholder, final String stateId) {
+		if (ids.put(placeholder, stateId) == null) {
+			pending--;
+		}
+	}
+
+	/**
+	 * @return true if there are placeholders without real identifier
+	 */
+	public boolean isPending() {
+		return pending > 0;
+	}
+
+	/**
+	 * Replaces the resolved placeholders of a content.
+	 *
+	 * @param content content with placeholders
+	 * @return content with the real identifiers
+	 */
+	public String replace(final CharSequence content) {
+		String text = content.toString();
+		int index = text.indexOf(key);
+		if (index == -1) {
+			return text;
+		}
+		StringBuilder sb = new StringBuilder(text.length() + ids.size() * 64);
+		int last = 0;
+		while (index != -1) {
+			int end = text.indexOf('-', index + key.length() + 1);
+			String stateId = end == -1 ? null : ids.get(text.substring(index, end + 1));
+			if (stateId != null) {
+				sb.append(text, last, index).append(stateId);
+				last = end + 1;
+			}
+			index = text.indexOf(key, stateId != null ? last : index + 1);
+		}
+		return sb.append(text, last, text.length()).toString();
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.hdiv.config.HDIVConfig;
+import org.hdiv.config.Strategy;
 import org.hdiv.context.RequestContextHolder;
 import org.hdiv.idGenerator.UidGenerator;
 import org.hdiv.session.ISession;
@@ -34,6 +35,7 @@ import org.hdiv.state.RandomTokenType;
 import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVUtil;
 import org.hdiv.util.Method;
+import org.hdiv.util.QueryStringTokenizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,6 +92,15 @@ public abstract class AbstractDataComposer implements IDataComposer {
 
 	protected final StringBuilder sb = new StringBuilder(128);
 
+	/**
+	 * Buffers reused by {@link #applyConfidentialityToParams(String)}.
+	 */
+	private final StringBuilder paramsBuilder = new StringBuilder(128);
+
+	private final QueryStringTokenizer paramsTokenizer = new QueryStringTokenizer();
+
+	private final Map<String, Integer> paramsCount = new HashMap<String, Integer>();
+
 	private final String hdivParameterName;
 
 	public AbstractDataComposer(final RequestContextHolder context) {
@@ -105,7 +116,7 @@ public abstract class AbstractDataComposer implements IDataComposer {
 	 * DataComposer initialization with new stack to store all states of the page <code>page</code>.
 	 */
 	public void init() {
-		setPage(new Page(new UUID(0, 0)));
+		setPage(createPage(new UUID(0, 0)));
 		states = new ArrayDeque<IState>();
 	}
 
@@ -119,10 +130,32 @@ public abstract class AbstractDataComposer implements IDataComposer {
 	 * @param parentStateId Parent state id
 	 */
 	public void initPage(final String parentStateId) {
-		setPage(new Page(session.getPageId(context)));
+		// Signed states don't need a page id, avoid creating the session to store the page id generator
+		setPage(createPage(isSignedStrategy() ? new UUID(0, 0) : session.getPageId(context)));
 		page.setParentStateId(parentStateId);
 	}
 
+	/**
+	 * @return true if the states of the page are signed and sent to the client instead of being stored in session
+	 * @since 4.0.0
+	 */
+	protected boolean isSignedStrategy() {
+		return hdivConfig != null && hdivConfig.getStrategy() == Strategy.SIGNED;
+	}
+
+	/**
+	 * Creates a new page instance.
+	 *
+	 * @param pageId page identifier
+	 * @return new page
+	 * @since 4.0.0
+	 */
+	protected Page createPage(final UUID pageId) {
+		Page page = new Page(pageId);
+		page.setCompactSerialization(hdivConfig != null && hdivConfig.isCompactPageSerialization());
+		return page;
+	}
+
 	/**
 	 * Obtains a new unique identifier for the page.
 	 */
@@ -283,21 +316,19 @@ public abstract class AbstractDataComposer implements IDataComposer {
 	 * @param parameters parameters in query format
 	 * @return parameters in query format with confidential values
 	 */
-	protected String applyConfidentialityToParams(String parameters) {
+	protected String applyConfidentialityToParams(final String parameters) {
 
-		Map<String, Integer> pCount = new HashMap<String, Integer>();
-		parameters = parameters.replaceAll("&amp;", "&");
-		String newParameters = parameters;
+		Map<String, Integer> pCount = paramsCount;
+		pCount.clear();
+		StringBuilder newParameters = paramsBuilder;
+		newParameters.setLength(0);
 
-		// Init indexes
-		int beginIndex = 0;
-		int ampIndex = parameters.indexOf('&');
-		int endIndex = ampIndex >= 0 ? ampIndex : parameters.length();
-		do {
-			String param = parameters.substring(beginIndex, endIndex);
-			int index = param.indexOf('=');
-			index = index < 0 ? param.length() : index;
-			String name = param.substring(0, index);
+		QueryStringTokenizer tokenizer = paramsTokenizer.reset(parameters);
+		while (tokenizer.next()) {
+			if (newParameters.length() > 0) {
+				newParameters.append('&');
+			}
+			String name = tokenizer.getName();
 
 			if (isConfidentialParam(name)) {
 				// Parameter is not a start parameter
@@ -306,19 +337,14 @@ public abstract class AbstractDataComposer implements IDataComposer {
 				pCount.put(name, num);
 
 				// Replace parameter with confidential values
-				newParameters = HDIVUtil.replaceOnce(newParameters, param, name + "=" + num);
+				newParameters.append(name).append('=').append(num);
 			}
-
-			// Update indexes
-			beginIndex = endIndex + 1;
-			endIndex = parameters.indexOf('&', endIndex + 1);
-			if (endIndex < 0) {
-				endIndex = parameters.length();
+			else {
+				tokenizer.appendParameter(newParameters);
 			}
+		}
 
-		} while (endIndex > beginIndex);
-
-		return newParameters;
+		return newParameters.toString();
 	}
 
 	/**
@@ -186,6 +186,20 @@ public interface IDataComposer {
 	 */
 	String beginRequest(Method method, String action);
 
+	/**
+	 * It is called by each form whose state id must be known before its fields are composed, for example when the state is written before
+	 * the fields.
+	 *
+	 * @param method HTTP method of the request.
+	 * @param action Action target
+	 * @param stateIdRequired true if the state id must be returned even for strategies that can't precalculate it. A placeholder replaced
+	 * in the response when the request ends is returned in that case.
+	 * @return State id for this request. It can only be null if <code>stateIdRequired</code> is false.
+	 * @see DeferredStateIds
+	 * @since 4.0.0
+	 */
+	String beginRequest(Method method, String action, boolean stateIdRequired);
+
 	/**
 	 * It is called by each request or form of the html page returned by the server, as long as the destiny of the request is an action. The
 	 * created IState is based on the passed as parameter.
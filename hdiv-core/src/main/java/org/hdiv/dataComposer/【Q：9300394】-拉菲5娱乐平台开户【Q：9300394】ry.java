@@ -21,9 +21,12 @@ import java.util.Deque;
 
 import org.hdiv.context.RequestContextHolder;
 import org.hdiv.exception.HDIVException;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.state.IPage;
 import org.hdiv.state.IState;
 import org.hdiv.state.State;
+import org.hdiv.state.scope.SignedStateScope;
 import org.hdiv.state.scope.StateScope;
 import org.hdiv.state.scope.StateScopeManager;
 import org.hdiv.state.scope.StateScopeType;
@@ -67,6 +70,23 @@ public class DataComposerMemory extends AbstractDataComposer {
 
 	protected StateScope stateScope;
 
+	/**
+	 * Signed state whose id was required before ending it.
+	 */
+	private IState deferredState;
+
+	/**
+	 * Placeholder published instead of the id of {@link #deferredState}.
+	 */
+	private String deferredStateId;
+
+	/**
+	 * Instrumentation of the state composition.
+	 *
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
 	public DataComposerMemory(final RequestContextHolder requestContext) {
 		super(requestContext);
 	}
@@ -135,6 +155,23 @@ public class DataComposerMemory extends AbstractDataComposer {
 		return beginRequest(createNewState(page.getNextStateId(), method, action));
 	}
 
+	/**
+	 * With the signed strategy, the id of a signed state is only known when its request ends. For states whose id is required before, a
+	 * placeholder is returned and the response replaces it with the signed id when the request ends.
+	 *
+	 * @see org.hdiv.dataComposer.IDataComposer#beginRequest(org.hdiv.util.Method, java.lang.String, boolean)
+	 * @see DeferredStateIds
+	 */
+	public String beginRequest(final Method method, final String action, final boolean stateIdRequired) {
+		if (!stateIdRequired || !isSignedStrategy() || scopeStack.peek() != StateScopeType.PAGE) {
+			return beginRequest(method, action);
+		}
+		beginRequest(method, action);
+		deferredState = states.peek();
+		deferredStateId = DeferredStateIds.get(context, true).defer(deferredState.getId());
+		return deferredStateId;
+	}
+
 	/**
 	 * Create new {@link IState} instance.
 	 *
@@ -152,6 +189,10 @@ public class DataComposerMemory extends AbstractDataComposer {
 
 	private final StateScope getStateScope() {
 		StateScopeType type = scopeStack.peek();
+		if (type == StateScopeType.PAGE && isSignedStrategy()) {
+			// Page states are not stored in session
+			type = StateScopeType.SIGNED;
+		}
 		if (type != StateScopeType.PAGE) {
 			return stateScopeManager.getStateScope(type);
 		}
@@ -183,13 +224,32 @@ public class DataComposerMemory extends AbstractDataComposer {
 	 * @return Identifier composed by the page identifier and the state identifier.
 	 */
 	public String endRequest() {
+		if (!metrics.isEnabled()) {
+			return doEndRequest();
+		}
+		long start = System.nanoTime();
+		try {
+			return doEndRequest();
+		}
+		finally {
+			metrics.recordTime(HdivMetrics.COMPOSE_TIME, System.nanoTime() - start);
+		}
+	}
+
+	private String doEndRequest() {
 
 		IState state = states.pop();
 
 		// Add to scope
 		if (stateScope != null) {
 			// Its custom Scope
-			return stateScope.addState(context, state, getStateSuffix(state.getTokenType()));
+			String stateId = stateScope.addState(context, state, getStateSuffix(state.getTokenType()));
+			if (state == deferredState) {
+				DeferredStateIds.get(context, true).resolve(deferredStateId, stateId);
+				deferredState = null;
+				deferredStateId = null;
+			}
+			return stateId;
 		}
 
 		// Add to page scope
@@ -229,6 +289,22 @@ public class DataComposerMemory extends AbstractDataComposer {
 		}
 	}
 
+	/**
+	 * With the signed strategy the client is bound to its signed states when the page starts, before the response is committed.
+	 *
+	 * @see SignedStateScope#bind(RequestContextHolder)
+	 */
+	@Override
+	public void initPage(final String parentStateId) {
+		super.initPage(parentStateId);
+		if (isSignedStrategy()) {
+			StateScope signedScope = stateScopeManager.getStateScope(StateScopeType.SIGNED);
+			if (signedScope instanceof SignedStateScope) {
+				((SignedStateScope) signedScope).bind(context);
+			}
+		}
+	}
+
 	/**
 	 * It is called in the pre-processing stage of each user request assigning a new page identifier to the page with its parent state id.
 	 */
@@ -260,6 +336,11 @@ public class DataComposerMemory extends AbstractDataComposer {
 			if (page.getStatesCount() > 0) {
 				// The page has states, update them in session
 				session.addPage(context, page);
+
+				if (metrics.isEnabled()) {
+					metrics.recordValue(HdivMetrics.PAGE_STATES, page.getStatesCount());
+					metrics.increment(HdivMetrics.STATES_COMPOSED, context.getUrlWithoutContextPath(), page.getStatesCount());
+				}
 			}
 			else {
 				if (log.isDebugEnabled()) {
@@ -280,4 +361,12 @@ public class DataComposerMemory extends AbstractDataComposer {
 		this.stateScopeManager = stateScopeManager;
 	}
 
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 }
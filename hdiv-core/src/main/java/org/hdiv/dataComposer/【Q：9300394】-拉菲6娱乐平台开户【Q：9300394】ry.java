@@ -24,6 +24,8 @@ import javax.servlet.http.HttpServletRequest;
 import org.hdiv.config.HDIVConfig;
 import org.hdiv.context.RequestContextHolder;
 import org.hdiv.idGenerator.UidGenerator;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.session.ISession;
 import org.hdiv.state.IPage;
 import org.hdiv.state.IState;
@@ -77,6 +79,13 @@ public class DataComposerFactory {
 	 */
 	protected List<String> excludePageReuseHeaders = Arrays.asList("X-PJAX", "X-HDIV-EXCLUDE-PAGE-REUSE");
 
+	/**
+	 * Instrumentation of the state composition.
+	 *
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
 	@Deprecated
 	public final IDataComposer newInstance(final HttpServletRequest request) {
 		return newInstance(HDIVUtil.getRequestContext(request));
@@ -96,6 +105,7 @@ public class DataComposerFactory {
 		composer.setSession(session);
 		composer.setUidGenerator(uidGenerator);
 		composer.setStateScopeManager(stateScopeManager);
+		composer.setMetrics(metrics);
 		composer.init();
 		initDataComposer(composer, context);
 		return composer;
@@ -255,4 +265,12 @@ public class DataComposerFactory {
 		this.excludePageReuseHeaders = excludePageReuseHeaders;
 	}
 
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 }
@@ -0,0 +1,653 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * {@link Writer} that rewrites the links, forms and form fields of the HTML written to it and passes everything else unchanged to the
+ * wrapped writer.
+ * <p>
+ * The markup is tokenized incrementally: text, comments and the content of <code>script</code>, <code>style</code> and
+ * <code>textarea</code> elements are written as they arrive and only the tag being parsed is buffered, so the memory used does not depend
+ * on the size of the response. Tags longer than the maximum tag length are written without changes.
+ * </p>
+ * Subclasses decide how the values are rewritten:
+ * <ul>
+ * <li>{@link #rewriteLink(String)}: <code>href</code> attribute of <code>a</code> and <code>area</code> tags.</li>
+ * <li>{@link #startForm(String, String, String)}: <code>action</code> attribute of <code>form</code> tags.</li>
+ * <li>{@link #rewriteField(String, String, String)}: values of <code>input</code>, <code>option</code>, <code>textarea</code> and
+ * <code>button</code> tags inside a form.</li>
+ * <li>{@link #endForm()}: hidden fields added before the end of the form.</li>
+ * </ul>
+ * The values are passed to the subclasses with the character references resolved, as the browser sends them, and the values returned
+ * are escaped when they are written. Links and forms whose url is already protected, see {@link #isProtectedUrl(String)}, are not
+ * rewritten.
+ *
+ * @since 4.0.0
+ */
+public abstract class AbstractHtmlRewritingWriter extends Writer {
+
+	/**
+	 * Default maximum number of characters buffered for a single tag.
+	 */
+	public static final int DEFAULT_MAX_TAG_LENGTH = 16 * 1024;
+
+	private static final int TEXT = 0;
+
+	private static final int TAG_OPEN = 1;
+
+	private static final int TAG = 2;
+
+	private static final int COMMENT = 3;
+
+	private static final int RAW_TEXT = 4;
+
+	private static final int RAW_TEXT_END = 5;
+
+	private static final String COMMENT_START = "<!--";
+
+	private final Writer out;
+
+	private final int maxTagLength;
+
+	/**
+	 * Tag being parsed.
+	 */
+	private final StringBuilder tag = new StringBuilder(256);
+
+	private int state = TEXT;
+
+	/**
+	 * Quote character of the attribute value being parsed. 0 if none.
+	 */
+	private char quote;
+
+	/**
+	 * Last character of the current tag that is not a white space.
+	 */
+	private char lastSignificant;
+
+	private int dashes;
+
+	/**
+	 * End tag of the raw text element being written, for example <code>&lt;/script</code>.
+	 */
+	private String rawTextEnd;
+
+	private boolean inForm;
+
+	private String selectName;
+
+	/**
+	 * @param out writer to write the rewritten markup
+	 */
+	protected AbstractHtmlRewritingWriter(final Writer out) {
+		this(out, DEFAULT_MAX_TAG_LENGTH);
+	}
+
+	/**
+	 * @param out writer to write the rewritten markup
+	 * @param maxTagLength maximum number of characters buffered for a single tag
+	 */
+	protected AbstractHtmlRewritingWriter(final Writer out, final int maxTagLength) {
+		super(out);
+		this.out = out;
+		this.maxTagLength = maxTagLength;
+	}
+
+	/**
+	 * Rewrites the url of a link.
+	 *
+	 * @param url link url
+	 * @return new url
+	 */
+	protected abstract String rewriteLink(String url);
+
+	/**
+	 * Starts a form.
+	 *
+	 * @param action form action url
+	 * @param method form method
+	 * @param enctype form encoding type, null if the form doesn't define it
+	 * @return new action url
+	 */
+	protected abstract String startForm(String action, String method, String enctype);
+
+	/**
+	 * Rewrites the value of a form field.
+	 *
+	 * @param name field name
+	 * @param value field value, null if the field has no value
+	 * @param type field type: input type, <code>option</code>, <code>textarea</code> or button type
+	 * @return new value or null to keep the original value
+	 */
+	protected abstract String rewriteField(String name, String value, String type);
+
+	/**
+	 * Ends the current form.
+	 *
+	 * @return hidden fields to add to the form, may be null
+	 */
+	protected abstract Map<String, String> endForm();
+
+	/**
+	 * Checks if the url of a link or a form has already been protected, for example by a tag library. The link or the form is then
+	 * written without changes.
+	 *
+	 * @param url link or form action url
+	 * @return true if the url must not be rewritten
+	 */
+	protected boolean isProtectedUrl(final String url) {
+		return false;
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len) throws IOException {
+
+		// Start of the characters to write unchanged
+		int run = off;
+		final int end = off + len;
+		for (int i = off; i < end; i++) {
+			char c = cbuf[i];
+			if (state == TEXT || state == RAW_TEXT) {
+				if (c == '<') {
+					out.write(cbuf, run, i - run);
+					startTag(state == TEXT ? TAG_OPEN : RAW_TEXT_END);
+					run = i + 1;
+				}
+			}
+			else if (state == COMMENT) {
+				if (c == '>' && dashes >= 2) {
+					state = TEXT;
+				}
+				dashes = c == '-' ? dashes + 1 : 0;
+			}
+			else {
+				parse(c);
+				run = i + 1;
+			}
+		}
+		if (end > run) {
+			out.write(cbuf, run, end - run);
+		}
+	}
+
+	private void startTag(final int newState) {
+		tag.setLength(0);
+		tag.append('<');
+		quote = 0;
+		lastSignificant = '<';
+		state = newState;
+	}
+
+	/**
+	 * Adds a character to the tag being parsed.
+	 */
+	private void parse(final char c) throws IOException {
+
+		if (state == TAG_OPEN) {
+			if (c == '<') {
+				// Not a tag, start again
+				out.write('<');
+				return;
+			}
+			tag.append(c);
+			if (c == '/' || c == '!' || c == '?' || Character.isLetter(c)) {
+				state = TAG;
+			}
+			else {
+				writeTag(TEXT);
+			}
+			return;
+		}
+
+		if (state == RAW_TEXT_END) {
+			if (c == '<') {
+				out.append(tag);
+				startTag(RAW_TEXT_END);
+				return;
+			}
+			tag.append(c);
+			int index = tag.length() - 1;
+			if (Character.toLowerCase(c) != rawTextEnd.charAt(index)) {
+				writeTag(RAW_TEXT);
+			}
+			else if (index == rawTextEnd.length() - 1) {
+				state = TAG;
+			}
+			return;
+		}
+
+		tag.append(c);
+		if (quote != 0) {
+			if (c == quote) {
+				quote = 0;
+			}
+		}
+		else if ((c == '"' || c == '\'') && lastSignificant == '=') {
+			quote = c;
+		}
+		else if (c == '>') {
+			processTag();
+			return;
+		}
+		if (!Character.isWhitespace(c)) {
+			lastSignificant = c;
+		}
+
+		if (tag.length() == COMMENT_START.length() && COMMENT_START.contentEquals(tag)) {
+			dashes = 0;
+			writeTag(COMMENT);
+		}
+		else if (tag.length() > maxTagLength) {
+			writeTag(TEXT);
+		}
+	}
+
+	private void writeTag(final int newState) throws IOException {
+		out.append(tag);
+		tag.setLength(0);
+		state = newState;
+	}
+
+	/**
+	 * Rewrites a complete tag and writes it.
+	 */
+	private void processTag() throws IOException {
+
+		Tag current = new Tag(tag.toString());
+		String name = current.name;
+		int newState = TEXT;
+
+		if (current.endTag) {
+			if ("form".equals(name) && inForm) {
+				inForm = false;
+				selectName = null;
+				writeHiddenFields(endForm());
+			}
+			else if ("select".equals(name)) {
+				selectName = null;
+			}
+		}
+		else if ("a".equals(name) || "area".equals(name)) {
+			String href = current.getAttribute("href");
+			if (href != null && !isProtectedUrl(href)) {
+				current.setAttribute("href", rewriteLink(href));
+			}
+		}
+		else if ("form".equals(name)) {
+			String action = current.getAttribute("action");
+			if (action == null || !isProtectedUrl(action)) {
+				String method = current.getAttribute("method");
+				String newAction = startForm(action == null ? "" : action, method == null ? "GET" : method, current.getAttribute("enctype"));
+				if (action != null || newAction != null && newAction.length() > 0) {
+					current.setAttribute("action", newAction);
+				}
+				inForm = true;
+			}
+		}
+		else if ("script".equals(name) || "style".equals(name)) {
+			newState = current.selfClosing ? TEXT : RAW_TEXT;
+		}
+		else if (inForm) {
+			newState = processField(current);
+		}
+
+		if (newState == RAW_TEXT) {
+			rawTextEnd = "</" + name;
+		}
+		current.write(out);
+		tag.setLength(0);
+		state = newState;
+	}
+
+	private int processField(final Tag current) {
+
+		String name = current.name;
+		if ("input".equals(name)) {
+			String fieldName = current.getAttribute("name");
+			if (fieldName != null) {
+				String type = current.getAttribute("type");
+				type = type == null ? "text" : type.toLowerCase(Locale.ENGLISH);
+				String value = current.getAttribute("value");
+				if (value == null && ("checkbox".equals(type) || "radio".equals(type))) {
+					value = "on";
+				}
+				current.setAttribute("value", rewriteField(fieldName, value, type));
+			}
+		}
+		else if ("select".equals(name)) {
+			selectName = current.getAttribute("name");
+		}
+		else if ("option".equals(name)) {
+			String value = current.getAttribute("value");
+			if (selectName != null && value != null) {
+				current.setAttribute("value", rewriteField(selectName, value, "option"));
+			}
+		}
+		else if ("textarea".equals(name)) {
+			String fieldName = current.getAttribute("name");
+			if (fieldName != null) {
+				rewriteField(fieldName, null, "textarea");
+			}
+			return current.selfClosing ? TEXT : RAW_TEXT;
+		}
+		else if ("button".equals(name)) {
+			String fieldName = current.getAttribute("name");
+			String value = current.getAttribute("value");
+			if (fieldName != null && value != null) {
+				String type = current.getAttribute("type");
+				type = type == null ? "submit" : type.toLowerCase(Locale.ENGLISH);
+				current.setAttribute("value", rewriteField(fieldName, value, type));
+			}
+		}
+		return TEXT;
+	}
+
+	private void writeHiddenFields(final Map<String, String> fields) throws IOException {
+		if (fields == null) {
+			return;
+		}
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			out.write("<input type=\"hidden\" name=\"");
+			out.write(escape(field.getKey()));
+			out.write("\" value=\"");
+			out.write(escape(field.getValue()));
+			out.write("\" />");
+		}
+	}
+
+	/**
+	 * Writes the buffered text. A tag that is not complete yet is kept.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Writes any incomplete tag unchanged and closes the wrapped writer.
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+
+	/**
+	 * Writes any incomplete tag unchanged, so all the markup received is written to the wrapped writer.
+	 *
+	 * @throws IOException if the markup can not be written
+	 */
+	public void finish() throws IOException {
+		if (tag.length() > 0) {
+			out.append(tag);
+			tag.setLength(0);
+		}
+		state = TEXT;
+		out.flush();
+	}
+
+	/**
+	 * Escapes the characters of an attribute value that are not valid inside double quotes. The value has no character references, so
+	 * every <code>&amp;</code> is escaped.
+	 */
+	static String escape(final String value) {
+		StringBuilder sb = null;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String replacement = null;
+			if (c == '"') {
+				replacement = "&quot;";
+			}
+			else if (c == '<') {
+				replacement = "&lt;";
+			}
+			else if (c == '>') {
+				replacement = "&gt;";
+			}
+			else if (c == '&') {
+				replacement = "&amp;";
+			}
+			if (replacement != null && sb == null) {
+				sb = new StringBuilder(value.length() + 16);
+				sb.append(value, 0, i);
+			}
+			if (sb != null) {
+				if (replacement != null) {
+					sb.append(replacement);
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb == null ? value : sb.toString();
+	}
+
+	/**
+	 * Parsed start or end tag.
+	 */
+	static final class Tag {
+
+		private final String markup;
+
+		final String name;
+
+		final boolean endTag;
+
+		final boolean selfClosing;
+
+		/**
+		 * End of the tag name.
+		 */
+		private final int nameEnd;
+
+		private final List<Attribute> attributes = new ArrayList<Attribute>();
+
+		Tag(final String markup) {
+			this.markup = markup;
+			int length = markup.length();
+			int i = 1;
+			endTag = length > 1 && markup.charAt(1) == '/';
+			if (endTag) {
+				i++;
+			}
+			int nameStart = i;
+			while (i < length && isNameCharacter(markup.charAt(i))) {
+				i++;
+			}
+			nameEnd = i;
+			name = markup.substring(nameStart, i).toLowerCase(Locale.ENGLISH);
+			selfClosing = length > 1 && markup.charAt(length - 2) == '/';
+			if (!endTag && name.length() > 0) {
+				parseAttributes(i);
+			}
+		}
+
+		private void parseAttributes(int i) {
+			final int length = markup.length() - 1;
+			while (i < length) {
+				char c = markup.charAt(i);
+				if (Character.isWhitespace(c) || c == '/') {
+					i++;
+					continue;
+				}
+				int nameStart = i;
+				while (i < length && !Character.isWhitespace(markup.charAt(i)) && markup.charAt(i) != '=' && markup.charAt(i) != '/') {
+					i++;
+				}
+				Attribute attribute = new Attribute(markup.substring(nameStart, i).toLowerCase(Locale.ENGLISH));
+				attribute.nameEnd = i;
+				while (i < length && Character.isWhitespace(markup.charAt(i))) {
+					i++;
+				}
+				if (i < length && markup.charAt(i) == '=') {
+					i++;
+					while (i < length && Character.isWhitespace(markup.charAt(i))) {
+						i++;
+					}
+					char valueQuote = i < length ? markup.charAt(i) : 0;
+					if (valueQuote == '"' || valueQuote == '\'') {
+						attribute.valueStart = ++i;
+						while (i < length && markup.charAt(i) != valueQuote) {
+							i++;
+						}
+						attribute.valueEnd = i;
+						attribute.replaceStart = attribute.valueStart - 1;
+						attribute.replaceEnd = Math.min(i + 1, length);
+						i++;
+					}
+					else {
+						attribute.valueStart = i;
+						while (i < length && !Character.isWhitespace(markup.charAt(i))) {
+							i++;
+						}
+						attribute.valueEnd = i;
+						attribute.replaceStart = attribute.valueStart;
+						attribute.replaceEnd = i;
+					}
+				}
+				attributes.add(attribute);
+			}
+		}
+
+		private static boolean isNameCharacter(final char c) {
+			return !Character.isWhitespace(c) && c != '/' && c != '>';
+		}
+
+		private Attribute find(final String attributeName) {
+			for (Attribute attribute : attributes) {
+				if (attribute.name.equals(attributeName)) {
+					return attribute;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return value of the attribute with the character references resolved, null if the tag does not have it
+		 */
+		String getAttribute(final String attributeName) {
+			Attribute attribute = find(attributeName);
+			if (attribute == null) {
+				return null;
+			}
+			return attribute.valueStart < 0 ? "" : getValue(attribute);
+		}
+
+		private String getValue(final Attribute attribute) {
+			String value = markup.substring(attribute.valueStart, attribute.valueEnd);
+			return value.indexOf('&') < 0 ? value : HtmlUtils.htmlUnescape(value);
+		}
+
+		/**
+		 * Replaces the value of an attribute or adds it if the tag does not have it. Null values are ignored.
+		 */
+		void setAttribute(final String attributeName, final String value) {
+			if (value == null) {
+				return;
+			}
+			Attribute attribute = find(attributeName);
+			if (attribute == null) {
+				attribute = new Attribute(attributeName);
+				attributes.add(attribute);
+			}
+			else if (attribute.valueStart >= 0 && value.equals(getValue(attribute))) {
+				return;
+			}
+			attribute.newValue = value;
+		}
+
+		void write(final Writer out) throws IOException {
+			int position = 0;
+			for (Attribute attribute : attributes) {
+				if (attribute.newValue != null && attribute.nameEnd < 0) {
+					// New attribute, added after the tag name
+					if (position == 0) {
+						out.write(markup, 0, nameEnd);
+						position = nameEnd;
+					}
+					out.write(' ');
+					out.write(attribute.name);
+					out.write('=');
+					writeValue(out, attribute.newValue);
+				}
+			}
+			for (Attribute attribute : attributes) {
+				if (attribute.newValue != null && attribute.nameEnd >= 0) {
+					if (attribute.replaceStart >= 0) {
+						out.write(markup, position, attribute.replaceStart - position);
+						position = attribute.replaceEnd;
+					}
+					else {
+						// Attribute without value
+						out.write(markup, position, attribute.nameEnd - position);
+						out.write('=');
+						position = attribute.nameEnd;
+					}
+					writeValue(out, attribute.newValue);
+				}
+			}
+			out.write(markup, position, markup.length() - position);
+		}
+
+		private static void writeValue(final Writer out, final String value) throws IOException {
+			out.write('"');
+			out.write(escape(value));
+			out.write('"');
+		}
+	}
+
+	/**
+	 * Attribute of a {@link Tag}.
+	 */
+	static final class Attribute {
+
+		final String name;
+
+		/**
+		 * End of the attribute name in the tag. -1 for added attributes.
+		 */
+		int nameEnd = -1;
+
+		int valueStart = -1;
+
+		int valueEnd = -1;
+
+		/**
+		 * Range of the value including the quotes.
+		 */
+		int replaceStart = -1;
+
+		int replaceEnd = -1;
+
+		String newValue;
+
+		Attribute(final String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import javax.servlet.ServletOutputStream;
+
+/**
+ * {@link ServletOutputStream} that decodes the bytes written to it and passes the characters to an {@link AbstractHtmlRewritingWriter}.
+ * The rewritten markup is encoded again with the same charset and written to the wrapped stream. Only fixed size buffers are used.
+ *
+ * @since 4.0.0
+ */
+public class HtmlRewritingOutputStream extends ServletOutputStream {
+
+	private static final int BUFFER_SIZE = 4096;
+
+	private final CharsetDecoder decoder;
+
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+	private final EncodingWriter target;
+
+	private AbstractHtmlRewritingWriter writer;
+
+	/**
+	 * @param out wrapped stream
+	 * @param charset charset of the markup
+	 */
+	public HtmlRewritingOutputStream(final OutputStream out, final Charset charset) {
+		decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		target = new EncodingWriter(out, charset);
+	}
+
+	/**
+	 * @return writer that encodes the rewritten markup to the wrapped stream
+	 */
+	public Writer getTarget() {
+		return target;
+	}
+
+	/**
+	 * @param writer rewriting writer that writes to {@link #getTarget()}
+	 */
+	public void setWriter(final AbstractHtmlRewritingWriter writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		bytes.put((byte) b);
+		if (!bytes.hasRemaining()) {
+			decode(false);
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int count = Math.min(len, bytes.remaining());
+			bytes.put(b, off, count);
+			off += count;
+			len -= count;
+			if (!bytes.hasRemaining()) {
+				decode(false);
+			}
+		}
+	}
+
+	private void decode(final boolean endOfInput) throws IOException {
+		bytes.flip();
+		CoderResult result;
+		do {
+			result = decoder.decode(bytes, chars, endOfInput);
+			writeChars();
+		} while (result.isOverflow());
+		bytes.compact();
+
+		if (endOfInput) {
+			while (decoder.flush(chars).isOverflow()) {
+				writeChars();
+			}
+			writeChars();
+			decoder.reset();
+		}
+	}
+
+	private void writeChars() throws IOException {
+		chars.flip();
+		if (chars.hasRemaining()) {
+			writer.write(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+		}
+		chars.clear();
+	}
+
+	/**
+	 * Writes all the decoded markup, except an incomplete tag, and flushes the wrapped stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		decode(false);
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		decode(true);
+		writer.close();
+	}
+
+	/**
+	 * Writes all the received markup to the wrapped stream without flushing it.
+	 *
+	 * @throws IOException if the markup can not be written
+	 */
+	public void finish() throws IOException {
+		decode(true);
+		writer.finish();
+		target.drain();
+	}
+
+	/**
+	 * Writer that encodes the characters to a stream.
+	 */
+	private static class EncodingWriter extends Writer {
+
+		private final OutputStream out;
+
+		private final CharsetEncoder encoder;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		EncodingWriter(final OutputStream out, final Charset charset) {
+			this.out = out;
+			encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+
+		/**
+		 * High surrogate received at the end of the previous write.
+		 */
+		private char pending;
+
+		private boolean hasPending;
+
+		@Override
+		public void write(final char[] cbuf, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+			if (hasPending) {
+				hasPending = false;
+				encode(CharBuffer.wrap(new char[] { pending, cbuf[off] }));
+				off++;
+				len--;
+			}
+			encode(CharBuffer.wrap(cbuf, off, len));
+		}
+
+		private void encode(final CharBuffer input) throws IOException {
+			while (encoder.encode(input, buffer, false).isOverflow()) {
+				drain();
+			}
+			if (input.hasRemaining()) {
+				// Incomplete surrogate pair, keep it for the next write
+				pending = input.get();
+				hasPending = true;
+			}
+		}
+
+		void drain() throws IOException {
+			buffer.flip();
+			out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+			buffer.clear();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			drain();
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			drain();
+			out.close();
+		}
+	}
+
+}
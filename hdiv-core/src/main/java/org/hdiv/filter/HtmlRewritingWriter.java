@@ -0,0 +1,168 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.urlProcessor.FormUrlProcessor;
+import org.hdiv.urlProcessor.LinkUrlProcessor;
+import org.hdiv.util.Method;
+
+/**
+ * {@link AbstractHtmlRewritingWriter} that protects the links and forms of the response with the {@link IDataComposer} of the request,
+ * in the same way the tag libraries of the supported frameworks do.
+ *
+ * @since 4.0.0
+ */
+public class HtmlRewritingWriter extends AbstractHtmlRewritingWriter {
+
+	/**
+	 * No editable field types.
+	 */
+	private static final Set<String> NO_EDITABLE_TYPES = new HashSet<String>();
+
+	static {
+		NO_EDITABLE_TYPES.add("checkbox");
+		NO_EDITABLE_TYPES.add("hidden");
+		NO_EDITABLE_TYPES.add("option");
+		NO_EDITABLE_TYPES.add("radio");
+		NO_EDITABLE_TYPES.add("select");
+		NO_EDITABLE_TYPES.add("submit");
+		NO_EDITABLE_TYPES.add("reset");
+		NO_EDITABLE_TYPES.add("button");
+	}
+
+	protected final RequestContextHolder context;
+
+	protected final LinkUrlProcessor linkUrlProcessor;
+
+	protected final FormUrlProcessor formUrlProcessor;
+
+	/**
+	 * True if the state of the current form has been added to its action url.
+	 */
+	private boolean stateInAction;
+
+	/**
+	 * @param out writer to write the rewritten markup
+	 * @param context request context
+	 * @param linkUrlProcessor link url processor
+	 * @param formUrlProcessor form url processor
+	 */
+	public HtmlRewritingWriter(final Writer out, final RequestContextHolder context, final LinkUrlProcessor linkUrlProcessor,
+			final FormUrlProcessor formUrlProcessor) {
+		super(out);
+		this.context = context;
+		this.linkUrlProcessor = linkUrlProcessor;
+		this.formUrlProcessor = formUrlProcessor;
+	}
+
+	@Override
+	protected String rewriteLink(final String url) {
+		return linkUrlProcessor.processUrl(context, url);
+	}
+
+	@Override
+	protected String startForm(final String action, final String method, final String enctype) {
+		boolean multipart = enctype != null && enctype.trim().equalsIgnoreCase("multipart/form-data");
+		String newAction = formUrlProcessor.processUrl(context, action, Method.secureValueOf(method), false, multipart);
+		stateInAction = multipart && hasParameter(newAction, context.getHdivParameterName());
+		return newAction;
+	}
+
+	/**
+	 * Urls with the state parameter have been processed by the tag libraries.
+	 */
+	@Override
+	protected boolean isProtectedUrl(final String url) {
+		return hasParameter(url, context.getHdivParameterName());
+	}
+
+	@Override
+	protected String rewriteField(final String name, final String value, final String type) {
+
+		IDataComposer dataComposer = context.getDataComposer();
+		if (dataComposer == null || !dataComposer.isRequestStarted()) {
+			return null;
+		}
+
+		String fieldValue = value;
+		if (fieldValue == null || !NO_EDITABLE_TYPES.contains(type)) {
+			// Buttons without value send a value chosen by the browser
+			dataComposer.composeFormField(name, fieldValue, true, type);
+			return null;
+		}
+		String composedValue = dataComposer.composeFormField(name, fieldValue, false, type, "hidden".equals(type));
+		// Keep the original markup if the value is not replaced
+		return fieldValue.equals(composedValue) ? null : composedValue;
+	}
+
+	@Override
+	protected Map<String, String> endForm() {
+
+		IDataComposer dataComposer = context.getDataComposer();
+		if (dataComposer == null || !dataComposer.isRequestStarted()) {
+			return null;
+		}
+
+		String requestId = dataComposer.endRequest();
+		if (requestId == null || requestId.length() == 0 || stateInAction) {
+			// The state of multipart forms is sent in the action url
+			return null;
+		}
+
+		// Publish the state in request to make it accessible
+		context.setFormStateId(requestId);
+
+		Map<String, String> fields = new HashMap<String, String>();
+		fields.put(dataComposer.getHdivParameterName(), requestId);
+		return fields;
+	}
+
+	/**
+	 * Checks if the query string of an url has a parameter.
+	 *
+	 * @param url url
+	 * @param parameter parameter name, may be null
+	 * @return true if the url has the parameter
+	 */
+	static boolean hasParameter(final String url, final String parameter) {
+		if (parameter == null || parameter.length() == 0) {
+			return false;
+		}
+		int end = url.indexOf('#');
+		if (end < 0) {
+			end = url.length();
+		}
+		int separator = url.indexOf('?');
+		while (separator >= 0 && separator < end) {
+			int start = separator + 1;
+			int nameEnd = start + parameter.length();
+			if (url.startsWith(parameter, start) && (nameEnd == end || url.charAt(nameEnd) == '=' || url.charAt(nameEnd) == '&')) {
+				return true;
+			}
+			separator = url.indexOf('&', start);
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.state.IParameter;
+import org.hdiv.state.IState;
+import org.hdiv.urlProcessor.UrlData;
+import org.hdiv.util.HDIVErrorCodes;
+import org.hdiv.util.HDIVUtil;
+import org.hdiv.util.QueryStringTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates the fields of a multipart request while its body is being parsed, so that tampered requests are rejected before the rest of
+ * the body is read and stored.
+ * <p>
+ * Once the Hdiv state is received, in the query string or in a field of the body, the names of the fields and files and the values of
+ * the non editable fields are checked against it. Fields received before the state are checked when the state arrives. Files received
+ * before the state are rejected, as they would be stored without validation: the forms composed by Hdiv send the state of multipart
+ * forms in the action url, see {@link org.hdiv.urlProcessor.FormUrlProcessor}. Only checks that do not modify the request are done here,
+ * the complete validation is done by {@link ValidatorHelperRequest#validate(ValidationContext)} once the whole body has been parsed.
+ * </p>
+ * Instances are not thread safe, one is created for each request.
+ *
+ * @since 4.0.0
+ */
+public class StreamingMultipartValidator {
+
+	private static final Logger log = LoggerFactory.getLogger(StreamingMultipartValidator.class);
+
+	protected final ValidatorHelperRequest helper;
+
+	protected final ValidationContext context;
+
+	protected final RequestContextHolder requestContext;
+
+	protected final String hdivParameter;
+
+	/**
+	 * False if the request does not need validation or it can not be validated before the body is parsed.
+	 */
+	protected final boolean enabled;
+
+	protected String target;
+
+	protected IState state;
+
+	/**
+	 * Value of the state parameter the state has been restored from.
+	 */
+	protected String requestState;
+
+	protected Map<String, String[]> stateParams;
+
+	/**
+	 * Values received for each field.
+	 */
+	private final Map<String, List<String>> fields = new LinkedHashMap<String, List<String>>();
+
+	public StreamingMultipartValidator(final ValidatorHelperRequest helper, final ValidationContext context) {
+		this.helper = helper;
+		this.context = context;
+		requestContext = context.getRequestContext();
+		hdivParameter = requestContext.getHdivParameterName();
+		enabled = isValidationRequired();
+		if (enabled) {
+			String requestState = getQueryStringState();
+			if (requestState != null) {
+				restoreState(requestState);
+			}
+		}
+	}
+
+	/**
+	 * Validates a text field as soon as it is parsed.
+	 *
+	 * @param name field name
+	 * @param value field value
+	 * @throws ValidationErrorException if the field or the state are not valid
+	 */
+	public void validateField(final String name, final String value) {
+
+		if (!enabled) {
+			return;
+		}
+
+		if (name.equals(hdivParameter)) {
+			if (state == null) {
+				restoreState(value);
+				validatePending();
+			}
+			else if (!requestState.equals(value)) {
+				// All the parts must be validated with the same state
+				throw new ValidationErrorException(new ValidatorHelperResult(new ValidatorError(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE,
+						target, hdivParameter, value)));
+			}
+			return;
+		}
+
+		List<String> values = fields.get(name);
+		if (values == null) {
+			values = new ArrayList<String>(1);
+			fields.put(name, values);
+		}
+		values.add(value);
+
+		if (state != null) {
+			validateField(name, values);
+		}
+	}
+
+	/**
+	 * Validates a file before its content is read.
+	 *
+	 * @param name field name
+	 * @throws ValidationErrorException if the file is not expected or the state has not been received yet
+	 */
+	public void validateFile(final String name) {
+
+		if (!enabled) {
+			return;
+		}
+
+		if (state == null) {
+			// Fail closed, the file would be stored before it can be validated
+			throw new ValidationErrorException(new ValidatorHelperResult(new ValidatorError(HDIVErrorCodes.HDIV_PARAMETER_DOES_NOT_EXIST,
+					target, hdivParameter)));
+		}
+		validateName(name, null);
+	}
+
+	/**
+	 * @return true if the state has been received and restored
+	 */
+	public boolean isStateRestored() {
+		return state != null;
+	}
+
+	protected boolean isValidationRequired() {
+
+		String requestedTarget = context.getRequestedTarget();
+		if (HDIVUtil.isObfuscatedTarget(requestedTarget)) {
+			// The target is obtained from the state, leave it to the complete validation
+			return false;
+		}
+		target = context.getTarget();
+		if (target.endsWith(UrlData.PEN_TESTING_ROOT_PATH)) {
+			return false;
+		}
+		return !helper.getValidationPlan(target).hasExtensionToExclude() && !helper.isStartPage(requestContext, target);
+	}
+
+	/**
+	 * Obtains the state from the query string, without reading the body of the request.
+	 *
+	 * @return state or null if it is not in the query string
+	 */
+	protected String getQueryStringState() {
+
+		String queryString = requestContext.getQueryString();
+		if (queryString == null) {
+			return null;
+		}
+		QueryStringTokenizer tokenizer = new QueryStringTokenizer(queryString);
+		while (tokenizer.next()) {
+			if (tokenizer.hasValue() && tokenizer.nameEquals(hdivParameter)) {
+				return tokenizer.getValue();
+			}
+		}
+		return null;
+	}
+
+	protected void restoreState(final String requestState) {
+
+		ValidatorHelperResult result = helper.restoreState(context, requestState);
+		if (!result.isValid()) {
+			throw new ValidationErrorException(result);
+		}
+		IState restored = result.getValue();
+
+		result = helper.isTheSameAction(requestContext, target, restored);
+		if (!result.isValid()) {
+			throw new ValidationErrorException(result);
+		}
+
+		state = restored;
+		this.requestState = requestState;
+		stateParams = helper.urlProcessor.getUrlParamsAsMap(hdivParameter, context.getBuffer(), state.getParams());
+		if (log.isDebugEnabled()) {
+			log.debug("State restored while parsing the multipart request to [" + target + "]");
+		}
+	}
+
+	protected void validatePending() {
+
+		for (Map.Entry<String, List<String>> field : fields.entrySet()) {
+			validateField(field.getKey(), field.getValue());
+		}
+	}
+
+	/**
+	 * Checks that the field exists in the state and, if it is not editable, that the values received so far are valid.
+	 *
+	 * @param name field name
+	 * @param values values received so far
+	 */
+	protected void validateField(final String name, final List<String> values) {
+
+		IParameter stateParameter = state.getParameter(name);
+		if (!validateName(name, stateParameter) || stateParameter != null && stateParameter.isEditable()) {
+			return;
+		}
+
+		List<String> stateValues = stateParameter != null ? stateParameter.getValues() : Arrays.asList(stateParams.get(name));
+		ValidatorHelperResult result = helper.hasRepeatedOrInvalidValues(requestContext, target, name,
+				values.toArray(new String[values.size()]), stateValues, stateParameter);
+		if (!result.isValid()) {
+			throw new ValidationErrorException(result);
+		}
+	}
+
+	/**
+	 * Checks that the field or file exists in the state.
+	 *
+	 * @param name field name
+	 * @param stateParameter parameter of the state, if it has been obtained
+	 * @return true if the values of the field must be validated, false if it is excluded from validation
+	 */
+	protected boolean validateName(final String name, final IParameter stateParameter) {
+
+		if (helper.isUserDefinedNonValidationParameter(target, name, hdivParameter)) {
+			return false;
+		}
+
+		IParameter parameter = stateParameter != null ? stateParameter : state.getParameter(name);
+		if (parameter == null && stateParams.get(name) == null) {
+			ValidatorHelperResult result = helper.validateExtraParameter(requestContext, stateParams, null, null,
+					new ArrayList<ValidatorError>(), hdivParameter, target, name);
+			if (!result.isValid()) {
+				throw new ValidationErrorException(result);
+			}
+			return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hdiv.config.HDIVConfig;
+import org.hdiv.regex.PatternMatcher;
+import org.hdiv.util.Method;
+
+/**
+ * Precompiled validation data for a concrete target. Contains the result of the {@link HDIVConfig} lookups that only depend on the target
+ * and the request method (excluded extensions, start pages and parameters without validation), so they are evaluated once per target
+ * instead of once per request.
+ *
+ * @since 4.0.0
+ */
+public class ValidationPlan {
+
+	/**
+	 * Max number of parameter names whose verdict is cached for a target. Limits the memory used by requests with random parameter names.
+	 */
+	protected static final int MAX_CACHED_PARAMETERS = 256;
+
+	private static final int ANY_METHOD_INDEX = Method.values().length;
+
+	private final HDIVConfig config;
+
+	private final String target;
+
+	private final boolean extensionToExclude;
+
+	/**
+	 * Start page verdict for each request method. The last position is reserved for unknown methods.
+	 */
+	private final Boolean[] startPages = new Boolean[ANY_METHOD_INDEX + 1];
+
+	/**
+	 * Parameter patterns configured as 'ParameterWithoutValidation' for this target.
+	 */
+	private final List<PatternMatcher> paramsWithoutValidation;
+
+	private final ConcurrentMap<String, ParameterType> parameterTypes = new ConcurrentHashMap<String, ParameterType>();
+
+	public ValidationPlan(final HDIVConfig config, final String target) {
+		this.config = config;
+		this.target = target;
+		extensionToExclude = config.hasExtensionToExclude(target);
+		paramsWithoutValidation = config.getParamsWithoutValidation(target);
+	}
+
+	/**
+	 * @return true if the target has an extension excluded from the validation
+	 */
+	public boolean hasExtensionToExclude() {
+		return extensionToExclude;
+	}
+
+	/**
+	 * Checks if the target is a start page for the given request method.
+	 *
+	 * @param method request method
+	 * @return true if it is a start page
+	 */
+	public boolean isStartPage(final Method method) {
+
+		int index = method == null ? ANY_METHOD_INDEX : method.ordinal();
+		Boolean startPage = startPages[index];
+		if (startPage == null) {
+			// Benign race: concurrent threads compute the same value
+			startPage = Boolean.valueOf(config.isStartPage(target, method));
+			startPages[index] = startPage;
+		}
+		return startPage.booleanValue();
+	}
+
+	/**
+	 * Checks if the parameter is configured as a 'StartParameter'.
+	 *
+	 * @param parameter parameter name
+	 * @return true if it is a start parameter
+	 */
+	public boolean isStartParameter(final String parameter) {
+		return getParameterType(parameter) == ParameterType.START_PARAMETER;
+	}
+
+	/**
+	 * Checks if the parameter is configured as a 'ParameterWithoutValidation' for the target.
+	 *
+	 * @param parameter parameter name
+	 * @return true if the parameter needs no validation
+	 */
+	public boolean isParameterWithoutValidation(final String parameter) {
+		return getParameterType(parameter) == ParameterType.WITHOUT_VALIDATION;
+	}
+
+	protected ParameterType getParameterType(final String parameter) {
+
+		ParameterType type = parameterTypes.get(parameter);
+		if (type == null) {
+			type = resolveParameterType(parameter);
+			if (parameterTypes.size() < MAX_CACHED_PARAMETERS) {
+				parameterTypes.putIfAbsent(parameter, type);
+			}
+		}
+		return type;
+	}
+
+	private ParameterType resolveParameterType(final String parameter) {
+
+		// Same verdict as HDIVConfig.isParameterWithoutValidation, even for start parameters
+		for (PatternMatcher matcher : paramsWithoutValidation) {
+			if (matcher.matches(parameter)) {
+				return ParameterType.WITHOUT_VALIDATION;
+			}
+		}
+		if (config.isStartParameter(parameter)) {
+			return ParameterType.START_PARAMETER;
+		}
+		return ParameterType.VALIDATE;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	@Override
+	public String toString() {
+		return "ValidationPlan [target=" + target + ", extensionToExclude=" + extensionToExclude + ", paramsWithoutValidation="
+				+ paramsWithoutValidation + "]";
+	}
+
+	protected enum ParameterType {
+		START_PARAMETER, WITHOUT_VALIDATION, VALIDATE
+	}
+
+}
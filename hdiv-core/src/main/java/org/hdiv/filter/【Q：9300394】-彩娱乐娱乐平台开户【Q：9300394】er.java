@@ -102,6 +102,13 @@ public class RequestWrapper extends HttpServletRequestWrapper {
 
 	private String modifiedQueryString;
 
+	/**
+	 * Validator of the parts of the multipart request while it is parsed.
+	 *
+	 * @since 4.0.0
+	 */
+	private StreamingMultipartValidator multipartValidator;
+
 	/**
 	 * Constructs a request object wrapping the given request.
 	 * 
@@ -419,6 +426,22 @@ public class RequestWrapper extends HttpServletRequestWrapper {
 		this.isMultipart = isMultipart;
 	}
 
+	/**
+	 * @return validator of the parts of the multipart request while it is parsed, null if they are only validated once parsed
+	 * @since 4.0.0
+	 */
+	public StreamingMultipartValidator getMultipartValidator() {
+		return multipartValidator;
+	}
+
+	/**
+	 * @param multipartValidator validator of the parts of the multipart request while it is parsed
+	 * @since 4.0.0
+	 */
+	public void setMultipartValidator(final StreamingMultipartValidator multipartValidator) {
+		this.multipartValidator = multipartValidator;
+	}
+
 	/**
 	 * @param cookiesConfidentiality The cookiesConfidentiality to set.
 	 */
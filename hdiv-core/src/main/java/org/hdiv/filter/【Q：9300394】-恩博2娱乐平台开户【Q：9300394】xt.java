@@ -16,6 +16,7 @@
 package org.hdiv.filter;
 
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.state.StateToken;
 import org.hdiv.util.Method;
 
 public interface ValidationContext {
@@ -32,4 +33,29 @@ public interface ValidationContext {
 
 	RequestContextHolder getRequestContext();
 
+	/**
+	 * Parses the state identifier, reusing the previous result if it is the same one.
+	 *
+	 * @param requestState state identifier
+	 * @return parsed identifier
+	 * @since 4.0.0
+	 */
+	StateToken getStateToken(String requestState);
+
+	/**
+	 * @param requestState state identifier
+	 * @return result of restoring <code>requestState</code> in this request, or null if it has not been restored
+	 * @since 4.0.0
+	 */
+	ValidatorHelperResult getRestoredState(String requestState);
+
+	/**
+	 * Stores the result of restoring <code>requestState</code>, so that it is restored once per request.
+	 *
+	 * @param requestState state identifier
+	 * @param result valid result with the restored state
+	 * @since 4.0.0
+	 */
+	void setRestoredState(String requestState, ValidatorHelperResult result);
+
 }
@@ -20,6 +20,7 @@ import java.io.UnsupportedEncodingException;
 import org.hdiv.context.RequestContextHolder;
 import org.hdiv.exception.HDIVException;
 import org.hdiv.state.IState;
+import org.hdiv.state.StateToken;
 import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVErrorCodes;
 import org.hdiv.util.HDIVUtil;
@@ -41,6 +42,18 @@ public class ValidationContextImpl implements ValidationContext {
 
 	protected final RequestContextHolder context;
 
+	/**
+	 * Last parsed state identifier.
+	 */
+	private StateToken stateToken;
+
+	/**
+	 * State identifier of {@link #restoredState}.
+	 */
+	private String restoredRequestState;
+
+	private ValidatorHelperResult restoredState;
+
 	public ValidationContextImpl(final RequestContextHolder context, final StateRestorer restorer, final boolean obfuscation) {
 		this.context = context;
 		this.obfuscation = obfuscation;
@@ -79,6 +92,22 @@ public class ValidationContextImpl implements ValidationContext {
 		return null;
 	}
 
+	public StateToken getStateToken(final String requestState) {
+		if (stateToken == null || !stateToken.getValue().equals(requestState)) {
+			stateToken = StateToken.parse(requestState);
+		}
+		return stateToken;
+	}
+
+	public ValidatorHelperResult getRestoredState(final String requestState) {
+		return requestState.equals(restoredRequestState) ? restoredState : null;
+	}
+
+	public void setRestoredState(final String requestState, final ValidatorHelperResult result) {
+		restoredRequestState = requestState;
+		restoredState = result;
+	}
+
 	public StringBuilder getBuffer() {
 		return sb;
 	}
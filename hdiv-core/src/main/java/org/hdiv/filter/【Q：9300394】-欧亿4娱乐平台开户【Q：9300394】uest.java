@@ -41,20 +41,25 @@ import org.hdiv.dataComposer.IDataComposer;
 import org.hdiv.dataValidator.IDataValidator;
 import org.hdiv.dataValidator.IValidationResult;
 import org.hdiv.exception.HDIVException;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.session.ISession;
 import org.hdiv.state.IPage;
 import org.hdiv.state.IParameter;
 import org.hdiv.state.IState;
+import org.hdiv.state.StateToken;
 import org.hdiv.state.StateUtil;
+import org.hdiv.state.scope.SignedStateScope;
 import org.hdiv.state.scope.StateScope;
 import org.hdiv.state.scope.StateScopeManager;
 import org.hdiv.urlProcessor.BasicUrlProcessor;
 import org.hdiv.urlProcessor.UrlData;
 import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVErrorCodes;
-import org.hdiv.util.HDIVStateUtils;
 import org.hdiv.util.HDIVUtil;
+import org.hdiv.util.LimitedCache;
 import org.hdiv.util.Method;
+import org.hdiv.util.QueryStringTokenizer;
 import org.hdiv.validator.EditableDataValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,6 +123,25 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	 */
 	protected StateScopeManager stateScopeManager;
 
+	/**
+	 * Max number of targets with a cached {@link ValidationPlan}.
+	 *
+	 * @since 4.0.0
+	 */
+	protected int maxValidationPlans = 1000;
+
+	/**
+	 * Instrumentation of the validation.
+	 *
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
+	/**
+	 * Compiled validation plans by target.
+	 */
+	private volatile LimitedCache<ValidationPlan> validationPlans;
+
 	/**
 	 * Initialization of the objects needed for the validation process.
 	 *
@@ -180,8 +204,28 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	 * @return valid result If all the parameter values of the request <code>request</code> pass the the HDIV validation. False, otherwise.
 	 * @throws HDIVException If the request doesn't pass the HDIV validation an exception is thrown explaining the cause of the error.
 	 */
-	@SuppressWarnings("unused")
 	public ValidatorHelperResult validate(final ValidationContext context) {
+		if (!metrics.isEnabled()) {
+			return doValidate(context);
+		}
+		long start = System.nanoTime();
+		try {
+			return doValidate(context);
+		}
+		finally {
+			metrics.recordTime(HdivMetrics.VALIDATE_TIME, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Validates the request, see {@link #validate(ValidationContext)}.
+	 *
+	 * @param context request context
+	 * @return validation result
+	 * @since 4.0.0
+	 */
+	@SuppressWarnings("unused")
+	protected ValidatorHelperResult doValidate(final ValidationContext context) {
 
 		String target = context.getTarget();
 		RequestContextHolder ctx = context.getRequestContext();
@@ -196,7 +240,7 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 			return result;
 		}
 
-		if (hdivConfig.hasExtensionToExclude(target)) {
+		if (getValidationPlan(target).hasExtensionToExclude()) {
 			if (log.isDebugEnabled()) {
 				log.debug("The target [" + target + "] has an extension to exclude from validation");
 			}
@@ -301,7 +345,35 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	 * @return true if it is a start page
 	 */
 	protected boolean isStartPage(final RequestContextHolder request, final String target) {
-		return hdivConfig.isStartPage(target, Method.secureValueOf(request.getMethod()));
+		return getValidationPlan(target).isStartPage(Method.secureValueOf(request.getMethod()));
+	}
+
+	/**
+	 * Obtains the compiled {@link ValidationPlan} for the target, creating it the first time the target is validated.
+	 *
+	 * @param target Part of the url that represents the target action
+	 * @return validation plan for the target
+	 * @since 4.0.0
+	 */
+	protected ValidationPlan getValidationPlan(final String target) {
+
+		LimitedCache<ValidationPlan> plans = validationPlans;
+		if (plans == null) {
+			synchronized (this) {
+				plans = validationPlans;
+				if (plans == null) {
+					plans = new LimitedCache<ValidationPlan>(maxValidationPlans);
+					validationPlans = plans;
+				}
+			}
+		}
+
+		ValidationPlan plan = plans.getCached(target);
+		if (plan == null) {
+			plan = new ValidationPlan(hdivConfig, target);
+			plans.register(target, plan);
+		}
+		return plan;
 	}
 
 	@Deprecated
@@ -562,9 +634,10 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	protected ValidatorHelperResult validateMissingParameters(final RequestContextHolder request, final IState state, final String target,
 			final Map<String, String[]> stateParams, final List<String> missingParameters) {
 
+		ValidationPlan plan = getValidationPlan(target);
 		for (Iterator<String> i = missingParameters.iterator(); i.hasNext();) {
 			String param = i.next();
-			if (hdivConfig.isStartParameter(param) || hdivConfig.isParameterWithoutValidation(target, param)) {
+			if (plan.isStartParameter(param) || plan.isParameterWithoutValidation(param)) {
 				i.remove();
 			}
 		}
@@ -596,13 +669,13 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 			return false;
 		}
 
-		String[] parts = queryString.split("&");
-		if (parts.length == 0) {
-			return false;
+		QueryStringTokenizer tokenizer = new QueryStringTokenizer(queryString);
+		while (tokenizer.next()) {
+			if (!tokenizer.hasValue() && tokenizer.nameEquals(parameter)) {
+				return true;
+			}
 		}
-
-		List<String> partsList = Arrays.asList(parts);
-		return partsList.contains(parameter);
+		return false;
 	}
 
 	@Deprecated
@@ -722,7 +795,7 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 			return true;
 		}
 
-		if (hdivConfig.isParameterWithoutValidation(target, parameter)) {
+		if (getValidationPlan(target).isParameterWithoutValidation(parameter)) {
 
 			if (log.isDebugEnabled()) {
 				log.debug("Parameter [" + parameter + "] doesn't need validation. It is configured as 'ParameterWithoutValidation'.");
@@ -787,26 +860,36 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 
 		// In some browsers (eg: IE 6), fragment identifier is sent with the request, it has to be removed from the
 		// requestState
-		if (requestState.contains("#")) {
-			requestState = requestState.split("#")[0];
+		int fragment = requestState.indexOf('#');
+		if (fragment != -1) {
+			requestState = requestState.substring(0, fragment);
+		}
+
+		// The state may have been restored before, to obtain an obfuscated target for example
+		ValidatorHelperResult restored = context.getRestoredState(requestState);
+		if (restored != null) {
+			return restored;
 		}
 
 		try {
 			RequestContextHolder ctx = context.getRequestContext();
-			UUID pageId = stateUtil.getPageId(requestState);
-			IState state = doRestoreState(context, requestState);
+			StateToken token = context.getStateToken(requestState);
+			UUID pageId = stateUtil.getPageId(token);
+			IState state = doRestoreState(context, token);
 
 			// Save current page id in request
 			ctx.setCurrentPageId(pageId);
 
-			if (!validateHDIVSuffix(ctx, requestState, state)) {
+			if (!validateHDIVSuffix(ctx, token, state)) {
 				ValidatorError error = new ValidatorError(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, context.getRequestedTarget(),
 						context.getRequestContext().getHdivParameterName(), requestState);
 				return new ValidatorHelperResult(error);
 			}
 
 			// return validation OK and resultant state
-			return new ValidatorHelperResult(true, state);
+			restored = new ValidatorHelperResult(true, state);
+			context.setRestoredState(requestState, restored);
+			return restored;
 
 		}
 		catch (final HDIVException e) {
@@ -822,7 +905,19 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	}
 
 	protected IState doRestoreState(final ValidationContext ctx, final String requestState) {
-		return stateUtil.restoreState(ctx.getRequestContext(), requestState);
+		return doRestoreState(ctx, ctx.getStateToken(requestState));
+	}
+
+	/**
+	 * Restores the state of a parsed state identifier.
+	 *
+	 * @param ctx validation context
+	 * @param token parsed state identifier
+	 * @return restored state
+	 * @since 4.0.0
+	 */
+	protected IState doRestoreState(final ValidationContext ctx, final StateToken token) {
+		return stateUtil.restoreState(ctx.getRequestContext(), token);
 	}
 
 	/**
@@ -835,62 +930,50 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 	 * @return True if the received value of the suffix is valid. False otherwise.
 	 */
 	protected boolean validateHDIVSuffix(final RequestContextHolder context, final String value, final IState restoredState) {
-		int firstSeparator = value.indexOf(Constants.STATE_ID_SEPARATOR);
-		int lastSeparator = value.lastIndexOf(Constants.STATE_ID_SEPARATOR);
-
-		if (firstSeparator == -1) {
-
-			return false;
+		StateToken token;
+		try {
+			token = StateToken.parse(value);
 		}
-
-		if (firstSeparator >= lastSeparator) {
-
+		catch (final HDIVException e) {
 			return false;
 		}
+		return validateHDIVSuffix(context, token, restoredState);
+	}
 
-		try {
-			// read hdiv's suffix from request
-			String requestSuffix = value.substring(lastSeparator + 1);
-
-			// read suffix from page stored in session
-			String pId = value.substring(0, firstSeparator);
-			String sId = value.substring(firstSeparator + 1, lastSeparator);
-			int stateId = 0;
-			try {
-				stateId = Integer.parseInt(sId);
-			}
-			catch (final NumberFormatException e) {
-				throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID, e);
-			}
-
-			StateScope stateScope = stateScopeManager.getStateScope(value);
-			if (stateScope != null) {
-
-				String token = stateScope.getStateToken(context, stateId);
-				return requestSuffix.equals(token);
-			}
+	/**
+	 * Checks if the suffix of the parsed state identifier is the one stored in session.
+	 *
+	 * @param context Request context holder
+	 * @param token parsed value of the HDIV parameter
+	 * @param restoredState restored state
+	 * @return True if the received value of the suffix is valid. False otherwise.
+	 * @since 4.0.0
+	 */
+	protected boolean validateHDIVSuffix(final RequestContextHolder context, final StateToken token, final IState restoredState) {
+		StateScope stateScope = stateScopeManager.getStateScope(token.getValue());
+		if (stateScope instanceof SignedStateScope) {
+			// The signature of the state was verified when it was restored
+			return true;
+		}
 
-			IPage currentPage = restoredState.getPage();
-			if (currentPage == null) {
-				currentPage = session.getPage(context, HDIVStateUtils.parsePageId(pId));
-			}
+		if (stateScope != null) {
 
-			if (currentPage == null) {
-				if (log.isErrorEnabled()) {
-					log.error("Page with id [" + pId + "] not found in session.");
-				}
-				throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID);
-			}
-			return currentPage.getRandomToken(restoredState.getTokenType()).equals(requestSuffix);
+			String stateToken = stateScope.getStateToken(context, token.getStateId());
+			return token.suffixEquals(stateToken);
+		}
 
+		IPage currentPage = restoredState.getPage();
+		if (currentPage == null && token.getPageId() != null) {
+			currentPage = session.getPage(context, token.getPageId());
 		}
-		catch (final IndexOutOfBoundsException e) {
-			String errorMessage = context.getMessage(VALIDATION_ERROR, e.getMessage());
+
+		if (currentPage == null) {
 			if (log.isErrorEnabled()) {
-				log.error(errorMessage);
+				log.error("Page with id [" + token.getPagePart() + "] not found in session.");
 			}
-			throw new HDIVException(errorMessage, e);
+			throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID);
 		}
+		return token.suffixEquals(currentPage.getRandomToken(restoredState.getTokenType()));
 	}
 
 	@Deprecated
@@ -1316,6 +1399,23 @@ public class ValidatorHelperRequest implements IValidationHelper, StateRestorer
 		this.stateScopeManager = stateScopeManager;
 	}
 
+	/**
+	 * @param maxValidationPlans the maxValidationPlans to set
+	 * @since 4.0.0
+	 */
+	public void setMaxValidationPlans(final int maxValidationPlans) {
+		this.maxValidationPlans = maxValidationPlans;
+		validationPlans = null;
+	}
+
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public boolean isInternal(final HttpServletRequest request, final HttpServletResponse response) {
 		return false;
 	}
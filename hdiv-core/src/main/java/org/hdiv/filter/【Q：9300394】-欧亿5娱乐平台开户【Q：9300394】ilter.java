@@ -36,6 +36,8 @@ import org.hdiv.exception.SharedHdivException;
 import org.hdiv.init.RequestInitializer;
 import org.hdiv.logs.IUserData;
 import org.hdiv.logs.Logger;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVUtil;
 import org.slf4j.LoggerFactory;
@@ -99,6 +101,13 @@ public class ValidatorFilter extends OncePerRequestFilter {
 	 */
 	protected ValidationContextFactory validationContextFactory;
 
+	/**
+	 * Instrumentation of the requests.
+	 *
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
 	/**
 	 * Initialize required dependencies.
 	 */
@@ -142,6 +151,9 @@ public class ValidatorFilter extends OncePerRequestFilter {
 					logger = context.getBean(Logger.class);
 					errorHandler = context.getBean(ValidatorErrorHandler.class);
 					requestInitializer = context.getBean(RequestInitializer.class);
+					if (context.getBeanNamesForType(HdivMetrics.class).length == 1) {
+						metrics = context.getBean(HdivMetrics.class);
+					}
 					validationContextFactory = context.getBean(ValidationContextFactory.class);
 					HDIVUtil.checkCustomImage(request);
 				}
@@ -168,6 +180,9 @@ public class ValidatorFilter extends OncePerRequestFilter {
 			return;
 		}
 
+		final boolean timed = metrics.isEnabled();
+		final long start = timed ? System.nanoTime() : 0;
+
 		RequestContextHolder ctx = requestContextFactory.create(requestInitializer, request, response, getServletContext());
 
 		@SuppressWarnings("deprecation")
@@ -182,10 +197,17 @@ public class ValidatorFilter extends OncePerRequestFilter {
 
 			boolean legal = false;
 			boolean isMultipartException = false;
+			ValidationErrorException multipartValidationError = null;
+
+			context = validationContextFactory.newInstance(ctx, validationHelper, hdivConfig.isUrlObfuscation());
+			ctx.setValidationContext(context);
 
 			if (isMultipartContent(request) && hdivConfig.isMultipartIntegration()) {
 
 				requestWrapper.setMultipart(true);
+				if (hdivConfig.isMultipartStreamingValidation() && validationHelper instanceof ValidatorHelperRequest) {
+					requestWrapper.setMultipartValidator(new StreamingMultipartValidator((ValidatorHelperRequest) validationHelper, context));
+				}
 
 				try {
 
@@ -202,12 +224,17 @@ public class ValidatorFilter extends OncePerRequestFilter {
 					isMultipartException = true;
 					legal = true;
 				}
+				catch (ValidationErrorException e) {
+					// A part was rejected while the body was parsed, the rest of the body has not been read
+					multipartValidationError = e;
+				}
 			}
-			context = validationContextFactory.newInstance(ctx, validationHelper, hdivConfig.isUrlObfuscation());
-			ctx.setValidationContext(context);
 			List<ValidatorError> errors = null;
 			try {
 				ValidatorHelperResult result = null;
+				if (multipartValidationError != null) {
+					throw multipartValidationError;
+				}
 				if (!isMultipartException) {
 					result = validationHelper.validate(context);
 					legal = result.isValid();
@@ -301,13 +328,20 @@ public class ValidatorFilter extends OncePerRequestFilter {
 		}
 		finally {
 
-			if (isMultipartProcessed) {
-				// Cleanup multipart
-				multipartConfig.cleanupMultipart(multipartProcessedRequest);
+			try {
+				if (isMultipartProcessed) {
+					// Cleanup multipart
+					multipartConfig.cleanupMultipart(multipartProcessedRequest);
+				}
 			}
+			finally {
+				// Destroy request scoped data
+				requestInitializer.endRequest(ctx);
 
-			// Destroy request scoped data
-			requestInitializer.endRequest(ctx);
+				if (timed) {
+					metrics.recordTime(HdivMetrics.FILTER_TIME, System.nanoTime() - start);
+				}
+			}
 		}
 	}
 
@@ -395,7 +429,14 @@ public class ValidatorFilter extends OncePerRequestFilter {
 
 		}
 		finally {
-			validationHelper.endPage(ctx);
+			try {
+				// Deferred state ids and rewritten markup must be completed while the page is still open
+				responseWrapper.finishHtmlRewriting();
+				responseWrapper.finishDeferredStateIds();
+			}
+			finally {
+				validationHelper.endPage(ctx);
+			}
 		}
 		if (ex != null) {
 			throw new HDIVException("Wrapped exception on debug", ex);
@@ -443,6 +484,7 @@ public class ValidatorFilter extends OncePerRequestFilter {
 		for (ValidatorError error : errors) {
 			// Log the error
 			logger.log(error);
+			metrics.increment(HdivMetrics.VALIDATION_ERRORS, error.getType(), 1);
 		}
 	}
 
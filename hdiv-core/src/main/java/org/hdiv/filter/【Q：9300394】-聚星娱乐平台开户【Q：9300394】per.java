@@ -15,19 +15,29 @@
  */
 package org.hdiv.filter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.context.WriteBehindSessionModel;
+import org.hdiv.dataComposer.DeferredStateIds;
+import org.hdiv.dataComposer.IDataComposer;
 import org.hdiv.session.ISession;
 import org.hdiv.util.Constants;
+import org.hdiv.util.HDIVUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +86,34 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 	 */
 	protected ISession session;
 
+	/**
+	 * Indicates if the links and forms of HTML responses are protected rewriting the markup.
+	 *
+	 * @since 4.0.0
+	 */
+	protected boolean htmlRewriting;
+
+	/**
+	 * Indicates if the state ids published before their requests end are replaced in the content of the response.
+	 *
+	 * @since 4.0.0
+	 */
+	protected boolean deferredStateIds;
+
+	private PrintWriter writer;
+
+	private ServletOutputStream outputStream;
+
+	private AbstractHtmlRewritingWriter rewritingWriter;
+
+	private HtmlRewritingOutputStream rewritingOutputStream;
+
+	private boolean sessionWritesFlushed;
+
+	private DeferredStateWriter deferredStateWriter;
+
+	private DeferredStateOutputStream deferredStateOutputStream;
+
 	/**
 	 * Constructs a response object wrapping the given response.
 	 *
@@ -109,6 +147,10 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 	@Override
 	public void setHeader(final String name, final String value) {
 
+		if (isRewritingContentLength(name)) {
+			return;
+		}
+
 		String confidentialValue = value;
 
 		if (name.equalsIgnoreCase(SET_COOKIE)) {
@@ -134,6 +176,10 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 	@Override
 	public void addHeader(final String name, final String value) {
 
+		if (isRewritingContentLength(name)) {
+			return;
+		}
+
 		String confidentialValue = value;
 
 		if (name.equalsIgnoreCase(SET_COOKIE)) {
@@ -164,6 +210,192 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 		return value;
 	}
 
+	/**
+	 * The content length is not known in advance when the markup is rewritten.
+	 */
+	private boolean isRewritingContentLength(final String name) {
+		return "Content-Length".equalsIgnoreCase(name) && htmlRewriting && isHtmlContent();
+	}
+
+	@Override
+	public void setContentLength(final int len) {
+		if (!(htmlRewriting && isHtmlContent())) {
+			super.setContentLength(len);
+		}
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			PrintWriter original = super.getWriter();
+			Writer target = isWriteBehindSession() ? new SessionFlushingWriter(original) : original;
+			if (deferredStateIds) {
+				deferredStateWriter = new DeferredStateWriter(target);
+				target = deferredStateWriter;
+			}
+			if (htmlRewriting && isHtmlContent()) {
+				rewritingWriter = createHtmlRewritingWriter(target);
+				target = rewritingWriter;
+			}
+			writer = target != original ? new PrintWriter(target) : original;
+		}
+		return writer;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			ServletOutputStream original = super.getOutputStream();
+			if (isWriteBehindSession()) {
+				original = new SessionFlushingOutputStream(original);
+			}
+			if (deferredStateIds) {
+				deferredStateOutputStream = new DeferredStateOutputStream(original);
+				original = deferredStateOutputStream;
+			}
+			if (htmlRewriting && isHtmlContent()) {
+				rewritingOutputStream = new HtmlRewritingOutputStream(original, Charset.forName(getCharacterEncoding()));
+				rewritingOutputStream.setWriter(createHtmlRewritingWriter(rewritingOutputStream.getTarget()));
+				original = rewritingOutputStream;
+			}
+			outputStream = original;
+		}
+		return outputStream;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		flushSessionWrites();
+		if (rewritingWriter != null || deferredStateWriter != null) {
+			writer.flush();
+		}
+		if (rewritingOutputStream != null || deferredStateOutputStream != null) {
+			outputStream.flush();
+		}
+		super.flushBuffer();
+	}
+
+	@Override
+	public void sendRedirect(final String location) throws IOException {
+		flushSessionWrites();
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public void sendError(final int sc) throws IOException {
+		flushSessionWrites();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(final int sc, final String msg) throws IOException {
+		flushSessionWrites();
+		super.sendError(sc, msg);
+	}
+
+	/**
+	 * Writes the session attributes buffered during the request before the response is committed, so the client can't send the next
+	 * request before they are stored. The writer and the output stream invoke it before they flush the response, and before the content
+	 * written to them can fill the response buffer.
+	 *
+	 * @since 4.0.0
+	 */
+	protected void flushSessionWrites() {
+		if (!sessionWritesFlushed && isWriteBehindSession()) {
+			sessionWritesFlushed = true;
+			((WriteBehindSessionModel) requestContext.getSession()).flush();
+		}
+	}
+
+	private boolean isWriteBehindSession() {
+		return requestContext != null && requestContext.getSession() instanceof WriteBehindSessionModel;
+	}
+
+	/**
+	 * Flushes the buffered session writes if the written content may fill the response buffer.
+	 *
+	 * @param written maximum number of bytes written to the response, including the ones about to be written
+	 */
+	private void beforeWrite(final long written) {
+		if (!sessionWritesFlushed && written >= getBufferSize()) {
+			flushSessionWrites();
+		}
+	}
+
+	/**
+	 * Ends the requests whose state ids are deferred and writes to the response the content retained until then, without committing it.
+	 * Must be invoked after the HTML rewriting is finished, as the rewritten markup may contain deferred ids, and before the page processing
+	 * ends, as the ids are calculated by the data composer of the request.
+	 *
+	 * @throws IOException if the content can not be written
+	 * @see DeferredStateIds
+	 * @since 4.0.0
+	 */
+	public void finishDeferredStateIds() throws IOException {
+		DeferredStateIds ids = getDeferredStateIds();
+		if (ids == null) {
+			return;
+		}
+		IDataComposer dataComposer = requestContext.getDataComposer();
+		while (ids.isPending() && dataComposer != null && dataComposer.isRequestStarted()) {
+			// The last form of the page is ended with the page
+			dataComposer.endRequest();
+		}
+		if (deferredStateWriter != null) {
+			deferredStateWriter.release();
+		}
+		if (deferredStateOutputStream != null) {
+			deferredStateOutputStream.release();
+		}
+	}
+
+	private DeferredStateIds getDeferredStateIds() {
+		return requestContext != null ? DeferredStateIds.get(requestContext, false) : null;
+	}
+
+	/**
+	 * Writes to the response all the markup retained by the HTML rewriting, without committing it. Must be invoked before the page
+	 * processing ends, as the rewriting uses the data composer of the request.
+	 *
+	 * @throws IOException if the markup can not be written
+	 * @since 4.0.0
+	 */
+	public void finishHtmlRewriting() throws IOException {
+		if (rewritingWriter != null) {
+			rewritingWriter.finish();
+		}
+		if (rewritingOutputStream != null) {
+			rewritingOutputStream.finish();
+		}
+	}
+
+	/**
+	 * Creates the writer that rewrites the links and forms of the response.
+	 *
+	 * @param out writer of the original response
+	 * @return rewriting writer
+	 * @since 4.0.0
+	 */
+	protected AbstractHtmlRewritingWriter createHtmlRewritingWriter(final Writer out) {
+		return new HtmlRewritingWriter(out, requestContext, HDIVUtil.getLinkUrlProcessor(requestContext.getServletContext()),
+				HDIVUtil.getFormUrlProcessor(requestContext.getServletContext()));
+	}
+
+	/**
+	 * Checks if the content type of the response is HTML.
+	 *
+	 * @return true if the markup can be rewritten
+	 * @since 4.0.0
+	 */
+	protected boolean isHtmlContent() {
+		String contentType = getContentType();
+		if (contentType == null) {
+			return false;
+		}
+		contentType = contentType.trim().toLowerCase();
+		return contentType.startsWith("text/html") || contentType.startsWith("application/xhtml+xml");
+	}
+
 	/**
 	 * Resets the response.
 	 */
@@ -173,6 +405,22 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 		super.reset();
 		cookies.clear();
 		removeCookiesFromSession();
+		clearDeferredContent();
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		clearDeferredContent();
+	}
+
+	private void clearDeferredContent() {
+		if (deferredStateWriter != null) {
+			deferredStateWriter.buffer.setLength(0);
+		}
+		if (deferredStateOutputStream != null) {
+			deferredStateOutputStream.buffer.reset();
+		}
 	}
 
 	/**
@@ -211,6 +459,11 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 	 */
 	@Override
 	public void addCookie(final Cookie cookie) {
+		if (Constants.HDIV_RANDOM_COOKIE.equals(cookie.getName())) {
+			// Cookie of HDIV, it is neither validated nor stored in session
+			super.addCookie(cookie);
+			return;
+		}
 		cookies.put(cookie.getName(), new SavedCookie(cookie));
 		updateSessionCookies();
 
@@ -271,6 +524,22 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 		this.avoidCookiesConfidentiality = avoidCookiesConfidentiality;
 	}
 
+	/**
+	 * @param htmlRewriting true to protect the links and forms of HTML responses rewriting the markup
+	 * @since 4.0.0
+	 */
+	public void setHtmlRewriting(final boolean htmlRewriting) {
+		this.htmlRewriting = htmlRewriting;
+	}
+
+	/**
+	 * @param deferredStateIds true to replace in the content of the response the state ids published before their requests end
+	 * @since 4.0.0
+	 */
+	public void setDeferredStateIds(final boolean deferredStateIds) {
+		this.deferredStateIds = deferredStateIds;
+	}
+
 	/**
 	 * @param session the session to set
 	 */
@@ -278,4 +547,234 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
 		this.session = session;
 	}
 
+	/**
+	 * Writer of the response that retains the content while there are deferred state ids pending, and writes it with the real ids.
+	 */
+	private class DeferredStateWriter extends Writer {
+
+		private final Writer out;
+
+		private final StringBuilder buffer = new StringBuilder();
+
+		DeferredStateWriter(final Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(final int c) throws IOException {
+			if (retain()) {
+				buffer.append((char) c);
+			}
+			else {
+				out.write(c);
+			}
+		}
+
+		@Override
+		public void write(final char[] cbuf, final int off, final int len) throws IOException {
+			if (retain()) {
+				buffer.append(cbuf, off, len);
+			}
+			else {
+				out.write(cbuf, off, len);
+			}
+		}
+
+		@Override
+		public void write(final String str, final int off, final int len) throws IOException {
+			if (retain()) {
+				buffer.append(str, off, off + len);
+			}
+			else {
+				out.write(str, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// The retained content can't be sent to the client until its ids are known
+			if (!retain()) {
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			release();
+			out.close();
+		}
+
+		private boolean retain() throws IOException {
+			DeferredStateIds ids = getDeferredStateIds();
+			if (ids != null && ids.isPending()) {
+				return true;
+			}
+			release();
+			return false;
+		}
+
+		void release() throws IOException {
+			if (buffer.length() > 0) {
+				out.write(getDeferredStateIds().replace(buffer));
+				buffer.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Output stream of the response that retains the content while there are deferred state ids pending, and writes it with the real ids.
+	 * The ids are replaced in the bytes, so the encoding of the response must be compatible with ASCII.
+	 */
+	private class DeferredStateOutputStream extends ServletOutputStream {
+
+		private final ServletOutputStream out;
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		DeferredStateOutputStream(final ServletOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			if (retain()) {
+				buffer.write(b);
+			}
+			else {
+				out.write(b);
+			}
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (retain()) {
+				buffer.write(b, off, len);
+			}
+			else {
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// The retained content can't be sent to the client until its ids are known
+			if (!retain()) {
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			release();
+			out.close();
+		}
+
+		private boolean retain() throws IOException {
+			DeferredStateIds ids = getDeferredStateIds();
+			if (ids != null && ids.isPending()) {
+				return true;
+			}
+			release();
+			return false;
+		}
+
+		void release() throws IOException {
+			if (buffer.size() > 0) {
+				// Each byte is mapped to one char, so ASCII placeholders are found and the rest of the bytes are kept
+				String content = buffer.toString(Constants.ENCODING_ISO_8859_1);
+				out.write(getDeferredStateIds().replace(content).getBytes(Constants.ENCODING_ISO_8859_1));
+				buffer.reset();
+			}
+		}
+	}
+
+	/**
+	 * Writer of the response that flushes the buffered session writes before the response is committed.
+	 */
+	private class SessionFlushingWriter extends Writer {
+
+		private final Writer out;
+
+		private final int maxBytesPerChar;
+
+		private long written;
+
+		SessionFlushingWriter(final Writer out) {
+			this.out = out;
+			maxBytesPerChar = (int) Math.ceil(Charset.forName(getCharacterEncoding()).newEncoder().maxBytesPerChar());
+		}
+
+		@Override
+		public void write(final int c) throws IOException {
+			written += maxBytesPerChar;
+			beforeWrite(written);
+			out.write(c);
+		}
+
+		@Override
+		public void write(final char[] cbuf, final int off, final int len) throws IOException {
+			written += (long) len * maxBytesPerChar;
+			beforeWrite(written);
+			out.write(cbuf, off, len);
+		}
+
+		@Override
+		public void write(final String str, final int off, final int len) throws IOException {
+			written += (long) len * maxBytesPerChar;
+			beforeWrite(written);
+			out.write(str, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushSessionWrites();
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flushSessionWrites();
+			out.close();
+		}
+	}
+
+	/**
+	 * Output stream of the response that flushes the buffered session writes before the response is committed.
+	 */
+	private class SessionFlushingOutputStream extends ServletOutputStream {
+
+		private final ServletOutputStream out;
+
+		private long written;
+
+		SessionFlushingOutputStream(final ServletOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			beforeWrite(++written);
+			out.write(b);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			written += len;
+			beforeWrite(written);
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushSessionWrites();
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flushSessionWrites();
+			out.close();
+		}
+	}
+
 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.idGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link StatelessPageIdGenerator} that builds the page ids from a node id and a counter shared by all the sessions of the node.
+ * <p>
+ * The id has 63 bits: 16 bits for the node and 47 bits for the counter. The counter starts from the current time multiplied by 16, so
+ * after a restart the ids keep growing unless the node generated more than 16 pages per millisecond on average since it started. In a
+ * cluster each node must be configured with a different <code>nodeId</code>; if none is set, a random one is chosen.
+ * </p>
+ * The ids are numeric, so pages keep their random token like with {@link SequentialPageIdGenerator}.
+ *
+ * @since 4.0.0
+ */
+public class NodeSequencePageIdGenerator implements StatelessPageIdGenerator {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int MAX_NODE_ID = 0xFFFF;
+
+	private static final int COUNTER_BITS = 47;
+
+	private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+	private final AtomicLong counter = new AtomicLong(System.currentTimeMillis() << 4);
+
+	private long node;
+
+	public NodeSequencePageIdGenerator() {
+		node = (long) new SecureRandom().nextInt(MAX_NODE_ID + 1) << COUNTER_BITS;
+	}
+
+	public UUID getNextPageId() {
+		long id = counter.incrementAndGet() & COUNTER_MASK;
+		if (id == 0) {
+			// Page ids must be greater than 0
+			id = counter.incrementAndGet() & COUNTER_MASK;
+		}
+		return new UUID(0, node | id);
+	}
+
+	/**
+	 * @param nodeId id of this node in the cluster, between 0 and {@link #MAX_NODE_ID}
+	 */
+	public void setNodeId(final int nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+		}
+		node = (long) nodeId << COUNTER_BITS;
+	}
+
+	/**
+	 * @return id of this node in the cluster
+	 */
+	public int getNodeId() {
+		return (int) (node >>> COUNTER_BITS);
+	}
+
+}
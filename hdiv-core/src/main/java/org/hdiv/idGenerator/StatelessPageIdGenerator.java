@@ -0,0 +1,26 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.idGenerator;
+
+/**
+ * {@link PageIdGenerator} without state related to a session. A single instance is shared by all the sessions and it is never stored in
+ * them, so generating a page id does not modify the session.
+ *
+ * @since 4.0.0
+ */
+public interface StatelessPageIdGenerator extends PageIdGenerator {
+
+}
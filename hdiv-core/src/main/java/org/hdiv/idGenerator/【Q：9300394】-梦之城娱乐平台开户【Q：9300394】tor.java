@@ -20,6 +20,10 @@ import java.util.UUID;
 
 /**
  * This implementation uses a sequence number to generate unique page ids.
+ * <p>
+ * The generator is kept in the session, so the ids are only unique within a session. Use {@link NodeSequencePageIdGenerator} for ids
+ * unique in the node.
+ * </p>
  *
  * @author Gotzon Illarramendi
  * @since HDIV 2.1.0
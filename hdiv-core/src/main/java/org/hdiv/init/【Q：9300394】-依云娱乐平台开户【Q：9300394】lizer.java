@@ -16,12 +16,17 @@
 package org.hdiv.init;
 
 import org.hdiv.config.HDIVConfig;
+import org.hdiv.config.Strategy;
 import org.hdiv.context.RequestContext;
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.context.WriteBehindSessionModel;
 import org.hdiv.filter.AsyncRequestWrapper;
 import org.hdiv.filter.RequestWrapper;
 import org.hdiv.filter.ResponseWrapper;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.session.ISession;
+import org.hdiv.session.SessionModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +45,12 @@ public class DefaultRequestInitializer implements RequestInitializer {
 
 	protected HDIVConfig config;
 
+	/**
+	 * Receives the session writes counters.
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
 	protected static final Logger log = LoggerFactory.getLogger(DefaultRequestInitializer.class);
 
 	public void initRequest(final RequestContextHolder context) {
@@ -47,9 +58,17 @@ public class DefaultRequestInitializer implements RequestInitializer {
 		// Store session scoped data into request
 		ctx.setHdivParameterName(config.getStateParameterName());
 		ctx.setHdivModifyParameterName(config.getModifyStateParameterName());
+
+		if (config.isWriteBehindSession()) {
+			ctx.setSession(new WriteBehindSessionModel(ctx.getSession(), metrics));
+		}
 	}
 
 	public void endRequest(final RequestContextHolder context) {
+		SessionModel sessionModel = context.getSession();
+		if (sessionModel instanceof WriteBehindSessionModel) {
+			((WriteBehindSessionModel) sessionModel).flush();
+		}
 	}
 
 	public RequestWrapper createRequestWrapper(final RequestContextHolder context) {
@@ -69,6 +88,8 @@ public class DefaultRequestInitializer implements RequestInitializer {
 		responseWrapper.setConfidentiality(config.getConfidentiality());
 		responseWrapper.setAvoidCookiesConfidentiality(!config.isCookiesConfidentialityActivated());
 		responseWrapper.setSession(session);
+		responseWrapper.setHtmlRewriting(config.isHtmlResponseRewriting());
+		responseWrapper.setDeferredStateIds(config.getStrategy() == Strategy.SIGNED);
 
 		return responseWrapper;
 	}
@@ -87,4 +108,12 @@ public class DefaultRequestInitializer implements RequestInitializer {
 		this.session = session;
 	}
 
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 }
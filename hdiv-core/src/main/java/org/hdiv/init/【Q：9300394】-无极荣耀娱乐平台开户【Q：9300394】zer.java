@@ -15,10 +15,18 @@
  */
 package org.hdiv.init;
 
+import java.util.UUID;
+
 import javax.servlet.http.HttpSession;
 
 import org.hdiv.config.HDIVConfig;
+import org.hdiv.context.HttpSessionModel;
 import org.hdiv.idGenerator.PageIdGenerator;
+import org.hdiv.idGenerator.StatelessPageIdGenerator;
+import org.hdiv.session.IStateCache;
+import org.hdiv.session.PageStore;
+import org.hdiv.session.SessionModel;
+import org.hdiv.session.SessionPageStore;
 import org.hdiv.util.Constants;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -36,6 +44,8 @@ public class DefaultSessionInitializer implements SessionInitializer, Applicatio
 
 	protected HDIVConfig config;
 
+	protected PageStore pageStore;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -51,7 +61,27 @@ public class DefaultSessionInitializer implements SessionInitializer, Applicatio
 	 * @see org.hdiv.init.SessionInitializer#destroySession(javax.servlet.http.HttpSession)
 	 */
 	public void destroySession(final HttpSession session) {
+		removePages(session);
+	}
+
+	/**
+	 * Removes the pages of the session from the {@link PageStore}, if they are not stored in the session itself.
+	 * 
+	 * @param httpSession http session
+	 * @since 4.0.0
+	 */
+	protected void removePages(final HttpSession httpSession) {
 
+		if (pageStore == null || pageStore instanceof SessionPageStore) {
+			return;
+		}
+		SessionModel session = new HttpSessionModel(httpSession);
+		IStateCache cache = (IStateCache) session.getAttribute(Constants.STATE_CACHE_NAME);
+		if (cache != null) {
+			for (UUID pageId : cache.getPageIds()) {
+				pageStore.removePage(session, pageId);
+			}
+		}
 	}
 
 	/**
@@ -63,7 +93,9 @@ public class DefaultSessionInitializer implements SessionInitializer, Applicatio
 
 		// Obtain new instance of PageIdGenerator
 		PageIdGenerator pageIdGenerator = applicationContext.getBean(PageIdGenerator.class);
-		httpSession.setAttribute(Constants.PAGE_ID_GENERATOR_NAME, pageIdGenerator);
+		if (!(pageIdGenerator instanceof StatelessPageIdGenerator)) {
+			httpSession.setAttribute(Constants.PAGE_ID_GENERATOR_NAME, pageIdGenerator);
+		}
 	}
 
 	public void setApplicationContext(final ApplicationContext applicationContext) {
@@ -76,4 +108,12 @@ public class DefaultSessionInitializer implements SessionInitializer, Applicatio
 	public void setConfig(final HDIVConfig config) {
 		this.config = config;
 	}
+
+	/**
+	 * @param pageStore the pageStore to set
+	 * @since 4.0.0
+	 */
+	public void setPageStore(final PageStore pageStore) {
+		this.pageStore = pageStore;
+	}
 }
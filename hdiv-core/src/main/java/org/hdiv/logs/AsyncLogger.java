@@ -0,0 +1,371 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hdiv.filter.ValidatorError;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * {@link Logger} that queues the attacks in a bounded ring buffer and writes them in batches from a background thread, so a flood of
+ * attacks does not slow down the requests of legitimate users.
+ * <p>
+ * When the buffer is full the error is discarded or, with {@link OverflowPolicy#BLOCK}, the request thread waits up to
+ * <code>maxBlockTime</code> milliseconds for free room before discarding it. The number of published, written, discarded and failed
+ * errors is available through the counters of this class.
+ * </p>
+ * <p>
+ * The errors are written to the configured {@link LogSink}s, by default a {@link Slf4jLogSink} with the same format as {@link Logger}.
+ * To enable it, declare it as the Hdiv <code>Logger</code> bean, overriding <code>securityLogger()</code> in Java configuration.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class AsyncLogger extends Logger implements DisposableBean {
+
+	private static final org.slf4j.Logger log = LoggerFactory.getLogger(AsyncLogger.class);
+
+	/**
+	 * Behavior when the buffer is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Discard the error.
+		 */
+		DISCARD,
+		/**
+		 * Wait for free room, discarding the error if there is none after <code>maxBlockTime</code>.
+		 */
+		BLOCK
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	public static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+	public static final long DEFAULT_MAX_BLOCK_TIME = 10;
+
+	private int capacity = DEFAULT_CAPACITY;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Maximum time in milliseconds the errors wait in the buffer when there are less than <code>batchSize</code>.
+	 */
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.DISCARD;
+
+	/**
+	 * Maximum time in milliseconds a request waits for free room with {@link OverflowPolicy#BLOCK}.
+	 */
+	private long maxBlockTime = DEFAULT_MAX_BLOCK_TIME;
+
+	private List<LogSink> sinks;
+
+	private volatile LogEventBuffer<ValidatorError> buffer;
+
+	private volatile Thread writer;
+
+	private volatile boolean running;
+
+	private volatile boolean stopped;
+
+	/**
+	 * True while the writer is parked waiting for errors.
+	 */
+	private volatile boolean waiting;
+
+	private final AtomicLong published = new AtomicLong();
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private final AtomicLong batches = new AtomicLong();
+
+	/**
+	 * Starts the writer thread.
+	 */
+	@Override
+	public synchronized void init() {
+		if (running || stopped) {
+			return;
+		}
+		if (sinks == null || sinks.isEmpty()) {
+			sinks = Collections.<LogSink> singletonList(new Slf4jLogSink(this));
+		}
+		buffer = new LogEventBuffer<ValidatorError>(capacity);
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				writeLoop();
+			}
+		}, "hdiv-security-logger");
+		thread.setDaemon(true);
+		writer = thread;
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * Queues the error to be written by the writer thread.
+	 *
+	 * @param error Validator error data
+	 */
+	@Override
+	public void log(final ValidatorError error) {
+
+		if (!running) {
+			if (stopped) {
+				// Destroyed, write synchronously
+				super.log(error);
+				return;
+			}
+			init();
+		}
+
+		LogEventBuffer<ValidatorError> buffer = this.buffer;
+		if (buffer.offer(error)) {
+			published(buffer);
+			if (waiting && buffer.size() >= batchSize) {
+				LockSupport.unpark(writer);
+			}
+			return;
+		}
+
+		if (overflowPolicy == OverflowPolicy.BLOCK && offerBlocking(buffer, error)) {
+			published(buffer);
+			return;
+		}
+
+		if (dropped.getAndIncrement() == 0) {
+			log.warn("Security log buffer is full, attacks are being discarded. Increase the capacity or add faster sinks.");
+		}
+	}
+
+	private void published(final LogEventBuffer<ValidatorError> buffer) {
+		published.incrementAndGet();
+		if (stopped) {
+			// Destroyed after the running check, the pending errors may not be written by destroy()
+			List<ValidatorError> pending = new ArrayList<ValidatorError>();
+			synchronized (buffer) {
+				buffer.drainTo(pending, Integer.MAX_VALUE);
+			}
+			for (ValidatorError error : pending) {
+				super.log(error);
+			}
+		}
+	}
+
+	private boolean offerBlocking(final LogEventBuffer<ValidatorError> buffer, final ValidatorError error) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockTime);
+		do {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+			if (buffer.offer(error)) {
+				return true;
+			}
+		}
+		while (running && System.nanoTime() < deadline);
+		return false;
+	}
+
+	private void writeLoop() {
+		List<ValidatorError> batch = new ArrayList<ValidatorError>(batchSize);
+		long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+		while (running) {
+			int count;
+			try {
+				count = writeBatch(batch);
+			}
+			catch (Throwable e) {
+				// Keep the writer alive, otherwise the errors would be queued until the buffer is full
+				log.error("Error writing security log", e);
+				batch.clear();
+				count = 0;
+			}
+			if (count < batchSize) {
+				// Wait for a complete batch or the flush interval
+				waiting = true;
+				if (running && buffer.size() < batchSize) {
+					LockSupport.parkNanos(flushIntervalNanos);
+				}
+				waiting = false;
+			}
+		}
+	}
+
+	/**
+	 * Writes the next batch to all the sinks.
+	 *
+	 * @param batch reusable batch list
+	 * @return number of errors taken from the buffer
+	 */
+	private int writeBatch(final List<ValidatorError> batch) {
+		int count;
+		synchronized (buffer) {
+			count = buffer.drainTo(batch, batchSize);
+		}
+		if (count == 0) {
+			return 0;
+		}
+		batches.incrementAndGet();
+		boolean writtenToAny = false;
+		for (LogSink sink : sinks) {
+			try {
+				sink.write(batch);
+				writtenToAny = true;
+			}
+			catch (Throwable e) {
+				failed.addAndGet(count);
+				log.error("Error writing security log to " + sink, e);
+			}
+		}
+		if (writtenToAny) {
+			written.addAndGet(count);
+		}
+		batch.clear();
+		return count;
+	}
+
+	/**
+	 * Stops the writer thread, writes the pending errors and closes the sinks. Errors logged afterwards are written synchronously.
+	 */
+	public void destroy() throws Exception {
+		Thread thread;
+		synchronized (this) {
+			if (!running) {
+				stopped = true;
+				return;
+			}
+			running = false;
+			stopped = true;
+			thread = writer;
+		}
+		LockSupport.unpark(thread);
+		thread.join(TimeUnit.SECONDS.toMillis(5));
+
+		List<ValidatorError> batch = new ArrayList<ValidatorError>(batchSize);
+		while (writeBatch(batch) > 0) {
+			// Write all the pending errors
+		}
+		for (LogSink sink : sinks) {
+			try {
+				sink.close();
+			}
+			catch (Exception e) {
+				log.error("Error closing security log " + sink, e);
+			}
+		}
+	}
+
+	/**
+	 * @return number of errors queued
+	 */
+	public long getPublishedCount() {
+		return published.get();
+	}
+
+	/**
+	 * @return number of errors written by at least one sink
+	 */
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	/**
+	 * @return number of errors discarded because the buffer was full
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of errors a sink failed to write, counted once for each sink
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * @return number of batches written
+	 */
+	public long getBatchCount() {
+		return batches.get();
+	}
+
+	/**
+	 * @return number of errors waiting in the buffer
+	 */
+	public int getQueueSize() {
+		LogEventBuffer<ValidatorError> buffer = this.buffer;
+		return buffer == null ? 0 : buffer.size();
+	}
+
+	/**
+	 * @param capacity maximum number of errors waiting to be written, rounded up to a power of two
+	 */
+	public void setCapacity(final int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @param batchSize maximum number of errors written to the sinks at once
+	 */
+	public void setBatchSize(final int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param flushInterval maximum time in milliseconds the errors wait to be written
+	 */
+	public void setFlushInterval(final long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * @param maxBlockTime maximum time in milliseconds a request waits for free room with {@link OverflowPolicy#BLOCK}
+	 */
+	public void setMaxBlockTime(final long maxBlockTime) {
+		this.maxBlockTime = maxBlockTime;
+	}
+
+	public void setSinks(final List<LogSink> sinks) {
+		this.sinks = sinks;
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncLogger [published=" + published + ", written=" + written + ", dropped=" + dropped + ", failed=" + failed
+				+ ", queueSize=" + getQueueSize() + "]";
+	}
+
+}
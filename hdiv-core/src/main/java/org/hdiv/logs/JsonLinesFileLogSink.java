@@ -0,0 +1,201 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.hdiv.filter.ValidatorError;
+
+/**
+ * {@link LogSink} that writes each error as a JSON object in a line of a file. When the file reaches <code>maxFileSize</code> bytes it
+ * is renamed to <code>file.1</code>, the previous backups are shifted and the oldest one beyond <code>maxBackups</code> is deleted.
+ * <p>
+ * The <code>time</code> field contains the milliseconds since the epoch when the error was written.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class JsonLinesFileLogSink implements LogSink {
+
+	public static final long DEFAULT_MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+	public static final int DEFAULT_MAX_BACKUPS = 5;
+
+	private static final String UTF_8 = "UTF-8";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final File file;
+
+	private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+
+	private int maxBackups = DEFAULT_MAX_BACKUPS;
+
+	private OutputStream out;
+
+	private long size;
+
+	private final StringBuilder line = new StringBuilder(256);
+
+	/**
+	 * @param path path of the file, its directory must exist
+	 */
+	public JsonLinesFileLogSink(final String path) {
+		file = new File(path);
+	}
+
+	public synchronized void write(final List<ValidatorError> errors) throws IOException {
+
+		long time = System.currentTimeMillis();
+		for (ValidatorError error : errors) {
+			line.setLength(0);
+			format(time, error, line);
+			byte[] bytes = line.toString().getBytes(UTF_8);
+
+			if (out != null && size > 0 && size + bytes.length > maxFileSize) {
+				roll();
+			}
+			if (out == null) {
+				open();
+			}
+			out.write(bytes);
+			size += bytes.length;
+		}
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+
+	/**
+	 * Appends the JSON line of the error.
+	 *
+	 * @param time current time
+	 * @param error error to format
+	 * @param sb destination
+	 */
+	protected void format(final long time, final ValidatorError error, final StringBuilder sb) {
+		sb.append("{\"time\":").append(time);
+		append(sb, "type", error.getType());
+		append(sb, "rule", error.getRule());
+		append(sb, "target", error.getTarget());
+		append(sb, "parameterName", error.getParameterName());
+		append(sb, "parameterValue", error.getParameterValue());
+		append(sb, "originalParameterValue", error.getOriginalParameterValue());
+		append(sb, "localIp", error.getLocalIp());
+		append(sb, "remoteIp", error.getRemoteIp());
+		append(sb, "userName", error.getUserName());
+		append(sb, "validationRuleName", error.getValidationRuleName());
+		sb.append("}\n");
+	}
+
+	private static void append(final StringBuilder sb, final String name, final String value) {
+		if (value == null) {
+			return;
+		}
+		sb.append(",\"").append(name).append("\":\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+					sb.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF]).append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+	private void open() throws IOException {
+		out = new BufferedOutputStream(new FileOutputStream(file, true), 8192);
+		size = file.length();
+	}
+
+	private void roll() throws IOException {
+		close();
+		if (maxBackups > 0) {
+			File oldest = backup(maxBackups);
+			if (oldest.exists() && !oldest.delete()) {
+				throw new IOException("Unable to delete " + oldest);
+			}
+			for (int i = maxBackups - 1; i > 0; i--) {
+				File backup = backup(i);
+				if (backup.exists() && !backup.renameTo(backup(i + 1))) {
+					throw new IOException("Unable to rename " + backup);
+				}
+			}
+			if (!file.renameTo(backup(1))) {
+				throw new IOException("Unable to rename " + file);
+			}
+		}
+		else if (!file.delete()) {
+			throw new IOException("Unable to delete " + file);
+		}
+	}
+
+	private File backup(final int index) {
+		return new File(file.getPath() + "." + index);
+	}
+
+	/**
+	 * @param maxFileSize size in bytes that makes the file roll over
+	 */
+	public void setMaxFileSize(final long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * @param maxBackups number of rolled files to keep
+	 */
+	public void setMaxBackups(final int maxBackups) {
+		this.maxBackups = maxBackups;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonLinesFileLogSink [file=" + file + "]";
+	}
+
+}
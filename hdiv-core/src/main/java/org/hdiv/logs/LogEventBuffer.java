@@ -0,0 +1,132 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ * <p>
+ * Each slot has a sequence number that tells if it is free for the producer of a position or filled for the consumer, so producers
+ * only compete for the tail counter and never wait for each other.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+final class LogEventBuffer<E> {
+
+	private final AtomicReferenceArray<E> elements;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	/**
+	 * Next position to be claimed by a producer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Next position to be read. Only modified by the consumer.
+	 */
+	private volatile long head;
+
+	/**
+	 * @param capacity minimum capacity, rounded up to a power of two
+	 */
+	LogEventBuffer(final int capacity) {
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		elements = new AtomicReferenceArray<E>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds an element if there is room for it.
+	 *
+	 * @param element element to add
+	 * @return false if the buffer is full
+	 */
+	boolean offer(final E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.set(index, element);
+					// Publish the element to the consumer
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			}
+			else if (difference < 0) {
+				// The slot has not been consumed since the previous lap
+				return false;
+			}
+			else {
+				// Another producer claimed the position
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Moves the available elements to <code>list</code>. Must not be called concurrently.
+	 *
+	 * @param list destination list
+	 * @param max maximum number of elements to move
+	 * @return number of elements moved
+	 */
+	int drainTo(final List<E> list, final int max) {
+		long position = head;
+		int count = 0;
+		while (count < max) {
+			int index = (int) position & mask;
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+			list.add(elements.get(index));
+			elements.set(index, null);
+			// Free the slot for the producer of the next lap
+			sequences.set(index, position + mask + 1);
+			position++;
+			count++;
+		}
+		head = position;
+		return count;
+	}
+
+	int size() {
+		long size = tail.get() - head;
+		return size < 0 ? 0 : size > capacity() ? capacity() : (int) size;
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+
+}
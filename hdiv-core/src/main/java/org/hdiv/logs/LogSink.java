@@ -0,0 +1,45 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.hdiv.filter.ValidatorError;
+
+/**
+ * Destination of the attacks logged by {@link AsyncLogger}. The errors are received in batches from a single background thread.
+ *
+ * @since 4.0.0
+ */
+public interface LogSink {
+
+	/**
+	 * Writes a batch of errors.
+	 *
+	 * @param errors errors in the order they were logged
+	 * @throws IOException if the errors can not be written
+	 */
+	void write(List<ValidatorError> errors) throws IOException;
+
+	/**
+	 * Releases the resources of the sink. Called once, when the logger is destroyed.
+	 *
+	 * @throws IOException if the resources can not be released
+	 */
+	void close() throws IOException;
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.util.List;
+
+import org.hdiv.filter.ValidatorError;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link LogSink} that writes the errors to slf4j, with the format and category of {@link Logger}.
+ *
+ * @since 4.0.0
+ */
+public class Slf4jLogSink implements LogSink {
+
+	private static final org.slf4j.Logger log = LoggerFactory.getLogger(Logger.class);
+
+	private final Logger formatter;
+
+	public Slf4jLogSink() {
+		this(new Logger());
+	}
+
+	/**
+	 * @param formatter logger used to format the errors
+	 */
+	public Slf4jLogSink(final Logger formatter) {
+		this.formatter = formatter;
+	}
+
+	public void write(final List<ValidatorError> errors) {
+		if (!log.isInfoEnabled()) {
+			return;
+		}
+		for (ValidatorError error : errors) {
+			log.info(formatter.format(error));
+		}
+	}
+
+	public void close() {
+	}
+
+}
@@ -77,6 +77,19 @@ public class Logger {
 		log.info(formatedData);
 	}
 
+	/**
+	 * Formatted text with information from the attack.
+	 * 
+	 * @param error Validator error data
+	 * @return String Formatted text with the attack.
+	 * @since 4.0.0
+	 */
+	protected String format(final ValidatorError error) {
+		return format(error.getType(), error.getTarget(), error.getParameterName(), error.getParameterValue(),
+				error.getOriginalParameterValue(), error.getLocalIp(), error.getRemoteIp(), error.getUserName(),
+				error.getValidationRuleName());
+	}
+
 	/**
 	 * <p>
 	 * Formatted text with information from the attack produced by the user. The log format is as follows:
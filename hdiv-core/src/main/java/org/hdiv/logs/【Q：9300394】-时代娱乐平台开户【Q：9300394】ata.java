@@ -19,6 +19,7 @@ import java.security.Principal;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -53,8 +54,9 @@ public class UserData implements IUserData {
 				return securityContext.getAuthentication().getName();
 			}
 
-			securityContext = (SecurityContext) request.getSession()
-					.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+			HttpSession session = request.getSession(false);
+			securityContext = session == null ? null
+					: (SecurityContext) session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
 			if (securityContext != null && securityContext.getAuthentication() != null) {
 				return securityContext.getAuthentication().getName();
 			}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+/**
+ * Instrumentation SPI. Hdiv reports to it the latency of the validation, state restoration and state composition phases and counts the
+ * validation errors, the stored and evicted pages, the composed states and the session writes.
+ * <p>
+ * Implementations must be thread safe and must not throw exceptions. The default implementation, {@link NoOpMetrics}, discards
+ * everything; {@link InMemoryMetrics} aggregates the values in memory and {@link JmxMetricsExporter} publishes them through JMX.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public interface HdivMetrics {
+
+	/**
+	 * Time spent by <code>ValidatorFilter</code> processing a request, including the application.
+	 */
+	String FILTER_TIME = "hdiv.filter";
+
+	/**
+	 * Time spent validating a request.
+	 */
+	String VALIDATE_TIME = "hdiv.validate";
+
+	/**
+	 * Time spent restoring a state.
+	 */
+	String RESTORE_STATE_TIME = "hdiv.state.restore";
+
+	/**
+	 * Time spent closing a composed state.
+	 */
+	String COMPOSE_TIME = "hdiv.compose.endRequest";
+
+	/**
+	 * Number of states of each stored page.
+	 */
+	String PAGE_STATES = "hdiv.page.states";
+
+	/**
+	 * Validation errors, tagged with the error type.
+	 */
+	String VALIDATION_ERRORS = "hdiv.validation.errors";
+
+	/**
+	 * Pages stored in the page store.
+	 */
+	String PAGES_STORED = "hdiv.pages.stored";
+
+	/**
+	 * Pages evicted from the page store to make room for new ones.
+	 */
+	String PAGES_EVICTED = "hdiv.pages.evicted";
+
+	/**
+	 * Composed states, tagged with the URL of the request that composed them.
+	 */
+	String STATES_COMPOSED = "hdiv.states.composed";
+
+	/**
+	 * Session attributes written or removed when a request ends, when session writes are buffered.
+	 */
+	String SESSION_WRITES = "hdiv.session.writes";
+
+	/**
+	 * Session writes replaced by a later write of the same attribute in the same request, so they never reached the session.
+	 */
+	String SESSION_WRITES_ABSORBED = "hdiv.session.writes.absorbed";
+
+	/**
+	 * Allows callers to skip measuring when nothing is going to be recorded.
+	 *
+	 * @return true if the values are recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param name timer name
+	 * @param nanos duration in nanoseconds
+	 */
+	void recordTime(String name, long nanos);
+
+	/**
+	 * Records a sample of a distribution.
+	 *
+	 * @param name distribution name
+	 * @param value sample
+	 */
+	void recordValue(String name, long value);
+
+	/**
+	 * Increments a counter.
+	 *
+	 * @param name counter name
+	 * @param tag optional tag of the counter, null if none
+	 * @param delta value to add
+	 */
+	void increment(String name, String tag, long delta);
+
+}
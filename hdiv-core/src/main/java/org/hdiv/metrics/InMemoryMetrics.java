@@ -0,0 +1,193 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HdivMetrics} implementation that aggregates the values in memory: a {@link Histogram} per timer or distribution and an
+ * {@link AtomicLong} per counter and tag.
+ * <p>
+ * Tags may come from the requests (the URL of the states composed), so the number of tags of each counter is limited to
+ * <code>maxTags</code>. Once reached, new tags are counted under {@link #OTHER_TAG}.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class InMemoryMetrics implements HdivMetrics {
+
+	public static final int DEFAULT_MAX_TAGS = 500;
+
+	/**
+	 * Tag of the values of the counters that exceed <code>maxTags</code>.
+	 */
+	public static final String OTHER_TAG = "other";
+
+	/**
+	 * Tag of the values of the counters incremented without tag.
+	 */
+	public static final String NO_TAG = "";
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	private int maxTags = DEFAULT_MAX_TAGS;
+
+	public boolean isEnabled() {
+		return true;
+	}
+
+	public void recordTime(final String name, final long nanos) {
+		getHistogram(name).record(nanos);
+	}
+
+	public void recordValue(final String name, final long value) {
+		getHistogram(name).record(value);
+	}
+
+	public void increment(final String name, final String tag, final long delta) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(name, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.increment(tag == null ? NO_TAG : tag, delta, maxTags);
+	}
+
+	/**
+	 * Obtains the histogram of a timer or distribution, creating it if it does not exist. Timers are recorded in nanoseconds.
+	 *
+	 * @param name timer or distribution name
+	 * @return histogram
+	 */
+	public Histogram getHistogram(final String name) {
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			Histogram created = new Histogram();
+			histogram = histograms.putIfAbsent(name, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return snapshot of the existing histograms by name
+	 */
+	public Map<String, Histogram> getHistograms() {
+		return Collections.unmodifiableMap(new HashMap<String, Histogram>(histograms));
+	}
+
+	/**
+	 * Obtains the value of a counter adding all its tags.
+	 *
+	 * @param name counter name
+	 * @return counter value, 0 if it does not exist
+	 */
+	public long getCount(final String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			return 0;
+		}
+		long total = 0;
+		for (AtomicLong value : counter.values.values()) {
+			total += value.get();
+		}
+		return total;
+	}
+
+	/**
+	 * Obtains the value of a counter for a tag.
+	 *
+	 * @param name counter name
+	 * @param tag tag, null for the values without tag
+	 * @return counter value, 0 if it does not exist
+	 */
+	public long getCount(final String name, final String tag) {
+		Counter counter = counters.get(name);
+		AtomicLong value = counter == null ? null : counter.values.get(tag == null ? NO_TAG : tag);
+		return value == null ? 0 : value.get();
+	}
+
+	/**
+	 * @return snapshot of the counter values by counter name and tag
+	 */
+	public Map<String, Map<String, Long>> getCounters() {
+		Map<String, Map<String, Long>> result = new HashMap<String, Map<String, Long>>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+			Map<String, Long> values = new HashMap<String, Long>();
+			for (Map.Entry<String, AtomicLong> value : entry.getValue().values.entrySet()) {
+				values.put(value.getKey(), value.getValue().get());
+			}
+			result.put(entry.getKey(), values);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all the recorded values.
+	 */
+	public void reset() {
+		histograms.clear();
+		counters.clear();
+	}
+
+	/**
+	 * @param maxTags maximum number of different tags of each counter
+	 */
+	public void setMaxTags(final int maxTags) {
+		this.maxTags = maxTags;
+	}
+
+	public int getMaxTags() {
+		return maxTags;
+	}
+
+	@Override
+	public String toString() {
+		return "InMemoryMetrics [histograms=" + histograms + ", counters=" + getCounters() + "]";
+	}
+
+	private static class Counter {
+
+		final ConcurrentMap<String, AtomicLong> values = new ConcurrentHashMap<String, AtomicLong>();
+
+		void increment(final String tag, final long delta, final int maxTags) {
+			AtomicLong value = values.get(tag);
+			if (value == null) {
+				// The limit is approximate under contention, it only prevents unbounded growth
+				String key = values.size() < maxTags ? tag : OTHER_TAG;
+				AtomicLong created = new AtomicLong();
+				value = values.putIfAbsent(key, created);
+				if (value == null) {
+					value = created;
+				}
+			}
+			value.addAndGet(delta);
+		}
+	}
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.servlet.ServletContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.web.context.ServletContextAware;
+
+/**
+ * Publishes the values of an {@link InMemoryMetrics} as the read only attributes of a dynamic MBean:
+ * <ul>
+ * <li><code>&lt;timer&gt;.count</code>, <code>.mean</code>, <code>.p50</code>, <code>.p90</code>, <code>.p99</code> and <code>.max</code>
+ * for each histogram. Timers are published in microseconds.</li>
+ * <li><code>&lt;counter&gt;</code> and <code>&lt;counter&gt;[&lt;tag&gt;]</code> for each counter.</li>
+ * </ul>
+ * The MBean is registered in the platform MBean server by {@link #init()} and unregistered by {@link #destroy()}. In a web application
+ * its name is qualified with the context path, <code>org.hdiv:type=Metrics,context="/app"</code>, so several applications of the same
+ * server can publish their metrics.
+ *
+ * @since 4.0.0
+ */
+public class JmxMetricsExporter implements DynamicMBean, DisposableBean, ServletContextAware {
+
+	private static final Logger log = LoggerFactory.getLogger(JmxMetricsExporter.class);
+
+	public static final String DEFAULT_OBJECT_NAME = "org.hdiv:type=Metrics";
+
+	private static final String[] TIMERS = { HdivMetrics.FILTER_TIME, HdivMetrics.VALIDATE_TIME, HdivMetrics.RESTORE_STATE_TIME,
+			HdivMetrics.COMPOSE_TIME };
+
+	private InMemoryMetrics metrics;
+
+	private String objectName;
+
+	private ServletContext servletContext;
+
+	private MBeanServer server;
+
+	private ObjectName registeredName;
+
+	public JmxMetricsExporter() {
+	}
+
+	public JmxMetricsExporter(final InMemoryMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Registers the MBean in the platform MBean server. Nothing is registered without metrics.
+	 */
+	public synchronized void init() {
+		if (registeredName != null || metrics == null) {
+			return;
+		}
+		String objectName = getObjectName();
+		try {
+			if (server == null) {
+				server = ManagementFactory.getPlatformMBeanServer();
+			}
+			ObjectName name = new ObjectName(objectName);
+			server.registerMBean(this, name);
+			registeredName = name;
+		}
+		catch (Exception e) {
+			log.warn("Unable to register Hdiv metrics MBean [" + objectName + "]", e);
+		}
+	}
+
+	/**
+	 * Obtains the object name of the MBean: the configured one or {@link #DEFAULT_OBJECT_NAME} qualified with the context path of the
+	 * application.
+	 *
+	 * @return object name
+	 */
+	public String getObjectName() {
+		if (objectName != null) {
+			return objectName;
+		}
+		if (servletContext == null) {
+			return DEFAULT_OBJECT_NAME;
+		}
+		String contextPath = servletContext.getContextPath();
+		return DEFAULT_OBJECT_NAME + ",context=" + ObjectName.quote(contextPath == null || contextPath.length() == 0 ? "/" : contextPath);
+	}
+
+	/**
+	 * Unregisters the MBean.
+	 */
+	public synchronized void destroy() throws Exception {
+		if (registeredName == null) {
+			return;
+		}
+		try {
+			server.unregisterMBean(registeredName);
+		}
+		finally {
+			registeredName = null;
+		}
+	}
+
+	/**
+	 * Obtains the current values of all the attributes.
+	 *
+	 * @return attribute values by attribute name, sorted by name
+	 */
+	public Map<String, Object> getValues() {
+		Map<String, Object> values = new TreeMap<String, Object>();
+		for (Map.Entry<String, Histogram> entry : metrics.getHistograms().entrySet()) {
+			Histogram histogram = entry.getValue();
+			double scale = isTimer(entry.getKey()) ? 1000 : 1;
+			String name = entry.getKey();
+			values.put(name + ".count", histogram.getCount());
+			values.put(name + ".mean", histogram.getMean() / scale);
+			values.put(name + ".p50", histogram.getPercentile(0.5) / scale);
+			values.put(name + ".p90", histogram.getPercentile(0.9) / scale);
+			values.put(name + ".p99", histogram.getPercentile(0.99) / scale);
+			values.put(name + ".max", histogram.getMax() / scale);
+		}
+		for (Map.Entry<String, Map<String, Long>> entry : metrics.getCounters().entrySet()) {
+			long total = 0;
+			for (Map.Entry<String, Long> value : entry.getValue().entrySet()) {
+				total += value.getValue();
+				if (!InMemoryMetrics.NO_TAG.equals(value.getKey())) {
+					values.put(entry.getKey() + "[" + value.getKey() + "]", value.getValue());
+				}
+			}
+			values.put(entry.getKey(), total);
+		}
+		return values;
+	}
+
+	public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+		Object value = getValues().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	public AttributeList getAttributes(final String[] attributes) {
+		Map<String, Object> values = getValues();
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			Object value = values.get(attribute);
+			if (value != null) {
+				list.add(new Attribute(attribute, value));
+			}
+		}
+		return list;
+	}
+
+	public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Read only attribute " + attribute.getName());
+	}
+
+	public AttributeList setAttributes(final AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	public Object invoke(final String actionName, final Object[] params, final String[] signature) throws ReflectionException {
+		if ("reset".equals(actionName)) {
+			metrics.reset();
+			return null;
+		}
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (Map.Entry<String, Object> entry : getValues().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false,
+					false));
+		}
+		MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Removes all the recorded values", new MBeanParameterInfo[0],
+				"void", MBeanOperationInfo.ACTION);
+		return new MBeanInfo(getClass().getName(), "Hdiv metrics", attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null,
+				new MBeanOperationInfo[] { reset }, null);
+	}
+
+	private boolean isTimer(final String name) {
+		for (String timer : TIMERS) {
+			if (timer.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param metrics the metrics to publish
+	 */
+	public void setMetrics(final InMemoryMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param objectName the object name of the MBean, qualified with the context path of the application by default
+	 */
+	public void setObjectName(final String objectName) {
+		this.objectName = objectName;
+	}
+
+	public void setServletContext(final ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	/**
+	 * @param server the MBean server, the platform one by default
+	 */
+	public void setServer(final MBeanServer server) {
+		this.server = server;
+	}
+
+}
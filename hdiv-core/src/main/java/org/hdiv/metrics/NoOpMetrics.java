@@ -0,0 +1,45 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+/**
+ * {@link HdivMetrics} implementation that discards everything. It is the default one.
+ *
+ * @since 4.0.0
+ */
+public final class NoOpMetrics implements HdivMetrics {
+
+	public static final NoOpMetrics INSTANCE = new NoOpMetrics();
+
+	public boolean isEnabled() {
+		return false;
+	}
+
+	public void recordTime(final String name, final long nanos) {
+	}
+
+	public void recordValue(final String name, final long value) {
+	}
+
+	public void increment(final String name, final String tag, final long delta) {
+	}
+
+	@Override
+	public String toString() {
+		return "NoOpMetrics";
+	}
+
+}
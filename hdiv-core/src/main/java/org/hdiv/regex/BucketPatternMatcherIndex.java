@@ -0,0 +1,420 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PatternMatcherIndex} implementation that classifies the regular expressions of {@link DefaultPatternMatcher} instances in
+ * buckets:
+ * <ul>
+ * <li>Literal patterns (<code>/login.html</code>), resolved with a hash lookup.</li>
+ * <li>Prefix patterns (<code>/static/.*</code>), resolved walking a character trie.</li>
+ * <li>Suffix patterns (<code>.*\.css</code>), resolved walking a trie of the reversed suffixes.</li>
+ * <li>Any other regular expression. They are joined in a single alternation that is executed once to discard the input before executing
+ * them one by one.</li>
+ * </ul>
+ * Matchers of any other {@link PatternMatcher} implementation are executed one by one.
+ *
+ * @since 4.0.0
+ */
+public class BucketPatternMatcherIndex<T> implements PatternMatcherIndex<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(BucketPatternMatcherIndex.class);
+
+	private static final String META_CHARACTERS = "[](){}.*+?^$|";
+
+	private static final Comparator<Entry<?>> ORDER_COMPARATOR = new Comparator<Entry<?>>() {
+		public int compare(final Entry<?> o1, final Entry<?> o2) {
+			return o1.order < o2.order ? -1 : o1.order == o2.order ? 0 : 1;
+		}
+	};
+
+	private int size;
+
+	private final Map<String, List<Entry<T>>> literals = new HashMap<String, List<Entry<T>>>();
+
+	private final Node<T> prefixes = new Node<T>();
+
+	private final Node<T> suffixes = new Node<T>();
+
+	private final List<Entry<T>> regexes = new ArrayList<Entry<T>>();
+
+	/**
+	 * Matchers that can not be classified nor combined.
+	 */
+	private final List<Entry<T>> others = new ArrayList<Entry<T>>();
+
+	/**
+	 * Alternation of all the regular expressions in {@link #regexes}. Built on first use.
+	 */
+	private transient volatile Pattern combined;
+
+	private transient volatile boolean combinedBuilt;
+
+	public synchronized void add(final PatternMatcher matcher, final T value) {
+
+		Entry<T> entry = new Entry<T>(size++, matcher, value);
+
+		if (matcher.getClass() != DefaultPatternMatcher.class) {
+			others.add(entry);
+			return;
+		}
+
+		String regex = matcher.getPattern();
+		int start = 0;
+		int end = regex.length();
+		if (start < end && regex.charAt(start) == '^') {
+			start++;
+		}
+		if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+			end--;
+		}
+		boolean leadingWildcard = regex.startsWith(".*", start);
+		if (leadingWildcard) {
+			start += 2;
+		}
+		boolean trailingWildcard = end - start >= 2 && regex.startsWith(".*", end - 2) && !isEscaped(regex, end - 2);
+		if (trailingWildcard) {
+			end -= 2;
+		}
+
+		String literal = leadingWildcard && trailingWildcard ? null : toLiteral(regex, start, end);
+		if (literal == null) {
+			if (isCombinable(regex)) {
+				regexes.add(entry);
+				combinedBuilt = false;
+			}
+			else {
+				others.add(entry);
+			}
+		}
+		else if (leadingWildcard) {
+			suffixes.add(literal, literal.length() - 1, -1, entry);
+		}
+		else if (trailingWildcard) {
+			prefixes.add(literal, 0, 1, entry);
+		}
+		else {
+			List<Entry<T>> entries = literals.get(literal);
+			if (entries == null) {
+				entries = new ArrayList<Entry<T>>(1);
+				literals.put(literal, entries);
+			}
+			entries.add(entry);
+		}
+	}
+
+	public boolean matches(final String input) {
+		return !lookup(input, true).isEmpty();
+	}
+
+	public T findFirst(final String input) {
+		List<Entry<T>> entries = lookup(input, false);
+		if (entries.isEmpty()) {
+			return null;
+		}
+		Entry<T> first = entries.get(0);
+		for (int i = 1; i < entries.size(); i++) {
+			if (entries.get(i).order < first.order) {
+				first = entries.get(i);
+			}
+		}
+		return first.value;
+	}
+
+	public List<T> findAll(final String input) {
+		List<Entry<T>> entries = lookup(input, false);
+		if (entries.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (entries.size() > 1) {
+			Collections.sort(entries, ORDER_COMPARATOR);
+		}
+		List<T> result = new ArrayList<T>(entries.size());
+		for (Entry<T> entry : entries) {
+			result.add(entry.value);
+		}
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the matching entries in all the buckets.
+	 *
+	 * @param input text to match
+	 * @param any return as soon as one match is found
+	 * @return matching entries in no particular order
+	 */
+	protected List<Entry<T>> lookup(final String input, final boolean any) {
+
+		List<Entry<T>> result = new ArrayList<Entry<T>>(2);
+
+		List<Entry<T>> entries = literals.get(input);
+		if (entries != null) {
+			result.addAll(entries);
+			if (any) {
+				return result;
+			}
+		}
+
+		// '.' does not match line terminators, so the wildcard part can not contain them
+		int length = input.length();
+		int firstTerminator = length;
+		int lastTerminator = -1;
+		for (int i = 0; i < length; i++) {
+			if (isLineTerminator(input.charAt(i))) {
+				if (firstTerminator == length) {
+					firstTerminator = i;
+				}
+				lastTerminator = i;
+			}
+		}
+
+		Node<T> node = prefixes;
+		for (int depth = 0; node != null; depth++) {
+			if (node.entries != null && depth > lastTerminator) {
+				result.addAll(node.entries);
+				if (any) {
+					return result;
+				}
+			}
+			node = depth < length ? node.child(input.charAt(depth)) : null;
+		}
+
+		node = suffixes;
+		for (int depth = 0; node != null; depth++) {
+			if (node.entries != null && firstTerminator >= length - depth) {
+				result.addAll(node.entries);
+				if (any) {
+					return result;
+				}
+			}
+			node = depth < length ? node.child(input.charAt(length - 1 - depth)) : null;
+		}
+
+		if (!regexes.isEmpty() && combinedMatches(input)) {
+			for (Entry<T> entry : regexes) {
+				if (entry.matcher.matches(input)) {
+					result.add(entry);
+					if (any) {
+						return result;
+					}
+				}
+			}
+		}
+
+		for (Entry<T> entry : others) {
+			if (entry.matcher.matches(input)) {
+				result.add(entry);
+				if (any) {
+					return result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean combinedMatches(final String input) {
+		Pattern pattern = getCombinedPattern();
+		if (pattern == null) {
+			return true;
+		}
+		try {
+			return pattern.matcher(input).matches();
+		}
+		catch (Throwable e) {
+			// Evaluate the patterns one by one
+			return true;
+		}
+	}
+
+	private Pattern getCombinedPattern() {
+		if (!combinedBuilt) {
+			synchronized (this) {
+				if (!combinedBuilt) {
+					combined = buildCombinedPattern();
+					combinedBuilt = true;
+				}
+			}
+		}
+		return combined;
+	}
+
+	private Pattern buildCombinedPattern() {
+		if (regexes.size() < 2) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Entry<T> entry : regexes) {
+			if (sb.length() > 0) {
+				sb.append('|');
+			}
+			sb.append("(?:").append(entry.matcher.getPattern()).append(')');
+		}
+		try {
+			return Pattern.compile(sb.toString());
+		}
+		catch (RuntimeException e) {
+			log.warn("Unable to combine regular expressions, they will be evaluated one by one", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Obtains the text matched by the regular expression fragment if it has no special constructs.
+	 *
+	 * @return unescaped literal or null if the fragment is not a literal
+	 */
+	private static String toLiteral(final String regex, final int start, final int end) {
+		StringBuilder sb = new StringBuilder(end - start);
+		for (int i = start; i < end; i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+					return null;
+				}
+				sb.append(regex.charAt(++i));
+			}
+			else if (META_CHARACTERS.indexOf(c) >= 0) {
+				return null;
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * A regular expression can be included in an alternation if it has no back references, quotes or comments that would change their
+	 * meaning.
+	 */
+	private static boolean isCombinable(final String regex) {
+		for (int i = 0; i < regex.length() - 1; i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				char next = regex.charAt(i + 1);
+				if (Character.isDigit(next) || next == 'k' || next == 'Q') {
+					return false;
+				}
+				i++;
+			}
+			else if (c == '(' && regex.charAt(i + 1) == '?') {
+				for (int j = i + 2; j < regex.length(); j++) {
+					char flag = regex.charAt(j);
+					if (flag == 'x') {
+						return false;
+					}
+					if (!Character.isLetter(flag) && flag != '-') {
+						break;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isEscaped(final String regex, final int index) {
+		int backslashes = 0;
+		for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+			backslashes++;
+		}
+		return backslashes % 2 == 1;
+	}
+
+	private static boolean isLineTerminator(final char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
+	@Override
+	public String toString() {
+		return "BucketPatternMatcherIndex [literals=" + literals.size() + ", regexes=" + regexes.size() + ", others=" + others.size()
+				+ ", size=" + size + "]";
+	}
+
+	protected static class Entry<T> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final int order;
+
+		final PatternMatcher matcher;
+
+		final T value;
+
+		Entry(final int order, final PatternMatcher matcher, final T value) {
+			this.order = order;
+			this.matcher = matcher;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Character trie node.
+	 */
+	private static class Node<T> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private Map<Character, Node<T>> children;
+
+		private List<Entry<T>> entries;
+
+		Node<T> child(final char c) {
+			return children == null ? null : children.get(c);
+		}
+
+		/**
+		 * Adds the entry under the path formed by the characters of <code>key</code> from <code>index</code> moving <code>step</code>
+		 * positions each time.
+		 */
+		void add(final String key, final int index, final int step, final Entry<T> entry) {
+			if (index < 0 || index >= key.length()) {
+				if (entries == null) {
+					entries = new ArrayList<Entry<T>>(1);
+				}
+				entries.add(entry);
+				return;
+			}
+			if (children == null) {
+				children = new HashMap<Character, Node<T>>();
+			}
+			Node<T> child = children.get(key.charAt(index));
+			if (child == null) {
+				child = new Node<T>();
+				children.put(key.charAt(index), child);
+			}
+			child.add(key, index + step, step, entry);
+		}
+	}
+
+}
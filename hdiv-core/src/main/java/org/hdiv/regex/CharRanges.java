@@ -0,0 +1,166 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+/**
+ * Sets of UTF-16 characters represented as sorted, disjoint and non adjacent inclusive ranges: <code>{lo0, hi0, lo1, hi1, ...}</code>.
+ *
+ * @since 4.0.0
+ */
+final class CharRanges {
+
+	static final int MAX_CHAR = Character.MAX_VALUE;
+
+	static final int[] EMPTY = {};
+
+	static final int[] ANY = { 0, MAX_CHAR };
+
+	static final int[] DIGIT = { '0', '9' };
+
+	static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+
+	static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+
+	static final int[] HORIZONTAL_SPACE = { '\t', '\t', ' ', ' ', 0xA0, 0xA0, 0x1680, 0x1680, 0x180E, 0x180E, 0x2000, 0x200A, 0x202F, 0x202F,
+			0x205F, 0x205F, 0x3000, 0x3000 };
+
+	static final int[] VERTICAL_SPACE = { '\n', '\r', 0x85, 0x85, 0x2028, 0x2029 };
+
+	/**
+	 * Characters matched by '.', all but the line terminators.
+	 */
+	static final int[] DOT = complement(new int[] { '\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+
+	/**
+	 * Characters matched by '.' in UNIX_LINES mode.
+	 */
+	static final int[] DOT_UNIX_LINES = complement(new int[] { '\n', '\n' });
+
+	private CharRanges() {
+	}
+
+	static int[] single(final int c) {
+		return new int[] { c, c };
+	}
+
+	static int[] range(final int lo, final int hi) {
+		return new int[] { lo, hi };
+	}
+
+	static boolean contains(final int[] set, final int c) {
+		for (int i = 0; i < set.length; i += 2) {
+			if (c < set[i]) {
+				return false;
+			}
+			if (c <= set[i + 1]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static int[] union(final int[] a, final int[] b) {
+		if (a.length == 0) {
+			return b;
+		}
+		if (b.length == 0) {
+			return a;
+		}
+		int[] merged = new int[a.length + b.length];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length || j < b.length) {
+			int lo;
+			int hi;
+			if (j >= b.length || i < a.length && a[i] <= b[j]) {
+				lo = a[i];
+				hi = a[i + 1];
+				i += 2;
+			}
+			else {
+				lo = b[j];
+				hi = b[j + 1];
+				j += 2;
+			}
+			if (count > 0 && lo <= merged[count - 1] + 1) {
+				if (hi > merged[count - 1]) {
+					merged[count - 1] = hi;
+				}
+			}
+			else {
+				merged[count++] = lo;
+				merged[count++] = hi;
+			}
+		}
+		return trim(merged, count);
+	}
+
+	static int[] complement(final int[] set) {
+		int[] result = new int[set.length + 2];
+		int count = 0;
+		int next = 0;
+		for (int i = 0; i < set.length; i += 2) {
+			if (set[i] > next) {
+				result[count++] = next;
+				result[count++] = set[i] - 1;
+			}
+			next = set[i + 1] + 1;
+		}
+		if (next <= MAX_CHAR) {
+			result[count++] = next;
+			result[count++] = MAX_CHAR;
+		}
+		return trim(result, count);
+	}
+
+	/**
+	 * Adds the other case of the US-ASCII letters, as <code>java.util.regex</code> does with CASE_INSENSITIVE and without UNICODE_CASE.
+	 */
+	static int[] foldCase(final int[] set) {
+		int[] result = set;
+		result = union(result, shift(set, 'a', 'z', 'A' - 'a'));
+		result = union(result, shift(set, 'A', 'Z', 'a' - 'A'));
+		return result;
+	}
+
+	/**
+	 * Obtains the intersection of the set with [from-to] moved <code>delta</code> positions.
+	 */
+	private static int[] shift(final int[] set, final int from, final int to, final int delta) {
+		int[] result = new int[set.length];
+		int count = 0;
+		for (int i = 0; i < set.length; i += 2) {
+			int lo = Math.max(set[i], from);
+			int hi = Math.min(set[i + 1], to);
+			if (lo <= hi) {
+				result[count++] = lo + delta;
+				result[count++] = hi + delta;
+			}
+		}
+		return trim(result, count);
+	}
+
+	private static int[] trim(final int[] set, final int count) {
+		if (count == set.length) {
+			return set;
+		}
+		int[] result = new int[count];
+		System.arraycopy(set, 0, result, 0, count);
+		return result;
+	}
+
+}
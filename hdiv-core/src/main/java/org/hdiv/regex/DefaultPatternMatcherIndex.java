@@ -0,0 +1,83 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link PatternMatcherIndex} implementation that executes every matcher in insertion order.
+ *
+ * @since 4.0.0
+ */
+public class DefaultPatternMatcherIndex<T> implements PatternMatcherIndex<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	protected final List<PatternMatcher> matchers = new ArrayList<PatternMatcher>();
+
+	protected final List<T> values = new ArrayList<T>();
+
+	public void add(final PatternMatcher matcher, final T value) {
+		matchers.add(matcher);
+		values.add(value);
+	}
+
+	public boolean matches(final String input) {
+		for (int i = 0; i < matchers.size(); i++) {
+			if (matchers.get(i).matches(input)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public T findFirst(final String input) {
+		for (int i = 0; i < matchers.size(); i++) {
+			if (matchers.get(i).matches(input)) {
+				return values.get(i);
+			}
+		}
+		return null;
+	}
+
+	public List<T> findAll(final String input) {
+		List<T> result = null;
+		for (int i = 0; i < matchers.size(); i++) {
+			if (matchers.get(i).matches(input)) {
+				if (result == null) {
+					result = new ArrayList<T>();
+				}
+				result.add(values.get(i));
+			}
+		}
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return result;
+	}
+
+	public int size() {
+		return matchers.size();
+	}
+
+	@Override
+	public String toString() {
+		return "DefaultPatternMatcherIndex [matchers=" + matchers + "]";
+	}
+
+}
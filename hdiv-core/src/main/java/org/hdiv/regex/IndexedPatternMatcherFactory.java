@@ -0,0 +1,30 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+/**
+ * {@link PatternMatcherFactory} that groups the matchers in {@link BucketPatternMatcherIndex} instances, so literal, prefix and suffix
+ * patterns are resolved without executing regular expressions.
+ * 
+ * @since 4.0.0
+ */
+public class IndexedPatternMatcherFactory extends PatternMatcherFactory {
+
+	@Override
+	public <T> PatternMatcherIndex<T> getPatternMatcherIndex() {
+		return new BucketPatternMatcherIndex<T>();
+	}
+}
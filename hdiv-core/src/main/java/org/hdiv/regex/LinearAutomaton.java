@@ -0,0 +1,581 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.PatternSyntaxException;
+
+import org.hdiv.regex.LinearRegexParser.Node;
+
+/**
+ * Finite automaton that checks in a single pass which of a set of regular expressions fully match an input, with the same semantics as
+ * <code>Matcher.matches()</code>. Matching time is linear in the length of the input whatever the expressions and the input are, so
+ * crafted values can not trigger the catastrophic backtracking of <code>java.util.regex</code>.
+ * <p>
+ * The expressions are compiled to a nondeterministic automaton, which is converted to a deterministic one with at most
+ * <code>maxStates</code> states. If the conversion needs more states, the nondeterministic automaton is simulated instead, which is slower
+ * but still linear in the length of the input.
+ * </p>
+ * <p>
+ * Only the syntax accepted by {@link LinearRegexParser} is supported; {@link #compile(List)} throws a {@link PatternSyntaxException} for any
+ * other construct. Inputs are matched by UTF-16 code unit, so '.' and negated classes consume half of a surrogate pair.
+ * </p>
+ * Instances are immutable and thread safe.
+ *
+ * @since 4.0.0
+ */
+public final class LinearAutomaton implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_STATES = 4096;
+
+	/**
+	 * Maximum number of states of the nondeterministic automaton.
+	 */
+	static final int MAX_NFA_STATES = 100000;
+
+	private static final int CHARS = 0;
+
+	private static final int SPLIT = 1;
+
+	private static final int MATCH = 2;
+
+	private static final int ASCII = 128;
+
+	private final List<String> patterns;
+
+	/* Nondeterministic automaton */
+
+	private final int nfaStart;
+
+	private final int[] nfaTypes;
+
+	private final int[] nfaOut;
+
+	/**
+	 * Second target of {@link #SPLIT} states, -1 for simple epsilon transitions. Pattern index for {@link #MATCH} states.
+	 */
+	private final int[] nfaOut2;
+
+	/**
+	 * Character classes accepted by each {@link #CHARS} state.
+	 */
+	private final BitSet[] nfaClasses;
+
+	/* Character classes: ranges of characters that no expression distinguishes */
+
+	private final int[] classStarts;
+
+	private final int[] asciiClasses;
+
+	/* Deterministic automaton, null if it was too big */
+
+	private final int[] transitions;
+
+	private final BitSet[] accepted;
+
+	/**
+	 * States that can not be left: the result is known once they are reached.
+	 */
+	private final boolean[] absorbing;
+
+	private LinearAutomaton(final List<String> patterns, final NfaBuilder nfa, final int nfaStart, final int maxStates) {
+		this.patterns = patterns;
+		this.nfaStart = nfaStart;
+		nfaTypes = nfa.trimmed(nfa.types);
+		nfaOut = nfa.trimmed(nfa.out);
+		nfaOut2 = nfa.trimmed(nfa.out2);
+
+		classStarts = computeClassStarts(nfa);
+		asciiClasses = new int[ASCII];
+		for (int c = 0; c < ASCII; c++) {
+			asciiClasses[c] = searchClass(c);
+		}
+		nfaClasses = new BitSet[nfa.size];
+		for (int i = 0; i < nfa.size; i++) {
+			if (nfaTypes[i] == CHARS) {
+				nfaClasses[i] = toClasses(nfa.chars.get(i));
+			}
+		}
+
+		DfaBuilder dfa = new DfaBuilder(maxStates);
+		if (dfa.build()) {
+			transitions = dfa.trimmedTransitions();
+			accepted = dfa.accepted.toArray(new BitSet[dfa.accepted.size()]);
+			absorbing = dfa.absorbing();
+		}
+		else {
+			transitions = null;
+			accepted = null;
+			absorbing = null;
+		}
+	}
+
+	/**
+	 * Compiles a regular expression.
+	 *
+	 * @param regex regular expression
+	 * @return automaton
+	 * @throws PatternSyntaxException if the expression is not valid or it is not supported
+	 */
+	public static LinearAutomaton compile(final String regex) {
+		return compile(Collections.singletonList(regex));
+	}
+
+	/**
+	 * Compiles a set of regular expressions in one automaton.
+	 *
+	 * @param regexes regular expressions
+	 * @return automaton
+	 * @throws PatternSyntaxException if any of the expressions is not valid or it is not supported
+	 */
+	public static LinearAutomaton compile(final List<String> regexes) {
+		return compile(regexes, DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * Compiles a set of regular expressions in one automaton.
+	 *
+	 * @param regexes regular expressions
+	 * @param maxStates maximum number of states of the deterministic automaton
+	 * @return automaton
+	 * @throws PatternSyntaxException if any of the expressions is not valid or it is not supported
+	 */
+	public static LinearAutomaton compile(final List<String> regexes, final int maxStates) {
+		NfaBuilder nfa = new NfaBuilder();
+		int start = -1;
+		for (int i = regexes.size() - 1; i >= 0; i--) {
+			String regex = regexes.get(i);
+			Node root = LinearRegexParser.parse(regex);
+			int match = nfa.add(MATCH, -1, i, null);
+			int patternStart = nfa.compile(root, match, regex);
+			start = start == -1 ? patternStart : nfa.add(SPLIT, patternStart, start, null);
+		}
+		if (start == -1) {
+			// No expressions, nothing matches
+			start = nfa.add(CHARS, -1, -1, CharRanges.EMPTY);
+		}
+		return new LinearAutomaton(Collections.unmodifiableList(new ArrayList<String>(regexes)), nfa, start, maxStates);
+	}
+
+	/**
+	 * Checks if any of the expressions matches the whole input.
+	 *
+	 * @param input text to match
+	 * @return true if at least one expression matches
+	 */
+	public boolean matches(final CharSequence input) {
+		return run(input) != null;
+	}
+
+	/**
+	 * Obtains the expressions that match the whole input.
+	 *
+	 * @param input text to match
+	 * @return indexes of the matching expressions, in the order they were compiled. Empty if there is none.
+	 */
+	public BitSet matchAll(final CharSequence input) {
+		BitSet result = run(input);
+		return result == null ? new BitSet() : (BitSet) result.clone();
+	}
+
+	/**
+	 * @return compiled expressions
+	 */
+	public List<String> getPatterns() {
+		return patterns;
+	}
+
+	/**
+	 * @return true if the deterministic automaton is used
+	 */
+	public boolean isDeterministic() {
+		return transitions != null;
+	}
+
+	/**
+	 * @return number of states of the deterministic automaton, or of the nondeterministic one if the former is not used
+	 */
+	public int getStateCount() {
+		return transitions != null ? accepted.length : nfaTypes.length;
+	}
+
+	/**
+	 * @return accepted expressions, null if none. Must not be modified.
+	 */
+	private BitSet run(final CharSequence input) {
+		if (transitions == null) {
+			return simulate(input);
+		}
+		int classCount = classStarts.length;
+		int state = 0;
+		int length = input.length();
+		for (int i = 0; i < length && !absorbing[state]; i++) {
+			state = transitions[state * classCount + classOf(input.charAt(i))];
+		}
+		return accepted[state];
+	}
+
+	/**
+	 * Simulates the nondeterministic automaton tracking all the active states at once.
+	 */
+	private BitSet simulate(final CharSequence input) {
+		int size = nfaTypes.length;
+		int[] current = new int[size];
+		int[] next = new int[size];
+		int[] marks = new int[size];
+		int[] stack = new int[2 * size + 1];
+		int generation = 1;
+		int count = closure(nfaStart, current, 0, marks, generation, stack);
+		int length = input.length();
+		for (int i = 0; i < length && count > 0; i++) {
+			int cls = classOf(input.charAt(i));
+			generation++;
+			int nextCount = 0;
+			for (int j = 0; j < count; j++) {
+				int state = current[j];
+				if (nfaTypes[state] == CHARS && nfaClasses[state].get(cls)) {
+					nextCount = closure(nfaOut[state], next, nextCount, marks, generation, stack);
+				}
+			}
+			int[] swap = current;
+			current = next;
+			next = swap;
+			count = nextCount;
+		}
+		BitSet result = null;
+		for (int j = 0; j < count; j++) {
+			if (nfaTypes[current[j]] == MATCH) {
+				if (result == null) {
+					result = new BitSet(patterns.size());
+				}
+				result.set(nfaOut2[current[j]]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds to <code>states</code> the {@link #CHARS} and {@link #MATCH} states reachable from <code>from</code> without consuming input.
+	 *
+	 * @return new number of states
+	 */
+	private int closure(final int from, final int[] states, final int count, final int[] marks, final int generation, final int[] stack) {
+		int added = count;
+		int top = 0;
+		stack[top++] = from;
+		while (top > 0) {
+			int state = stack[--top];
+			if (state < 0 || marks[state] == generation) {
+				continue;
+			}
+			marks[state] = generation;
+			if (nfaTypes[state] == SPLIT) {
+				// Push the second branch first to keep the order
+				stack[top++] = nfaOut2[state];
+				stack[top++] = nfaOut[state];
+			}
+			else {
+				states[added++] = state;
+			}
+		}
+		return added;
+	}
+
+	private int classOf(final char c) {
+		return c < ASCII ? asciiClasses[c] : searchClass(c);
+	}
+
+	private int searchClass(final int c) {
+		int index = Arrays.binarySearch(classStarts, c);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	private static int[] computeClassStarts(final NfaBuilder nfa) {
+		TreeSet<Integer> starts = new TreeSet<Integer>();
+		starts.add(0);
+		for (int[] set : nfa.chars) {
+			if (set == null) {
+				continue;
+			}
+			for (int i = 0; i < set.length; i += 2) {
+				starts.add(set[i]);
+				if (set[i + 1] < CharRanges.MAX_CHAR) {
+					starts.add(set[i + 1] + 1);
+				}
+			}
+		}
+		int[] result = new int[starts.size()];
+		int i = 0;
+		for (Integer start : starts) {
+			result[i++] = start;
+		}
+		return result;
+	}
+
+	private BitSet toClasses(final int[] set) {
+		BitSet classes = new BitSet(classStarts.length);
+		for (int i = 0; i < set.length; i += 2) {
+			classes.set(searchClass(set[i]), searchClass(set[i + 1]) + 1);
+		}
+		return classes;
+	}
+
+	@Override
+	public String toString() {
+		return "LinearAutomaton [patterns=" + patterns.size() + ", deterministic=" + isDeterministic() + ", states=" + getStateCount()
+				+ ", classes=" + classStarts.length + "]";
+	}
+
+	/**
+	 * Subset construction of the deterministic automaton.
+	 */
+	private class DfaBuilder {
+
+		private final int maxStates;
+
+		private final int classCount = classStarts.length;
+
+		private final Map<StateSet, Integer> ids = new HashMap<StateSet, Integer>();
+
+		private final List<int[]> sets = new ArrayList<int[]>();
+
+		final List<BitSet> accepted = new ArrayList<BitSet>();
+
+		private int[] table = new int[64];
+
+		DfaBuilder(final int maxStates) {
+			this.maxStates = maxStates;
+		}
+
+		boolean build() {
+			int size = nfaTypes.length;
+			int[] marks = new int[size];
+			int[] stack = new int[2 * size + 1];
+			int[] buffer = new int[size];
+			int generation = 1;
+
+			int count = closure(nfaStart, buffer, 0, marks, generation, stack);
+			stateId(buffer, count);
+
+			for (int state = 0; state < sets.size(); state++) {
+				int[] set = sets.get(state);
+				for (int cls = 0; cls < classCount; cls++) {
+					generation++;
+					count = 0;
+					for (int nfaState : set) {
+						if (nfaTypes[nfaState] == CHARS && nfaClasses[nfaState].get(cls)) {
+							count = closure(nfaOut[nfaState], buffer, count, marks, generation, stack);
+						}
+					}
+					int target = stateId(buffer, count);
+					if (target < 0) {
+						return false;
+					}
+					ensureCapacity((state + 1) * classCount);
+					table[state * classCount + cls] = target;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return identifier of the state for the set of states, -1 if there are too many states
+		 */
+		private int stateId(final int[] buffer, final int count) {
+			int[] set = new int[count];
+			System.arraycopy(buffer, 0, set, 0, count);
+			Arrays.sort(set);
+			StateSet key = new StateSet(set);
+			Integer id = ids.get(key);
+			if (id != null) {
+				return id;
+			}
+			if (sets.size() >= maxStates) {
+				return -1;
+			}
+			BitSet matches = null;
+			for (int nfaState : set) {
+				if (nfaTypes[nfaState] == MATCH) {
+					if (matches == null) {
+						matches = new BitSet(patterns.size());
+					}
+					matches.set(nfaOut2[nfaState]);
+				}
+			}
+			id = sets.size();
+			ids.put(key, id);
+			sets.add(set);
+			accepted.add(matches);
+			return id;
+		}
+
+		private void ensureCapacity(final int capacity) {
+			if (table.length < capacity) {
+				int[] grown = new int[Math.max(capacity, table.length * 2)];
+				System.arraycopy(table, 0, grown, 0, table.length);
+				table = grown;
+			}
+		}
+
+		int[] trimmedTransitions() {
+			int length = sets.size() * classCount;
+			int[] result = new int[length];
+			System.arraycopy(table, 0, result, 0, length);
+			return result;
+		}
+
+		boolean[] absorbing() {
+			boolean[] result = new boolean[sets.size()];
+			for (int state = 0; state < result.length; state++) {
+				result[state] = true;
+				for (int cls = 0; cls < classCount; cls++) {
+					if (table[state * classCount + cls] != state) {
+						result[state] = false;
+						break;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Sorted set of states of the nondeterministic automaton.
+	 */
+	private static final class StateSet {
+
+		private final int[] states;
+
+		private final int hash;
+
+		StateSet(final int[] states) {
+			this.states = states;
+			hash = Arrays.hashCode(states);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof StateSet && Arrays.equals(states, ((StateSet) obj).states);
+		}
+	}
+
+	/**
+	 * Thompson construction of the nondeterministic automaton.
+	 */
+	private static final class NfaBuilder {
+
+		int size;
+
+		int[] types = new int[64];
+
+		int[] out = new int[64];
+
+		int[] out2 = new int[64];
+
+		final List<int[]> chars = new ArrayList<int[]>();
+
+		int add(final int type, final int target, final int target2, final int[] set) {
+			if (size == types.length) {
+				types = copyOf(types, size * 2);
+				out = copyOf(out, size * 2);
+				out2 = copyOf(out2, size * 2);
+			}
+			types[size] = type;
+			out[size] = target;
+			out2[size] = target2;
+			chars.add(set);
+			return size++;
+		}
+
+		/**
+		 * Compiles the node so that it continues with <code>next</code>.
+		 *
+		 * @return first state of the node
+		 */
+		int compile(final Node node, final int next, final String regex) {
+			if (size > MAX_NFA_STATES) {
+				throw new PatternSyntaxException("Not supported by the linear engine: expression too big", regex, -1);
+			}
+			switch (node.type) {
+			case Node.CHARS:
+				return add(CHARS, next, -1, node.chars);
+			case Node.CONCATENATION:
+				int start = next;
+				for (int i = node.children.size() - 1; i >= 0; i--) {
+					start = compile(node.children.get(i), start, regex);
+				}
+				return start;
+			case Node.ALTERNATION:
+				int last = node.children.size() - 1;
+				int alternatives = compile(node.children.get(last), next, regex);
+				for (int i = last - 1; i >= 0; i--) {
+					alternatives = add(SPLIT, compile(node.children.get(i), next, regex), alternatives, null);
+				}
+				return alternatives;
+			default:
+				return compileRepetition(node, next, regex);
+			}
+		}
+
+		private int compileRepetition(final Node node, final int next, final String regex) {
+			Node child = node.children.get(0);
+			int start;
+			if (node.max == -1) {
+				// Loop: the body returns to the split
+				int loop = add(SPLIT, -1, next, null);
+				out[loop] = compile(child, loop, regex);
+				start = loop;
+			}
+			else {
+				// Nested optional copies: (x(x)?)?
+				start = next;
+				for (int i = node.min; i < node.max; i++) {
+					start = add(SPLIT, compile(child, start, regex), next, null);
+				}
+			}
+			for (int i = 0; i < node.min; i++) {
+				start = compile(child, start, regex);
+			}
+			return start;
+		}
+
+		int[] trimmed(final int[] array) {
+			return copyOf(array, size);
+		}
+
+		private static int[] copyOf(final int[] array, final int length) {
+			int[] result = new int[length];
+			System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * {@link PatternMatcher} implementation based on a {@link LinearAutomaton}, whose matching time is linear in the length of the input.
+ *
+ * @since 4.0.0
+ */
+public class LinearPatternMatcher implements PatternMatcher {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Original regular expression
+	 */
+	protected final String regex;
+
+	protected final LinearAutomaton automaton;
+
+	/**
+	 * Constructor that compiles the regular expression.
+	 *
+	 * @param regex java regular expression
+	 * @throws PatternSyntaxException if the expression is not valid or it is not supported by {@link LinearAutomaton}
+	 */
+	public LinearPatternMatcher(final String regex) {
+		this.regex = regex;
+		automaton = LinearAutomaton.compile(regex);
+	}
+
+	public boolean matches(final String input) {
+		return automaton.matches(input);
+	}
+
+	public String getPattern() {
+		return regex;
+	}
+
+	@Override
+	public String toString() {
+		return "LinearPatternMatcher [regex=" + regex + "]";
+	}
+
+}
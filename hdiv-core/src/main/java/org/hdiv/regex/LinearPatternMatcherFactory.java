@@ -0,0 +1,46 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PatternMatcherFactory} that creates {@link LinearPatternMatcher} instances, whose matching time does not depend on backtracking.
+ * Expressions not supported by {@link LinearAutomaton} are executed with {@link DefaultPatternMatcher}.
+ *
+ * @since 4.0.0
+ */
+public class LinearPatternMatcherFactory extends PatternMatcherFactory {
+
+	private static final Logger log = LoggerFactory.getLogger(LinearPatternMatcherFactory.class);
+
+	@Override
+	public PatternMatcher getPatternMatcher(final String regex) {
+		try {
+			return new LinearPatternMatcher(regex);
+		}
+		catch (PatternSyntaxException e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Pattern [" + regex + "] will be executed with java.util.regex: " + e.getDescription());
+			}
+			return new DefaultPatternMatcher(regex);
+		}
+	}
+
+}
@@ -0,0 +1,570 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses the subset of the <code>java.util.regex</code> syntax that can be executed by a finite automaton: literals, escapes, character
+ * classes, predefined classes, groups, alternations, greedy and lazy quantifiers and the i, s, m and d flags. Anchors are only accepted at
+ * the beginning and the end of the pattern, where they are implied by full matching.
+ * <p>
+ * Back references, lookarounds, atomic groups, possessive quantifiers, boundaries, Unicode properties and class intersections are rejected
+ * with a {@link PatternSyntaxException}, so callers can fall back to <code>java.util.regex</code>.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+final class LinearRegexParser {
+
+	static final int CASE_INSENSITIVE = 1;
+
+	static final int DOTALL = 2;
+
+	static final int UNIX_LINES = 4;
+
+	/**
+	 * Maximum bound of a counted repetition.
+	 */
+	static final int MAX_REPETITION = 1000;
+
+	private final String regex;
+
+	private int pos;
+
+	private int flags;
+
+	LinearRegexParser(final String regex) {
+		this.regex = regex;
+	}
+
+	/**
+	 * Parses the regular expression.
+	 *
+	 * @param regex regular expression
+	 * @return root node of the expression
+	 * @throws PatternSyntaxException if the expression is not valid or it is not supported
+	 */
+	static Node parse(final String regex) {
+		LinearRegexParser parser = new LinearRegexParser(regex);
+		Node node = parser.parseAlternation(0);
+		if (parser.pos < regex.length()) {
+			throw parser.error("Unmatched closing ')'");
+		}
+		return node;
+	}
+
+	private Node parseAlternation(final int depth) {
+		List<Node> alternatives = new ArrayList<Node>(1);
+		alternatives.add(parseConcatenation(depth));
+		while (pos < regex.length() && regex.charAt(pos) == '|') {
+			pos++;
+			alternatives.add(parseConcatenation(depth));
+		}
+		return alternatives.size() == 1 ? alternatives.get(0) : new Node(Node.ALTERNATION, alternatives);
+	}
+
+	private Node parseConcatenation(final int depth) {
+		List<Node> items = new ArrayList<Node>();
+		while (pos < regex.length()) {
+			char c = regex.charAt(pos);
+			if (c == '|' || c == ')') {
+				break;
+			}
+			if (c == '^') {
+				if (depth > 0 || !items.isEmpty()) {
+					throw unsupported("Anchor inside the expression");
+				}
+				pos++;
+				continue;
+			}
+			if (c == '$') {
+				pos++;
+				if (depth > 0 || pos < regex.length() && regex.charAt(pos) != '|') {
+					throw unsupported("Anchor inside the expression");
+				}
+				continue;
+			}
+			int before = items.size();
+			if (!parseAtom(items, depth)) {
+				// Flag group without content
+				continue;
+			}
+			if (items.size() > before) {
+				Node last = items.get(items.size() - 1);
+				items.set(items.size() - 1, parseQuantifier(last));
+			}
+		}
+		return items.size() == 1 ? items.get(0) : new Node(Node.CONCATENATION, items);
+	}
+
+	/**
+	 * Parses the next atom adding its nodes to <code>items</code>.
+	 *
+	 * @return false if there is no atom to quantify
+	 */
+	private boolean parseAtom(final List<Node> items, final int depth) {
+		char c = regex.charAt(pos);
+		switch (c) {
+		case '(':
+			return parseGroup(items, depth);
+		case '[':
+			pos++;
+			items.add(Node.chars(parseClass()));
+			return true;
+		case '.':
+			pos++;
+			items.add(Node.chars((flags & DOTALL) != 0 ? CharRanges.ANY : (flags & UNIX_LINES) != 0 ? CharRanges.DOT_UNIX_LINES
+					: CharRanges.DOT));
+			return true;
+		case '\\':
+			pos++;
+			if (pos < regex.length() && regex.charAt(pos) == 'Q') {
+				pos++;
+				int end = regex.indexOf("\\E", pos);
+				String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+				pos = end < 0 ? regex.length() : end + 2;
+				for (int i = 0; i < quoted.length(); i++) {
+					items.add(Node.chars(literal(quoted.charAt(i))));
+				}
+				return quoted.length() > 0;
+			}
+			items.add(Node.chars(parseEscape(false)));
+			return true;
+		case '*':
+		case '+':
+		case '?':
+		case '{':
+			throw error("Dangling meta character '" + c + "'");
+		default:
+			pos++;
+			items.add(Node.chars(literal(c)));
+			return true;
+		}
+	}
+
+	private boolean parseGroup(final List<Node> items, final int depth) {
+		pos++;
+		int savedFlags = flags;
+		if (regex.startsWith("?", pos)) {
+			pos++;
+			char c = pos < regex.length() ? regex.charAt(pos) : 0;
+			if (c == ':') {
+				pos++;
+			}
+			else if (c == '<' && pos + 1 < regex.length() && Character.isLetter(regex.charAt(pos + 1))) {
+				int end = regex.indexOf('>', pos);
+				if (end < 0) {
+					throw error("Named capturing group is missing trailing '>'");
+				}
+				pos = end + 1;
+			}
+			else if (c == '=' || c == '!' || c == '<' || c == '>') {
+				throw unsupported("Lookaround or atomic group");
+			}
+			else {
+				boolean on = true;
+				while (pos < regex.length() && regex.charAt(pos) != ')' && regex.charAt(pos) != ':') {
+					char flag = regex.charAt(pos++);
+					int mask;
+					switch (flag) {
+					case '-':
+						on = false;
+						continue;
+					case 'i':
+						mask = CASE_INSENSITIVE;
+						break;
+					case 's':
+						mask = DOTALL;
+						break;
+					case 'd':
+						mask = UNIX_LINES;
+						break;
+					case 'm':
+						// Only affects anchors, which are only accepted at the boundaries
+						mask = 0;
+						break;
+					default:
+						throw unsupported("Flag '" + flag + "'");
+					}
+					flags = on ? flags | mask : flags & ~mask;
+				}
+				if (pos >= regex.length()) {
+					throw error("Unknown inline modifier");
+				}
+				if (regex.charAt(pos++) == ')') {
+					// The flags apply until the end of the enclosing group
+					return false;
+				}
+			}
+		}
+		Node node = parseAlternation(depth + 1);
+		if (pos >= regex.length() || regex.charAt(pos) != ')') {
+			throw error("Unclosed group");
+		}
+		pos++;
+		flags = savedFlags;
+		items.add(node);
+		return true;
+	}
+
+	private Node parseQuantifier(final Node node) {
+		if (pos >= regex.length()) {
+			return node;
+		}
+		int min;
+		int max;
+		char c = regex.charAt(pos);
+		if (c == '*') {
+			min = 0;
+			max = -1;
+			pos++;
+		}
+		else if (c == '+') {
+			min = 1;
+			max = -1;
+			pos++;
+		}
+		else if (c == '?') {
+			min = 0;
+			max = 1;
+			pos++;
+		}
+		else if (c == '{') {
+			pos++;
+			min = parseNumber();
+			max = min;
+			if (pos < regex.length() && regex.charAt(pos) == ',') {
+				pos++;
+				max = pos < regex.length() && regex.charAt(pos) == '}' ? -1 : parseNumber();
+			}
+			if (pos >= regex.length() || regex.charAt(pos) != '}') {
+				throw error("Unclosed counted closure");
+			}
+			pos++;
+			if (max != -1 && max < min) {
+				throw error("Illegal repetition range");
+			}
+			if (min > MAX_REPETITION || max > MAX_REPETITION) {
+				throw unsupported("Repetition bound greater than " + MAX_REPETITION);
+			}
+		}
+		else {
+			return node;
+		}
+		if (pos < regex.length()) {
+			char mode = regex.charAt(pos);
+			if (mode == '?') {
+				// Lazy quantifiers accept the same inputs when the whole input is matched
+				pos++;
+			}
+			else if (mode == '+') {
+				throw unsupported("Possessive quantifier");
+			}
+		}
+		if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) {
+			throw error("Dangling meta character '" + regex.charAt(pos) + "'");
+		}
+		return Node.repeat(node, min, max);
+	}
+
+	private int parseNumber() {
+		int start = pos;
+		long value = 0;
+		while (pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+			value = Math.min(value * 10 + regex.charAt(pos) - '0', Integer.MAX_VALUE);
+			pos++;
+		}
+		if (pos == start) {
+			throw error("Illegal repetition");
+		}
+		return (int) value;
+	}
+
+	private int[] parseClass() {
+		boolean negated = false;
+		if (pos < regex.length() && regex.charAt(pos) == '^') {
+			negated = true;
+			pos++;
+		}
+		if (pos < regex.length() && regex.charAt(pos) == ']') {
+			throw unsupported("Closing bracket at the beginning of a class");
+		}
+		int[] set = CharRanges.EMPTY;
+		while (true) {
+			if (pos >= regex.length()) {
+				throw error("Unclosed character class");
+			}
+			char c = regex.charAt(pos);
+			if (c == ']') {
+				pos++;
+				break;
+			}
+			if (c == '[') {
+				if (negated) {
+					throw unsupported("Nested class in a negated class");
+				}
+				pos++;
+				set = CharRanges.union(set, parseClass());
+				continue;
+			}
+			if (c == '&' && regex.startsWith("&&", pos)) {
+				throw unsupported("Class intersection");
+			}
+			int[] item;
+			int lo;
+			if (c == '\\') {
+				pos++;
+				item = parseEscape(true);
+				if (item.length != 2 || item[0] != item[1]) {
+					// Predefined class
+					set = CharRanges.union(set, item);
+					continue;
+				}
+				lo = item[0];
+			}
+			else {
+				checkSupported(c);
+				pos++;
+				lo = c;
+			}
+			int hi = lo;
+			if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+				pos++;
+				char next = regex.charAt(pos);
+				if (next == '[') {
+					throw error("Illegal character range");
+				}
+				if (next == '\\') {
+					pos++;
+					int[] end = parseEscape(true);
+					if (end.length != 2 || end[0] != end[1]) {
+						throw error("Illegal character range");
+					}
+					hi = end[0];
+				}
+				else {
+					checkSupported(next);
+					pos++;
+					hi = next;
+				}
+				if (hi < lo) {
+					throw error("Illegal character range");
+				}
+			}
+			set = CharRanges.union(set, CharRanges.range(lo, hi));
+		}
+		if ((flags & CASE_INSENSITIVE) != 0) {
+			set = CharRanges.foldCase(set);
+		}
+		return negated ? CharRanges.complement(set) : set;
+	}
+
+	/**
+	 * Parses the escape sequence after the backslash.
+	 *
+	 * @param inClass true if the escape is inside a character class
+	 * @return escaped character, as a single character set, or predefined class
+	 */
+	private int[] parseEscape(final boolean inClass) {
+		if (pos >= regex.length()) {
+			throw error("Unexpected internal error");
+		}
+		char c = regex.charAt(pos++);
+		switch (c) {
+		case 'd':
+			return CharRanges.DIGIT;
+		case 'D':
+			return CharRanges.complement(CharRanges.DIGIT);
+		case 's':
+			return CharRanges.SPACE;
+		case 'S':
+			return CharRanges.complement(CharRanges.SPACE);
+		case 'w':
+			return CharRanges.WORD;
+		case 'W':
+			return CharRanges.complement(CharRanges.WORD);
+		case 'h':
+			return CharRanges.HORIZONTAL_SPACE;
+		case 'H':
+			return CharRanges.complement(CharRanges.HORIZONTAL_SPACE);
+		case 'v':
+			return CharRanges.VERTICAL_SPACE;
+		case 'V':
+			return CharRanges.complement(CharRanges.VERTICAL_SPACE);
+		case 't':
+			return escaped('\t', inClass);
+		case 'n':
+			return escaped('\n', inClass);
+		case 'r':
+			return escaped('\r', inClass);
+		case 'f':
+			return escaped('\f', inClass);
+		case 'a':
+			return escaped('\u0007', inClass);
+		case 'e':
+			return escaped('\u001B', inClass);
+		case 'c':
+			if (pos >= regex.length()) {
+				throw error("Illegal control escape sequence");
+			}
+			return escaped(regex.charAt(pos++) ^ 64, inClass);
+		case '0':
+			return escaped(parseOctal(), inClass);
+		case 'x':
+			return escaped(parseHex(), inClass);
+		case 'u':
+			return escaped(parseHexDigits(4), inClass);
+		default:
+			if (c >= '1' && c <= '9' || c == 'k') {
+				throw unsupported("Back reference");
+			}
+			if (Character.isLetterOrDigit(c)) {
+				throw unsupported("Escape sequence '\\" + c + "'");
+			}
+			return escaped(c, inClass);
+		}
+	}
+
+	private int[] escaped(final int c, final boolean inClass) {
+		checkSupported(c);
+		// Case is folded for the whole class at the end
+		return inClass ? CharRanges.single(c) : literal(c);
+	}
+
+	private int[] literal(final int c) {
+		checkSupported(c);
+		int[] set = CharRanges.single(c);
+		return (flags & CASE_INSENSITIVE) != 0 ? CharRanges.foldCase(set) : set;
+	}
+
+	private int parseOctal() {
+		int value = 0;
+		int digits = 0;
+		while (pos < regex.length() && digits < 3) {
+			char c = regex.charAt(pos);
+			int next = value * 8 + c - '0';
+			if (c < '0' || c > '7' || next > 0377) {
+				break;
+			}
+			value = next;
+			digits++;
+			pos++;
+		}
+		if (digits == 0) {
+			throw error("Illegal octal escape sequence");
+		}
+		return value;
+	}
+
+	private int parseHex() {
+		if (pos < regex.length() && regex.charAt(pos) == '{') {
+			int end = regex.indexOf('}', pos);
+			if (end < 0 || end == pos + 1) {
+				throw error("Unclosed hexadecimal escape sequence");
+			}
+			pos++;
+			int value = parseHexDigits(end - pos);
+			pos++;
+			return value;
+		}
+		return parseHexDigits(2);
+	}
+
+	private int parseHexDigits(final int count) {
+		if (pos + count > regex.length()) {
+			throw error("Illegal hexadecimal escape sequence");
+		}
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			int digit = Character.digit(regex.charAt(pos++), 16);
+			if (digit < 0) {
+				throw error("Illegal hexadecimal escape sequence");
+			}
+			value = value * 16 + digit;
+			if (value > CharRanges.MAX_CHAR) {
+				throw unsupported("Supplementary character");
+			}
+		}
+		return value;
+	}
+
+	private void checkSupported(final int c) {
+		if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+			throw unsupported("Supplementary character");
+		}
+	}
+
+	private PatternSyntaxException error(final String description) {
+		return new PatternSyntaxException(description, regex, pos);
+	}
+
+	private PatternSyntaxException unsupported(final String construct) {
+		return new PatternSyntaxException("Not supported by the linear engine: " + construct, regex, pos);
+	}
+
+	/**
+	 * Node of the parsed expression.
+	 */
+	static final class Node {
+
+		static final int CHARS = 0;
+
+		static final int CONCATENATION = 1;
+
+		static final int ALTERNATION = 2;
+
+		static final int REPETITION = 3;
+
+		final int type;
+
+		final int[] chars;
+
+		final List<Node> children;
+
+		final int min;
+
+		/**
+		 * Maximum number of repetitions, -1 if unbounded.
+		 */
+		final int max;
+
+		private Node(final int type, final int[] chars, final List<Node> children, final int min, final int max) {
+			this.type = type;
+			this.chars = chars;
+			this.children = children;
+			this.min = min;
+			this.max = max;
+		}
+
+		Node(final int type, final List<Node> children) {
+			this(type, null, children, 0, 0);
+		}
+
+		static Node chars(final int[] chars) {
+			return new Node(CHARS, chars, null, 0, 0);
+		}
+
+		static Node repeat(final Node node, final int min, final int max) {
+			List<Node> children = new ArrayList<Node>(1);
+			children.add(node);
+			return new Node(REPETITION, null, children, min, max);
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Group of {@link PatternMatcher} instances, each one associated to a value, that are evaluated together against an input.
+ * <p>
+ * Values are returned in the same order their matchers were added, so the first match of a linear scan is preserved. Instances are
+ * populated at configuration time and are safe for concurrent lookups once populated.
+ * </p>
+ *
+ * @param <T> type of the values associated to the matchers
+ * @since 4.0.0
+ */
+public interface PatternMatcherIndex<T> extends Serializable {
+
+	/**
+	 * Adds a matcher to the index.
+	 *
+	 * @param matcher pattern matcher
+	 * @param value value returned when the matcher matches
+	 */
+	void add(PatternMatcher matcher, T value);
+
+	/**
+	 * Checks if any of the matchers matches the input.
+	 *
+	 * @param input text to match
+	 * @return true if at least one matcher matches
+	 */
+	boolean matches(String input);
+
+	/**
+	 * Obtains the value of the first added matcher that matches the input.
+	 *
+	 * @param input text to match
+	 * @return matching value or null if there is none
+	 */
+	T findFirst(String input);
+
+	/**
+	 * Obtains the values of all the matchers that match the input, in insertion order.
+	 *
+	 * @param input text to match
+	 * @return matching values. Empty list if there is none.
+	 */
+	List<T> findAll(String input);
+
+	/**
+	 * @return number of matchers in the index
+	 */
+	int size();
+
+}
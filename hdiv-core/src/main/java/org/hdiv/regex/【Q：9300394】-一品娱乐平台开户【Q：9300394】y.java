@@ -31,4 +31,14 @@ public class PatternMatcherFactory {
 	public PatternMatcher getPatternMatcher(String regex) {
 		return new DefaultPatternMatcher(regex);
 	}
+
+	/**
+	 * Return an empty {@link PatternMatcherIndex} to group {@link PatternMatcher} instances created by this factory.
+	 * 
+	 * @return {@link PatternMatcherIndex} instance.
+	 * @since 4.0.0
+	 */
+	public <T> PatternMatcherIndex<T> getPatternMatcherIndex() {
+		return new DefaultPatternMatcherIndex<T>();
+	}
 }
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.state.IPage;
+import org.hdiv.state.Page;
+import org.hdiv.state.PageCodec;
+
+/**
+ * Base class for {@link PageStore} implementations that keep the pages as bytes.
+ * <p>
+ * Pages supported by {@link PageCodec} are stored in its compact format, any other page is stored with Java serialization.
+ * </p>
+ * <p>
+ * These stores are shared by all the users, but page identifiers are only unique within a session. Every page is stored under a random
+ * key of its session, kept in a session attribute, so users can not read, replace or remove the pages of other sessions.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public abstract class AbstractSerializedPageStore implements PageStore {
+
+	private static final byte COMPACT = 'C';
+
+	private static final byte SERIALIZED = 'S';
+
+	/**
+	 * Name of the session attribute with the key of the session in the store.
+	 */
+	private static final String SESSION_KEY_NAME = "hdiv-page-store-key";
+
+	/**
+	 * Obtains the key that qualifies the pages of a session in the store.
+	 *
+	 * @param session user session
+	 * @param create true to create the key if the session doesn't have one
+	 * @return session key, or null if the session doesn't have one and <code>create</code> is false
+	 */
+	protected String getSessionKey(final SessionModel session, final boolean create) {
+		String key = (String) session.getAttribute(SESSION_KEY_NAME);
+		if (key == null && create) {
+			key = UUID.randomUUID().toString();
+			session.setAttribute(SESSION_KEY_NAME, key);
+		}
+		return key;
+	}
+
+	/**
+	 * Converts a page to bytes.
+	 *
+	 * @param page page to convert
+	 * @return page bytes
+	 */
+	protected byte[] serialize(final IPage page) {
+		if (page instanceof Page && PageCodec.isSupported(page)) {
+			byte[] data = PageCodec.encode((Page) page);
+			byte[] result = new byte[data.length + 1];
+			result[0] = COMPACT;
+			System.arraycopy(data, 0, result, 1, data.length);
+			return result;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		bytes.write(SERIALIZED);
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(page);
+			out.close();
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error serializing page " + page.getId(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores a page converted with {@link #serialize(IPage)}.
+	 *
+	 * @param data page bytes
+	 * @return restored page
+	 */
+	protected IPage deserialize(final byte[] data) {
+		if (data[0] == COMPACT) {
+			byte[] encoded = new byte[data.length - 1];
+			System.arraycopy(data, 1, encoded, 0, encoded.length);
+			return PageCodec.decode(encoded);
+		}
+
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+			try {
+				return (IPage) in.readObject();
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error deserializing page", e);
+		}
+		catch (ClassNotFoundException e) {
+			throw new HDIVException("Error deserializing page", e);
+		}
+	}
+
+}
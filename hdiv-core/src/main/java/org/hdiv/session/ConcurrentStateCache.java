@@ -0,0 +1,267 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hdiv.state.IPage;
+import org.hdiv.state.Page;
+import org.hdiv.state.PageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link IStateCache} implementation that can be used by concurrent requests of the same user without locking.
+ * <p>
+ * Page identifiers are kept in an immutable snapshot that is replaced atomically on every change. Besides the maximum number of pages, a
+ * maximum number of bytes can be configured: the oldest pages are removed while the estimated size of the stored pages exceeds it. Page
+ * sizes are only estimated when a maximum number of bytes is configured.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class ConcurrentStateCache implements EvictingStateCache {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(ConcurrentStateCache.class);
+
+	private static final int DEFAULT_MAX_SIZE = 5;
+
+	/**
+	 * Max number of pages.
+	 */
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Max number of bytes of the stored pages. Zero or less means no limit.
+	 */
+	private long maxBytes;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>(Snapshot.EMPTY);
+
+	/**
+	 * Adds a new page identifier to the cache. As only one removed identifier can be returned, at most one page is removed. If the
+	 * maximum number of pages has been lowered, the cache doesn't shrink until pages are added with
+	 * {@link #addPage(IPage, UUID, boolean, boolean)}.
+	 */
+	public UUID addPage(final UUID pageId, final UUID currentPageId, final boolean isRefreshRequest, final boolean isAjaxRequest) {
+
+		List<UUID> removed = addPage(pageId, 0, currentPageId, isRefreshRequest, isAjaxRequest, 1);
+		return removed.isEmpty() ? null : removed.get(0);
+	}
+
+	public List<UUID> addPage(final IPage page, final UUID currentPageId, final boolean isRefreshRequest, final boolean isAjaxRequest) {
+
+		long pageSize = maxBytes > 0 ? estimatePageSize(page) : 0;
+		return addPage(page.getId(), pageSize, currentPageId, isRefreshRequest, isAjaxRequest);
+	}
+
+	/**
+	 * Adds a new page identifier to the cache.
+	 *
+	 * @param pageId page identifier to add
+	 * @param pageSize estimated size of the page in bytes
+	 * @param currentPageId page identifier of the current request. It can be null if no state id is present.
+	 * @param isRefreshRequest if the request is a refresh request
+	 * @param isAjaxRequest if the request is an ajax request
+	 * @return identifiers removed from the cache to keep it under its limits, that must be deleted from session
+	 */
+	public List<UUID> addPage(final UUID pageId, final long pageSize, final UUID currentPageId, final boolean isRefreshRequest,
+			final boolean isAjaxRequest) {
+
+		return addPage(pageId, pageSize, currentPageId, isRefreshRequest, isAjaxRequest, Integer.MAX_VALUE);
+	}
+
+	private List<UUID> addPage(final UUID pageId, final long pageSize, final UUID currentPageId, final boolean isRefreshRequest,
+			final boolean isAjaxRequest, final int maxRemovals) {
+
+		for (;;) {
+			Snapshot current = snapshot.get();
+			if (current.indexOf(pageId) >= 0) {
+				// Page id already exist in session
+				return Collections.emptyList();
+			}
+
+			List<UUID> removed = new ArrayList<UUID>(1);
+			Snapshot next = current;
+
+			// Remove last page when we know that browser's forward history is empty (See issue #67)
+			int totalPages = next.ids.length;
+			if (currentPageId != null && totalPages > 1 && currentPageId.equals(next.ids[totalPages - 2]) && isRefreshRequest
+					&& !isAjaxRequest) {
+				removed.add(next.ids[totalPages - 1]);
+				next = next.remove(totalPages - 1);
+			}
+
+			while (removed.size() < maxRemovals && next.ids.length > 0 && next.ids.length >= maxSize) {
+				removed.add(next.ids[0]);
+				next = next.remove(0);
+			}
+
+			next = next.add(pageId, pageSize);
+
+			// Never remove the page being added
+			while (removed.size() < maxRemovals && maxBytes > 0 && next.bytes > maxBytes && next.ids.length > 1) {
+				removed.add(next.ids[0]);
+				next = next.remove(0);
+			}
+
+			if (snapshot.compareAndSet(current, next)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Page with [" + pageId + "] added to the cache. Removed pages " + removed + ". Cache contains " + next);
+				}
+				return removed;
+			}
+		}
+	}
+
+	public boolean removePage(final UUID pageId) {
+
+		for (;;) {
+			Snapshot current = snapshot.get();
+			int index = current.indexOf(pageId);
+			if (index < 0) {
+				return false;
+			}
+			if (snapshot.compareAndSet(current, current.remove(index))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Estimates the size in bytes of a page. Only called when a maximum number of bytes is configured.
+	 *
+	 * @param page page to measure
+	 * @return estimated size of the page, or 0 if it can not be estimated
+	 */
+	protected long estimatePageSize(final IPage page) {
+		if (PageCodec.isSupported(page)) {
+			return PageCodec.estimateSize((Page) page);
+		}
+		return 0;
+	}
+
+	/**
+	 * @return Read only copy of the page identifiers, from the oldest to the newest
+	 */
+	public List<UUID> getPageIds() {
+		return Collections.unmodifiableList(Arrays.asList(snapshot.get().ids));
+	}
+
+	public UUID getLastPageId() {
+		UUID[] ids = snapshot.get().ids;
+		return ids.length > 0 ? ids[ids.length - 1] : null;
+	}
+
+	/**
+	 * @return estimated size in bytes of the pages in the cache
+	 */
+	public long getBytes() {
+		return snapshot.get().bytes;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(final int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public void setMaxBytes(final long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public String toString() {
+		return snapshot.get().toString();
+	}
+
+	/**
+	 * Immutable list of page identifiers and sizes.
+	 */
+	private static final class Snapshot implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		static final Snapshot EMPTY = new Snapshot(new UUID[0], new long[0], 0);
+
+		final UUID[] ids;
+
+		final long[] sizes;
+
+		final long bytes;
+
+		Snapshot(final UUID[] ids, final long[] sizes, final long bytes) {
+			this.ids = ids;
+			this.sizes = sizes;
+			this.bytes = bytes;
+		}
+
+		int indexOf(final UUID pageId) {
+			for (int i = ids.length - 1; i >= 0; i--) {
+				if (ids[i].equals(pageId)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		Snapshot add(final UUID pageId, final long size) {
+			UUID[] newIds = new UUID[ids.length + 1];
+			long[] newSizes = new long[ids.length + 1];
+			System.arraycopy(ids, 0, newIds, 0, ids.length);
+			System.arraycopy(sizes, 0, newSizes, 0, ids.length);
+			newIds[ids.length] = pageId;
+			newSizes[ids.length] = size;
+			return new Snapshot(newIds, newSizes, bytes + size);
+		}
+
+		Snapshot remove(final int index) {
+			UUID[] newIds = new UUID[ids.length - 1];
+			long[] newSizes = new long[ids.length - 1];
+			System.arraycopy(ids, 0, newIds, 0, index);
+			System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+			System.arraycopy(sizes, 0, newSizes, 0, index);
+			System.arraycopy(sizes, index + 1, newSizes, index, ids.length - index - 1);
+			return new Snapshot(newIds, newSizes, bytes - sizes[index]);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			result.append("[");
+			for (UUID pageId : ids) {
+				result.append(" " + pageId.getLeastSignificantBits());
+			}
+			result.append("]");
+			return result.toString();
+		}
+	}
+
+}
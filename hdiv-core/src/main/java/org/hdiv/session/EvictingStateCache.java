@@ -0,0 +1,50 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.hdiv.state.IPage;
+
+/**
+ * Optional extension of {@link IStateCache} for caches that decide which pages to evict from the page itself, for example from its size,
+ * and that support removing single pages. {@link HTTPSessionCache} falls back to the {@link IStateCache} methods for other caches.
+ *
+ * @since 4.0.0
+ */
+public interface EvictingStateCache extends IStateCache {
+
+	/**
+	 * Adds a new page to the cache.
+	 *
+	 * @param page page to add
+	 * @param currentPageId page identifier of the current request. It can be null if no state id is present.
+	 * @param isRefreshRequest if the request is a refresh request
+	 * @param isAjaxRequest if the request is an ajax request
+	 * @return identifiers removed from the cache to keep it under its limits, that must be deleted from session
+	 */
+	List<UUID> addPage(IPage page, UUID currentPageId, boolean isRefreshRequest, boolean isAjaxRequest);
+
+	/**
+	 * Removes a page identifier from the cache.
+	 *
+	 * @param pageId page identifier to remove
+	 * @return true if the page identifier was in the cache
+	 */
+	boolean removePage(UUID pageId);
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hdiv.state.IPage;
+
+/**
+ * {@link PageStore} that keeps the pages as values of a key-value store.
+ * <p>
+ * This implementation uses an in-process map. Subclasses can store the pages in an external key-value server overriding
+ * {@link #put(String, byte[])}, {@link #get(String)} and {@link #delete(String)}.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class KeyValuePageStore extends AbstractSerializedPageStore {
+
+	private final ConcurrentMap<String, byte[]> entries = new ConcurrentHashMap<String, byte[]>();
+
+	private String keyPrefix = "hdiv-page-";
+
+	public void storePage(final SessionModel session, final IPage page) {
+		put(getKey(getSessionKey(session, true), page.getId()), serialize(page));
+	}
+
+	public IPage findPage(final SessionModel session, final UUID pageId) {
+		String sessionKey = getSessionKey(session, false);
+		if (sessionKey == null) {
+			return null;
+		}
+		byte[] data = get(getKey(sessionKey, pageId));
+		return data == null ? null : deserialize(data);
+	}
+
+	public boolean removePage(final SessionModel session, final UUID pageId) {
+		String sessionKey = getSessionKey(session, false);
+		return sessionKey != null && delete(getKey(sessionKey, pageId));
+	}
+
+	/**
+	 * @param sessionKey key of the session in the store
+	 * @param pageId page identifier
+	 * @return key of the page in the store
+	 */
+	protected String getKey(final String sessionKey, final UUID pageId) {
+		return keyPrefix + sessionKey + '/' + pageId;
+	}
+
+	/**
+	 * Stores a value.
+	 *
+	 * @param key key
+	 * @param value value
+	 */
+	protected void put(final String key, final byte[] value) {
+		entries.put(key, value);
+	}
+
+	/**
+	 * Obtains a value.
+	 *
+	 * @param key key
+	 * @return value or null if it doesn't exist
+	 */
+	protected byte[] get(final String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param key key
+	 * @return true if the value existed
+	 */
+	protected boolean delete(final String key) {
+		return entries.remove(key) != null;
+	}
+
+	/**
+	 * @return number of values in the in-process map
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public String getKeyPrefix() {
+		return keyPrefix;
+	}
+
+	public void setKeyPrefix(final String keyPrefix) {
+		this.keyPrefix = keyPrefix;
+	}
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hdiv.state.IPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PageStore} that keeps the pages of all the users in direct {@link ByteBuffer}s, out of the Java heap.
+ * <p>
+ * Only a small buffer reference per page is kept in the heap, so page history does not increase GC pause times. When the total size of
+ * the stored pages exceeds <code>maxBytes</code> the oldest pages are discarded. The direct memory available to the JVM must be greater
+ * than <code>maxBytes</code> (see <code>-XX:MaxDirectMemorySize</code>).
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class OffHeapPageStore extends AbstractSerializedPageStore {
+
+	private static final Logger log = LoggerFactory.getLogger(OffHeapPageStore.class);
+
+	private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	/**
+	 * Pages in insertion order, by session key and page identifier.
+	 */
+	private final Map<String, ByteBuffer> pages = new LinkedHashMap<String, ByteBuffer>();
+
+	private long maxBytes = DEFAULT_MAX_BYTES;
+
+	private long bytes;
+
+	private long evictions;
+
+	public void storePage(final SessionModel session, final IPage page) {
+
+		byte[] data = serialize(page);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+		buffer.put(data);
+		buffer.flip();
+
+		String key = getKey(getSessionKey(session, true), page.getId());
+		synchronized (pages) {
+			ByteBuffer previous = pages.remove(key);
+			if (previous != null) {
+				bytes -= previous.capacity();
+			}
+			pages.put(key, buffer);
+			bytes += data.length;
+
+			// Never remove the page being added
+			Iterator<Map.Entry<String, ByteBuffer>> it = pages.entrySet().iterator();
+			while (bytes > maxBytes && pages.size() > 1) {
+				Map.Entry<String, ByteBuffer> eldest = it.next();
+				bytes -= eldest.getValue().capacity();
+				it.remove();
+				evictions++;
+				if (log.isDebugEnabled()) {
+					log.debug("Page [" + eldest.getKey() + "] discarded, off-heap page store is full");
+				}
+			}
+		}
+	}
+
+	public IPage findPage(final SessionModel session, final UUID pageId) {
+
+		String sessionKey = getSessionKey(session, false);
+		if (sessionKey == null) {
+			return null;
+		}
+		ByteBuffer buffer;
+		synchronized (pages) {
+			buffer = pages.get(getKey(sessionKey, pageId));
+		}
+		if (buffer == null) {
+			return null;
+		}
+		byte[] data = new byte[buffer.capacity()];
+		buffer.duplicate().get(data);
+		return deserialize(data);
+	}
+
+	public boolean removePage(final SessionModel session, final UUID pageId) {
+
+		String sessionKey = getSessionKey(session, false);
+		if (sessionKey == null) {
+			return false;
+		}
+		synchronized (pages) {
+			ByteBuffer buffer = pages.remove(getKey(sessionKey, pageId));
+			if (buffer == null) {
+				return false;
+			}
+			bytes -= buffer.capacity();
+			return true;
+		}
+	}
+
+	private String getKey(final String sessionKey, final UUID pageId) {
+		return sessionKey + '/' + pageId;
+	}
+
+	/**
+	 * @return number of stored pages
+	 */
+	public int size() {
+		synchronized (pages) {
+			return pages.size();
+		}
+	}
+
+	/**
+	 * @return total size of the stored pages
+	 */
+	public long getBytes() {
+		synchronized (pages) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * @return number of pages discarded because the store was full
+	 */
+	public long getEvictions() {
+		synchronized (pages) {
+			return evictions;
+		}
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public void setMaxBytes(final long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.UUID;
+
+import org.hdiv.state.IPage;
+
+/**
+ * Storage of the {@link IPage} instances of the users.
+ * <p>
+ * The page identifiers of each user are always kept in the {@link IStateCache} of the session, that decides which pages must be removed.
+ * Implementations only store the pages, so they can be kept out of the session, out of the heap or in an external server.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public interface PageStore {
+
+	/**
+	 * Stores a page. If a page with the same identifier exists, it is replaced.
+	 *
+	 * @param session user session
+	 * @param page page to store
+	 */
+	void storePage(SessionModel session, IPage page);
+
+	/**
+	 * Obtains a stored page.
+	 *
+	 * @param session user session
+	 * @param pageId page identifier
+	 * @return stored page or null if it doesn't exist
+	 */
+	IPage findPage(SessionModel session, UUID pageId);
+
+	/**
+	 * Removes a stored page.
+	 *
+	 * @param session user session
+	 * @param pageId page identifier
+	 * @return true if the page existed
+	 */
+	boolean removePage(SessionModel session, UUID pageId);
+
+}
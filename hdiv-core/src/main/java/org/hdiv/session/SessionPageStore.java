@@ -0,0 +1,51 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.UUID;
+
+import org.hdiv.state.IPage;
+
+/**
+ * {@link PageStore} that keeps the pages as attributes of the user session. It is the default implementation.
+ *
+ * @since 4.0.0
+ */
+public class SessionPageStore implements PageStore {
+
+	/**
+	 * Prefix for the key of the pages stored in session.
+	 */
+	private static final String PAGE_ID_KEY_PREFIX = "hdiv-page-";
+
+	public void storePage(final SessionModel session, final IPage page) {
+		session.setAttribute(PAGE_ID_KEY_PREFIX + page.getId(), page);
+	}
+
+	public IPage findPage(final SessionModel session, final UUID pageId) {
+		return (IPage) session.getAttribute(PAGE_ID_KEY_PREFIX + pageId);
+	}
+
+	public boolean removePage(final SessionModel session, final UUID pageId) {
+		Object attr = session.getAttribute(PAGE_ID_KEY_PREFIX + pageId);
+		if (attr == null) {
+			return false;
+		}
+		session.removeAttribute(PAGE_ID_KEY_PREFIX + pageId);
+		return true;
+	}
+
+}
@@ -15,12 +15,15 @@
  */
 package org.hdiv.session;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import javax.servlet.http.HttpSession;
 
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.state.IPage;
 import org.hdiv.util.Constants;
 import org.slf4j.Logger;
@@ -42,9 +45,14 @@ public class HTTPSessionCache {
 	private BeanFactory beanFactory;
 
 	/**
-	 * Prefix for the key of the pages stored in session.
+	 * Storage of the pages. Page identifiers are always kept in session.
 	 */
-	private static final String PAGE_ID_KEY_PREFIX = "hdiv-page-";
+	private PageStore pageStore = new SessionPageStore();
+
+	/**
+	 * Instrumentation of the stored and evicted pages.
+	 */
+	private HdivMetrics metrics = NoOpMetrics.INSTANCE;
 
 	public void insertPage(final SimpleCacheKey key, final IPage newPage) {
 		RequestContextHolder ctx = key.getRequestContext();
@@ -65,19 +73,32 @@ public class HTTPSessionCache {
 		// Check if is an Ajax request.
 		boolean isAjaxRequest = ctx.isAjax();
 
-		UUID removedPageId = cache.addPage(pageId, currentPage, isRefreshRequest, isAjaxRequest);
-
-		// if it returns a page identifier it is because the cache has reached
-		// the maximum size and therefore we must delete the page which has been
-		// stored for the longest time
-		if (removedPageId != null) {
-			deletePage(session, removedPageId);
+		if (cache instanceof EvictingStateCache) {
+			List<UUID> removedPageIds = ((EvictingStateCache) cache).addPage(newPage, currentPage, isRefreshRequest, isAjaxRequest);
+			for (UUID removedPageId : removedPageIds) {
+				deletePage(session, removedPageId);
+			}
+			if (!removedPageIds.isEmpty()) {
+				metrics.increment(HdivMetrics.PAGES_EVICTED, null, removedPageIds.size());
+			}
+		}
+		else {
+			UUID removedPageId = cache.addPage(pageId, currentPage, isRefreshRequest, isAjaxRequest);
+
+			// if it returns a page identifier it is because the cache has reached
+			// the maximum size and therefore we must delete the page which has been
+			// stored for the longest time
+			if (removedPageId != null) {
+				deletePage(session, removedPageId);
+				metrics.increment(HdivMetrics.PAGES_EVICTED, null, 1);
+			}
 		}
 
 		// we update page identifier cache in session
 		saveStateCache(session, cache);
 
-		session.setAttribute(PAGE_ID_KEY_PREFIX + newPage.getId(), newPage);
+		pageStore.storePage(session, newPage);
+		metrics.increment(HdivMetrics.PAGES_STORED, null, 1);
 
 		if (log.isDebugEnabled()) {
 			log.debug("Added new page with id:" + newPage.getId());
@@ -93,25 +114,33 @@ public class HTTPSessionCache {
 		}
 
 		SessionModel session = key.getRequestContext().getSession();
-		return (IPage) session.getAttribute(PAGE_ID_KEY_PREFIX + key.getPageId());
+		if (!(pageStore instanceof SessionPageStore) && !getStateCache(session).getPageIds().contains(key.getPageId())) {
+			// Pages out of the session are shared by all the users, only return the pages of this user
+			return null;
+		}
+		return pageStore.findPage(session, key.getPageId());
 	}
 
 	public boolean removePage(final SimpleCacheKey key) {
 
 		SessionModel session = key.getRequestContext().getSession();
 
-		Object attr = session.getAttribute(PAGE_ID_KEY_PREFIX + key.getPageId());
-		if (attr == null) {
+		if (!pageStore.removePage(session, key.getPageId())) {
 			return false;
 		}
-		session.removeAttribute(PAGE_ID_KEY_PREFIX + key.getPageId());
 
-		IStateCache cache = getStateCache(session);
-		return cache.getPageIds().remove(key.getPageId());
+		return removeFromCache(getStateCache(session), key.getPageId());
+	}
+
+	private boolean removeFromCache(final IStateCache cache, final UUID pageId) {
+		if (cache instanceof EvictingStateCache) {
+			return ((EvictingStateCache) cache).removePage(pageId);
+		}
+		return cache.getPageIds().remove(pageId);
 	}
 
 	private void deletePage(final SessionModel session, final UUID pageId) {
-		session.removeAttribute(PAGE_ID_KEY_PREFIX + pageId);
+		pageStore.removePage(session, pageId);
 
 		if (log.isDebugEnabled()) {
 			log.debug("Deleted page with id:" + pageId);
@@ -127,17 +156,15 @@ public class HTTPSessionCache {
 			log.debug("Cache pages before finished pages are deleted:" + cache.toString());
 		}
 
-		List<UUID> pageIds = cache.getPageIds();
+		List<UUID> pageIds = new ArrayList<UUID>(cache.getPageIds());
 
-		for (int i = 0; i < pageIds.size(); i++) {
+		for (UUID pageId : pageIds) {
 
-			UUID pageId = pageIds.get(i);
 			IPage currentPage = findPage(new SimpleCacheKey(context, pageId));
 			if (currentPage != null && conversationId.equalsIgnoreCase(currentPage.getFlowId())) {
 
 				deletePage(context.getSession(), pageId);
-				pageIds.remove(i);
-				i--;
+				removeFromCache(cache, pageId);
 			}
 		}
 
@@ -215,4 +242,28 @@ public class HTTPSessionCache {
 	public void setBeanFactory(final BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
 	}
+
+	/**
+	 * @param pageStore the pageStore to set
+	 * @since 4.0.0
+	 */
+	public void setPageStore(final PageStore pageStore) {
+		this.pageStore = pageStore;
+	}
+
+	/**
+	 * @return the pageStore
+	 * @since 4.0.0
+	 */
+	public PageStore getPageStore() {
+		return pageStore;
+	}
+
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
 }
@@ -16,9 +16,11 @@
 package org.hdiv.session;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import org.hdiv.state.IPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,7 +30,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Roberto Velasco
  */
-public class StateCache implements IStateCache {
+public class StateCache implements EvictingStateCache {
 
 	private static final int DEFAULT_MAX_SIZE = 5;
 
@@ -86,6 +88,22 @@ public class StateCache implements IStateCache {
 		}
 	}
 
+	/**
+	 * Adds a new page to the cache.
+	 * 
+	 * @param page page to add
+	 * @param currentPageId page identifier of the current request. It can be null if no state id is present.
+	 * @param isRefreshRequest if request is a refresh request
+	 * @param isAjaxRequest if request is an ajax request
+	 * @return identifier removed from the cache, if any
+	 * @since 4.0.0
+	 */
+	public List<UUID> addPage(final IPage page, final UUID currentPageId, final boolean isRefreshRequest, final boolean isAjaxRequest) {
+
+		UUID removedKey = addPage(page.getId(), currentPageId, isRefreshRequest, isAjaxRequest);
+		return removedKey == null ? Collections.<UUID> emptyList() : Collections.singletonList(removedKey);
+	}
+
 	/**
 	 * If the buffer <code>pageIds</code> has reached its maximum size <code>maxSize</code>, one page is deleted. If current page is the
 	 * last one, the oldest key is removed, otherwise any newer page is removed
@@ -120,6 +138,18 @@ public class StateCache implements IStateCache {
 		return removed;
 	}
 
+	/**
+	 * Removes a page identifier from the cache.
+	 * 
+	 * @param pageId page identifier to remove
+	 * @return true if the page identifier was in the cache
+	 * @since 4.0.0
+	 */
+	public synchronized boolean removePage(final UUID pageId) {
+
+		return pageIds.remove(pageId);
+	}
+
 	/**
 	 * Return last page id in the cache.
 	 * 
@@ -19,9 +19,13 @@ import java.util.UUID;
 
 import javax.servlet.http.HttpSession;
 
+import org.hdiv.context.LazyHttpSessionModel;
 import org.hdiv.context.RequestContextHolder;
+import org.hdiv.context.WriteBehindSessionModel;
 import org.hdiv.exception.HDIVException;
 import org.hdiv.idGenerator.PageIdGenerator;
+import org.hdiv.idGenerator.StatelessPageIdGenerator;
+import org.hdiv.metrics.HdivMetrics;
 import org.hdiv.state.IPage;
 import org.hdiv.state.IState;
 import org.hdiv.util.Constants;
@@ -51,6 +55,13 @@ public class SessionHDIV implements ISession, BeanFactoryAware {
 
 	protected final HTTPSessionCache cache = new HTTPSessionCache();
 
+	/**
+	 * Generator shared by all the sessions, if the configured one is a {@link StatelessPageIdGenerator}.
+	 */
+	private volatile StatelessPageIdGenerator statelessPageIdGenerator;
+
+	private volatile boolean pageIdGeneratorResolved;
+
 	/**
 	 * Obtains from the user session the page identifier for the current request.
 	 * 
@@ -59,11 +70,18 @@ public class SessionHDIV implements ISession, BeanFactoryAware {
 	 */
 	public final UUID getPageId(final RequestContextHolder context) {
 
-		SessionModel session = context.getSession();
-
-		PageIdGenerator pageIdGenerator = (PageIdGenerator) session.getAttribute(pageIdGeneratorName);
+		SessionModel session = null;
+		PageIdGenerator pageIdGenerator = getStatelessPageIdGenerator();
 		if (pageIdGenerator == null) {
-			pageIdGenerator = beanFactory.getBean(PageIdGenerator.class);
+			session = context.getSession();
+			pageIdGenerator = (PageIdGenerator) session.getAttribute(pageIdGeneratorName);
+			if (pageIdGenerator == null) {
+				pageIdGenerator = beanFactory.getBean(PageIdGenerator.class);
+			}
+		}
+		else {
+			// The generator is not stored, but the pages are stored in session while the response is rendered
+			createSession(context);
 		}
 		if (pageIdGenerator == null) {
 			throw new HDIVException("session.nopageidgenerator");
@@ -76,12 +94,47 @@ public class SessionHDIV implements ISession, BeanFactoryAware {
 			throw new HDIVException("Incorrect PageId generated [" + id + "].");
 		}
 
-		session.setAttribute(pageIdGeneratorName, pageIdGenerator);
+		if (session != null) {
+			// Store the updated generator, so that it is replicated
+			session.setAttribute(pageIdGeneratorName, pageIdGenerator);
+		}
 
 		return id;
 
 	}
 
+	/**
+	 * Creates the {@link HttpSession} of the request if it doesn't exist yet, so that it is created before the response is committed.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @since 4.0.0
+	 */
+	protected void createSession(final RequestContextHolder context) {
+		SessionModel session = context.getSession();
+		if (session instanceof LazyHttpSessionModel) {
+			((LazyHttpSessionModel) session).createSession();
+		}
+		else if (session instanceof WriteBehindSessionModel) {
+			((WriteBehindSessionModel) session).createSession();
+		}
+	}
+
+	/**
+	 * Obtains the configured generator if it does not need to be stored in the session.
+	 * 
+	 * @return generator or null if each session has its own generator
+	 */
+	private StatelessPageIdGenerator getStatelessPageIdGenerator() {
+		if (!pageIdGeneratorResolved) {
+			PageIdGenerator pageIdGenerator = beanFactory.getBean(PageIdGenerator.class);
+			if (pageIdGenerator instanceof StatelessPageIdGenerator) {
+				statelessPageIdGenerator = (StatelessPageIdGenerator) pageIdGenerator;
+			}
+			pageIdGeneratorResolved = true;
+		}
+		return statelessPageIdGenerator;
+	}
+
 	/**
 	 * Returns the page with id <code>pageId</code>.
 	 * 
@@ -164,6 +217,22 @@ public class SessionHDIV implements ISession, BeanFactoryAware {
 		cache.setBeanFactory(beanFactory);
 	}
 
+	/**
+	 * @param pageStore storage of the pages
+	 * @since 4.0.0
+	 */
+	public void setPageStore(final PageStore pageStore) {
+		cache.setPageStore(pageStore);
+	}
+
+	/**
+	 * @param metrics instrumentation of the stored and evicted pages
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		cache.setMetrics(metrics);
+	}
+
 	public String getAttribute(final RequestContextHolder context, final String name) {
 		Assert.notNull(context);
 		return getAttribute(context.getSession(), name);
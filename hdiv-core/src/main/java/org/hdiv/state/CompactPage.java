@@ -0,0 +1,57 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+
+/**
+ * Serialized form of a {@link Page} encoded with {@link PageCodec}. It is resolved to the original {@link Page} when it is deserialized.
+ *
+ * @since 4.0.0
+ */
+public class CompactPage implements Externalizable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Page page;
+
+	/**
+	 * Required by {@link Externalizable}.
+	 */
+	public CompactPage() {
+	}
+
+	public CompactPage(final Page page) {
+		this.page = page;
+	}
+
+	public void writeExternal(final ObjectOutput out) throws IOException {
+		PageCodec.write(page, out);
+	}
+
+	public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+		page = PageCodec.read(in);
+	}
+
+	protected Object readResolve() throws ObjectStreamException {
+		return page;
+	}
+
+}
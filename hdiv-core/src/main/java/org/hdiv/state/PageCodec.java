@@ -0,0 +1,410 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.util.Constants;
+import org.hdiv.util.Method;
+
+/**
+ * Compact binary encoding of {@link Page} instances, as an alternative to default java serialization.
+ * <p>
+ * Integers are written as variable length values and every string is written once per page: repeated actions, parameter names and values
+ * are replaced by a reference to their first occurrence. Decoded names, actions and data types are interned.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public final class PageCodec {
+
+	private static final int VERSION = 1;
+
+	private static final Charset UTF_8 = Charset.forName(Constants.ENCODING_UTF_8);
+
+	private static final Method[] METHODS = Method.values();
+
+	private static final RandomTokenType[] TOKEN_TYPES = RandomTokenType.values();
+
+	private static final int NULL = 0;
+
+	private static final int NEW_STRING = 1;
+
+	private static final int FLAG_EDITABLE = 1;
+
+	private static final int FLAG_ACTION_PARAM = 2;
+
+	private PageCodec() {
+	}
+
+	/**
+	 * Checks if the page can be encoded. Only {@link Page}, {@link State} and {@link Parameter} instances are supported, not subclasses.
+	 *
+	 * @param page page to check
+	 * @return true if the page can be encoded
+	 */
+	public static boolean isSupported(final IPage page) {
+		if (page == null || page.getClass() != Page.class) {
+			return false;
+		}
+		for (IState state : ((Page) page).states) {
+			if (state == null) {
+				continue;
+			}
+			if (state.getClass() != State.class) {
+				return false;
+			}
+			Collection<IParameter> parameters = state.getParameters();
+			if (parameters != null) {
+				for (IParameter parameter : parameters) {
+					if (parameter.getClass() != Parameter.class) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	public static byte[] encode(final Page page) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			write(page, new DataOutputStream(bytes));
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error encoding page", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Estimates the size of the encoding of a page without encoding it. Strings are counted by their length and are not deduplicated, so
+	 * the result is usually bigger than the real encoding.
+	 *
+	 * @param page page to measure
+	 * @return estimated size in bytes
+	 */
+	public static long estimateSize(final Page page) {
+		long size = 32 + length(page.flowId) + length(page.randomToken) + length(page.formRandomToken) + length(page.parentStateId);
+		for (IState state : page.states) {
+			if (state == null) {
+				size++;
+				continue;
+			}
+			State current = (State) state;
+			byte[] params = current.getRawParams();
+			size += 8 + length(current.getAction()) + (params == null ? 0 : params.length);
+			List<IParameter> parameters = current.getParameters();
+			if (parameters != null) {
+				for (IParameter parameter : parameters) {
+					Parameter currentParameter = (Parameter) parameter;
+					size += 4 + length(currentParameter.getName()) + length(currentParameter.getEditableDataType())
+							+ length(currentParameter.getRawValue());
+					List<String> values = currentParameter.getRawValues();
+					if (values != null) {
+						for (String value : values) {
+							size += 1 + length(value);
+						}
+					}
+				}
+			}
+		}
+		return size;
+	}
+
+	private static int length(final String value) {
+		return value == null ? 1 : value.length() + 1;
+	}
+
+	public static Page decode(final byte[] data) {
+		try {
+			return read(new DataInputStream(new ByteArrayInputStream(data)));
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error decoding page", e);
+		}
+	}
+
+	/**
+	 * Encodes a single state, without its page.
+	 *
+	 * @param state state to encode. Only {@link State} instances are supported.
+	 * @return encoded state
+	 */
+	public static byte[] encodeState(final State state) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		try {
+			Writer writer = new Writer(new DataOutputStream(bytes));
+			writer.writeVarInt(VERSION);
+			writer.writeState(state);
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error encoding state", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a state encoded with {@link #encodeState(State)}.
+	 *
+	 * @param data encoded state
+	 * @return decoded state
+	 */
+	public static State decodeState(final byte[] data) {
+		try {
+			Reader reader = new Reader(new DataInputStream(new ByteArrayInputStream(data)));
+			int version = reader.readVarInt();
+			if (version != VERSION) {
+				throw new StreamCorruptedException("Unsupported state encoding version: " + version);
+			}
+			return reader.readState();
+		}
+		catch (IOException e) {
+			throw new HDIVException("Error decoding state", e);
+		}
+	}
+
+	public static void write(final Page page, final DataOutput out) throws IOException {
+		new Writer(out).writePage(page);
+	}
+
+	public static Page read(final DataInput in) throws IOException {
+		return new Reader(in).readPage();
+	}
+
+	private static class Writer {
+
+		private final DataOutput out;
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+		Writer(final DataOutput out) {
+			this.out = out;
+		}
+
+		void writePage(final Page page) throws IOException {
+			writeVarInt(VERSION);
+			out.writeBoolean(page.uuid != null);
+			if (page.uuid != null) {
+				out.writeLong(page.uuid.getMostSignificantBits());
+				out.writeLong(page.uuid.getLeastSignificantBits());
+			}
+			writeVarInt(page.id);
+			writeString(page.flowId);
+			writeString(page.randomToken);
+			writeString(page.formRandomToken);
+			writeString(page.parentStateId);
+			writeVarInt(page.stateIdCounter);
+			out.writeBoolean(page.isReused);
+
+			List<IState> states = page.states;
+			writeVarInt(states.size());
+			for (IState state : states) {
+				out.writeBoolean(state != null);
+				if (state != null) {
+					writeState((State) state);
+				}
+			}
+		}
+
+		private void writeState(final State state) throws IOException {
+			writeVarInt(state.getId());
+			writeString(state.getAction());
+			writeBytes(state.getRawParams());
+			Method method = state.getRawMethod();
+			writeVarInt(method == null ? 0 : method.ordinal() + 1);
+			writeVarInt(state.getTokenType().ordinal());
+
+			List<IParameter> parameters = state.getParameters();
+			writeVarInt(parameters == null ? 0 : parameters.size() + 1);
+			if (parameters != null) {
+				for (IParameter parameter : parameters) {
+					writeParameter((Parameter) parameter);
+				}
+			}
+		}
+
+		private void writeParameter(final Parameter parameter) throws IOException {
+			int flags = (parameter.isEditable() ? FLAG_EDITABLE : 0) | (parameter.isActionParam() ? FLAG_ACTION_PARAM : 0);
+			writeVarInt(flags);
+			writeString(parameter.getName());
+			writeString(parameter.getEditableDataType());
+			writeString(parameter.getRawValue());
+			List<String> values = parameter.getRawValues();
+			writeVarInt(values == null ? 0 : values.size() + 1);
+			if (values != null) {
+				for (String value : values) {
+					writeString(value);
+				}
+			}
+		}
+
+		private void writeString(final String value) throws IOException {
+			if (value == null) {
+				writeVarInt(NULL);
+				return;
+			}
+			Integer index = strings.get(value);
+			if (index != null) {
+				writeVarInt(index);
+				return;
+			}
+			strings.put(value, strings.size() + NEW_STRING + 1);
+			writeVarInt(NEW_STRING);
+			writeBytes(value.getBytes(UTF_8));
+		}
+
+		private void writeBytes(final byte[] bytes) throws IOException {
+			if (bytes == null) {
+				writeVarInt(0);
+				return;
+			}
+			writeVarInt(bytes.length + 1);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+	}
+
+	private static class Reader {
+
+		private final DataInput in;
+
+		private final List<String> strings = new ArrayList<String>();
+
+		Reader(final DataInput in) {
+			this.in = in;
+		}
+
+		Page readPage() throws IOException {
+			int version = readVarInt();
+			if (version != VERSION) {
+				throw new StreamCorruptedException("Unsupported page encoding version: " + version);
+			}
+			UUID uuid = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+
+			@SuppressWarnings("deprecation")
+			Page page = new Page();
+			page.uuid = uuid;
+			page.id = readVarInt();
+			page.flowId = readString(false);
+			page.randomToken = readString(false);
+			page.formRandomToken = readString(false);
+			page.parentStateId = readString(false);
+			page.stateIdCounter = readVarInt();
+			page.isReused = in.readBoolean();
+			page.compactSerialization = true;
+
+			int size = readVarInt();
+			List<IState> states = new ArrayList<IState>(size);
+			for (int i = 0; i < size; i++) {
+				states.add(in.readBoolean() ? readState() : null);
+			}
+			page.states = states;
+			return page;
+		}
+
+		private State readState() throws IOException {
+			State state = new State(readVarInt());
+			state.setAction(readString(true));
+			state.setRawParams(readBytes());
+			int method = readVarInt();
+			state.setRawMethod(method == 0 ? null : METHODS[method - 1], TOKEN_TYPES[readVarInt()]);
+
+			int parameters = readVarInt() - 1;
+			for (int i = 0; i < parameters; i++) {
+				state.addParameter(readParameter());
+			}
+			return state;
+		}
+
+		private Parameter readParameter() throws IOException {
+			int flags = readVarInt();
+			String name = readString(true);
+			String editableDataType = readString(true);
+			String value = readString(false);
+			int count = readVarInt() - 1;
+			List<String> values = null;
+			if (count >= 0) {
+				values = new ArrayList<String>(count);
+				for (int i = 0; i < count; i++) {
+					values.add(readString(false));
+				}
+			}
+			return new Parameter(name, value, values, (flags & FLAG_EDITABLE) != 0, editableDataType, (flags & FLAG_ACTION_PARAM) != 0);
+		}
+
+		private String readString(final boolean intern) throws IOException {
+			int index = readVarInt();
+			if (index == NULL) {
+				return null;
+			}
+			if (index != NEW_STRING) {
+				return strings.get(index - NEW_STRING - 1);
+			}
+			String value = new String(readBytes(), UTF_8);
+			if (intern) {
+				value = value.intern();
+			}
+			strings.add(value);
+			return value;
+		}
+
+		private byte[] readBytes() throws IOException {
+			int length = readVarInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return bytes;
+		}
+
+		private int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = in.readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new StreamCorruptedException("Malformed variable length integer");
+		}
+	}
+
+}
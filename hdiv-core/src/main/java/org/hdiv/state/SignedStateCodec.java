@@ -0,0 +1,528 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.util.Constants;
+import org.hdiv.util.HDIVErrorCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes {@link State} instances in self-contained tokens that can be sent to the client instead of storing the state in the session.
+ * <p>
+ * The state is encoded with {@link PageCodec}, compressed if it is big enough and optionally encrypted (AES/CTR). The result is signed
+ * with HMAC-SHA256 and written in a base 64 alphabet without the state id separator. The keys are derived from the configured secret and
+ * the time window in which the token is created, so they rotate every <code>keyRotationInterval</code> seconds and tokens older than
+ * <code>maxAge</code> seconds are rejected. All the servers of a cluster must share the same secret.
+ * </p>
+ * <p>
+ * Tokens can be bound to a value of the user, like a random value of the session: the binding is included in the signature but not in
+ * the token, so a token is only valid for the user that received it and can't be replayed by others.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class SignedStateCodec {
+
+	private static final Logger log = LoggerFactory.getLogger(SignedStateCodec.class);
+
+	/**
+	 * Default max age of the tokens in seconds.
+	 */
+	public static final int DEFAULT_MAX_AGE = 4 * 60 * 60;
+
+	/**
+	 * Default life of each key in seconds.
+	 */
+	public static final int DEFAULT_KEY_ROTATION_INTERVAL = 60 * 60;
+
+	/**
+	 * Default min size in bytes of the encoded states that are compressed.
+	 */
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 128;
+
+	private static final int VERSION = 1;
+
+	private static final int FLAG_COMPRESSED = 1;
+
+	private static final int FLAG_ENCRYPTED = 2;
+
+	private static final int HEADER_LENGTH = 5;
+
+	private static final int IV_LENGTH = 16;
+
+	private static final int MAC_LENGTH = 16;
+
+	private static final int MAX_STATE_LENGTH = 1024 * 1024;
+
+	/**
+	 * Tokens created in the future are accepted up to this number of seconds, to tolerate clock differences between servers.
+	 */
+	private static final int CLOCK_SKEW = 60;
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private static final String CIPHER_ALGORITHM = "AES/CTR/NoPadding";
+
+	private static final Charset UTF_8 = Charset.forName(Constants.ENCODING_UTF_8);
+
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789._".toCharArray();
+
+	private static final byte[] DECODING = new byte[128];
+
+	static {
+		for (int i = 0; i < DECODING.length; i++) {
+			DECODING[i] = -1;
+		}
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODING[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private final SecureRandom random = new SecureRandom();
+
+	private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>();
+
+	private final ThreadLocal<Cipher> ciphers = new ThreadLocal<Cipher>();
+
+	/**
+	 * Keys by time window.
+	 */
+	private final ConcurrentMap<Long, Keys> keys = new ConcurrentHashMap<Long, Keys>();
+
+	private volatile byte[] secret;
+
+	private int maxAge = DEFAULT_MAX_AGE;
+
+	private int keyRotationInterval = DEFAULT_KEY_ROTATION_INTERVAL;
+
+	private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+	private boolean encryption = true;
+
+	/**
+	 * Encodes and signs a state, without binding it to any user.
+	 *
+	 * @param state state to encode
+	 * @return token with the state
+	 */
+	public String encode(final State state) {
+		return encode(state, null);
+	}
+
+	/**
+	 * Encodes and signs a state.
+	 *
+	 * @param state state to encode
+	 * @param binding value of the user the token is bound to. It can be null.
+	 * @return token with the state
+	 */
+	public String encode(final State state, final String binding) {
+
+		byte[] body = PageCodec.encodeState(state);
+		int flags = 0;
+		if (compressionThreshold >= 0 && body.length >= compressionThreshold) {
+			byte[] compressed = deflate(body);
+			if (compressed.length < body.length) {
+				body = compressed;
+				flags |= FLAG_COMPRESSED;
+			}
+		}
+		if (encryption) {
+			flags |= FLAG_ENCRYPTED;
+		}
+
+		long now = currentTimeSeconds();
+		Keys current = getKeys(now / keyRotationInterval);
+
+		int ivLength = encryption ? IV_LENGTH : 0;
+		byte[] token = new byte[HEADER_LENGTH + ivLength + body.length + MAC_LENGTH];
+		token[0] = (byte) (VERSION << 4 | flags);
+		writeInt(token, 1, (int) now);
+		if (encryption) {
+			byte[] iv = new byte[IV_LENGTH];
+			random.nextBytes(iv);
+			System.arraycopy(iv, 0, token, HEADER_LENGTH, IV_LENGTH);
+			crypt(current.encryption, iv, body, 0, body.length, token, HEADER_LENGTH + IV_LENGTH);
+		}
+		else {
+			System.arraycopy(body, 0, token, HEADER_LENGTH, body.length);
+		}
+		int length = token.length - MAC_LENGTH;
+		System.arraycopy(sign(current.mac, token, length, binding), 0, token, length, MAC_LENGTH);
+
+		return toText(token);
+	}
+
+	/**
+	 * Verifies the signature of a token not bound to any user and decodes its state.
+	 *
+	 * @param text token created with {@link #encode(State)}
+	 * @return decoded state
+	 * @throws HDIVException if the token is malformed, tampered or expired
+	 */
+	public State decode(final String text) {
+		return decode(text, null);
+	}
+
+	/**
+	 * Verifies the signature of a token and decodes its state.
+	 *
+	 * @param text token created with {@link #encode(State, String)}
+	 * @param binding value of the user the token must be bound to. It can be null.
+	 * @return decoded state
+	 * @throws HDIVException if the token is malformed, tampered, expired or bound to another value
+	 */
+	public State decode(final String text, final String binding) {
+
+		byte[] token = fromText(text);
+		if (token == null || token.length < HEADER_LENGTH + MAC_LENGTH || (token[0] & 0xFF) >> 4 != VERSION) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+		int flags = token[0] & 0x0F;
+
+		long issued = readInt(token, 1) & 0xFFFFFFFFL;
+		long age = currentTimeSeconds() - issued;
+		if (age > maxAge || age < -CLOCK_SKEW) {
+			if (log.isDebugEnabled()) {
+				log.debug("Expired signed state, age: " + age + "s");
+			}
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+		Keys issuer = getKeys(issued / keyRotationInterval);
+
+		int length = token.length - MAC_LENGTH;
+		if (!equals(sign(issuer.mac, token, length, binding), token, length)) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+
+		byte[] body;
+		if ((flags & FLAG_ENCRYPTED) != 0) {
+			int start = HEADER_LENGTH + IV_LENGTH;
+			if (length < start) {
+				throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+			}
+			byte[] iv = new byte[IV_LENGTH];
+			System.arraycopy(token, HEADER_LENGTH, iv, 0, IV_LENGTH);
+			body = new byte[length - start];
+			crypt(issuer.encryption, iv, token, start, body.length, body, 0);
+		}
+		else {
+			body = new byte[length - HEADER_LENGTH];
+			System.arraycopy(token, HEADER_LENGTH, body, 0, body.length);
+		}
+		if ((flags & FLAG_COMPRESSED) != 0) {
+			body = inflate(body);
+		}
+		return PageCodec.decodeState(body);
+	}
+
+	/**
+	 * @return current time in seconds
+	 */
+	protected long currentTimeSeconds() {
+		return System.currentTimeMillis() / 1000;
+	}
+
+	private Keys getKeys(final long window) {
+		Keys result = keys.get(window);
+		if (result == null) {
+			result = new Keys(derive("mac", window), derive("enc", window));
+			keys.put(window, result);
+
+			// Forget the keys of the expired windows
+			long oldest = window - maxAge / keyRotationInterval - 2;
+			for (Iterator<Long> it = keys.keySet().iterator(); it.hasNext();) {
+				if (it.next() < oldest) {
+					it.remove();
+				}
+			}
+		}
+		return result;
+	}
+
+	private byte[] derive(final String purpose, final long window) {
+		byte[] input = (purpose + ':' + window).getBytes(UTF_8);
+		return sign(getSecret(), input, input.length, null);
+	}
+
+	private byte[] getSecret() {
+		byte[] value = secret;
+		if (value == null) {
+			synchronized (this) {
+				value = secret;
+				if (value == null) {
+					log.warn("No secret configured for the signed states, a random one is used. "
+							+ "States created by other servers or before a restart will not be valid.");
+					value = new byte[32];
+					random.nextBytes(value);
+					secret = value;
+				}
+			}
+		}
+		return value;
+	}
+
+	private byte[] sign(final byte[] key, final byte[] data, final int length, final String binding) {
+		try {
+			Mac mac = macs.get();
+			if (mac == null) {
+				mac = Mac.getInstance(MAC_ALGORITHM);
+				macs.set(mac);
+			}
+			mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+			mac.update(data, 0, length);
+			if (binding != null) {
+				mac.update(binding.getBytes(UTF_8));
+			}
+			return mac.doFinal();
+		}
+		catch (GeneralSecurityException e) {
+			throw new HDIVException("Error signing state", e);
+		}
+	}
+
+	private void crypt(final byte[] key, final byte[] iv, final byte[] input, final int offset, final int length, final byte[] output,
+			final int outputOffset) {
+		try {
+			Cipher cipher = ciphers.get();
+			if (cipher == null) {
+				cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+				ciphers.set(cipher);
+			}
+			// CTR mode: encryption and decryption are the same operation
+			cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, 0, 16, "AES"), new IvParameterSpec(iv));
+			cipher.doFinal(input, offset, length, output, outputOffset);
+		}
+		catch (GeneralSecurityException e) {
+			throw new HDIVException("Error encrypting state", e);
+		}
+	}
+
+	/**
+	 * Constant time comparison of the signature.
+	 */
+	private static boolean equals(final byte[] signature, final byte[] token, final int offset) {
+		int diff = 0;
+		for (int i = 0; i < MAC_LENGTH; i++) {
+			diff |= signature[i] ^ token[offset + i];
+		}
+		return diff == 0;
+	}
+
+	private static byte[] deflate(final byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+			byte[] buffer = new byte[512];
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(final byte[] data) {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+			byte[] buffer = new byte[512];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+				}
+				out.write(buffer, 0, count);
+				if (out.size() > MAX_STATE_LENGTH) {
+					throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+				}
+			}
+			return out.toByteArray();
+		}
+		catch (DataFormatException e) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	private static void writeInt(final byte[] data, final int offset, final int value) {
+		data[offset] = (byte) (value >>> 24);
+		data[offset + 1] = (byte) (value >>> 16);
+		data[offset + 2] = (byte) (value >>> 8);
+		data[offset + 3] = (byte) value;
+	}
+
+	private static int readInt(final byte[] data, final int offset) {
+		return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | data[offset + 3] & 0xFF;
+	}
+
+	private static String toText(final byte[] data) {
+		StringBuilder sb = new StringBuilder((data.length * 4 + 2) / 3);
+		int i = 0;
+		for (; i + 2 < data.length; i += 3) {
+			int bits = (data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | data[i + 2] & 0xFF;
+			sb.append(ALPHABET[bits >>> 18]).append(ALPHABET[bits >>> 12 & 0x3F]).append(ALPHABET[bits >>> 6 & 0x3F])
+					.append(ALPHABET[bits & 0x3F]);
+		}
+		int remaining = data.length - i;
+		if (remaining == 1) {
+			int bits = (data[i] & 0xFF) << 16;
+			sb.append(ALPHABET[bits >>> 18]).append(ALPHABET[bits >>> 12 & 0x3F]);
+		}
+		else if (remaining == 2) {
+			int bits = (data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8;
+			sb.append(ALPHABET[bits >>> 18]).append(ALPHABET[bits >>> 12 & 0x3F]).append(ALPHABET[bits >>> 6 & 0x3F]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return decoded bytes or null if the text is not valid
+	 */
+	private static byte[] fromText(final String text) {
+		int length = text.length();
+		if (length % 4 == 1) {
+			return null;
+		}
+		byte[] data = new byte[length * 3 / 4];
+		int bits = 0;
+		int count = 0;
+		int index = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			int value = c < DECODING.length ? DECODING[c] : -1;
+			if (value < 0) {
+				return null;
+			}
+			bits = bits << 6 | value;
+			count += 6;
+			if (count >= 8) {
+				count -= 8;
+				data[index++] = (byte) (bits >>> count);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * @param secret secret shared by all the servers, used to derive the keys
+	 */
+	public void setSecret(final String secret) {
+		this.secret = secret == null ? null : secret.getBytes(UTF_8);
+		keys.clear();
+	}
+
+	/**
+	 * @param maxAge max age of the tokens in seconds
+	 */
+	public void setMaxAge(final int maxAge) {
+		if (maxAge < 1) {
+			throw new IllegalArgumentException("Max age must be greater than 0: " + maxAge);
+		}
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @return max age of the tokens in seconds
+	 */
+	public int getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * @param keyRotationInterval life of each key in seconds
+	 */
+	public void setKeyRotationInterval(final int keyRotationInterval) {
+		if (keyRotationInterval < 1) {
+			throw new IllegalArgumentException("Key rotation interval must be greater than 0: " + keyRotationInterval);
+		}
+		this.keyRotationInterval = keyRotationInterval;
+		keys.clear();
+	}
+
+	/**
+	 * @return life of each key in seconds
+	 */
+	public int getKeyRotationInterval() {
+		return keyRotationInterval;
+	}
+
+	/**
+	 * @param compressionThreshold min size in bytes of the encoded states that are compressed. Negative to disable compression.
+	 */
+	public void setCompressionThreshold(final int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	/**
+	 * @return min size in bytes of the encoded states that are compressed
+	 */
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/**
+	 * @param encryption encrypt the states, so their values are not visible in the client
+	 */
+	public void setEncryption(final boolean encryption) {
+		this.encryption = encryption;
+	}
+
+	/**
+	 * @return true if the states are encrypted
+	 */
+	public boolean isEncryption() {
+		return encryption;
+	}
+
+	private static class Keys {
+
+		final byte[] mac;
+
+		final byte[] encryption;
+
+		Keys(final byte[] mac, final byte[] encryption) {
+			this.mac = mac;
+			this.encryption = encryption;
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.util.UUID;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.util.Constants;
+import org.hdiv.util.HDIVErrorCodes;
+import org.hdiv.util.HDIVStateUtils;
+
+/**
+ * Parsed value of the Hdiv parameter, <code>pageId-stateId-suffix</code>. The value is parsed once, without creating intermediate
+ * strings, and the instance is shared by every component that needs its parts during the validation of a request.
+ *
+ * @since 4.0.0
+ */
+public final class StateToken {
+
+	private final String value;
+
+	private final int firstSeparator;
+
+	private final int lastSeparator;
+
+	private final int stateId;
+
+	private final UUID pageId;
+
+	private StateToken(final String value, final int firstSeparator, final int lastSeparator, final int stateId, final UUID pageId) {
+		this.value = value;
+		this.firstSeparator = firstSeparator;
+		this.lastSeparator = lastSeparator;
+		this.stateId = stateId;
+		this.pageId = pageId;
+	}
+
+	/**
+	 * Parses the value of the Hdiv parameter.
+	 *
+	 * @param value value of the Hdiv parameter
+	 * @return parsed value
+	 * @throws HDIVException if the value does not have the <code>pageId-stateId-suffix</code> format
+	 */
+	public static StateToken parse(final String value) {
+
+		int firstSeparator = value.indexOf(Constants.STATE_ID_SEPARATOR);
+		int lastSeparator = value.lastIndexOf(Constants.STATE_ID_SEPARATOR);
+		if (firstSeparator == -1 || lastSeparator <= firstSeparator) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+
+		long stateId = HDIVStateUtils.parseNumber(value, firstSeparator + 1, lastSeparator);
+		if (stateId < 0 || stateId > Integer.MAX_VALUE) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+
+		// Scoped states have a prefix instead of a page id
+		UUID pageId = HDIVStateUtils.parsePageId(value, 0, firstSeparator);
+		return new StateToken(value, firstSeparator, lastSeparator, (int) stateId, pageId);
+	}
+
+	/**
+	 * @return complete value of the Hdiv parameter
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * @return page id or null if the first part of the value is not a page id, for example in scoped states
+	 */
+	public UUID getPageId() {
+		return pageId;
+	}
+
+	/**
+	 * @return text before the first separator
+	 */
+	public String getPagePart() {
+		return value.substring(0, firstSeparator);
+	}
+
+	public int getStateId() {
+		return stateId;
+	}
+
+	/**
+	 * @return text after the last separator
+	 */
+	public String getSuffix() {
+		return value.substring(lastSeparator + 1);
+	}
+
+	/**
+	 * Compares the suffix without extracting it.
+	 *
+	 * @param suffix expected suffix
+	 * @return true if the suffix of the value is <code>suffix</code>
+	 */
+	public boolean suffixEquals(final String suffix) {
+		int length = value.length() - lastSeparator - 1;
+		return suffix != null && suffix.length() == length && value.regionMatches(lastSeparator + 1, suffix, 0, length);
+	}
+
+	@Override
+	public String toString() {
+		return value;
+	}
+
+}
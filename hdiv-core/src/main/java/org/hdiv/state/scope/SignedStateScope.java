@@ -0,0 +1,188 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state.scope;
+
+import java.util.UUID;
+
+import javax.servlet.http.Cookie;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.exception.HDIVException;
+import org.hdiv.state.IState;
+import org.hdiv.state.SignedStateCodec;
+import org.hdiv.state.State;
+import org.hdiv.util.Constants;
+import org.hdiv.util.HDIVErrorCodes;
+
+/**
+ * <p>
+ * {@link StateScope} that doesn't store the states in the server.
+ * </p>
+ * <p>
+ * The whole state is encoded and signed by a {@link SignedStateCodec} and included in the state identifier, with the format
+ * <code>S-[stateId]-[token]</code>. The state is restored from the identifier itself, so the states are not stored in the session.
+ * </p>
+ * <p>
+ * Tokens are bound to a random value sent to the client in the HttpOnly cookie {@link Constants#HDIV_RANDOM_COOKIE}, so they are only
+ * valid when they are sent with the cookie of the client that received them. Other sites can't read the cookie, so this keeps the
+ * protection against CSRF of the states stored in session and prevents the replay of the tokens by other users, without storing anything
+ * in the server.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class SignedStateScope implements StateScope {
+
+	/**
+	 * Name of the request attribute with the binding value created during the request.
+	 */
+	private static final String BINDING_NAME = SignedStateScope.class.getName() + ".binding";
+
+	private final String prefix = StateScopeType.SIGNED.getPrefix();
+
+	protected SignedStateCodec codec = new SignedStateCodec();
+
+	public String addState(final RequestContextHolder context, final IState state, final String token) {
+
+		if (state.getClass() != State.class) {
+			throw new HDIVException("Signed states only support " + State.class.getName() + " instances: " + state.getClass().getName());
+		}
+		return new StringBuilder().append(prefix).append(Constants.STATE_ID_SEPARATOR).append(state.getId())
+				.append(Constants.STATE_ID_SEPARATOR).append(codec.encode((State) state, getBinding(context, true))).toString();
+	}
+
+	/**
+	 * Signed states can only be restored from the complete identifier.
+	 *
+	 * @see #restoreState(RequestContextHolder, String)
+	 */
+	public IState restoreState(final RequestContextHolder context, final int stateId) {
+		return null;
+	}
+
+	/**
+	 * Verifies and decodes the state included in the identifier.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param stateId complete state identifier, as returned by {@link #addState(RequestContextHolder, IState, String)}
+	 * @return restored state
+	 * @throws HDIVException if the state is not valid
+	 */
+	public IState restoreState(final RequestContextHolder context, final String stateId) {
+
+		int firstSeparator = stateId.indexOf(Constants.STATE_ID_SEPARATOR);
+		int lastSeparator = stateId.lastIndexOf(Constants.STATE_ID_SEPARATOR);
+		if (firstSeparator == -1 || lastSeparator <= firstSeparator) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+
+		String binding = getBinding(context, false);
+		if (binding == null) {
+			// The client never received a signed state
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+		State state = codec.decode(stateId.substring(lastSeparator + 1), binding);
+		if (!Integer.toString(state.getId()).equals(stateId.substring(firstSeparator + 1, lastSeparator))) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+		return state;
+	}
+
+	/**
+	 * Sends the binding cookie to the client if it doesn't have one. It must be invoked before the response is committed, usually when the
+	 * page starts.
+	 *
+	 * @param context Context holder for request-specific state.
+	 */
+	public void bind(final RequestContextHolder context) {
+		getBinding(context, true);
+	}
+
+	/**
+	 * Obtains the value the tokens of the client are bound to.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param create true to create the value if the client doesn't have one
+	 * @return binding value, or null if the client doesn't have one and <code>create</code> is false
+	 */
+	protected String getBinding(final RequestContextHolder context, final boolean create) {
+		String binding = (String) context.getAttribute(BINDING_NAME);
+		if (binding != null) {
+			return binding;
+		}
+		Cookie[] cookies = context.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (Constants.HDIV_RANDOM_COOKIE.equals(cookie.getName()) && cookie.getValue() != null && cookie.getValue().length() > 0) {
+					return cookie.getValue();
+				}
+			}
+		}
+		if (create) {
+			binding = UUID.randomUUID().toString();
+			context.getResponse().addCookie(createCookie(context, binding));
+			context.setAttribute(BINDING_NAME, binding);
+		}
+		return binding;
+	}
+
+	/**
+	 * Creates the cookie that sends the binding value to the client.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param binding binding value
+	 * @return cookie
+	 */
+	protected Cookie createCookie(final RequestContextHolder context, final String binding) {
+		Cookie cookie = new Cookie(Constants.HDIV_RANDOM_COOKIE, binding);
+		String contextPath = context.getContextPath();
+		cookie.setPath(contextPath == null || contextPath.length() == 0 ? "/" : contextPath);
+		cookie.setHttpOnly(true);
+		cookie.setSecure(context.getRequest().isSecure());
+		return cookie;
+	}
+
+	/**
+	 * Signed states have no token, their integrity is checked with the signature.
+	 */
+	public String getStateToken(final RequestContextHolder context, final int stateId) {
+		return null;
+	}
+
+	public StateScopeType getScopeType() {
+		return StateScopeType.SIGNED;
+	}
+
+	public boolean isScopeState(final String stateId) {
+		return stateId.length() > prefix.length() && stateId.charAt(prefix.length()) == Constants.STATE_ID_SEPARATOR
+				&& stateId.startsWith(prefix);
+	}
+
+	/**
+	 * @param codec codec used to sign the states
+	 */
+	public void setCodec(final SignedStateCodec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * @return codec used to sign the states
+	 */
+	public SignedStateCodec getCodec() {
+		return codec;
+	}
+
+}
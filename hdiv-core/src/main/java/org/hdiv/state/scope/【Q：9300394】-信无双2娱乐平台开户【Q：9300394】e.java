@@ -42,6 +42,15 @@ public enum StateScopeType {
 	 */
 	APP("app", "A"),
 
+	/**
+	 * <p>
+	 * States are not stored in the server, they are signed and sent to the client.
+	 * </p>
+	 *
+	 * @since 4.0.0
+	 */
+	SIGNED("signed", "S"),
+
 	/**
 	 * Normal page
 	 */
@@ -30,6 +30,13 @@ public abstract class AbstractStateScope implements StateScope {
 
 	private final StateScopeType type;
 
+	/**
+	 * Max number of states stored by each {@link ScopedStateCache}.
+	 *
+	 * @since 4.0.0
+	 */
+	protected int maxStates = ScopedStateCache.DEFAULT_MAX_SIZE;
+
 	protected AbstractStateScope(final StateScopeType type) {
 		preffix = type.getPrefix();
 		this.type = type;
@@ -39,7 +46,14 @@ public abstract class AbstractStateScope implements StateScope {
 
 		ScopedStateCache cache = getStateCache(context);
 		if (cache == null) {
-			cache = new ScopedStateCache();
+			// Avoid concurrent requests creating different caches
+			synchronized (this) {
+				cache = getStateCache(context);
+				if (cache == null) {
+					cache = createStateCache();
+					setStateCache(context, cache);
+				}
+			}
 		}
 
 		String stateId = cache.addState(state, token);
@@ -74,6 +88,26 @@ public abstract class AbstractStateScope implements StateScope {
 		return type;
 	}
 
+	/**
+	 * @param maxStates max number of states stored in the scope
+	 * @since 4.0.0
+	 */
+	public void setMaxStates(final int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * @return max number of states stored in the scope
+	 * @since 4.0.0
+	 */
+	public int getMaxStates() {
+		return maxStates;
+	}
+
+	protected ScopedStateCache createStateCache() {
+		return new ScopedStateCache(maxStates);
+	}
+
 	protected abstract ScopedStateCache getStateCache(RequestContextHolder context);
 
 	protected abstract void setStateCache(RequestContextHolder context, ScopedStateCache cache);
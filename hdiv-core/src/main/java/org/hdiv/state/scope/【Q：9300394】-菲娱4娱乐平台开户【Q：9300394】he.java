@@ -15,17 +15,26 @@
  */
 package org.hdiv.state.scope;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.hdiv.state.IParameter;
 import org.hdiv.state.IState;
+import org.hdiv.state.State;
 import org.hdiv.util.HDIVStateUtils;
 
 /**
  * Cache than manages scoped states for a specific type of {@link StateScope}.
+ * <p>
+ * Instances are shared by concurrent requests. Equivalent states are found through an index by structural hash (action, method,
+ * parameters and values) and the number of states is limited, evicting the oldest ones first.
+ * </p>
  *
  * @since 2.1.7
  */
@@ -33,22 +42,75 @@ public class ScopedStateCache implements Serializable {
 
 	private static final long serialVersionUID = 5141785794691242839L;
 
-	private final Map<Integer, StateAndToken> states = new HashMap<Integer, StateAndToken>();
+	/**
+	 * Default max number of states.
+	 *
+	 * @since 4.0.0
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private Map<Integer, StateAndToken> states = new ConcurrentHashMap<Integer, StateAndToken>();
 
 	private final AtomicInteger index = new AtomicInteger();
 
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Lowest identifier that can still be in the cache. Guarded by <code>this</code>.
+	 */
+	private int oldest;
+
+	private volatile long evictions;
+
+	/**
+	 * State identifiers by structural hash. Rebuilt after deserialization.
+	 */
+	private transient Map<Integer, int[]> equivalenceIndex = new ConcurrentHashMap<Integer, int[]>();
+
+	public ScopedStateCache() {
+	}
+
+	/**
+	 * @param maxSize max number of states in the cache
+	 * @since 4.0.0
+	 */
+	public ScopedStateCache(final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Cache size must be greater than 0: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
 	public String addState(final IState state, final String token) {
 
-		Integer previousStateId = existEqualState(state);
-		if (previousStateId != null) {
-			StateAndToken previousState = states.get(previousStateId);
-			return HDIVStateUtils.getScopedState(previousStateId, previousState.getToken());
+		int hash = equivalenceHash(state);
+		String previousState = getEqualScopedState(state, hash);
+		if (previousState != null) {
+			return previousState;
 		}
 
-		int id = index.getAndIncrement();
-		states.put(id, new StateAndToken(state, token));
+		synchronized (this) {
+			// Another request could have added it meanwhile
+			previousState = getEqualScopedState(state, hash);
+			if (previousState != null) {
+				return previousState;
+			}
+
+			int id = index.getAndIncrement();
+			states.put(id, new StateAndToken(state, token));
+			link(hash, id);
 
-		return HDIVStateUtils.getScopedState(id, token);
+			while (states.size() > maxSize && oldest < id) {
+				StateAndToken evicted = states.remove(oldest);
+				if (evicted != null) {
+					unlink(equivalenceHash(evicted.getState()), oldest);
+					evictions++;
+				}
+				oldest++;
+			}
+
+			return HDIVStateUtils.getScopedState(id, token);
+		}
 	}
 
 	public IState getState(final int stateId) {
@@ -64,15 +126,32 @@ public class ScopedStateCache implements Serializable {
 	}
 
 	protected Integer existEqualState(final IState state) {
+		return existEqualState(state, equivalenceHash(state));
+	}
 
-		for (Entry<Integer, StateAndToken> entry : states.entrySet()) {
-			IState cacheState = entry.getValue().getState();
+	private Integer existEqualState(final IState state, final int hash) {
 
-			if (areEqualStates(cacheState, state)) {
-				return entry.getKey();
+		int[] ids = equivalenceIndex.get(hash);
+		if (ids != null) {
+			for (int id : ids) {
+				StateAndToken st = states.get(id);
+				if (st != null && areEqualStates(st.getState(), state)) {
+					return id;
+				}
 			}
 		}
+		return null;
+	}
 
+	private String getEqualScopedState(final IState state, final int hash) {
+
+		Integer previousStateId = existEqualState(state, hash);
+		if (previousStateId != null) {
+			StateAndToken previousState = states.get(previousStateId);
+			if (previousState != null) {
+				return HDIVStateUtils.getScopedState(previousStateId, previousState.getToken());
+			}
+		}
 		return null;
 	}
 
@@ -80,6 +159,118 @@ public class ScopedStateCache implements Serializable {
 		return state1.isEquivalent(state2);
 	}
 
+	/**
+	 * Hash code consistent with {@link #areEqualStates(IState, IState)}: equivalent states must return the same value. Parameters are
+	 * combined without taking their order into account.
+	 * <p>
+	 * Parameter values are compared as encoded values (ignoring case, with spaces as '+' and accepting UTF-8 values decoded as
+	 * ISO-8859-1), and those rules have no canonical form, so only the number of values of each parameter is hashed.
+	 * </p>
+	 *
+	 * @param state state
+	 * @return structural hash
+	 * @since 4.0.0
+	 */
+	protected int equivalenceHash(final IState state) {
+
+		String action = state.getAction();
+		int hash = action == null ? 0 : action.hashCode();
+		if (state instanceof State) {
+			hash = 31 * hash + ((State) state).getMethod().ordinal();
+		}
+		String params = state.getParams();
+		hash = 31 * hash + (params == null ? 0 : params.hashCode());
+
+		Collection<IParameter> parameters = state.getParameters();
+		if (parameters != null) {
+			int parametersHash = 0;
+			for (IParameter parameter : parameters) {
+				int parameterHash = parameter.getName().hashCode();
+				parameterHash = 31 * parameterHash + (parameter.isActionParam() ? 1 : 0) + (parameter.isEditable() ? 2 : 0);
+				parametersHash += 31 * parameterHash + parameter.getValues().size();
+			}
+			hash = 31 * hash + parametersHash;
+		}
+		return hash;
+	}
+
+	private void link(final int hash, final int id) {
+		int[] ids = equivalenceIndex.get(hash);
+		int[] newIds;
+		if (ids == null) {
+			newIds = new int[] { id };
+		}
+		else {
+			newIds = new int[ids.length + 1];
+			System.arraycopy(ids, 0, newIds, 0, ids.length);
+			newIds[ids.length] = id;
+		}
+		equivalenceIndex.put(hash, newIds);
+	}
+
+	private void unlink(final int hash, final int id) {
+		int[] ids = equivalenceIndex.get(hash);
+		if (ids == null) {
+			return;
+		}
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] == id) {
+				if (ids.length == 1) {
+					equivalenceIndex.remove(hash);
+				}
+				else {
+					int[] newIds = new int[ids.length - 1];
+					System.arraycopy(ids, 0, newIds, 0, i);
+					System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+					equivalenceIndex.put(hash, newIds);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return number of states in the cache
+	 * @since 4.0.0
+	 */
+	public int size() {
+		return states.size();
+	}
+
+	/**
+	 * @return max number of states in the cache
+	 * @since 4.0.0
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return number of states removed to keep the cache under its max size
+	 * @since 4.0.0
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		states = new ConcurrentHashMap<Integer, StateAndToken>(states);
+		if (maxSize < 1) {
+			maxSize = DEFAULT_MAX_SIZE;
+		}
+		equivalenceIndex = new ConcurrentHashMap<Integer, int[]>();
+		for (Entry<Integer, StateAndToken> entry : states.entrySet()) {
+			link(equivalenceHash(entry.getValue().getState()), entry.getKey());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ScopedStateCache [size=" + size() + ", maxSize=" + maxSize + ", evictions=" + evictions + "]";
+	}
+
 	class StateAndToken implements Serializable {
 
 		private static final long serialVersionUID = -7927456168851506372L;
@@ -47,6 +47,11 @@ public class State implements IState {
 	 */
 	private static final int PARAMETERS_LIST_SIZE = 3;
 
+	/**
+	 * Parameter lists up to this size are scanned without index.
+	 */
+	private static final int INDEX_THRESHOLD = 8;
+
 	/**
 	 * Name of the action related with the state <code>this</code>
 	 */
@@ -81,6 +86,11 @@ public class State implements IState {
 
 	private transient IPage page;
 
+	/**
+	 * Case insensitive index of <code>parameters</code> by name. Not serialized, it is rebuilt on first use.
+	 */
+	private transient volatile ParameterIndex parameterIndex;
+
 	public State() {
 	}
 
@@ -107,6 +117,16 @@ public class State implements IState {
 			parameters = new ArrayList<IParameter>(PARAMETERS_LIST_SIZE);
 		}
 		parameters.add(parameter);
+
+		ParameterIndex index = parameterIndex;
+		if (index != null) {
+			if (index.size == parameters.size() - 1 && index.hasRoomFor(parameters.size())) {
+				index.add(parameters, parameters.size() - 1);
+			}
+			else {
+				parameterIndex = null;
+			}
+		}
 	}
 
 	/*
@@ -115,18 +135,29 @@ public class State implements IState {
 	 * @see org.hdiv.state.IState#getParameter(java.lang.String)
 	 */
 	public IParameter getParameter(final String key) {
-		if (parameters != null) {
-			/**
-			 * Most probable match is the latest one..
-			 */
-			for (int i = parameters.size() - 1; i >= 0; i--) {
-				IParameter parameter = parameters.get(i);
-				if (parameter.getName().equalsIgnoreCase(key)) {
-					return parameter;
-				}
+		if (parameters == null) {
+			return null;
+		}
+
+		int size = parameters.size();
+		if (size > INDEX_THRESHOLD) {
+			ParameterIndex index = parameterIndex;
+			if (index == null || index.size != size) {
+				index = new ParameterIndex(parameters);
+				parameterIndex = index;
 			}
+			return index.get(parameters, key);
 		}
 
+		/**
+		 * Most probable match is the latest one..
+		 */
+		for (int i = size - 1; i >= 0; i--) {
+			IParameter parameter = parameters.get(i);
+			if (parameter.getName().equalsIgnoreCase(key)) {
+				return parameter;
+			}
+		}
 		return null;
 	}
 
@@ -349,6 +380,40 @@ public class State implements IState {
 		return true;
 	}
 
+	/**
+	 * @return url parameters in UTF-8 without conversion
+	 * @since 4.0.0
+	 */
+	byte[] getRawParams() {
+		return params;
+	}
+
+	/**
+	 * @param params url parameters in UTF-8
+	 * @since 4.0.0
+	 */
+	void setRawParams(final byte[] params) {
+		this.params = params;
+	}
+
+	/**
+	 * @return the method without default value
+	 * @since 4.0.0
+	 */
+	Method getRawMethod() {
+		return method;
+	}
+
+	/**
+	 * Sets method and token type without deriving one from the other.
+	 *
+	 * @since 4.0.0
+	 */
+	void setRawMethod(final Method method, final RandomTokenType tokenType) {
+		this.method = method;
+		this.tokenType = tokenType;
+	}
+
 	public RandomTokenType getTokenType() {
 		return tokenType;
 	}
@@ -364,4 +429,71 @@ public class State implements IState {
 	public void setPage(final IPage page) {
 		this.page = page;
 	}
+
+	/**
+	 * Open addressing hash table with the positions of the parameters in the parameter list. When several parameters have the same name
+	 * the latest one is indexed.
+	 */
+	private static final class ParameterIndex {
+
+		/**
+		 * Position of the parameter plus one. Zero for empty slots.
+		 */
+		private final int[] slots;
+
+		/**
+		 * Number of parameters of the list included in the index.
+		 */
+		private int size;
+
+		ParameterIndex(final List<IParameter> parameters) {
+			int capacity = 16;
+			while (capacity < parameters.size() * 4) {
+				capacity <<= 1;
+			}
+			slots = new int[capacity];
+			for (int i = 0; i < parameters.size(); i++) {
+				add(parameters, i);
+			}
+		}
+
+		boolean hasRoomFor(final int count) {
+			return count * 2 <= slots.length;
+		}
+
+		void add(final List<IParameter> parameters, final int position) {
+			String name = parameters.get(position).getName();
+			int mask = slots.length - 1;
+			int slot = hash(name) & mask;
+			while (slots[slot] != 0 && !parameters.get(slots[slot] - 1).getName().equalsIgnoreCase(name)) {
+				slot = slot + 1 & mask;
+			}
+			slots[slot] = position + 1;
+			size = position + 1;
+		}
+
+		IParameter get(final List<IParameter> parameters, final String name) {
+			int mask = slots.length - 1;
+			int slot = hash(name) & mask;
+			while (slots[slot] != 0) {
+				IParameter parameter = parameters.get(slots[slot] - 1);
+				if (parameter.getName().equalsIgnoreCase(name)) {
+					return parameter;
+				}
+				slot = slot + 1 & mask;
+			}
+			return null;
+		}
+
+		/**
+		 * Hash code consistent with {@link String#equalsIgnoreCase(String)}.
+		 */
+		private static int hash(final String name) {
+			int h = 0;
+			for (int i = 0; i < name.length(); i++) {
+				h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+			}
+			return h ^ h >>> 16;
+		}
+	}
 }
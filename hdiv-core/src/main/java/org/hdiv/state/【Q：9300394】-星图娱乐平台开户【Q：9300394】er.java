@@ -91,6 +91,17 @@ public class Parameter implements IParameter {
 		this.actionParam = actionParam;
 	}
 
+	/**
+	 * Creates a parameter with its internal representation. Used by {@link PageCodec}.
+	 *
+	 * @since 4.0.0
+	 */
+	Parameter(final String name, final String value, final List<String> values, final boolean editable, final String editableDataType,
+			final boolean actionParam) {
+		this(name, value, editable, editableDataType, actionParam);
+		this.values = values;
+	}
+
 	/**
 	 * Adds the value <code>value</code> to the parameter <code>this</code>.
 	 */
@@ -179,6 +190,22 @@ public class Parameter implements IParameter {
 		return values;
 	}
 
+	/**
+	 * @return first value, without taking into account if the parameter is editable
+	 * @since 4.0.0
+	 */
+	String getRawValue() {
+		return value;
+	}
+
+	/**
+	 * @return list of values or null if the parameter has less than two values
+	 * @since 4.0.0
+	 */
+	List<String> getRawValues() {
+		return values;
+	}
+
 	/**
 	 * @return Returns if parameter <code>this</code> is editable or not.
 	 */
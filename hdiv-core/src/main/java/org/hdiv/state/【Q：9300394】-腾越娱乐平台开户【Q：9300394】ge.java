@@ -15,6 +15,7 @@
  */
 package org.hdiv.state;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -98,6 +99,13 @@ public class Page implements IPage, Serializable {
 	 */
 	protected String parentStateId;
 
+	/**
+	 * Serialize the page with the compact {@link PageCodec} encoding.
+	 *
+	 * @since 4.0.0
+	 */
+	protected transient boolean compactSerialization;
+
 	@Deprecated
 	public Page() {
 	}
@@ -277,6 +285,36 @@ public class Page implements IPage, Serializable {
 		return parentStateId;
 	}
 
+	/**
+	 * @return true if the page is serialized with the compact {@link PageCodec} encoding
+	 * @since 4.0.0
+	 */
+	public boolean isCompactSerialization() {
+		return compactSerialization;
+	}
+
+	/**
+	 * @param compactSerialization serialize the page with the compact {@link PageCodec} encoding
+	 * @since 4.0.0
+	 */
+	public void setCompactSerialization(final boolean compactSerialization) {
+		this.compactSerialization = compactSerialization;
+	}
+
+	/**
+	 * Replaces the page with its compact form when it is serialized, if it is enabled.
+	 *
+	 * @return object to serialize
+	 * @throws ObjectStreamException never
+	 * @since 4.0.0
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		if (compactSerialization && PageCodec.isSupported(this)) {
+			return new CompactPage(this);
+		}
+		return this;
+	}
+
 	@Override
 	public String toString() {
 
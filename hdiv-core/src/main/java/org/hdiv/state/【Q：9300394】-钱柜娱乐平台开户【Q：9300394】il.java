@@ -21,10 +21,12 @@ import org.hdiv.config.HDIVConfig;
 import org.hdiv.context.RequestContext;
 import org.hdiv.context.RequestContextHolder;
 import org.hdiv.exception.HDIVException;
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.NoOpMetrics;
 import org.hdiv.session.ISession;
+import org.hdiv.state.scope.SignedStateScope;
 import org.hdiv.state.scope.StateScope;
 import org.hdiv.state.scope.StateScopeManager;
-import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVErrorCodes;
 import org.hdiv.util.HDIVStateUtils;
 import org.slf4j.Logger;
@@ -57,6 +59,13 @@ public class StateUtil {
 	 */
 	protected StateScopeManager stateScopeManager;
 
+	/**
+	 * Instrumentation of the state restoration.
+	 *
+	 * @since 4.0.0
+	 */
+	protected HdivMetrics metrics = NoOpMetrics.INSTANCE;
+
 	/**
 	 * StateUtil initialization.
 	 */
@@ -73,14 +82,57 @@ public class StateUtil {
 		return HDIVStateUtils.getPageId(requestState);
 	}
 
+	/**
+	 * Obtains the page id of a parsed state identifier.
+	 *
+	 * @param token parsed state identifier
+	 * @return page id or null if the state belongs to a {@link StateScope}
+	 * @throws HDIVException if the identifier does not contain a page id
+	 * @since 4.0.0
+	 */
+	public UUID getPageId(final StateToken token) {
+		if (stateScopeManager.getStateScope(token.getValue()) != null) {
+			return null;
+		}
+		if (token.getPageId() == null) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
+		}
+		return token.getPageId();
+	}
+
 	@Deprecated
 	public final IState restoreState(final RequestContext context, final String requestState) {
 		return restoreState((RequestContextHolder) context, requestState);
 	}
 
 	public IState restoreState(final RequestContextHolder context, final String requestState) {
+		return restoreState(context, StateToken.parse(requestState));
+	}
+
+	/**
+	 * Restores the state of a parsed state identifier.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param token parsed state identifier
+	 * @return restored state
+	 * @throws HDIVException if the state can not be restored
+	 * @since 4.0.0
+	 */
+	public IState restoreState(final RequestContextHolder context, final StateToken token) {
 
-		IState restoredState = restoreMemoryState(context, requestState);
+		IState restoredState;
+		if (metrics.isEnabled()) {
+			long start = System.nanoTime();
+			try {
+				restoredState = restoreMemoryState(context, token);
+			}
+			finally {
+				metrics.recordTime(HdivMetrics.RESTORE_STATE_TIME, System.nanoTime() - start);
+			}
+		}
+		else {
+			restoredState = restoreMemoryState(context, token);
+		}
 
 		if (restoredState == null) {
 			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
@@ -106,37 +158,30 @@ public class StateUtil {
 	 * @return State Restore state data from <code>request</code>.
 	 */
 	protected IState restoreMemoryState(final RequestContextHolder context, final String requestState) {
+		return restoreMemoryState(context, StateToken.parse(requestState));
+	}
 
-		IState restoredState;
+	/**
+	 * Restore a state from Memory Strategy.
+	 *
+	 * @param context Context holder for request-specific state.
+	 * @param token parsed state identifier
+	 * @return State Restore state data from <code>request</code>.
+	 * @since 4.0.0
+	 */
+	protected IState restoreMemoryState(final RequestContextHolder context, final StateToken token) {
 
-		// Extract pageId and stateId from the state identifier
-		int firstSeparator = requestState.indexOf(Constants.STATE_ID_SEPARATOR);
-		int lastSeparator = requestState.lastIndexOf(Constants.STATE_ID_SEPARATOR);
-		if (firstSeparator == -1 || lastSeparator == -1) {
-			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
-		}
+		IState restoredState;
 
-		String pId;
-		String sId;
-		try {
-			pId = requestState.substring(0, firstSeparator);
-			sId = requestState.substring(firstSeparator + 1, lastSeparator);
-		}
-		catch (StringIndexOutOfBoundsException e) {
-			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, e);
-		}
+		// Obtain State from a StateScopes
+		StateScope stateScope = stateScopeManager.getStateScope(token.getValue());
 
-		int stateId;
-		try {
-			stateId = Integer.parseInt(sId);
-		}
-		catch (NumberFormatException e) {
-			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, e);
+		if (stateScope instanceof SignedStateScope) {
+			// The state is included in the identifier
+			return ((SignedStateScope) stateScope).restoreState(context, token.getValue());
 		}
 
-		// Obtain State from a StateScopes
-		StateScope stateScope = stateScopeManager.getStateScope(requestState);
-
+		int stateId = token.getStateId();
 		if (stateScope != null) {
 			restoredState = stateScope.restoreState(context, stateId);
 			if (restoredState == null) {
@@ -145,7 +190,10 @@ public class StateUtil {
 			return restoredState;
 		}
 
-		restoredState = getStateFromSession(context, HDIVStateUtils.parsePageId(pId), stateId);
+		if (token.getPageId() == null) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID);
+		}
+		restoredState = getStateFromSession(context, token.getPageId(), stateId);
 		return restoredState;
 	}
 
@@ -192,4 +240,12 @@ public class StateUtil {
 	public void setStateScopeManager(final StateScopeManager stateScopeManager) {
 		this.stateScopeManager = stateScopeManager;
 	}
+
+	/**
+	 * @param metrics the metrics to set
+	 * @since 4.0.0
+	 */
+	public void setMetrics(final HdivMetrics metrics) {
+		this.metrics = metrics;
+	}
 }
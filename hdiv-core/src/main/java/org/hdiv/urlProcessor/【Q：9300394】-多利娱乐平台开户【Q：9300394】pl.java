@@ -18,71 +18,55 @@ package org.hdiv.urlProcessor;
 import org.hdiv.config.HDIVConfig;
 import org.hdiv.util.Method;
 
+/**
+ * {@link UrlData} stored in the url cache of {@link AbstractUrlProcessor}. The cached instance works as a template: the url is analyzed
+ * once and every processing of the same url works with a copy, created with {@link #copy()}, because the composed parameters are request
+ * specific. The result of {@link #isHdivStateNecessary(HDIVConfig)} is shared between the template and its copies.
+ */
 public class CachedUrlDataImpl extends UrlDataImpl {
 
-	private HDIVStatus status;
+	/**
+	 * Instance that holds the shared data. It is <code>this</code> for the cached instance.
+	 */
+	private final CachedUrlDataImpl template;
 
-	private int cached;
+	private volatile HDIVStatus status;
 
-	private String cacheProcessed;
+	private volatile int cached;
 
 	public CachedUrlDataImpl(final String url, final Method method) {
 		super(url, method);
+		template = this;
 	}
 
 	/**
-	 * Generate a url with all parameters.
+	 * Creates a copy of the <code>template</code> that shares the Hdiv state verdict with it.
 	 *
-	 * @param urlData url data object
-	 * @return complete url
+	 * @param template cached instance
+	 * @since 4.0.0
 	 */
-	@Override
-	void getParamProcessedUrl(final StringBuilder sb) {
-		if (cacheProcessed != null) {
-			sb.setLength(0);
-			sb.append(cacheProcessed);
-			return;
-		}
-		else {
-			super.getParamProcessedUrl(sb);
-		}
-		if (cached > 0) {
-			cacheProcessed = sb.toString();
-		}
+	protected CachedUrlDataImpl(final CachedUrlDataImpl template) {
+		super(template);
+		this.template = template;
 	}
 
-	@Override
-	public String getProcessedUrlWithHdivState(final StringBuilder sb, final String hdivParameter, final String stateParam) {
-
-		if (stateParam == null || stateParam.length() <= 0) {
-			if (cacheProcessed != null) {
-				return cacheProcessed;
-			}
-			else {
-				getParamProcessedUrl(sb);
-				return sb.toString();
-			}
-		}
-		getParamProcessedUrl(sb);
-		char separator = containsParams() ? '&' : '?';
-
-		sb.append(separator).append(hdivParameter).append('=').append(stateParam);
-		if (uriTemplate != null) {
-			sb.append(uriTemplate.replace('?', '&'));
-		}
-		if (anchor != null) {
-			// it could be ""
-			sb.append('#').append(anchor);
-		}
-		return sb.toString();
-
+	/**
+	 * Creates a new copy of the cached data to be used in one url processing.
+	 *
+	 * @return new copy
+	 * @since 4.0.0
+	 */
+	public CachedUrlDataImpl copy() {
+		template.cached();
+		return new CachedUrlDataImpl(template);
 	}
 
 	@Override
 	public boolean isHdivStateNecessary(final HDIVConfig config) {
+		HDIVStatus status = template.status;
 		if (status == null) {
 			boolean needed = super.isHdivStateNecessary(config);
-			status = needed ? HDIVStatus.ACTIVE : HDIVStatus.INACTIVE;
+			template.status = needed ? HDIVStatus.ACTIVE : HDIVStatus.INACTIVE;
 			return needed;
 		}
 		else {
@@ -104,7 +88,10 @@ public class CachedUrlDataImpl extends UrlDataImpl {
 		}
 	}
 
+	/**
+	 * @return number of times the cached data has been reused
+	 */
 	public int getCached() {
-		return cached;
+		return template.cached;
 	}
 }
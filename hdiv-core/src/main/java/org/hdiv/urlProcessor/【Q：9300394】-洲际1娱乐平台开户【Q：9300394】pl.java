@@ -120,6 +120,27 @@ public class UrlDataImpl implements UrlData {
 		}
 	}
 
+	/**
+	 * Copy constructor. Copies the result of the url analysis but not the request specific data, such as the composed parameters.
+	 *
+	 * @param data url data to copy
+	 * @since 4.0.0
+	 */
+	protected UrlDataImpl(final UrlDataImpl data) {
+		originalUrl = data.originalUrl;
+		method = data.method;
+		anchor = data.anchor;
+		jSessionId = data.jSessionId;
+		contextPathRelativeUrl = data.contextPathRelativeUrl;
+		urlWithoutContextPath = data.urlWithoutContextPath;
+		urlParams = data.urlParams;
+		originalUrlParams = data.originalUrlParams;
+		internal = data.internal;
+		server = data.server;
+		uriTemplate = data.uriTemplate;
+		templated = data.templated;
+	}
+
 	/**
 	 * Is url method GET?
 	 *
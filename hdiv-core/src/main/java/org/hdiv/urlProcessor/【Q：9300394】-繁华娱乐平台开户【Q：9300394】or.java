@@ -20,6 +20,8 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Stack;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -28,6 +30,7 @@ import org.hdiv.context.RequestContextHolder;
 import org.hdiv.util.Constants;
 import org.hdiv.util.HDIVUtil;
 import org.hdiv.util.Method;
+import org.hdiv.util.QueryStringTokenizer;
 
 /**
  * This class contains methods to process urls.
@@ -41,11 +44,32 @@ public abstract class AbstractUrlProcessor {
 
 	private static final int AMP_LENGTH = AMP.length();
 
+	/**
+	 * Default maximum number of analyzed urls kept in the cache.
+	 *
+	 * @since 4.0.0
+	 */
+	public static final int DEFAULT_URL_DATA_CACHE_SIZE = 1000;
+
 	/**
 	 * Hdiv configuration.
 	 */
 	protected HDIVConfig config;
 
+	/**
+	 * Analyzed urls by base url, server name, url and method.
+	 *
+	 * @since 4.0.0
+	 */
+	private final ConcurrentMap<String, CachedUrlDataImpl> urlDataCache = new ConcurrentHashMap<String, CachedUrlDataImpl>();
+
+	/**
+	 * Maximum number of analyzed urls kept in the cache. 0 disables the cache.
+	 *
+	 * @since 4.0.0
+	 */
+	private int urlDataCacheSize = DEFAULT_URL_DATA_CACHE_SIZE;
+
 	protected static final String processAnchorAndParameters(String url, final UrlDataImpl urlData, final String hdivParameter) {
 		url = urlData.findAnchor(url);
 		// Remove parameters
@@ -68,20 +92,57 @@ public abstract class AbstractUrlProcessor {
 	}
 
 	/**
-	 * Create a new instance of {@link UrlData}.
+	 * Create a new instance of {@link UrlData}. The analysis of the url is cached, so the same url rendered many times is only parsed
+	 * once.
 	 * @param url original url
 	 * @param method Http method
 	 * @param hdivParameter Parameter for HDIV State
 	 * @param ctx {@link RequestContextHolder} object
 	 * @return new instance of {@link UrlData}
 	 */
-	public UrlData createUrlData(String url, final Method method, final String hdivParameter, final RequestContextHolder ctx) {
+	public UrlData createUrlData(final String url, final Method method, final String hdivParameter, final RequestContextHolder ctx) {
 
 		final String contextPath = ctx.getContextPath();
 		final String serverName = ctx.getServerName();
 		final String baseURL = getBaseURL(ctx);
-		final UrlDataImpl urlData = new UrlDataImpl(url, method);
-		url = removeURITemplateParams(urlData);
+
+		if (urlDataCacheSize <= 0) {
+			return analyzeUrl(new UrlDataImpl(url, method), hdivParameter, contextPath, serverName, baseURL);
+		}
+
+		final String key = new StringBuilder(url.length() + 128).append(method).append(' ').append(serverName)
+				.append(' ').append(contextPath).append(' ').append(hdivParameter).append(' ').append(baseURL).append(' ').append(url)
+				.toString();
+		CachedUrlDataImpl urlData = urlDataCache.get(key);
+		if (urlData == null) {
+			urlData = new CachedUrlDataImpl(url, method);
+			analyzeUrl(urlData, hdivParameter, contextPath, serverName, baseURL);
+			if (urlData.getjSessionId() != null) {
+				// Session specific url, do not cache it
+				return urlData;
+			}
+			if (urlDataCache.size() >= urlDataCacheSize) {
+				urlDataCache.clear();
+			}
+			urlDataCache.put(key, urlData);
+		}
+		return urlData.copy();
+	}
+
+	/**
+	 * Analyzes the original url of the given {@link UrlDataImpl} and completes it.
+	 * @param urlData url data to complete
+	 * @param hdivParameter Parameter for HDIV State
+	 * @param contextPath application context path
+	 * @param serverName server name
+	 * @param baseURL base url for relative urls
+	 * @return completed url data
+	 * @since 4.0.0
+	 */
+	protected UrlDataImpl analyzeUrl(final UrlDataImpl urlData, final String hdivParameter, final String contextPath,
+			final String serverName, final String baseURL) {
+
+		String url = removeURITemplateParams(urlData);
 
 		url = processAnchorAndParameters(url, urlData, hdivParameter);
 
@@ -91,7 +152,7 @@ public abstract class AbstractUrlProcessor {
 			urlData.setServer(serverUrl);
 
 			// Remove server and port
-			url = url.replaceFirst(serverUrl, "");
+			url = url.substring(serverUrl.length());
 		}
 
 		// Remove jsessionid
@@ -133,7 +194,7 @@ public abstract class AbstractUrlProcessor {
 			final String serverUrl = getServerFromUrl(baseUrl);
 			if (serverUrl != null && serverUrl.length() > 0) {
 				// Remove server and port
-				baseUrl = baseUrl.replaceFirst(serverUrl, "");
+				baseUrl = baseUrl.substring(serverUrl.length());
 			}
 		}
 		else {
@@ -211,27 +272,16 @@ public abstract class AbstractUrlProcessor {
 			return params;
 		}
 
-		String value = urlParams.replaceAll(AMP, "&");
-
-		StringTokenizer st = new StringTokenizer(value, "&");
-		while (st.hasMoreTokens()) {
-			String token = st.nextToken();
-			int index = token.indexOf('=');
-			String param;
-			String val = "";
-			if (index > -1) {
-				param = token.substring(0, index);
-				val = token.substring(index + 1);
-			}
-			else {
-				param = token;
-			}
-
-			// Decode parameter value
-			val = HDIVUtil.getDecodedValue(sb, val, Constants.ENCODING_UTF_8);
+		QueryStringTokenizer tokenizer = new QueryStringTokenizer(urlParams);
+		while (tokenizer.next()) {
 
 			// Ignore Hdiv state parameter
-			if (!param.equals(hdivParameter)) {
+			if (!tokenizer.nameEquals(hdivParameter)) {
+				String param = tokenizer.getName();
+
+				// Decode parameter value
+				String val = HDIVUtil.getDecodedValue(sb, tokenizer.getValue(), Constants.ENCODING_UTF_8);
+
 				// Add value to array or create it
 				String[] values = params.get(param);
 				if (values == null) {
@@ -432,6 +482,33 @@ public abstract class AbstractUrlProcessor {
 	 */
 	public void setConfig(final HDIVConfig config) {
 		this.config = config;
+		clearUrlDataCache();
+	}
+
+	/**
+	 * Removes all the analyzed urls from the cache. Must be invoked if the configuration is modified at runtime.
+	 *
+	 * @since 4.0.0
+	 */
+	public void clearUrlDataCache() {
+		urlDataCache.clear();
+	}
+
+	/**
+	 * @param urlDataCacheSize maximum number of analyzed urls kept in the cache. 0 disables the cache.
+	 * @since 4.0.0
+	 */
+	public void setUrlDataCacheSize(final int urlDataCacheSize) {
+		this.urlDataCacheSize = urlDataCacheSize;
+		clearUrlDataCache();
+	}
+
+	/**
+	 * @return maximum number of analyzed urls kept in the cache
+	 * @since 4.0.0
+	 */
+	public int getUrlDataCacheSize() {
+		return urlDataCacheSize;
 	}
 
 }
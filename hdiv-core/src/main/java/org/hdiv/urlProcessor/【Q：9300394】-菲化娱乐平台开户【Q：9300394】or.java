@@ -76,7 +76,42 @@ public class FormUrlProcessor extends AbstractUrlProcessor {
 	 * @param method form submit method
 	 * @return processed url
 	 */
-	public String processUrl(final RequestContextHolder request, String url, Method method) {
+	public String processUrl(final RequestContextHolder request, final String url, final Method method) {
+		return processUrl(request, url, method, false);
+	}
+
+	/**
+	 * Process form action url to add hdiv state if it is necessary.
+	 *
+	 * @param request {@link RequestContextHolder} object
+	 * @param url url to process
+	 * @param method form submit method
+	 * @param stateIdRequired true if the state id must be published before the form fields are processed
+	 * @return processed url
+	 * @since 4.0.0
+	 */
+	public String processUrl(final RequestContextHolder request, final String url, final Method method, final boolean stateIdRequired) {
+		// The encoding type of the form is unknown, every POST form may be multipart
+		return processUrl(request, url, method, stateIdRequired, method == null || method == Method.POST);
+	}
+
+	/**
+	 * Process form action url to add hdiv state if it is necessary.
+	 * <p>
+	 * With streaming multipart validation the files received before the state are rejected, so the state of multipart forms is added to
+	 * the action url instead of being sent in a field after the files.
+	 * </p>
+	 *
+	 * @param request {@link RequestContextHolder} object
+	 * @param url url to process
+	 * @param method form submit method
+	 * @param stateIdRequired true if the state id must be published before the form fields are processed
+	 * @param multipart true if the form may be submitted as <code>multipart/form-data</code>
+	 * @return processed url
+	 * @since 4.0.0
+	 */
+	public String processUrl(final RequestContextHolder request, String url, Method method, final boolean stateIdRequired,
+			final boolean multipart) {
 
 		if (request == null) {
 			return url;
@@ -97,7 +132,8 @@ public class FormUrlProcessor extends AbstractUrlProcessor {
 		UrlData urlData = createUrlData(url, method, hdivParameter, request);
 		if (urlData.isHdivStateNecessary(config)) {
 			// the url needs protection
-			String stateId = dataComposer.beginRequest(method, urlData.getUrlWithoutContextPath());
+			boolean stateInAction = multipart && config.isMultipartStreamingValidation();
+			String stateId = dataComposer.beginRequest(method, urlData.getUrlWithoutContextPath(), stateIdRequired || stateInAction);
 
 			// Publish the state in request to make it accessible on jsp
 			request.setFormStateId(stateId);
@@ -106,8 +142,14 @@ public class FormUrlProcessor extends AbstractUrlProcessor {
 			String processedParams = dataComposer.composeParams(urlData.getUrlParams(), method, Constants.ENCODING_UTF_8);
 			urlData.setComposedUrlParams(processedParams);
 
-			// Action url with confidential values
-			url = getProcessedUrl(dataComposer.getBuilder(), urlData);
+			if (stateInAction) {
+				// The state must be received before the parts of the body
+				url = getProcessedUrlWithHdivState(dataComposer.getBuilder(), hdivParameter, urlData, stateId);
+			}
+			else {
+				// Action url with confidential values
+				url = getProcessedUrl(dataComposer.getBuilder(), urlData);
+			}
 
 		}
 		else {
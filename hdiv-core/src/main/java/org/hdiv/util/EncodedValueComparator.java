@@ -0,0 +1,178 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.util;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+/**
+ * Comparison of parameter values that may have been encoded or decoded with a different charset than the expected one.
+ * <p>
+ * The common cases are compared directly on the characters of the values, without creating new strings. Values that can not be resolved
+ * that way are compared encoding and decoding them.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public final class EncodedValueComparator {
+
+	private EncodedValueComparator() {
+	}
+
+	/**
+	 * Returns if <code>parameterValue</code> and <code>value</code> are the same encoded value:
+	 * <ul>
+	 * <li>They are equal ignoring case, taking the spaces of <code>parameterValue</code> as '+'.</li>
+	 * <li>One of them is the other one encoded in UTF-8 but decoded in ISO-8859-1.</li>
+	 * </ul>
+	 *
+	 * @param parameterValue parameter value
+	 * @param value value to compare
+	 * @return <code>true</code> if they are the same value; <code>false</code> otherwise
+	 */
+	public static boolean isTheSameEncodedValue(final String parameterValue, final String value) {
+
+		return equalsIgnoreCaseSpaceAsPlus(parameterValue, value) || isMisdecoded(value, parameterValue)
+				|| isMisdecoded(parameterValue, value);
+	}
+
+	/**
+	 * Same as <code>parameterValue.replace(" ", "+").equalsIgnoreCase(value)</code>.
+	 */
+	static boolean equalsIgnoreCaseSpaceAsPlus(final String parameterValue, final String value) {
+
+		int length = parameterValue.length();
+		if (length != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char c1 = parameterValue.charAt(i);
+			char c2 = value.charAt(i);
+			if (c1 == ' ') {
+				c1 = '+';
+			}
+			if (c1 != c2) {
+				char u1 = Character.toUpperCase(c1);
+				char u2 = Character.toUpperCase(c2);
+				if (u1 != u2 && Character.toLowerCase(u1) != Character.toLowerCase(u2)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if <code>value</code>, encoded in ISO-8859-1 and decoded in UTF-8, is equal to <code>expected</code>.
+	 * <p>
+	 * Characters below 0x80 are not modified by the conversion. Sequences of characters between 0x80 and 0xFF are decoded as UTF-8 bytes.
+	 * Any other case, like malformed sequences or characters out of ISO-8859-1, is resolved with {@link #reDecodeValue(String)}.
+	 * </p>
+	 */
+	static boolean isMisdecoded(final String value, final String expected) {
+
+		int length = value.length();
+		int expectedLength = expected.length();
+		int j = 0;
+		for (int i = 0; i < length;) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				if (j >= expectedLength || expected.charAt(j) != c) {
+					return false;
+				}
+				i++;
+				j++;
+				continue;
+			}
+			if (c > 0xFF) {
+				return slowIsMisdecoded(value, expected);
+			}
+
+			int extra;
+			int codePoint;
+			if (c >= 0xC2 && c <= 0xDF) {
+				extra = 1;
+				codePoint = c & 0x1F;
+			}
+			else if (c >= 0xE0 && c <= 0xEF) {
+				extra = 2;
+				codePoint = c & 0x0F;
+			}
+			else if (c >= 0xF0 && c <= 0xF4) {
+				extra = 3;
+				codePoint = c & 0x07;
+			}
+			else {
+				return slowIsMisdecoded(value, expected);
+			}
+			if (i + extra >= length) {
+				return slowIsMisdecoded(value, expected);
+			}
+			for (int k = 1; k <= extra; k++) {
+				char next = value.charAt(i + k);
+				if (next < 0x80 || next > 0xBF) {
+					return slowIsMisdecoded(value, expected);
+				}
+				codePoint = codePoint << 6 | next & 0x3F;
+			}
+			// Overlong forms, surrogates and code points out of range
+			if (extra == 2 && (codePoint < 0x800 || codePoint >= 0xD800 && codePoint <= 0xDFFF)
+					|| extra == 3 && (codePoint < 0x10000 || codePoint > 0x10FFFF)) {
+				return slowIsMisdecoded(value, expected);
+			}
+			i += extra + 1;
+
+			if (codePoint < 0x10000) {
+				if (j >= expectedLength || expected.charAt(j) != codePoint) {
+					return false;
+				}
+				j++;
+			}
+			else {
+				char high = (char) ((codePoint - 0x10000 >>> 10) + Character.MIN_HIGH_SURROGATE);
+				char low = (char) ((codePoint & 0x3FF) + Character.MIN_LOW_SURROGATE);
+				if (j + 1 >= expectedLength || expected.charAt(j) != high || expected.charAt(j + 1) != low) {
+					return false;
+				}
+				j += 2;
+			}
+		}
+		return j == expectedLength;
+	}
+
+	private static boolean slowIsMisdecoded(final String value, final String expected) {
+		String fix = reDecodeValue(value);
+		return fix != null && fix.equals(expected);
+	}
+
+	/**
+	 * Wrongly encoded value? Encoded in UTF-8 but decoded in ISO-8859-1.
+	 *
+	 * @param value value to fix
+	 * @return value encoded in ISO-8859-1 and decoded in UTF-8 or null if it is not possible
+	 */
+	static String reDecodeValue(String value) {
+		try {
+			value = URLEncoder.encode(value, Constants.ENCODING_ISO_8859_1);
+			value = URLDecoder.decode(value, Constants.ENCODING_UTF_8);
+		}
+		catch (Exception e) {
+			return null;
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.util;
+
+/**
+ * Single pass tokenizer of query strings in <code>name=value&amp;name=value</code> format.
+ * <p>
+ * Both <code>&amp;</code> and the <code>&amp;amp;</code> entity are parameter separators and empty parameters are skipped. The positions of
+ * the current parameter refer to the tokenized sequence, so names and values are only extracted when they are needed. Instances are not
+ * thread safe but can be reused for different query strings with {@link #reset(CharSequence)}.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public final class QueryStringTokenizer {
+
+	private static final String AMP_ENTITY = "&amp;";
+
+	private CharSequence query;
+
+	private int length;
+
+	private int position;
+
+	private int start;
+
+	private int nameEnd;
+
+	private int end;
+
+	public QueryStringTokenizer() {
+		reset(null);
+	}
+
+	/**
+	 * @param query query string to tokenize, may be null
+	 */
+	public QueryStringTokenizer(final CharSequence query) {
+		reset(query);
+	}
+
+	/**
+	 * Starts the tokenization of a new query string.
+	 *
+	 * @param query query string to tokenize, may be null
+	 * @return this tokenizer
+	 */
+	public QueryStringTokenizer reset(final CharSequence query) {
+		this.query = query;
+		length = query == null ? 0 : query.length();
+		position = 0;
+		start = nameEnd = end = 0;
+		return this;
+	}
+
+	/**
+	 * Moves to the next non empty parameter.
+	 *
+	 * @return true if there is a parameter, false at the end of the query string
+	 */
+	public boolean next() {
+		while (position < length) {
+			int tokenStart = position;
+			int tokenEnd = tokenStart;
+			int equals = -1;
+			while (tokenEnd < length) {
+				char c = query.charAt(tokenEnd);
+				if (c == '&') {
+					break;
+				}
+				if (c == '=' && equals < 0) {
+					equals = tokenEnd;
+				}
+				tokenEnd++;
+			}
+			position = tokenEnd < length ? tokenEnd + separatorLength(tokenEnd) : length;
+			if (tokenEnd > tokenStart) {
+				start = tokenStart;
+				end = tokenEnd;
+				nameEnd = equals < 0 ? tokenEnd : equals;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int separatorLength(final int index) {
+		if (index + AMP_ENTITY.length() > length) {
+			return 1;
+		}
+		for (int i = 1; i < AMP_ENTITY.length(); i++) {
+			if (query.charAt(index + i) != AMP_ENTITY.charAt(i)) {
+				return 1;
+			}
+		}
+		return AMP_ENTITY.length();
+	}
+
+	/**
+	 * @return start position of the current parameter
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return end position, exclusive, of the current parameter
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return true if the current parameter contains the '=' character
+	 */
+	public boolean hasValue() {
+		return nameEnd < end;
+	}
+
+	/**
+	 * @return name of the current parameter
+	 */
+	public String getName() {
+		return query.subSequence(start, nameEnd).toString();
+	}
+
+	/**
+	 * @return raw value of the current parameter. Empty if it has no value.
+	 */
+	public String getValue() {
+		return hasValue() ? query.subSequence(nameEnd + 1, end).toString() : "";
+	}
+
+	/**
+	 * Compares the name of the current parameter without extracting it.
+	 *
+	 * @param name name to compare
+	 * @return true if the name of the current parameter is <code>name</code>
+	 */
+	public boolean nameEquals(final String name) {
+		int nameLength = nameEnd - start;
+		if (name == null || name.length() != nameLength) {
+			return false;
+		}
+		for (int i = 0; i < nameLength; i++) {
+			if (query.charAt(start + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the current parameter, name and value, to <code>sb</code>.
+	 *
+	 * @param sb builder
+	 * @return the same builder
+	 */
+	public StringBuilder appendParameter(final StringBuilder sb) {
+		return sb.append(query, start, end);
+	}
+
+}
@@ -15,28 +15,218 @@
  */
 package org.hdiv.util;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Thread safe cache with a limited number of entries.
+ * <p>
+ * Entries are distributed in independently locked segments, each one evicting its least recently used entry when it is full. A new entry
+ * only replaces the victim if it has been requested more frequently than it (TinyLFU admission), so a burst of one-time keys cannot flush
+ * the frequently used ones. Access frequencies are estimated with a small counter table that is periodically aged.
+ * </p>
+ *
+ * @param <T> cached value type
+ */
 public class LimitedCache<T> {
 
-	private static final int CACHE_LIMIT = 5;
+	public static final int DEFAULT_MAX_SIZE = 128;
 
-	private final LinkedHashMap<String, T> cache = new LinkedHashMap<String, T>(CACHE_LIMIT + 1) {
+	private static final int MAX_SEGMENTS = 16;
 
-		private static final long serialVersionUID = 870739249442571505L;
+	private final int maxSize;
+
+	private final Segment<T>[] segments;
+
+	private final int segmentMask;
+
+	/**
+	 * Access frequency counters indexed by key hash.
+	 */
+	private final int[] frequencies;
+
+	private final int frequencyMask;
+
+	private final int agingThreshold;
 
-		@Override
-		protected boolean removeEldestEntry(final Map.Entry<String, T> eldest) {
-			return size() > CACHE_LIMIT;
+	private final AtomicInteger accesses = new AtomicInteger();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong rejections = new AtomicLong();
+
+	public LimitedCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	@SuppressWarnings("unchecked")
+	public LimitedCache(final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Cache size must be greater than 0: " + maxSize);
 		}
-	};
+		this.maxSize = maxSize;
+
+		int segmentCount = 1;
+		while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxSize) {
+			segmentCount *= 2;
+		}
+		segmentMask = segmentCount - 1;
+		segments = new Segment[segmentCount];
+		// The remainder is spread over the first segments, so the capacities add up to maxSize
+		int segmentSize = maxSize / segmentCount;
+		int remainder = maxSize % segmentCount;
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment<T>(i < remainder ? segmentSize + 1 : segmentSize);
+		}
+
+		int tableSize = 16;
+		while (tableSize < maxSize * 4) {
+			tableSize *= 2;
+		}
+		frequencies = new int[tableSize];
+		frequencyMask = tableSize - 1;
+		agingThreshold = tableSize * 10;
+	}
 
 	public void register(final String key, final T value) {
-		cache.put(key, value);
+
+		int hash = hash(key);
+		Segment<T> segment = segments[hash & segmentMask];
+
+		synchronized (segment) {
+			if (segment.containsKey(key) || segment.size() < segment.capacity) {
+				segment.put(key, value);
+				return;
+			}
+
+			// Segment is full, the candidate has to be more popular than the least recently used entry
+			Iterator<Map.Entry<String, T>> it = segment.entrySet().iterator();
+			Map.Entry<String, T> victim = it.next();
+			if (frequency(hash) > frequency(hash(victim.getKey()))) {
+				it.remove();
+				segment.put(key, value);
+				evictions.incrementAndGet();
+			}
+			else {
+				rejections.incrementAndGet();
+			}
+		}
 	}
 
 	public T getCached(final String key) {
-		return cache.get(key);
+
+		int hash = hash(key);
+		recordAccess(hash);
+
+		Segment<T> segment = segments[hash & segmentMask];
+		T value;
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+
+		if (value == null) {
+			misses.incrementAndGet();
+		}
+		else {
+			hits.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Removes all the entries. Statistics are not reset.
+	 */
+	public void clear() {
+		for (Segment<T> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment<T> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public long getRejections() {
+		return rejections.get();
+	}
+
+	private int frequency(final int hash) {
+		return frequencies[hash & frequencyMask];
+	}
+
+	private void recordAccess(final int hash) {
+		// Counter updates are not atomic, a lost increment only affects the estimation
+		int index = hash & frequencyMask;
+		if (frequencies[index] < Integer.MAX_VALUE) {
+			frequencies[index]++;
+		}
+
+		if (accesses.incrementAndGet() >= agingThreshold) {
+			accesses.set(0);
+			for (int i = 0; i < frequencies.length; i++) {
+				frequencies[i] >>>= 1;
+			}
+		}
+	}
+
+	private static int hash(final String key) {
+		// Spread bits to avoid collisions of similar urls
+		int h = key.hashCode();
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		return "LimitedCache [maxSize=" + maxSize + ", size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + ", rejections=" + rejections + "]";
+	}
+
+	/**
+	 * Access ordered map with a fixed capacity.
+	 */
+	private static class Segment<T> extends LinkedHashMap<String, T> {
+
+		private static final long serialVersionUID = 870739249442571505L;
+
+		private final int capacity;
+
+		Segment(final int capacity) {
+			super(capacity + 1, 1f, true);
+			this.capacity = capacity;
+		}
 	}
 }
@@ -41,12 +41,11 @@ public final class HDIVStateUtils {
 		if (firstSeparator == -1) {
 			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
 		}
-		try {
-			return new UUID(0, Integer.parseInt(stateId.substring(0, firstSeparator)));
-		}
-		catch (NumberFormatException ex) {
+		UUID pageId = parsePageId(stateId, 0, firstSeparator);
+		if (pageId == null) {
 			throw new HDIVException(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE);
 		}
+		return pageId;
 	}
 
 	public static String uuidToString(final UUID id) {
@@ -68,68 +67,78 @@ public final class HDIVStateUtils {
 	}
 
 	public static UUID parsePageId(final String pageId) {
-		try {
-			if (pageId.startsWith("U")) {
-				return new UUID(parseUnsignedLong(pageId.substring(1, 17), 16), parseUnsignedLong(pageId.substring(17, 33), 16));
-			}
-			else {
-				return new UUID(0, Long.parseLong(pageId));
-			}
-		}
-		catch (Exception e) {
-			throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID, e);
+		UUID id = parsePageId(pageId, 0, pageId.length());
+		if (id == null) {
+			throw new HDIVException(HDIVErrorCodes.INVALID_PAGE_ID);
 		}
+		return id;
 	}
 
-	private static long parseUnsignedLong(final String s, final int radix) throws NumberFormatException {
-		if (s == null) {
-			throw new NumberFormatException("null");
-		}
-
-		int len = s.length();
-		if (len > 0) {
-			char firstChar = s.charAt(0);
-			if (firstChar == '-') {
-				throw new NumberFormatException(String.format("Illegal leading minus sign " + "on unsigned string %s.", s));
+	/**
+	 * Parses the page id contained in <code>value</code> between <code>start</code> and <code>end</code> without creating intermediate
+	 * strings.
+	 *
+	 * @param value text containing the page id
+	 * @param start index of the first character of the page id
+	 * @param end index after the last character of the page id
+	 * @return page id or null if the text is not a valid page id
+	 * @since 4.0.0
+	 */
+	public static UUID parsePageId(final String value, final int start, final int end) {
+		if (start >= end) {
+			return null;
+		}
+		if (value.charAt(start) == 'U') {
+			// 'U' followed by 32 hexadecimal digits
+			if (end - start != 33) {
+				return null;
 			}
-			else {
-				if (len <= 12 || // Long.MAX_VALUE in Character.MAX_RADIX is 13 digits
-						radix == 10 && len <= 18) { // Long.MAX_VALUE in base 10 is 19 digits
-					return Long.parseLong(s, radix);
+			long mostSignificant = 0;
+			long leastSignificant = 0;
+			for (int i = 0; i < 32; i++) {
+				int digit = Character.digit(value.charAt(start + 1 + i), 16);
+				if (digit < 0) {
+					return null;
 				}
-
-				// No need for range checks on len due to testing above.
-				long first = Long.parseLong(s.substring(0, len - 1), radix);
-				int second = Character.digit(s.charAt(len - 1), radix);
-				if (second < 0) {
-					throw new NumberFormatException("Bad digit at end of " + s);
+				if (i < 16) {
+					mostSignificant = mostSignificant << 4 | digit;
 				}
-				long result = first * radix + second;
-				if (compareUnsigned(result, first) < 0) {
-					/*
-					 * The maximum unsigned value, (2^64)-1, takes at most one more digit to represent than the maximum signed value,
-					 * (2^63)-1. Therefore, parsing (len - 1) digits will be appropriately in-range of the signed parsing. In other words,
-					 * if parsing (len -1) digits overflows signed parsing, parsing len digits will certainly overflow unsigned parsing.
-					 *
-					 * The compareUnsigned check above catches situations where an unsigned overflow occurs incorporating the contribution
-					 * of the final digit.
-					 */
-					throw new NumberFormatException(String.format("String value %s exceeds " + "range of unsigned long.", s));
+				else {
+					leastSignificant = leastSignificant << 4 | digit;
 				}
-				return result;
 			}
+			return new UUID(mostSignificant, leastSignificant);
 		}
-		else {
-			throw new NumberFormatException(s);
-		}
-	}
-
-	private static int compareUnsigned(final long x, final long y) {
-		return compare(x + Long.MIN_VALUE, y + Long.MIN_VALUE);
+		long id = parseNumber(value, start, end);
+		return id < 0 ? null : new UUID(0, id);
 	}
 
-	private static int compare(final long x, final long y) {
-		return x < y ? -1 : x == y ? 0 : 1;
+	/**
+	 * Parses a positive decimal number without creating intermediate strings.
+	 *
+	 * @param value text containing the number
+	 * @param start index of the first digit
+	 * @param end index after the last digit
+	 * @return the number or -1 if the text is not a decimal number or does not fit in a long
+	 * @since 4.0.0
+	 */
+	public static long parseNumber(final String value, final int start, final int end) {
+		if (start >= end || end - start > 19) {
+			return -1;
+		}
+		long result = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+			if (result < 0) {
+				// Overflow
+				return -1;
+			}
+		}
+		return result;
 	}
 
 	public static int getStateId(final String stateId) {
@@ -41,6 +41,7 @@ import org.hdiv.context.RequestContextHolder;
 import org.hdiv.dataComposer.IDataComposer;
 import org.hdiv.exception.HDIVException;
 import org.hdiv.filter.RequestWrapper;
+import org.hdiv.idGenerator.NodeSequencePageIdGenerator;
 import org.hdiv.urlProcessor.FormUrlProcessor;
 import org.hdiv.urlProcessor.LinkUrlProcessor;
 import org.hdiv.urlProcessor.UrlData;
@@ -237,7 +238,7 @@ public class HDIVUtil {
 	 * @return {@link MessageSource} instance
 	 */
 	public static MessageSource getMessageSource(final HttpServletRequest request) {
-		return getMessageSource(request.getSession().getServletContext());
+		return getMessageSource(request.getServletContext());
 	}
 
 	/**
@@ -543,32 +544,7 @@ public class HDIVUtil {
 	 */
 	public static boolean isTheSameEncodedValue(final String parameterValue, final String value) {
 
-		if (parameterValue.replace(" ", "+").equalsIgnoreCase(value)) {
-			return true;
-		}
-
-		String fix = reDecodeValue(value);
-		boolean equals = fix != null && fix.equals(parameterValue);
-		if (equals) {
-			return true;
-		}
-		else {
-			fix = reDecodeValue(parameterValue);
-			return fix != null && fix.equals(value);
-		}
-	}
-
-	private static String reDecodeValue(String value) {
-		// Wrongly encoded value?
-		// Encoded in UTF-8 but decoded in ISO-8859-1
-		try {
-			value = URLEncoder.encode(value, Constants.ENCODING_ISO_8859_1);
-			value = URLDecoder.decode(value, Constants.ENCODING_UTF_8);
-		}
-		catch (Exception e) {
-			return null;
-		}
-		return value;
+		return EncodedValueComparator.isTheSameEncodedValue(parameterValue, value);
 	}
 
 	/**
@@ -688,9 +664,22 @@ public class HDIVUtil {
 
 	/* CurrentPageId */
 
+	/**
+	 * Obtains the id of the current page as an {@link Integer}.
+	 *
+	 * @param request request
+	 * @return page id
+	 * @throws IllegalStateException if the page id doesn't fit in an {@link Integer}, as with {@link NodeSequencePageIdGenerator}
+	 * @deprecated use {@link RequestContextHolder#getCurrentPageId()}
+	 */
 	@Deprecated
 	public static Integer getCurrentPageId(final ServletRequest request) {
-		return (int) getRequestContext(request).getCurrentPageId().getLeastSignificantBits();
+		UUID pageId = getRequestContext(request).getCurrentPageId();
+		long id = pageId.getLeastSignificantBits();
+		if (pageId.getMostSignificantBits() != 0 || id != (int) id) {
+			throw new IllegalStateException("Page id " + pageId + " doesn't fit in an Integer, use RequestContextHolder.getCurrentPageId()");
+		}
+		return (int) id;
 	}
 
 	@Deprecated
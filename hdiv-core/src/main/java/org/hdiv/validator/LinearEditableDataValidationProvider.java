@@ -0,0 +1,269 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.validator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.PatternSyntaxException;
+
+import org.hdiv.regex.LinearAutomaton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link EditableDataValidationProvider} that executes the patterns of the {@link Validation} rules with {@link LinearAutomaton}, so the
+ * time spent validating a value is linear in its length whatever the value is.
+ * <p>
+ * The rejected patterns of each set of validations returned by the {@link ValidationRepository} are combined in one automaton that is
+ * executed once per value. Accepted patterns are executed one by one. Rules with patterns not supported by {@link LinearAutomaton}, and
+ * {@link IValidation} implementations other than {@link Validation}, are executed as usual.
+ * </p>
+ * <p>
+ * Values longer than <code>maxValueLength</code> characters are rejected without scanning them, with
+ * {@link #MAX_VALUE_LENGTH_VALIDATION_ID} as validation id.
+ * </p>
+ *
+ * @since 4.0.0
+ */
+public class LinearEditableDataValidationProvider extends DefaultEditableDataValidationProvider {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(LinearEditableDataValidationProvider.class);
+
+	/**
+	 * Validation id of the values longer than <code>maxValueLength</code>.
+	 */
+	public static final String MAX_VALUE_LENGTH_VALIDATION_ID = "maxValueLength";
+
+	public static final int DEFAULT_MAX_COMPILED_SETS = 256;
+
+	/**
+	 * Maximum number of characters scanned per value, 0 for no limit.
+	 */
+	protected int maxValueLength;
+
+	/**
+	 * Maximum number of states of each automaton.
+	 */
+	protected int maxStates = LinearAutomaton.DEFAULT_MAX_STATES;
+
+	/**
+	 * Maximum number of compiled validation sets. Sets beyond the limit are validated rule by rule.
+	 */
+	protected int maxCompiledSets = DEFAULT_MAX_COMPILED_SETS;
+
+	/**
+	 * Compiled validations by validation set, created on first use.
+	 */
+	private transient volatile ConcurrentMap<List<IValidation>, CompiledValidations> compiledSets;
+
+	@Override
+	public EditableDataValidationResult validate(final String url, final String parameter, final String[] values, final String dataType) {
+
+		if (validationRepository == null) {
+			return EditableDataValidationResult.VALIDATION_NOT_REQUIRED;
+		}
+
+		List<IValidation> validations = validationRepository.findValidations(url, parameter);
+
+		if (validations.isEmpty()) {
+			return EditableDataValidationResult.VALIDATION_NOT_REQUIRED;
+		}
+
+		if (maxValueLength > 0) {
+			for (String value : values) {
+				if (value != null && value.length() > maxValueLength) {
+					return new EditableDataValidationResult(false, MAX_VALUE_LENGTH_VALIDATION_ID);
+				}
+			}
+		}
+
+		CompiledValidations compiledValidations = getCompiledValidations(validations);
+		if (compiledValidations == null) {
+			return super.validate(url, parameter, values, dataType);
+		}
+		return compiledValidations.validate(parameter, values, dataType);
+	}
+
+	private CompiledValidations getCompiledValidations(final List<IValidation> validations) {
+		ConcurrentMap<List<IValidation>, CompiledValidations> sets = compiledSets;
+		if (sets == null) {
+			synchronized (this) {
+				sets = compiledSets;
+				if (sets == null) {
+					sets = new ConcurrentHashMap<List<IValidation>, CompiledValidations>();
+					compiledSets = sets;
+				}
+			}
+		}
+		CompiledValidations result = sets.get(validations);
+		if (result == null) {
+			if (sets.size() >= maxCompiledSets) {
+				return null;
+			}
+			result = new CompiledValidations(validations, maxStates);
+			CompiledValidations existing = sets.putIfAbsent(validations, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param maxValueLength maximum number of characters scanned per value, 0 for no limit
+	 */
+	public void setMaxValueLength(final int maxValueLength) {
+		this.maxValueLength = maxValueLength;
+	}
+
+	/**
+	 * @return the maxValueLength
+	 */
+	public int getMaxValueLength() {
+		return maxValueLength;
+	}
+
+	/**
+	 * @param maxStates maximum number of states of each automaton
+	 */
+	public void setMaxStates(final int maxStates) {
+		this.maxStates = maxStates;
+		compiledSets = null;
+	}
+
+	/**
+	 * @param maxCompiledSets maximum number of compiled validation sets
+	 */
+	public void setMaxCompiledSets(final int maxCompiledSets) {
+		this.maxCompiledSets = maxCompiledSets;
+	}
+
+	@Override
+	public void setValidationRepository(final ValidationRepository validationRepository) {
+		super.setValidationRepository(validationRepository);
+		compiledSets = null;
+	}
+
+	/**
+	 * Validations of a set compiled to automatons.
+	 */
+	private static final class CompiledValidations {
+
+		private final List<IValidation> validations;
+
+		/**
+		 * Accepted pattern of each validation, null if it has none or the validation is not compiled.
+		 */
+		private final LinearAutomaton[] accepted;
+
+		/**
+		 * Index of the rejected pattern of each validation in {@link #rejected}, -1 if it has none.
+		 */
+		private final int[] rejectedIndexes;
+
+		/**
+		 * False for the validations that are executed with their own patterns.
+		 */
+		private final boolean[] compiled;
+
+		/**
+		 * All the rejected patterns, null if there is none.
+		 */
+		private final LinearAutomaton rejected;
+
+		CompiledValidations(final List<IValidation> validations, final int maxStates) {
+			this.validations = validations;
+			int size = validations.size();
+			accepted = new LinearAutomaton[size];
+			rejectedIndexes = new int[size];
+			compiled = new boolean[size];
+			List<String> rejectedPatterns = new ArrayList<String>();
+
+			for (int i = 0; i < size; i++) {
+				rejectedIndexes[i] = -1;
+				IValidation validation = validations.get(i);
+				if (validation.getClass() != Validation.class) {
+					continue;
+				}
+				Validation rule = (Validation) validation;
+				try {
+					if (rule.getAcceptedPattern() != null) {
+						accepted[i] = LinearAutomaton.compile(rule.getAcceptedPattern());
+					}
+					if (rule.getRejectedPattern() != null) {
+						// Check it alone first, so an unsupported pattern does not prevent compiling the others
+						LinearAutomaton.compile(rule.getRejectedPattern());
+						rejectedIndexes[i] = rejectedPatterns.size();
+						rejectedPatterns.add(rule.getRejectedPattern());
+					}
+					compiled[i] = true;
+				}
+				catch (PatternSyntaxException e) {
+					log.warn("Validation [" + rule.getName() + "] will be executed with java.util.regex: " + e.getMessage());
+					accepted[i] = null;
+				}
+			}
+			rejected = rejectedPatterns.isEmpty() ? null : LinearAutomaton.compile(rejectedPatterns, maxStates);
+		}
+
+		EditableDataValidationResult validate(final String parameter, final String[] values, final String dataType) {
+
+			// Rejected patterns matched by each value, computed on first use
+			BitSet[] rejectedMatches = null;
+
+			for (int i = 0; i < validations.size(); i++) {
+				IValidation validation = validations.get(i);
+				if (!compiled[i]) {
+					if (!validation.validate(parameter, values, dataType)) {
+						return new EditableDataValidationResult(false, validation.getName());
+					}
+					continue;
+				}
+				Validation rule = (Validation) validation;
+				if (dataType != null && rule.existComponentType() && !rule.isTheSameComponentType(dataType)) {
+					continue;
+				}
+				for (int j = 0; j < values.length; j++) {
+					String value = values[j];
+					if (value == null) {
+						continue;
+					}
+					if (accepted[i] != null && !accepted[i].matches(value)) {
+						return new EditableDataValidationResult(false, rule.getName());
+					}
+					if (rejectedIndexes[i] >= 0) {
+						if (rejectedMatches == null) {
+							rejectedMatches = new BitSet[values.length];
+						}
+						if (rejectedMatches[j] == null) {
+							rejectedMatches[j] = rejected.matchAll(value);
+						}
+						if (rejectedMatches[j].get(rejectedIndexes[i])) {
+							return new EditableDataValidationResult(false, rule.getName());
+						}
+					}
+				}
+			}
+			return EditableDataValidationResult.VALID;
+		}
+	}
+
+}
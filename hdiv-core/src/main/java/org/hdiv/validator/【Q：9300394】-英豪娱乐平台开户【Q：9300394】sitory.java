@@ -43,7 +43,17 @@ public class DefaultValidationRepository implements ValidationRepository {
 	 */
 	protected List<IValidation> defaultValidations;
 
-	private final LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>> cachedValidations = new LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>>();
+	/**
+	 * Max number of urls whose matching validations are cached.
+	 *
+	 * @since 4.0.0
+	 */
+	protected int cacheSize = LimitedCache.DEFAULT_MAX_SIZE;
+
+	/**
+	 * Validations whose url pattern matches each url, in definition order.
+	 */
+	private transient volatile LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>> cachedValidations;
 
 	/**
 	 * Returns the validation rules for a concrete url and parameter name.
@@ -54,19 +64,20 @@ public class DefaultValidationRepository implements ValidationRepository {
 	 */
 	public List<IValidation> findValidations(final String url, final String parameter) {
 
-		List<Entry<ValidationTarget, List<IValidation>>> cachedURLValidation = cachedValidations.getCached(url);
+		LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>> cache = getCachedValidations();
 
-		if (cachedURLValidation != null) {
-			List<IValidation> validations = findValidationsFromLast(parameter, cachedURLValidation);
-			if (validations != null) {
-				return validations;
-			}
-		}
-		else {
-			cachedURLValidation = new ArrayList<Entry<ValidationTarget, List<IValidation>>>();
+		List<Entry<ValidationTarget, List<IValidation>>> urlValidations = cache.getCached(url);
+		if (urlValidations == null) {
+			urlValidations = findUrlValidations(url);
+			cache.register(url, urlValidations);
 		}
 
-		return findNewValidations(url, parameter, cachedURLValidation);
+		for (Entry<ValidationTarget, List<IValidation>> entry : urlValidations) {
+			if (validationsMatch(entry.getKey().getParams(), parameter)) {
+				return entry.getValue();
+			}
+		}
+		return Collections.emptyList();
 	}
 
 	private boolean validationsMatch(final List<PatternMatcher> paramMatchers, final String parameter) {
@@ -85,40 +96,40 @@ public class DefaultValidationRepository implements ValidationRepository {
 		return false;
 	}
 
-	private List<IValidation> findValidationsFromLast(final String parameter,
-			final List<Entry<ValidationTarget, List<IValidation>>> cachedURLValidation) {
-		for (Entry<ValidationTarget, List<IValidation>> entry : cachedURLValidation) {
-			List<PatternMatcher> paramsMatcher = entry.getKey().getParams();
-			if (validationsMatch(paramsMatcher, parameter)) {
-				return entry.getValue();
-			}
-		}
-		return null;
-	}
+	/**
+	 * Find all the validations whose url pattern matches the url.
+	 *
+	 * @param url request url
+	 * @return Immutable list of matching validations
+	 */
+	private List<Entry<ValidationTarget, List<IValidation>>> findUrlValidations(final String url) {
 
-	private List<IValidation> findNewValidations(final String url, final String parameter,
-			final List<Entry<ValidationTarget, List<IValidation>>> cachedURLValidation) {
+		List<Entry<ValidationTarget, List<IValidation>>> urlValidations = new ArrayList<Entry<ValidationTarget, List<IValidation>>>();
 		for (Entry<ValidationTarget, List<IValidation>> entry : validations.entrySet()) {
 
-			if (cachedURLValidation.contains(entry)) {
-				continue;
-			}
-
-			ValidationTarget target = entry.getKey();
-			PatternMatcher urlMatcher = target.getUrl();
+			PatternMatcher urlMatcher = entry.getKey().getUrl();
 
 			// Null URL is equivalent to all URLs.
 			if (urlMatcher == null || urlMatcher.matches(url)) {
+				urlValidations.add(entry);
+			}
+		}
+		return Collections.unmodifiableList(urlValidations);
+	}
 
-				cachedURLValidation.add(entry);
-				cachedValidations.register(url, cachedURLValidation);
+	private LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>> getCachedValidations() {
 
-				if (validationsMatch(target.getParams(), parameter)) {
-					return entry.getValue();
+		LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>> cache = cachedValidations;
+		if (cache == null) {
+			synchronized (this) {
+				cache = cachedValidations;
+				if (cache == null) {
+					cache = new LimitedCache<List<Entry<ValidationTarget, List<IValidation>>>>(cacheSize);
+					cachedValidations = cache;
 				}
 			}
 		}
-		return Collections.emptyList();
+		return cache;
 	}
 
 	/**
@@ -135,6 +146,7 @@ public class DefaultValidationRepository implements ValidationRepository {
 	 */
 	public void setValidations(final Map<ValidationTarget, List<IValidation>> validations) {
 		this.validations = validations;
+		cachedValidations = null;
 	}
 
 	/**
@@ -158,4 +170,28 @@ public class DefaultValidationRepository implements ValidationRepository {
 		this.defaultValidations = defaultValidations;
 	}
 
+	/**
+	 * @param cacheSize max number of urls whose validations are cached
+	 * @since 4.0.0
+	 */
+	public void setCacheSize(final int cacheSize) {
+		this.cacheSize = cacheSize;
+		cachedValidations = null;
+	}
+
+	/**
+	 * @return the cacheSize
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @return cache of the validations by url, including its hit, miss and eviction counters
+	 * @since 4.0.0
+	 */
+	public LimitedCache<?> getValidationsCache() {
+		return getCachedValidations();
+	}
+
 }
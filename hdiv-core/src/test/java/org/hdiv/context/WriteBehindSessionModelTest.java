@@ -0,0 +1,186 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.hdiv.metrics.HdivMetrics;
+import org.hdiv.metrics.InMemoryMetrics;
+import org.hdiv.session.SessionModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class WriteBehindSessionModelTest extends TestCase {
+
+	private CountingSessionModel delegate;
+
+	private InMemoryMetrics metrics;
+
+	private WriteBehindSessionModel session;
+
+	@Override
+	protected void setUp() throws Exception {
+		delegate = new CountingSessionModel();
+		metrics = new InMemoryMetrics();
+		session = new WriteBehindSessionModel(delegate, metrics);
+	}
+
+	public void testWritesAreCoalesced() {
+
+		Object cache = new Object();
+		session.setAttribute("cache", cache);
+		session.setAttribute("cache", cache);
+		session.setAttribute("pageIdGenerator", "1");
+		session.setAttribute("pageIdGenerator", "2");
+		session.setAttribute("pageIdGenerator", "3");
+
+		assertEquals(0, delegate.writes);
+		assertSame(cache, session.getAttribute("cache"));
+		assertEquals("3", session.getAttribute("pageIdGenerator"));
+		assertTrue(session.hasPendingWrites());
+
+		session.flush();
+
+		assertEquals(2, delegate.writes);
+		assertSame(cache, delegate.attributes.get("cache"));
+		assertEquals("3", delegate.attributes.get("pageIdGenerator"));
+		assertFalse(session.hasPendingWrites());
+		assertEquals(3, session.getAbsorbedWrites());
+		assertEquals(2, session.getFlushedWrites());
+		assertEquals(2, metrics.getCount(HdivMetrics.SESSION_WRITES));
+		assertEquals(3, metrics.getCount(HdivMetrics.SESSION_WRITES_ABSORBED));
+	}
+
+	public void testRemovals() {
+
+		delegate.attributes.put("page", "old");
+
+		session.setAttribute("page", "new");
+		session.removeAttribute("page");
+		assertNull(session.getAttribute("page"));
+		assertEquals("old", delegate.attributes.get("page"));
+
+		session.setAttribute("other", null);
+		session.flush();
+
+		assertFalse(delegate.attributes.containsKey("page"));
+		assertEquals(0, delegate.writes);
+		assertEquals(2, delegate.removals);
+		assertEquals(1, session.getAbsorbedWrites());
+	}
+
+	public void testReadsFallBackToDelegate() {
+
+		delegate.attributes.put("cookies", "value");
+		assertEquals("value", session.getAttribute("cookies"));
+		assertNull(session.getAttribute("missing"));
+	}
+
+	public void testWritesAfterFlushGoThrough() {
+
+		session.flush();
+		session.setAttribute("async", "value");
+		assertEquals(1, delegate.writes);
+		session.removeAttribute("async");
+		assertEquals(1, delegate.removals);
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testWritesWithoutSessionGoThrough() {
+
+		final boolean[] created = { false };
+		session = new WriteBehindSessionModel(delegate) {
+
+			@Override
+			protected boolean hasSession() {
+				return created[0];
+			}
+		};
+
+		session.setAttribute("first", "value");
+		assertEquals(1, delegate.writes);
+
+		created[0] = true;
+		session.setAttribute("second", "value");
+		assertEquals(1, delegate.writes);
+		session.flush();
+		assertEquals(2, delegate.writes);
+	}
+
+	public void testWritesBufferedBeforeInvalidationAreDropped() {
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.getSession(true).setAttribute("user", "old");
+		session = new WriteBehindSessionModel(new LazyHttpSessionModel(request));
+
+		session.setAttribute("state", "value");
+		assertTrue(session.hasPendingWrites());
+
+		request.getSession().invalidate();
+		assertNull(session.getAttribute("state"));
+		session.flush();
+
+		assertNull(request.getSession(false));
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testWritesBufferedForReplacedSessionAreDropped() {
+
+		final String[] sessionId = { "1" };
+		session = new WriteBehindSessionModel(delegate) {
+
+			@Override
+			protected String getSessionId() {
+				return sessionId[0];
+			}
+		};
+
+		session.setAttribute("state", "old");
+		sessionId[0] = "2";
+		session.setAttribute("cache", "new");
+		session.flush();
+
+		assertEquals(1, delegate.writes);
+		assertFalse(delegate.attributes.containsKey("state"));
+		assertEquals("new", delegate.attributes.get("cache"));
+	}
+
+	private static class CountingSessionModel implements SessionModel {
+
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+		private int writes;
+
+		private int removals;
+
+		public Object getAttribute(final String name) {
+			return attributes.get(name);
+		}
+
+		public void removeAttribute(final String name) {
+			removals++;
+			attributes.remove(name);
+		}
+
+		public void setAttribute(final String name, final Object value) {
+			writes++;
+			attributes.put(name, value);
+		}
+	}
+
+}
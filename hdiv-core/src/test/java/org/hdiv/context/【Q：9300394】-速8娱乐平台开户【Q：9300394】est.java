@@ -18,6 +18,10 @@ package org.hdiv.context;
 import javax.servlet.http.HttpSession;
 
 import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.exception.HDIVException;
+import org.hdiv.session.SessionModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 public class RequestContextTest extends AbstractHDIVTestCase {
 
@@ -38,4 +42,62 @@ public class RequestContextTest extends AbstractHDIVTestCase {
 		assertNull(value);
 	}
 
+	public void testLazySession() {
+
+		MockHttpServletRequest request = new MockHttpServletRequest(getMockRequest().getServletContext());
+		RequestContext ctx = new RequestContext(request, new MockHttpServletResponse(), request.getServletContext());
+		SessionModel session = ctx.getSession();
+
+		assertNull(session.getAttribute("sample"));
+		session.removeAttribute("sample");
+		session.setAttribute("sample", null);
+		assertNull(request.getSession(false));
+
+		session.setAttribute("sample", "value");
+		assertNotNull(request.getSession(false));
+		assertEquals("value", request.getSession(false).getAttribute("sample"));
+		assertEquals("value", session.getAttribute("sample"));
+	}
+
+	public void testCreateSession() {
+
+		MockHttpServletRequest request = new MockHttpServletRequest(getMockRequest().getServletContext());
+		LazyHttpSessionModel session = new LazyHttpSessionModel(request);
+		assertFalse(session.hasSession());
+
+		session.createSession();
+		assertTrue(session.hasSession());
+		assertNotNull(request.getSession(false));
+	}
+
+	public void testSessionNotCreatedAfterCommit() {
+
+		MockHttpServletRequest request = new MockHttpServletRequest(getMockRequest().getServletContext()) {
+			@Override
+			public HttpSession getSession(final boolean create) {
+				if (create) {
+					throw new IllegalStateException("Response already committed");
+				}
+				return null;
+			}
+		};
+		LazyHttpSessionModel session = new LazyHttpSessionModel(request);
+
+		assertNull(session.getAttribute("sample"));
+		try {
+			session.setAttribute("sample", "value");
+			fail("The attribute can not be stored");
+		}
+		catch (HDIVException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		try {
+			session.createSession();
+			fail("The session can not be created");
+		}
+		catch (HDIVException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
 }
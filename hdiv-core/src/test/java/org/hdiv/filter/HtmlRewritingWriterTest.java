@@ -0,0 +1,181 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class HtmlRewritingWriterTest extends TestCase {
+
+	private static final String HTML = "<!DOCTYPE html><html><body>"
+			+ "<a href=\"/app/list.do?page=1&amp;size=10\">List</a> 1 < 2 <a  title='x' HREF=/app/x.do>X</a>"
+			+ "<!-- <a href=\"/app/comment.do\"> -->"
+			+ "<script>var s = '<a href=\"/app/script.do\">'; if (a<b) {}</script>"
+			+ "<form method=\"post\" action='/app/save.do'><input type=\"hidden\" name=\"id\" value=\"7\"/>"
+			+ "<input name=\"text\" value=\"free\"><input type=checkbox name=check>"
+			+ "<select name=\"sel\"><option value=\"a\">A</option><option value>B</option></select>"
+			+ "<textarea name=\"area\"><a href=\"/app/area.do\"></textarea></form>" + "<form><input name=\"q\"></form></body></html>";
+
+	private static final String EXPECTED = "<!DOCTYPE html><html><body>"
+			+ "<a href=\"/app/list.do?page=1&amp;size=10&amp;_STATE_=1\">List</a> 1 < 2 <a  title='x' HREF=\"/app/x.do?_STATE_=1\">X</a>"
+			+ "<!-- <a href=\"/app/comment.do\"> -->"
+			+ "<script>var s = '<a href=\"/app/script.do\">'; if (a<b) {}</script>"
+			+ "<form method=\"post\" action=\"/app/save.do?post\"><input type=\"hidden\" name=\"id\" value=\"[id:7:hidden]\"/>"
+			+ "<input name=\"text\" value=\"[text:free:text]\"><input value=\"[check:on:checkbox]\" type=checkbox name=check>"
+			+ "<select name=\"sel\"><option value=\"[sel:a:option]\">A</option><option value=\"[sel::option]\">B</option></select>"
+			+ "<textarea name=\"area\"><a href=\"/app/area.do\"></textarea>"
+			+ "<input type=\"hidden\" name=\"_STATE_\" value=\"[fields]\" /></form>"
+			+ "<form action=\"?get\"><input value=\"[q::text]\" name=\"q\"><input type=\"hidden\" name=\"_STATE_\" value=\"[fields]\" /></form>"
+			+ "</body></html>";
+
+	private StringBuilder fields;
+
+	private AbstractHtmlRewritingWriter createWriter(final Writer out) {
+
+		fields = new StringBuilder();
+		return new AbstractHtmlRewritingWriter(out) {
+
+			@Override
+			protected String rewriteLink(final String url) {
+				return url + (url.indexOf('?') >= 0 ? "&" : "?") + "_STATE_=1";
+			}
+
+			@Override
+			protected String startForm(final String action, final String method, final String enctype) {
+				return action + "?" + method.toLowerCase() + (enctype != null ? "&" + enctype : "");
+			}
+
+			@Override
+			protected String rewriteField(final String name, final String value, final String type) {
+				fields.append(name).append(',');
+				return "[" + name + ":" + (value == null ? "" : value) + ":" + type + "]";
+			}
+
+			@Override
+			protected Map<String, String> endForm() {
+				return Collections.singletonMap("_STATE_", "[fields]");
+			}
+
+			@Override
+			protected boolean isProtectedUrl(final String url) {
+				return HtmlRewritingWriter.hasParameter(url, "_STATE_");
+			}
+		};
+	}
+
+	public void testRewrite() throws IOException {
+
+		StringWriter out = new StringWriter();
+		AbstractHtmlRewritingWriter writer = createWriter(out);
+		writer.write(HTML);
+		writer.close();
+
+		assertEquals(EXPECTED, out.toString());
+		assertEquals("id,text,check,sel,sel,area,q,", fields.toString());
+	}
+
+	public void testStreaming() throws IOException {
+
+		// Same result writing one character at a time
+		StringWriter out = new StringWriter();
+		AbstractHtmlRewritingWriter writer = createWriter(out);
+		for (int i = 0; i < HTML.length(); i++) {
+			writer.write(HTML.charAt(i));
+		}
+		writer.close();
+
+		assertEquals(EXPECTED, out.toString());
+	}
+
+	public void testOutputStream() throws IOException {
+
+		String html = HTML.replace("List", "\u00c1\u00e9\u4e2d\ud83d\ude00");
+		String expected = EXPECTED.replace("List", "\u00c1\u00e9\u4e2d\ud83d\ude00");
+		byte[] bytes = html.getBytes("UTF-8");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HtmlRewritingOutputStream stream = new HtmlRewritingOutputStream(out, Charset.forName("UTF-8"));
+		stream.setWriter(createWriter(stream.getTarget()));
+		// Split multibyte characters between writes
+		for (int i = 0; i < bytes.length; i += 3) {
+			stream.write(bytes, i, Math.min(3, bytes.length - i));
+		}
+		stream.finish();
+
+		assertEquals(expected, new String(out.toByteArray(), "UTF-8"));
+	}
+
+	public void testIncompleteTag() throws IOException {
+
+		StringWriter out = new StringWriter();
+		AbstractHtmlRewritingWriter writer = createWriter(out);
+		writer.write("text <a href=\"/x");
+		writer.flush();
+		assertEquals("text ", out.toString());
+
+		writer.finish();
+		assertEquals("text <a href=\"/x", out.toString());
+	}
+
+	public void testEscape() {
+
+		assertEquals("/a?b=1&amp;c=&lt;&quot;&amp;d=&amp;#39;", AbstractHtmlRewritingWriter.escape("/a?b=1&c=<\"&d=&#39;"));
+		assertEquals("plain", AbstractHtmlRewritingWriter.escape("plain"));
+	}
+
+	public void testCharacterReferencesRoundTrip() throws IOException {
+
+		StringWriter out = new StringWriter();
+		AbstractHtmlRewritingWriter writer = createWriter(out);
+		writer.write("<a href=\"/a?x=&amp;lt;&amp;y=&#39;\">A</a>");
+		writer.finish();
+
+		// The link is received as the browser resolves it, and written back with the same value
+		assertEquals("<a href=\"/a?x=&amp;lt;&amp;y='&amp;_STATE_=1\">A</a>", out.toString());
+	}
+
+	public void testProtectedUrlsNotRewritten() throws IOException {
+
+		String html = "<a href=\"/a?b=1&amp;_STATE_=5\">A</a><form action=\"/save?_STATE_=5#top\"><input name=\"q\" value=\"x\"></form>";
+		StringWriter out = new StringWriter();
+		AbstractHtmlRewritingWriter writer = createWriter(out);
+		writer.write(html);
+		writer.finish();
+
+		assertEquals(html, out.toString());
+		assertEquals("", fields.toString());
+	}
+
+	public void testHasParameter() {
+
+		assertTrue(HtmlRewritingWriter.hasParameter("/a?_STATE_=1", "_STATE_"));
+		assertTrue(HtmlRewritingWriter.hasParameter("/a?b=1&_STATE_=1", "_STATE_"));
+		assertTrue(HtmlRewritingWriter.hasParameter("/a?b=1&_STATE_", "_STATE_"));
+		assertFalse(HtmlRewritingWriter.hasParameter("/a?b=_STATE_=1", "_STATE_"));
+		assertFalse(HtmlRewritingWriter.hasParameter("/a?_STATE_X=1", "_STATE_"));
+		assertFalse(HtmlRewritingWriter.hasParameter("/a#?_STATE_=1", "_STATE_"));
+		assertFalse(HtmlRewritingWriter.hasParameter("/_STATE_", "_STATE_"));
+		assertFalse(HtmlRewritingWriter.hasParameter("/a?_STATE_=1", null));
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.StringWriter;
+
+import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.config.HDIVConfig;
+import org.hdiv.dataComposer.DataComposerFactory;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.urlProcessor.FormUrlProcessor;
+import org.hdiv.urlProcessor.LinkUrlProcessor;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Validation of the forms rewritten by {@link HtmlRewritingWriter}.
+ */
+public class HtmlRewritingWriterValidationTest extends AbstractHDIVTestCase {
+
+	private IValidationHelper helper;
+
+	private IDataComposer dataComposer;
+
+	@Override
+	protected void postCreateHdivConfig(final HDIVConfig config) {
+		// The values are sent as they are written in the markup
+		config.setConfidentiality(false);
+	}
+
+	@Override
+	protected void onSetUp() throws Exception {
+
+		helper = getApplicationContext().getBean(IValidationHelper.class);
+
+		DataComposerFactory dataComposerFactory = getApplicationContext().getBean(DataComposerFactory.class);
+		dataComposer = dataComposerFactory.newInstance(getRequestContext());
+		getRequestContext().setDataComposer(dataComposer);
+		dataComposer.startPage();
+	}
+
+	public void testEscapedFieldValues() throws Exception {
+
+		String html = "<form method=\"post\" action=\"/path/testAction.do\">"
+				+ "<input type=\"hidden\" name=\"hidden\" value=\"a&amp;b &lt;c&gt; &#39;d&#39;\">"
+				+ "<select name=\"sel\"><option value=\"x&quot;y\">X</option></select></form>";
+
+		StringWriter out = new StringWriter();
+		HtmlRewritingWriter writer = new HtmlRewritingWriter(out, getRequestContext(),
+				getApplicationContext().getBean(LinkUrlProcessor.class), getApplicationContext().getBean(FormUrlProcessor.class));
+		writer.write(html);
+		writer.close();
+		dataComposer.endPage();
+
+		String result = out.toString();
+		// Values are not modified without confidentiality
+		assertTrue(result.indexOf("value=\"a&amp;b &lt;c&gt; &#39;d&#39;\"") > 0);
+		assertTrue(result.indexOf("value=\"x&quot;y\"") > 0);
+
+		String hdivParameter = getRequestContext().getHdivParameterName();
+		String field = "name=\"" + hdivParameter + "\" value=\"";
+		int start = result.indexOf(field) + field.length();
+		String stateId = result.substring(start, result.indexOf('"', start));
+
+		// Values submitted by the browser
+		MockHttpServletRequest request = getMockRequest();
+		request.setMethod("POST");
+		setRequestURI("/path/testAction.do");
+		request.addParameter(hdivParameter, stateId);
+		request.addParameter("hidden", "a&b <c> 'd'");
+		request.addParameter("sel", "x\"y");
+
+		assertTrue(helper.validate(new ValidationContextImpl(getRequestContext(), helper, false)).isValid());
+	}
+
+}
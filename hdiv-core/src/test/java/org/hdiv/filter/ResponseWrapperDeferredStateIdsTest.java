@@ -0,0 +1,83 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.io.PrintWriter;
+
+import junit.framework.TestCase;
+
+import org.hdiv.context.RequestContext;
+import org.hdiv.dataComposer.DeferredStateIds;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+public class ResponseWrapperDeferredStateIdsTest extends TestCase {
+
+	private MockHttpServletResponse response;
+
+	private DeferredStateIds deferred;
+
+	private ResponseWrapper wrapper;
+
+	@Override
+	protected void setUp() throws Exception {
+		response = new MockHttpServletResponse();
+		RequestContext context = new RequestContext(new MockHttpServletRequest(), response, new MockServletContext());
+		wrapper = new ResponseWrapper(context);
+		wrapper.setDeferredStateIds(true);
+		deferred = DeferredStateIds.get(context, true);
+	}
+
+	public void testWriterRetainsPendingIds() throws Exception {
+
+		PrintWriter writer = wrapper.getWriter();
+		writer.write("<form>");
+		String placeholder = deferred.defer(3);
+		writer.write("<input value=\"" + placeholder + "\">");
+		writer.flush();
+		assertEquals("<form>", response.getContentAsString());
+
+		deferred.resolve(placeholder, "S-3-token");
+		writer.write("</form>");
+		writer.flush();
+		assertEquals("<form><input value=\"S-3-token\"></form>", response.getContentAsString());
+	}
+
+	public void testOutputStreamRetainsPendingIds() throws Exception {
+
+		String placeholder = deferred.defer(1);
+		wrapper.getOutputStream().write(("<input value=\"" + placeholder + "\">").getBytes("UTF-8"));
+		assertEquals("", response.getContentAsString());
+
+		deferred.resolve(placeholder, "S-1-token");
+		wrapper.finishDeferredStateIds();
+		assertEquals("<input value=\"S-1-token\">", response.getContentAsString());
+	}
+
+	public void testOtherContentNotReplaced() throws Exception {
+
+		String placeholder = deferred.defer(1);
+		String other = deferred.defer(12);
+		deferred.resolve(other, "S-12-token");
+		deferred.resolve(placeholder, "S-1-token");
+
+		String unknown = placeholder.substring(0, placeholder.length() - 2) + "7-";
+		assertEquals("a S-1-token b " + unknown + " S-12-token",
+				deferred.replace("a " + placeholder + " b " + unknown + " " + other));
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.hdiv.context.RequestContext;
+import org.hdiv.context.WriteBehindSessionModel;
+import org.hdiv.session.SessionModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+public class ResponseWrapperSessionFlushTest extends TestCase {
+
+	private MockHttpServletResponse response;
+
+	private WriteBehindSessionModel session;
+
+	private ResponseWrapper wrapper;
+
+	@Override
+	protected void setUp() throws Exception {
+		response = new MockHttpServletResponse();
+		response.setBufferSize(32);
+		RequestContext context = new RequestContext(new MockHttpServletRequest(), response, new MockServletContext());
+		session = new WriteBehindSessionModel(new MapSessionModel());
+		context.setSession(session);
+		wrapper = new ResponseWrapper(context);
+
+		session.setAttribute("state", "value");
+		assertTrue(session.hasPendingWrites());
+	}
+
+	public void testFlushedBeforeWriterFillsBuffer() throws Exception {
+
+		wrapper.getWriter().write("0123456789");
+		assertTrue(session.hasPendingWrites());
+
+		wrapper.getWriter().write("01234567890123456789012");
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testFlushedOnWriterFlush() throws Exception {
+
+		wrapper.getWriter().write("0123456789");
+		wrapper.getWriter().flush();
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testFlushedBeforeOutputStreamFillsBuffer() throws Exception {
+
+		wrapper.getOutputStream().write(new byte[10]);
+		assertTrue(session.hasPendingWrites());
+
+		wrapper.getOutputStream().write(new byte[23]);
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testFlushedOnOutputStreamFlush() throws Exception {
+
+		wrapper.getOutputStream().write(1);
+		wrapper.getOutputStream().flush();
+		assertFalse(session.hasPendingWrites());
+	}
+
+	public void testFlushedOnRedirect() throws Exception {
+
+		wrapper.sendRedirect("/path/page.html");
+		assertFalse(session.hasPendingWrites());
+	}
+
+	private static class MapSessionModel implements SessionModel {
+
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+		public Object getAttribute(final String name) {
+			return attributes.get(name);
+		}
+
+		public void removeAttribute(final String name) {
+			attributes.remove(name);
+		}
+
+		public void setAttribute(final String name, final Object value) {
+			attributes.put(name, value);
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import javax.servlet.http.Cookie;
+
+import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.config.HDIVConfig;
+import org.hdiv.config.Strategy;
+import org.hdiv.context.RequestContextFactory;
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.dataComposer.DataComposerFactory;
+import org.hdiv.dataComposer.DeferredStateIds;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.init.RequestInitializer;
+import org.hdiv.urlProcessor.FormUrlProcessor;
+import org.hdiv.util.Constants;
+import org.hdiv.util.Method;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Composition and validation of requests with the signed strategy.
+ */
+public class SignedStrategyTest extends AbstractHDIVTestCase {
+
+	private IValidationHelper helper;
+
+	private IDataComposer dataComposer;
+
+	private FormUrlProcessor formUrlProcessor;
+
+	private final String targetName = "/path/testAction.do";
+
+	@Override
+	protected void postCreateHdivConfig(final HDIVConfig config) {
+		config.setStrategy(Strategy.SIGNED);
+	}
+
+	@Override
+	protected void onSetUp() throws Exception {
+
+		helper = getApplicationContext().getBean(IValidationHelper.class);
+		formUrlProcessor = getApplicationContext().getBean(FormUrlProcessor.class);
+
+		DataComposerFactory dataComposerFactory = getApplicationContext().getBean(DataComposerFactory.class);
+		dataComposer = dataComposerFactory.newInstance(getRequestContext());
+		getRequestContext().setDataComposer(dataComposer);
+		dataComposer.startPage();
+	}
+
+	public void testBindingCookie() {
+
+		Cookie cookie = getMockResponse().getCookie(Constants.HDIV_RANDOM_COOKIE);
+		assertNotNull(cookie);
+		assertTrue(cookie.isHttpOnly());
+		assertTrue(cookie.getValue().length() > 0);
+		assertNull(getMockRequest().getSession().getAttribute(Constants.HDIV_COOKIES_KEY));
+	}
+
+	public void testSignedLink() {
+
+		dataComposer.beginRequest(Method.GET, targetName);
+		dataComposer.compose("id", "1", false);
+		String stateId = dataComposer.endRequest();
+		dataComposer.endPage();
+		assertTrue(stateId.startsWith("S-"));
+
+		MockHttpServletRequest request = nextRequest("GET", targetName, true);
+		request.addParameter(getRequestContext().getHdivParameterName(), stateId);
+		request.addParameter("id", "0");
+		assertTrue(validate(request));
+		// The validation doesn't need a session
+		assertNull(request.getSession(false));
+	}
+
+	public void testFormStateIdBeforeFields() {
+
+		// The state id is published before the fields, as the Thymeleaf integration requires
+		String action = formUrlProcessor.processUrl(getRequestContext(), targetName, Method.POST, true);
+		String formStateId = getRequestContext().getFormStateId();
+		assertNotNull(formStateId);
+		assertFalse(formStateId.startsWith("S-"));
+
+		String value = dataComposer.compose("name", "value", false);
+		dataComposer.compose("text", "", true, "text");
+		String stateId = dataComposer.endRequest();
+		dataComposer.endPage();
+
+		// The form state is signed and the response replaces the published placeholder
+		assertTrue(stateId.startsWith("S-"));
+		DeferredStateIds deferred = DeferredStateIds.get(getRequestContext(), false);
+		assertFalse(deferred.isPending());
+		assertEquals("<input value=\"" + stateId + "\">", deferred.replace("<input value=\"" + formStateId + "\">"));
+
+		MockHttpServletRequest request = nextRequest("POST", action, true);
+		request.addParameter(getRequestContext().getHdivParameterName(), stateId);
+		request.addParameter("name", value);
+		request.addParameter("text", "anything");
+		assertTrue(validate(request));
+	}
+
+	public void testSignedForm() {
+
+		formUrlProcessor.processUrl(getRequestContext(), targetName, Method.POST);
+		String value = dataComposer.compose("name", "value", false);
+		String stateId = dataComposer.endRequest();
+		dataComposer.endPage();
+		assertTrue(stateId.startsWith("S-"));
+
+		MockHttpServletRequest request = nextRequest("POST", targetName, true);
+		request.addParameter(getRequestContext().getHdivParameterName(), stateId);
+		request.addParameter("name", value);
+		assertTrue(validate(request));
+	}
+
+	public void testTokenWithoutBindingCookie() {
+
+		dataComposer.beginRequest(Method.POST, targetName);
+		String stateId = dataComposer.endRequest();
+		dataComposer.endPage();
+
+		// The token is sent by another client, as in a CSRF attack
+		MockHttpServletRequest request = nextRequest("POST", targetName, false);
+		request.addParameter(getRequestContext().getHdivParameterName(), stateId);
+		assertFalse(validate(request));
+
+		request = nextRequest("POST", targetName, false);
+		request.setCookies(new Cookie(Constants.HDIV_RANDOM_COOKIE, "other"));
+		request.addParameter(getRequestContext().getHdivParameterName(), stateId);
+		assertFalse(validate(request));
+	}
+
+	/**
+	 * Creates the next request of the client, without session.
+	 *
+	 * @param method HTTP method
+	 * @param uri request uri
+	 * @param sendCookie true to send the binding cookie received in the response
+	 * @return request
+	 */
+	private MockHttpServletRequest nextRequest(final String method, final String uri, final boolean sendCookie) {
+		MockHttpServletRequest request = new MockHttpServletRequest(getMockRequest().getServletContext(), method, uri);
+		if (sendCookie) {
+			request.setCookies(getMockResponse().getCookie(Constants.HDIV_RANDOM_COOKIE));
+		}
+		return request;
+	}
+
+	private boolean validate(final MockHttpServletRequest request) {
+		RequestContextHolder context = getApplicationContext().getBean(RequestContextFactory.class).create(
+				getApplicationContext().getBean(RequestInitializer.class), request, new MockHttpServletResponse(), request.getServletContext());
+		return helper.validate(new ValidationContextImpl(context, helper, false)).isValid();
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.context.RequestContext;
+import org.hdiv.dataComposer.DataComposerFactory;
+import org.hdiv.dataComposer.IDataComposer;
+import org.hdiv.util.HDIVErrorCodes;
+import org.hdiv.util.Method;
+
+public class StreamingMultipartValidatorTest extends AbstractHDIVTestCase {
+
+	private ValidatorHelperRequest helper;
+
+	private IDataComposer dataComposer;
+
+	private String hdivParameter;
+
+	private ValidationContextImpl context;
+
+	@Override
+	protected void onSetUp() throws Exception {
+
+		hdivParameter = getConfig().getStateParameterName();
+		helper = (ValidatorHelperRequest) getApplicationContext().getBean(IValidationHelper.class);
+
+		DataComposerFactory dataComposerFactory = getApplicationContext().getBean(DataComposerFactory.class);
+		dataComposer = dataComposerFactory.newInstance(getRequestContext());
+		getRequestContext().setDataComposer(dataComposer);
+		dataComposer.startPage();
+
+		((RequestContext) getRequestContext()).setHdivParameterName(hdivParameter);
+		context = new ValidationContextImpl(getRequestContext(), helper, false);
+	}
+
+	private String composeForm() {
+		dataComposer.beginRequest(Method.POST, "/path/testAction.do");
+		dataComposer.compose("param1", "value1", false);
+		dataComposer.compose("text", "", true, "text");
+		dataComposer.compose("file", "", true, "file");
+		String pageState = dataComposer.endRequest();
+		dataComposer.endPage();
+		return pageState;
+	}
+
+	public void testValidFields() {
+
+		String pageState = composeForm();
+
+		StreamingMultipartValidator validator = new StreamingMultipartValidator(helper, context);
+		validator.validateField("param1", "value1");
+		validator.validateField("text", "anything");
+		assertFalse(validator.isStateRestored());
+
+		validator.validateField(hdivParameter, pageState);
+		assertTrue(validator.isStateRestored());
+		validator.validateFile("file");
+	}
+
+	public void testFileRejectedBeforeState() {
+
+		composeForm();
+
+		StreamingMultipartValidator validator = new StreamingMultipartValidator(helper, context);
+		try {
+			validator.validateFile("file");
+			fail();
+		}
+		catch (ValidationErrorException e) {
+			assertEquals(HDIVErrorCodes.HDIV_PARAMETER_DOES_NOT_EXIST, e.getResult().getErrors().get(0).getType());
+		}
+	}
+
+	public void testDifferentStateRejected() {
+
+		String pageState = composeForm();
+
+		StreamingMultipartValidator validator = new StreamingMultipartValidator(helper, context);
+		validator.validateField(hdivParameter, pageState);
+		try {
+			validator.validateField(hdivParameter, pageState + "0");
+			fail();
+		}
+		catch (ValidationErrorException e) {
+			assertEquals(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, e.getResult().getErrors().get(0).getType());
+		}
+	}
+
+	public void testFileRejectedAfterState() {
+
+		String pageState = composeForm();
+
+		StreamingMultipartValidator validator = new StreamingMultipartValidator(helper, context);
+		validator.validateField(hdivParameter, pageState);
+		try {
+			validator.validateFile("otherFile");
+			fail();
+		}
+		catch (ValidationErrorException e) {
+			assertEquals(HDIVErrorCodes.INVALID_PARAMETER_NAME, e.getResult().getErrors().get(0).getType());
+		}
+	}
+
+	public void testPendingFieldRejectedWhenStateArrives() {
+
+		String pageState = composeForm();
+
+		StreamingMultipartValidator validator = new StreamingMultipartValidator(helper, context);
+		validator.validateField("param1", "modified");
+		try {
+			validator.validateField(hdivParameter, pageState);
+			fail();
+		}
+		catch (ValidationErrorException e) {
+			assertFalse(e.getResult().isValid());
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.filter;
+
+import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.util.Method;
+
+public class ValidationPlanTest extends AbstractHDIVTestCase {
+
+	@Override
+	protected void onSetUp() throws Exception {
+	}
+
+	public void testStartPage() {
+
+		ValidationPlan plan = new ValidationPlan(getConfig(), "/onlyget.do");
+
+		assertTrue(plan.isStartPage(Method.GET));
+		assertFalse(plan.isStartPage(Method.POST));
+		assertFalse(plan.isStartPage(null));
+		// Cached verdicts
+		assertTrue(plan.isStartPage(Method.GET));
+		assertFalse(plan.isStartPage(Method.POST));
+
+		plan = new ValidationPlan(getConfig(), "/testing.do");
+		assertTrue(plan.isStartPage(null));
+		assertTrue(plan.isStartPage(Method.POST));
+	}
+
+	public void testExcludedExtension() {
+
+		assertTrue(new ValidationPlan(getConfig(), "/assets/run.js").hasExtensionToExclude());
+		assertFalse(new ValidationPlan(getConfig(), "/assets/image.jpg").hasExtensionToExclude());
+	}
+
+	public void testParameters() {
+
+		ValidationPlan plan = new ValidationPlan(getConfig(), "/path/testAction.do");
+
+		assertTrue(plan.isParameterWithoutValidation("testingInitParameter"));
+		assertFalse(plan.isParameterWithoutValidation("testingNOInitParameter"));
+		assertTrue(plan.isStartParameter("clientGeneratedParam"));
+		assertFalse(plan.isParameterWithoutValidation("clientGeneratedParam"));
+
+		plan = new ValidationPlan(getConfig(), "/path/otherAction.do");
+		assertFalse(plan.isParameterWithoutValidation("testingInitParameter"));
+		assertTrue(plan.isStartParameter("clientGeneratedParam"));
+	}
+
+	public void testUncachedParameters() {
+
+		ValidationPlan plan = new ValidationPlan(getConfig(), "/path/testAction.do");
+
+		for (int i = 0; i < ValidationPlan.MAX_CACHED_PARAMETERS * 2; i++) {
+			assertFalse(plan.isParameterWithoutValidation("param" + i));
+		}
+		assertTrue(plan.isParameterWithoutValidation("testingInitParameter"));
+	}
+
+}
@@ -89,6 +89,24 @@ public class ValidatorHelperTest extends AbstractHDIVTestCase {
 		assertTrue(result);
 	}
 
+	/**
+	 * The state is restored once per request.
+	 */
+	public void testRestoreStateOnce() {
+
+		dataComposer.beginRequest(Method.GET, targetName);
+
+		String pageState = dataComposer.endRequest();
+		dataComposer.endPage();
+
+		addParameter(pageState);
+
+		ValidatorHelperResult result = helper.restoreState(context);
+		assertTrue(result.isValid());
+		assertSame(result, helper.restoreState(context));
+		assertTrue(helper.validate(context).isValid());
+	}
+
 	/**
 	 * Validation test for an start page.
 	 */
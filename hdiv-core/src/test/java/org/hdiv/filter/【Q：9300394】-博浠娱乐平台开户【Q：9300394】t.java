@@ -19,12 +19,17 @@ import java.io.IOException;
 
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 
 import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.config.multipart.IMultipartConfig;
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.init.RequestInitializer;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 public class ValidatorFilterTest extends AbstractHDIVTestCase {
@@ -62,4 +67,58 @@ public class ValidatorFilterTest extends AbstractHDIVTestCase {
 		}
 	}
 
+	public void testRequestEndedWhenMultipartCleanupFails() throws Exception {
+		ValidatorFilter filter = new ValidatorFilter();
+
+		HttpServletRequest request = getMockRequest();
+		FilterConfig filterConfig = new MockFilterConfig(request.getSession().getServletContext(), "hdivFilter");
+		filter.init(filterConfig);
+		// Load the dependencies from the application context
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+		final RequestInitializer initializer = filter.requestInitializer;
+		final int[] ended = { 0 };
+		filter.requestInitializer = new RequestInitializer() {
+
+			public void initRequest(final RequestContextHolder context) {
+				initializer.initRequest(context);
+			}
+
+			public void endRequest(final RequestContextHolder context) {
+				ended[0]++;
+				initializer.endRequest(context);
+			}
+
+			public RequestWrapper createRequestWrapper(final RequestContextHolder context) {
+				return initializer.createRequestWrapper(context);
+			}
+
+			public ResponseWrapper createResponseWrapper(final RequestContextHolder context) {
+				return initializer.createResponseWrapper(context);
+			}
+		};
+		filter.multipartConfig = new IMultipartConfig() {
+
+			public HttpServletRequest handleMultipartRequest(final RequestWrapper request, final ServletContext servletContext) {
+				return request;
+			}
+
+			public void cleanupMultipart(final HttpServletRequest request) {
+				throw new IllegalStateException("cleanup failed");
+			}
+		};
+
+		MockHttpServletRequest multipartRequest = new MockHttpServletRequest(request.getSession().getServletContext(), "POST",
+				"/path/testAction.do");
+		multipartRequest.setContentType("multipart/form-data; boundary=----boundary");
+		try {
+			filter.doFilter(multipartRequest, new MockHttpServletResponse(), new MockFilterChain());
+			fail();
+		}
+		catch (IllegalStateException e) {
+			assertEquals("cleanup failed", e.getMessage());
+		}
+		assertEquals(1, ended[0]);
+	}
+
 }
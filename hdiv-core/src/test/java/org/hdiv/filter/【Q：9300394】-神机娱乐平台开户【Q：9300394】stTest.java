@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.config.HDIVConfig;
 import org.hdiv.util.HDIVErrorCodes;
 
 /**
@@ -203,4 +204,24 @@ public class ValidatorHelperRequestTest extends AbstractHDIVTestCase {
 		assertFalse(actualResult.isValid());
 		assertEquals(HDIVErrorCodes.INVALID_PARAMETER_VALUE, actualResult.getErrors().get(0).getType());
 	}
+
+	/**
+	 * Subclasses of {@link HDIVConfig} that customize <code>needValidation</code> are honored.
+	 */
+	public void testUserDefinedNonValidationParameterUsesNeedValidation() {
+
+		HDIVConfig config = new HDIVConfig() {
+			@Override
+			public boolean needValidation(final String parameter, final String hdivParameter) {
+				return !parameter.startsWith("free") && super.needValidation(parameter, hdivParameter);
+			}
+		};
+
+		ValidatorHelperRequest validatorHelper = new ValidatorHelperRequest();
+		validatorHelper.setHdivConfig(config);
+
+		assertTrue(validatorHelper.isUserDefinedNonValidationParameter(targetName, "freeText", "_HDIV_STATE_"));
+		assertTrue(validatorHelper.isUserDefinedNonValidationParameter(targetName, "_HDIV_STATE_", "_HDIV_STATE_"));
+		assertFalse(validatorHelper.isUserDefinedNonValidationParameter(targetName, "param1", "_HDIV_STATE_"));
+	}
 }
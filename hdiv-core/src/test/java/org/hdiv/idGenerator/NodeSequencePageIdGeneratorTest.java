@@ -0,0 +1,77 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.idGenerator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.hdiv.util.HDIVStateUtils;
+
+public class NodeSequencePageIdGeneratorTest extends TestCase {
+
+	public void testIncreasingIds() {
+
+		NodeSequencePageIdGenerator generator = new NodeSequencePageIdGenerator();
+		generator.setNodeId(3);
+
+		long previous = 0;
+		for (int i = 0; i < 1000; i++) {
+			UUID id = generator.getNextPageId();
+			assertEquals(0, id.getMostSignificantBits());
+			assertTrue(id.getLeastSignificantBits() > previous);
+			previous = id.getLeastSignificantBits();
+		}
+		assertEquals(3, generator.getNodeId());
+	}
+
+	public void testNodesDoNotCollide() {
+
+		NodeSequencePageIdGenerator node1 = new NodeSequencePageIdGenerator();
+		node1.setNodeId(1);
+		NodeSequencePageIdGenerator node2 = new NodeSequencePageIdGenerator();
+		node2.setNodeId(2);
+
+		Set<UUID> ids = new HashSet<UUID>();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(ids.add(node1.getNextPageId()));
+			assertTrue(ids.add(node2.getNextPageId()));
+		}
+	}
+
+	public void testStateId() {
+
+		NodeSequencePageIdGenerator generator = new NodeSequencePageIdGenerator();
+		generator.setNodeId(NodeSequencePageIdGenerator.MAX_NODE_ID);
+
+		UUID id = generator.getNextPageId();
+		String stateId = HDIVStateUtils.encode(id, 1, "SUFFIX");
+		assertEquals(id, HDIVStateUtils.getPageId(stateId));
+	}
+
+	public void testInvalidNodeId() {
+		try {
+			new NodeSequencePageIdGenerator().setNodeId(NodeSequencePageIdGenerator.MAX_NODE_ID + 1);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.hdiv.filter.ValidatorError;
+
+public class AsyncLoggerTest extends TestCase {
+
+	public void testAllErrorsWritten() throws Exception {
+
+		final CollectingSink sink = new CollectingSink();
+		AsyncLogger logger = new AsyncLogger();
+		logger.setSinks(Collections.<LogSink> singletonList(sink));
+		logger.setBatchSize(16);
+		logger.init();
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final AsyncLogger target = logger;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 500; j++) {
+						target.log(new ValidatorError("type", "target"));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		logger.destroy();
+
+		assertEquals(2000, logger.getPublishedCount());
+		assertEquals(2000, logger.getWrittenCount());
+		assertEquals(0, logger.getDroppedCount());
+		assertEquals(2000, sink.errors.size());
+		assertTrue(sink.closed);
+		assertTrue(sink.maxBatch <= 16);
+	}
+
+	public void testDiscardWhenFull() throws Exception {
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final CollectingSink sink = new CollectingSink() {
+			@Override
+			public void write(final List<ValidatorError> errors) {
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.write(errors);
+			}
+		};
+		AsyncLogger logger = new AsyncLogger();
+		logger.setSinks(Collections.<LogSink> singletonList(sink));
+		logger.setCapacity(8);
+		logger.setBatchSize(1);
+		logger.init();
+
+		for (int i = 0; i < 100; i++) {
+			logger.log(new ValidatorError("type", "target"));
+		}
+		release.countDown();
+		logger.destroy();
+
+		assertTrue(logger.getDroppedCount() > 0);
+		assertEquals(100, logger.getPublishedCount() + logger.getDroppedCount());
+		assertEquals(logger.getPublishedCount(), sink.errors.size());
+	}
+
+	public void testFailingSinkDoesNotStopOthers() throws Exception {
+
+		CollectingSink sink = new CollectingSink();
+		List<LogSink> sinks = new ArrayList<LogSink>();
+		sinks.add(new CollectingSink() {
+			@Override
+			public void write(final List<ValidatorError> errors) {
+				throw new IllegalStateException();
+			}
+		});
+		sinks.add(sink);
+
+		AsyncLogger logger = new AsyncLogger();
+		logger.setSinks(sinks);
+		logger.log(new ValidatorError("type", "target"));
+		logger.destroy();
+
+		assertEquals(1, sink.errors.size());
+		assertEquals(1, logger.getFailedCount());
+	}
+
+	public void testErrorInSinkDoesNotStopWriter() throws Exception {
+
+		CollectingSink sink = new CollectingSink();
+		List<LogSink> sinks = new ArrayList<LogSink>();
+		sinks.add(new CollectingSink() {
+			@Override
+			public void write(final List<ValidatorError> errors) {
+				throw new NoClassDefFoundError();
+			}
+		});
+		sinks.add(sink);
+
+		AsyncLogger logger = new AsyncLogger();
+		logger.setSinks(sinks);
+		logger.setFlushInterval(1);
+		logger.init();
+
+		logger.log(new ValidatorError("type", "target"));
+		waitForErrors(sink, 1);
+		// The writer thread is still alive
+		logger.log(new ValidatorError("type", "target"));
+		waitForErrors(sink, 2);
+		logger.destroy();
+
+		assertEquals(2, logger.getWrittenCount());
+		assertEquals(2, logger.getFailedCount());
+	}
+
+	public void testNotWrittenWhenAllSinksFail() throws Exception {
+
+		AsyncLogger logger = new AsyncLogger();
+		logger.setSinks(Collections.<LogSink> singletonList(new CollectingSink() {
+			@Override
+			public void write(final List<ValidatorError> errors) {
+				throw new IllegalStateException();
+			}
+		}));
+		logger.log(new ValidatorError("type", "target"));
+		logger.destroy();
+
+		assertEquals(1, logger.getPublishedCount());
+		assertEquals(0, logger.getWrittenCount());
+		assertEquals(1, logger.getFailedCount());
+	}
+
+	private void waitForErrors(final CollectingSink sink, final int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (sink.errors.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, sink.errors.size());
+	}
+
+	public void testBuffer() {
+
+		LogEventBuffer<String> buffer = new LogEventBuffer<String>(3);
+		assertEquals(4, buffer.capacity());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer("e" + i));
+		}
+		assertFalse(buffer.offer("full"));
+
+		List<String> drained = new ArrayList<String>();
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertTrue(buffer.offer("e4"));
+		assertEquals(3, buffer.size());
+		assertEquals(3, buffer.drainTo(drained, 10));
+		assertEquals(0, buffer.drainTo(drained, 10));
+		assertEquals("[e0, e1, e2, e3, e4]", drained.toString());
+	}
+
+	static class CollectingSink implements LogSink {
+
+		final List<ValidatorError> errors = Collections.synchronizedList(new ArrayList<ValidatorError>());
+
+		volatile int maxBatch;
+
+		volatile boolean closed;
+
+		public void write(final List<ValidatorError> errors) {
+			maxBatch = Math.max(maxBatch, errors.size());
+			this.errors.addAll(errors);
+		}
+
+		public void close() {
+			closed = true;
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.logs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.hdiv.filter.ValidatorError;
+
+public class JsonLinesFileLogSinkTest extends TestCase {
+
+	private File dir;
+
+	@Override
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("hdiv-log", "");
+		dir.delete();
+		dir.mkdir();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	public void testFormat() throws IOException {
+
+		File file = new File(dir, "security.log");
+		JsonLinesFileLogSink sink = new JsonLinesFileLogSink(file.getPath());
+		sink.write(Collections.singletonList(new ValidatorError("type", "/target", "name", "a\"b\\c\n\u0001", null, "127.0.0.1", null,
+				"anonymous", null)));
+		sink.close();
+
+		List<String> lines = readLines(file);
+		assertEquals(1, lines.size());
+		String line = lines.get(0);
+		assertTrue(line.startsWith("{\"time\":"));
+		assertTrue(line.contains(",\"type\":\"type\","));
+		assertTrue(line.endsWith(",\"target\":\"/target\",\"parameterName\":\"name\","
+				+ "\"parameterValue\":\"a\\\"b\\\\c\\n\\u0001\",\"localIp\":\"127.0.0.1\",\"userName\":\"anonymous\"}"));
+	}
+
+	public void testRoll() throws IOException {
+
+		File file = new File(dir, "security.log");
+		JsonLinesFileLogSink sink = new JsonLinesFileLogSink(file.getPath());
+		sink.setMaxFileSize(1);
+		sink.setMaxBackups(2);
+
+		for (int i = 0; i < 4; i++) {
+			List<ValidatorError> errors = new ArrayList<ValidatorError>();
+			errors.add(new ValidatorError("type" + i, "/target"));
+			sink.write(errors);
+		}
+		sink.close();
+
+		assertTrue(readLines(file).get(0).contains("type3"));
+		assertTrue(readLines(new File(dir, "security.log.1")).get(0).contains("type2"));
+		assertTrue(readLines(new File(dir, "security.log.2")).get(0).contains("type1"));
+		assertFalse(new File(dir, "security.log.3").exists());
+	}
+
+	private List<String> readLines(final File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			List<String> lines = new ArrayList<String>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+			return lines;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class InMemoryMetricsTest extends TestCase {
+
+	public void testHistogram() {
+
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getPercentile(0.99));
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500, histogram.getSum());
+		assertEquals(1000, histogram.getMax());
+		assertTrue(Math.abs(histogram.getMean() - 500.5) < 0.001);
+
+		long p50 = histogram.getPercentile(0.5);
+		assertTrue(p50 >= 500 && p50 <= 500 * 1.125);
+		long p99 = histogram.getPercentile(0.99);
+		assertTrue(p99 >= 990 && p99 <= 1000);
+		assertEquals(1000, histogram.getPercentile(1));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	public void testBuckets() {
+
+		long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE };
+		for (long value : values) {
+			int index = Histogram.bucketIndex(value);
+			assertTrue(Histogram.bucketUpperBound(index) >= value);
+			assertTrue(index == 0 || Histogram.bucketUpperBound(index - 1) < value);
+		}
+	}
+
+	public void testCounters() {
+
+		InMemoryMetrics metrics = new InMemoryMetrics();
+		metrics.setMaxTags(2);
+
+		metrics.increment(HdivMetrics.VALIDATION_ERRORS, "INVALID_PARAMETER_NAME", 1);
+		metrics.increment(HdivMetrics.VALIDATION_ERRORS, "INVALID_PARAMETER_NAME", 1);
+		metrics.increment(HdivMetrics.VALIDATION_ERRORS, "INVALID_ACTION", 1);
+		metrics.increment(HdivMetrics.VALIDATION_ERRORS, "INVALID_PARAMETER_VALUE", 3);
+		metrics.increment(HdivMetrics.PAGES_STORED, null, 1);
+
+		assertEquals(2, metrics.getCount(HdivMetrics.VALIDATION_ERRORS, "INVALID_PARAMETER_NAME"));
+		assertEquals(3, metrics.getCount(HdivMetrics.VALIDATION_ERRORS, InMemoryMetrics.OTHER_TAG));
+		assertEquals(6, metrics.getCount(HdivMetrics.VALIDATION_ERRORS));
+		assertEquals(1, metrics.getCount(HdivMetrics.PAGES_STORED, null));
+		assertEquals(0, metrics.getCount(HdivMetrics.PAGES_EVICTED));
+	}
+
+	public void testTimers() {
+
+		InMemoryMetrics metrics = new InMemoryMetrics();
+		metrics.recordTime(HdivMetrics.VALIDATE_TIME, 2000);
+		metrics.recordTime(HdivMetrics.VALIDATE_TIME, 4000);
+		metrics.recordValue(HdivMetrics.PAGE_STATES, 12);
+
+		assertEquals(2, metrics.getHistogram(HdivMetrics.VALIDATE_TIME).getCount());
+		assertEquals(4000, metrics.getHistogram(HdivMetrics.VALIDATE_TIME).getMax());
+		assertEquals(2, metrics.getHistograms().size());
+
+		metrics.reset();
+		assertTrue(metrics.getHistograms().isEmpty());
+	}
+
+	public void testJmxValues() throws Exception {
+
+		InMemoryMetrics metrics = new InMemoryMetrics();
+		metrics.recordTime(HdivMetrics.FILTER_TIME, 3000);
+		metrics.recordValue(HdivMetrics.PAGE_STATES, 5);
+		metrics.increment(HdivMetrics.STATES_COMPOSED, "/list.html", 5);
+		metrics.increment(HdivMetrics.PAGES_STORED, null, 1);
+
+		JmxMetricsExporter exporter = new JmxMetricsExporter(metrics);
+		Map<String, Object> values = exporter.getValues();
+
+		assertEquals(1L, values.get(HdivMetrics.FILTER_TIME + ".count"));
+		assertEquals(3.0, values.get(HdivMetrics.FILTER_TIME + ".max"));
+		assertEquals(5.0, values.get(HdivMetrics.PAGE_STATES + ".max"));
+		assertEquals(5L, values.get(HdivMetrics.STATES_COMPOSED + "[/list.html]"));
+		assertEquals(5L, values.get(HdivMetrics.STATES_COMPOSED));
+		assertEquals(1L, values.get(HdivMetrics.PAGES_STORED));
+		assertEquals(1L, exporter.getAttribute(HdivMetrics.PAGES_STORED));
+		assertEquals(values.size(), exporter.getMBeanInfo().getAttributes().length);
+	}
+
+}
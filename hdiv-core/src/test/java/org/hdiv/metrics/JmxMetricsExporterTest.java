@@ -0,0 +1,80 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.metrics;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.springframework.mock.web.MockServletContext;
+
+public class JmxMetricsExporterTest extends TestCase {
+
+	private MBeanServer server;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = MBeanServerFactory.newMBeanServer();
+	}
+
+	public void testObjectNameQualifiedByContextPath() throws Exception {
+
+		JmxMetricsExporter first = createExporter("/first");
+		JmxMetricsExporter second = createExporter("/second");
+		JmxMetricsExporter root = createExporter("");
+
+		// Applications of the same server don't collide
+		assertTrue(server.isRegistered(new ObjectName("org.hdiv:type=Metrics,context=\"/first\"")));
+		assertTrue(server.isRegistered(new ObjectName("org.hdiv:type=Metrics,context=\"/second\"")));
+		assertTrue(server.isRegistered(new ObjectName("org.hdiv:type=Metrics,context=\"/\"")));
+
+		first.destroy();
+		second.destroy();
+		root.destroy();
+		assertFalse(server.isRegistered(new ObjectName(first.getObjectName())));
+	}
+
+	public void testObjectName() throws Exception {
+
+		JmxMetricsExporter exporter = new JmxMetricsExporter(new InMemoryMetrics());
+		assertEquals(JmxMetricsExporter.DEFAULT_OBJECT_NAME, exporter.getObjectName());
+
+		exporter.setServletContext(new MockServletContext());
+		exporter.setObjectName("app:type=Metrics");
+		assertEquals("app:type=Metrics", exporter.getObjectName());
+	}
+
+	public void testNothingRegisteredWithoutMetrics() throws Exception {
+
+		JmxMetricsExporter exporter = new JmxMetricsExporter();
+		exporter.setServer(server);
+		exporter.init();
+		assertFalse(server.isRegistered(new ObjectName(exporter.getObjectName())));
+	}
+
+	private JmxMetricsExporter createExporter(final String contextPath) {
+		MockServletContext servletContext = new MockServletContext();
+		servletContext.setContextPath(contextPath);
+		JmxMetricsExporter exporter = new JmxMetricsExporter(new InMemoryMetrics());
+		exporter.setServletContext(servletContext);
+		exporter.setServer(server);
+		exporter.init();
+		return exporter;
+	}
+
+}
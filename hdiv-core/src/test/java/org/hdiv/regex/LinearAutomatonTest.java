@@ -0,0 +1,115 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import junit.framework.TestCase;
+
+public class LinearAutomatonTest extends TestCase {
+
+	private static final String[] PATTERNS = { "abc", "a*b+c?", "(a|ab)(c|bcd)(d*)", "[a-z0-9_]+@[a-z]+\\.(com|org)", "[^<>\"']*",
+			"(?i)<script.*", "(?s).*<.*>.*", ".*x.*", "\\d{2,4}-\\w{1,3}", "x{0,2}y{3}", "(a|aa)+", "(?i)[A-Z\u00e1]+",
+			"\\Qa.b\\E.*", "^[ \\t]*$", "(?:foo|bar)baz?", "[\\s\\S]{3}", "a+?b*?", "(?<name>ab)+", "\\u0041\\x42\\0103", "[a-c]|d" };
+
+	private static final String[] INPUTS = { "", "a", "abc", "aabbb", "abcd", "abbcddd", "user_1@mail.com", "user@mail.net", "<script>",
+			"<SCRIPT src=x>", "a\n<b>\nc", "12-ab", "12345-a", "yyy", "xxyyy", "aaaaaaaa", "\u00c1bc", "a.bzzz", "axbzzz", " \t ", "foobaz",
+			"barba", "\n\r\t", "ababab", "ABC", "d" };
+
+	public void testSameResultsAsJavaRegex() {
+
+		for (String pattern : PATTERNS) {
+			Pattern expected = Pattern.compile(pattern);
+			// All of them are supported by the engine
+			LinearAutomaton automaton = LinearAutomaton.compile(pattern);
+			for (String input : INPUTS) {
+				assertEquals(pattern + " " + input, expected.matcher(input).matches(), automaton.matches(input));
+			}
+		}
+	}
+
+	public void testUnsupportedConstructs() {
+
+		String[] unsupported = { "(a)\\1", "a(?=b)", "a(?!b)", "(?<=a)b", "a*+", "\\bword\\b", "\\p{L}+", "[a-z&&[^b]]", "(?x) a", "a^b" };
+		for (String pattern : unsupported) {
+			try {
+				LinearAutomaton.compile(pattern);
+				fail();
+			}
+			catch (PatternSyntaxException e) {
+				// Expected
+			}
+		}
+	}
+
+	public void testMatchAll() {
+
+		LinearAutomaton automaton = LinearAutomaton.compile(Arrays.asList("(?i).*<script.*", ".*[<>].*", "[0-9]+", ".*'.*"));
+		assertEquals(4, automaton.getPatterns().size());
+
+		BitSet matched = automaton.matchAll("<SCRIPT>alert('x')</script>");
+		assertTrue(matched.get(0));
+		assertTrue(matched.get(1));
+		assertFalse(matched.get(2));
+		assertTrue(matched.get(3));
+
+		matched = automaton.matchAll("123");
+		assertEquals(1, matched.cardinality());
+		assertTrue(matched.get(2));
+
+		assertTrue(automaton.matches("a<b"));
+		assertFalse(automaton.matches("plain text"));
+	}
+
+	public void testNfaFallback() {
+
+		// A small state limit forces the NFA simulation
+		LinearAutomaton automaton = LinearAutomaton.compile(Arrays.asList("(a|b)*a(a|b){8}"), 4);
+		assertFalse(automaton.isDeterministic());
+
+		Pattern expected = Pattern.compile("(a|b)*a(a|b){8}");
+		String[] inputs = { "aaaaaaaaa", "abbbbbbbb", "babbbbbbbb", "bbbbbbbbb", "abababababab" };
+		for (String input : inputs) {
+			assertEquals(input, expected.matcher(input).matches(), automaton.matches(input));
+		}
+	}
+
+	public void testPathologicalInput() {
+
+		LinearAutomaton automaton = LinearAutomaton.compile("(a|aa)+b");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			sb.append('a');
+		}
+		// Exponential with a backtracking engine
+		assertFalse(automaton.matches(sb));
+		sb.append('b');
+		assertTrue(automaton.matches(sb));
+	}
+
+	public void testPatternMatcherFactory() {
+
+		PatternMatcherFactory factory = new LinearPatternMatcherFactory();
+		assertTrue(factory.getPatternMatcher("[a-z]+") instanceof LinearPatternMatcher);
+		// Back references are evaluated with java.util.regex
+		assertTrue(factory.getPatternMatcher("(a)\\1") instanceof DefaultPatternMatcher);
+		assertTrue(factory.getPatternMatcher("(a)\\1").matches("aa"));
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.regex;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class PatternMatcherIndexTest extends TestCase {
+
+	private static final String[] PATTERNS = { "/login.html", "^/static/.*$", ".*\\.css", "/app/.*\\.jsp", "(?i)/Admin.*",
+			"/item/([0-9]+)/\\1", "/edit\\.do", "\\Q/quoted\\E", "/a|/b", ".*" };
+
+	private static final String[] INPUTS = { "/login.html", "/login.htm", "/static/", "/static/img/logo.png", "/static/a\nb",
+			"/css/main.css", "main\n.css", "/app/index.jsp", "/admin/users", "/ADMIN", "/item/12/12", "/item/1/2", "/edit.do", "/editXdo",
+			"/quoted", "/a", "/b", "", "\n" };
+
+	public void testSameResultsAsLinearScan() {
+
+		for (int size = 1; size <= PATTERNS.length; size++) {
+
+			PatternMatcherIndex<String> indexed = new BucketPatternMatcherIndex<String>();
+			PatternMatcherIndex<String> linear = new DefaultPatternMatcherIndex<String>();
+			for (int i = 0; i < size; i++) {
+				// Reverse order to check that insertion order is kept
+				String pattern = PATTERNS[size - 1 - i];
+				PatternMatcher matcher = new DefaultPatternMatcher(pattern);
+				indexed.add(matcher, pattern);
+				linear.add(matcher, pattern);
+			}
+
+			for (String input : INPUTS) {
+				assertEquals(input, linear.matches(input), indexed.matches(input));
+				assertEquals(input, linear.findFirst(input), indexed.findFirst(input));
+				assertEquals(input, linear.findAll(input), indexed.findAll(input));
+			}
+		}
+	}
+
+	public void testBuckets() {
+
+		PatternMatcherIndex<String> index = new IndexedPatternMatcherFactory().getPatternMatcherIndex();
+		index.add(new DefaultPatternMatcher("/static/.*"), "prefix");
+		index.add(new DefaultPatternMatcher(".*\\.js"), "suffix");
+		index.add(new DefaultPatternMatcher("/static/app.js"), "literal");
+		index.add(new DefaultPatternMatcher("/[a-z]+/app\\.js"), "regex");
+
+		assertEquals(Arrays.asList("prefix", "suffix", "literal", "regex"), index.findAll("/static/app.js"));
+		assertEquals("suffix", index.findFirst("/lib/app.js"));
+		assertNull(index.findFirst("/lib/app.css"));
+		assertEquals(4, index.size());
+	}
+
+	public void testCustomMatcher() {
+
+		PatternMatcher startsWithA = new PatternMatcher() {
+
+			private static final long serialVersionUID = 1L;
+
+			public boolean matches(final String input) {
+				return input.startsWith("a");
+			}
+
+			public String getPattern() {
+				return "a";
+			}
+		};
+
+		PatternMatcherIndex<String> index = new BucketPatternMatcherIndex<String>();
+		index.add(startsWithA, "custom");
+
+		assertTrue(index.matches("abc"));
+		assertFalse(index.matches("bc"));
+	}
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.hdiv.state.IPage;
+import org.hdiv.state.Page;
+import org.hdiv.state.PageCodec;
+
+public class ConcurrentStateCacheTest extends TestCase {
+
+	public void testMaxSize() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		cache.setMaxSize(3);
+
+		UUID[] ids = new UUID[5];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = UUID.randomUUID();
+			UUID removed = cache.addPage(ids[i], null, false, false);
+			assertEquals(i < 3 ? null : ids[i - 3], removed);
+		}
+		assertEquals(Arrays.asList(ids[2], ids[3], ids[4]), cache.getPageIds());
+		assertEquals(ids[4], cache.getLastPageId());
+
+		// Already present
+		assertNull(cache.addPage(ids[3], null, false, false));
+		assertEquals(3, cache.getPageIds().size());
+	}
+
+	public void testRefreshRemovesLastPage() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		cache.addPage(first, null, false, false);
+		cache.addPage(second, first, false, false);
+
+		UUID third = UUID.randomUUID();
+		assertEquals(second, cache.addPage(third, first, true, false));
+		assertEquals(Arrays.asList(first, third), cache.getPageIds());
+	}
+
+	public void testMaxBytes() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		cache.setMaxSize(10);
+		cache.setMaxBytes(100);
+
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		UUID third = UUID.randomUUID();
+		assertTrue(cache.addPage(first, 40, null, false, false).isEmpty());
+		assertTrue(cache.addPage(second, 40, null, false, false).isEmpty());
+		assertEquals(Arrays.asList(first), cache.addPage(third, 40, null, false, false));
+		assertEquals(80, cache.getBytes());
+
+		// The new page is kept even if it is bigger than the budget
+		UUID big = UUID.randomUUID();
+		assertEquals(Arrays.asList(second, third), cache.addPage(big, 500, null, false, false));
+		assertEquals(Arrays.asList(big), cache.getPageIds());
+	}
+
+	public void testPageSizeOnlyEstimatedWithMaxBytes() {
+
+		final List<IPage> measured = new ArrayList<IPage>();
+		ConcurrentStateCache cache = new ConcurrentStateCache() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected long estimatePageSize(final IPage page) {
+				measured.add(page);
+				return super.estimatePageSize(page);
+			}
+		};
+
+		Page first = new Page(UUID.randomUUID());
+		assertTrue(cache.addPage(first, null, false, false).isEmpty());
+		assertTrue(measured.isEmpty());
+		assertEquals(0, cache.getBytes());
+
+		cache.setMaxBytes(1000);
+		Page second = new Page(UUID.randomUUID());
+		assertTrue(cache.addPage(second, null, false, false).isEmpty());
+		assertEquals(Arrays.<IPage> asList(second), measured);
+		assertEquals(PageCodec.estimateSize(second), cache.getBytes());
+		assertEquals(Arrays.asList(first.getId(), second.getId()), cache.getPageIds());
+	}
+
+	public void testSeveralPagesRemoved() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		cache.setMaxSize(4);
+		UUID[] ids = new UUID[4];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = UUID.randomUUID();
+			cache.addPage(ids[i], 0, null, false, false);
+		}
+
+		// Refresh of the third page with a lower limit removes the last page and the two oldest ones
+		cache.setMaxSize(2);
+		UUID page = UUID.randomUUID();
+		assertEquals(Arrays.asList(ids[3], ids[0], ids[1]), cache.addPage(page, 0, ids[2], true, false));
+		assertEquals(Arrays.asList(ids[2], page), cache.getPageIds());
+	}
+
+	public void testSinglePageRemovedByLegacyAdd() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		cache.setMaxSize(4);
+		UUID[] ids = new UUID[4];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = UUID.randomUUID();
+			cache.addPage(ids[i], null, false, false);
+		}
+
+		// Only one removed identifier can be returned, the other pages are kept so they are not left behind in the session
+		cache.setMaxSize(2);
+		UUID page = UUID.randomUUID();
+		assertEquals(ids[0], cache.addPage(page, null, false, false));
+		assertEquals(Arrays.asList(ids[1], ids[2], ids[3], page), cache.getPageIds());
+	}
+
+	public void testRemovePage() {
+
+		ConcurrentStateCache cache = new ConcurrentStateCache();
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		cache.addPage(first, 10, null, false, false);
+		cache.addPage(second, 20, null, false, false);
+
+		assertTrue(cache.removePage(first));
+		assertFalse(cache.removePage(first));
+		assertEquals(Arrays.asList(second), cache.getPageIds());
+		assertEquals(20, cache.getBytes());
+	}
+
+	public void testConcurrentAdd() throws InterruptedException {
+
+		final ConcurrentStateCache cache = new ConcurrentStateCache();
+		cache.setMaxSize(20);
+		final List<UUID> removed = new ArrayList<UUID>();
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 500; j++) {
+						List<UUID> result = cache.addPage(UUID.randomUUID(), 0, null, false, false);
+						synchronized (removed) {
+							removed.addAll(result);
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(20, cache.getPageIds().size());
+		assertEquals(threads.length * 500 - 20, removed.size());
+		assertEquals(threads.length * 500 - 20, new HashSet<UUID>(removed).size());
+	}
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.session;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.hdiv.state.IPage;
+import org.hdiv.state.Page;
+import org.hdiv.state.Parameter;
+import org.hdiv.state.State;
+
+public class PageStoreTest extends TestCase {
+
+	private final SessionModel session = new MapSessionModel();
+
+	public void testSessionPageStore() {
+
+		SessionPageStore store = new SessionPageStore();
+		Page page = createPage(1);
+		store.storePage(session, page);
+
+		assertSame(page, store.findPage(session, page.getId()));
+		assertTrue(store.removePage(session, page.getId()));
+		assertFalse(store.removePage(session, page.getId()));
+		assertNull(store.findPage(session, page.getId()));
+	}
+
+	public void testOffHeapPageStore() {
+
+		OffHeapPageStore store = new OffHeapPageStore();
+		checkStore(store);
+		assertEquals(0, store.size());
+		assertEquals(0, store.getBytes());
+	}
+
+	public void testOffHeapPageStoreLimit() {
+
+		OffHeapPageStore store = new OffHeapPageStore();
+		Page first = createPage(1);
+		store.storePage(session, first);
+		store.setMaxBytes(store.getBytes() * 2);
+
+		// Replacing a page doesn't count twice
+		store.storePage(session, first);
+		assertEquals(1, store.size());
+
+		Page second = createPage(2);
+		Page third = createPage(3);
+		store.storePage(session, second);
+		store.storePage(session, third);
+
+		assertNull(store.findPage(session, first.getId()));
+		assertNotNull(store.findPage(session, second.getId()));
+		assertNotNull(store.findPage(session, third.getId()));
+		assertEquals(1, store.getEvictions());
+		assertTrue(store.getBytes() <= store.getMaxBytes());
+	}
+
+	public void testKeyValuePageStore() {
+
+		KeyValuePageStore store = new KeyValuePageStore();
+		checkStore(store);
+		assertEquals(0, store.size());
+	}
+
+	public void testOffHeapPageStoreSessionIsolation() {
+
+		checkSessionIsolation(new OffHeapPageStore());
+	}
+
+	public void testKeyValuePageStoreSessionIsolation() {
+
+		checkSessionIsolation(new KeyValuePageStore());
+	}
+
+	public void testNotCompactPage() {
+
+		KeyValuePageStore store = new KeyValuePageStore();
+		Page page = createPage(1);
+		page.addState(new CustomState(1));
+		store.storePage(session, page);
+
+		IPage restored = store.findPage(session, page.getId());
+		assertEquals(2, restored.getStatesCount());
+		assertTrue(page.getState(0).isEquivalent(restored.getState(0)));
+	}
+
+	private void checkStore(final PageStore store) {
+
+		Page page = createPage(1);
+		store.storePage(session, page);
+
+		IPage restored = store.findPage(session, page.getId());
+		assertNotSame(page, restored);
+		assertEquals(page.getId(), restored.getId());
+		assertEquals(page.getParentStateId(), restored.getParentStateId());
+		assertTrue(page.getState(0).isEquivalent(restored.getState(0)));
+
+		// Pages are updated after being stored
+		State other = new State(1);
+		other.setAction("/other.html");
+		page.addState(other);
+		store.storePage(session, page);
+		assertEquals(2, store.findPage(session, page.getId()).getStatesCount());
+
+		assertNull(store.findPage(session, UUID.randomUUID()));
+		assertTrue(store.removePage(session, page.getId()));
+		assertFalse(store.removePage(session, page.getId()));
+		assertNull(store.findPage(session, page.getId()));
+	}
+
+	private void checkSessionIsolation(final PageStore store) {
+
+		SessionModel other = new MapSessionModel();
+
+		// Page ids are only unique per session
+		Page page = createPage(1);
+		Page otherPage = createPage(1);
+		otherPage.setParentStateId("7-0-XYZ");
+		store.storePage(session, page);
+		store.storePage(other, otherPage);
+
+		assertEquals("1-0-ABC", store.findPage(session, page.getId()).getParentStateId());
+		assertEquals("7-0-XYZ", store.findPage(other, page.getId()).getParentStateId());
+
+		// A session without pages doesn't see the pages of the other sessions
+		SessionModel empty = new MapSessionModel();
+		assertNull(store.findPage(empty, page.getId()));
+		assertFalse(store.removePage(empty, page.getId()));
+
+		assertTrue(store.removePage(other, page.getId()));
+		assertNull(store.findPage(other, page.getId()));
+		assertNotNull(store.findPage(session, page.getId()));
+		assertTrue(store.removePage(session, page.getId()));
+	}
+
+	private Page createPage(final int id) {
+
+		Page page = new Page(new UUID(0, id));
+		page.setParentStateId("1-0-ABC");
+
+		State state = new State(page.getNextStateId());
+		state.setAction("/list.html");
+		state.addParameter(new Parameter("page", "1", false, null, true));
+		page.addState(state);
+		return page;
+	}
+
+	private static class CustomState extends State {
+
+		private static final long serialVersionUID = 1L;
+
+		CustomState(final int id) {
+			super(id);
+		}
+	}
+
+	private static class MapSessionModel implements SessionModel {
+
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+		public Object getAttribute(final String name) {
+			return attributes.get(name);
+		}
+
+		public void removeAttribute(final String name) {
+			attributes.remove(name);
+		}
+
+		public void setAttribute(final String name, final Object value) {
+			attributes.put(name, value);
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.hdiv.util.Method;
+
+public class PageCodecTest extends TestCase {
+
+	public void testEncodeDecode() {
+
+		Page page = createPage();
+
+		Page decoded = PageCodec.decode(PageCodec.encode(page));
+
+		assertEquals(page.getId(), decoded.getId());
+		assertEquals(page.getFlowId(), decoded.getFlowId());
+		assertEquals(page.getParentStateId(), decoded.getParentStateId());
+		assertEquals(page.getRandomToken(RandomTokenType.LINK), decoded.getRandomToken(RandomTokenType.LINK));
+		assertEquals(page.getRandomToken(RandomTokenType.FORM), decoded.getRandomToken(RandomTokenType.FORM));
+		assertEquals(page.getNextStateId(), decoded.getNextStateId());
+		assertEquals(page.getStatesCount(), decoded.getStatesCount());
+		assertNull(decoded.getState(1));
+
+		for (int i = 0; i < page.getStatesCount(); i++) {
+			IState state = page.getState(i);
+			IState decodedState = decoded.getState(i);
+			if (state != null) {
+				assertTrue(state.isEquivalent(decodedState));
+				assertEquals(state.getTokenType(), decodedState.getTokenType());
+				assertEquals(state.getParams(), decodedState.getParams());
+			}
+		}
+
+		IState form = decoded.getState(2);
+		assertEquals(Method.POST, ((State) form).getMethod());
+		assertEquals(RandomTokenType.FORM, form.getTokenType());
+		assertTrue(form.getParameter("name").isEditable());
+		assertEquals(3, form.getParameter("option").getValues().size());
+		// Repeated strings are shared
+		assertSame(decoded.getState(0).getAction(), form.getAction());
+	}
+
+	public void testSerialization() throws Exception {
+
+		Page page = createPage();
+		byte[] defaultForm = serialize(page);
+
+		page.setCompactSerialization(true);
+		byte[] compactForm = serialize(page);
+		assertTrue(compactForm.length < defaultForm.length);
+
+		Page deserialized = (Page) new ObjectInputStream(new ByteArrayInputStream(compactForm)).readObject();
+		assertTrue(deserialized.isCompactSerialization());
+		assertEquals(page.getId(), deserialized.getId());
+		assertTrue(page.getState(3).isEquivalent(deserialized.getState(3)));
+	}
+
+	public void testUnsupportedPage() {
+
+		Page page = createPage();
+		page.addState(new State(4) {
+
+			private static final long serialVersionUID = 1L;
+		});
+		assertFalse(PageCodec.isSupported(page));
+	}
+
+	public void testEstimateSize() {
+
+		Page page = createPage();
+		long estimate = PageCodec.estimateSize(page);
+		// Strings are not deduplicated, so the estimate is not smaller than the encoding
+		assertTrue(estimate >= PageCodec.encode(page).length);
+
+		State state = new State(4);
+		state.setAction("/app/another.html");
+		page.addState(state);
+		assertTrue(PageCodec.estimateSize(page) > estimate);
+	}
+
+	private byte[] serialize(final Page page) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(page);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private Page createPage() {
+
+		Page page = new Page(new UUID(0, 12));
+		page.setFlowId("flow");
+		page.setParentStateId("11-2-ABC");
+		page.setRandomToken("LINKTOKEN", RandomTokenType.LINK);
+		page.setRandomToken("FORMTOKEN", RandomTokenType.FORM);
+
+		for (int i = 0; i < 4; i++) {
+			page.getNextStateId();
+		}
+
+		State link = new State(0);
+		link.setAction("/app/list.html");
+		link.setParams("page=1&sort=name");
+		link.addParameter(new Parameter("page", "1", false, null, true));
+		link.addParameter(new Parameter("sort", "name", false, null, true));
+		page.addState(link);
+
+		State form = new State(2);
+		form.setAction("/app/list.html");
+		form.setMethod(Method.POST);
+		form.addParameter(new Parameter("name", (String) null, true, "text", false));
+		form.addParameter(new Parameter("option", new String[] { "1", "2", "3" }, false, "select", false));
+		page.addState(form);
+
+		State other = new State(3);
+		other.setAction("/app/detail.html");
+		other.addParameter(new Parameter("id", "1", false, null, true));
+		page.addState(other);
+
+		return page;
+	}
+
+}
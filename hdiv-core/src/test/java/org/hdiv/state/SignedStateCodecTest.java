@@ -0,0 +1,183 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.exception.HDIVException;
+import org.hdiv.state.scope.SignedStateScope;
+import org.hdiv.util.Method;
+
+import junit.framework.TestCase;
+
+public class SignedStateCodecTest extends TestCase {
+
+	private long now = 1500000000L;
+
+	private SignedStateCodec codec;
+
+	@Override
+	protected void setUp() throws Exception {
+		codec = createCodec("secret");
+	}
+
+	private SignedStateCodec createCodec(final String secret) {
+		SignedStateCodec codec = new SignedStateCodec() {
+			@Override
+			protected long currentTimeSeconds() {
+				return now;
+			}
+		};
+		codec.setSecret(secret);
+		return codec;
+	}
+
+	private State createState(final int values) {
+		State state = new State(3);
+		state.setAction("/app/list.html");
+		state.setMethod(Method.POST);
+		state.addParameter(new Parameter("id", "1", false, null, false));
+		Parameter row = new Parameter("row", "0", false, null, false);
+		for (int i = 1; i < values; i++) {
+			row.addValue(Integer.toString(i));
+		}
+		state.addParameter(row);
+		state.addParameter(new Parameter("name", (String) null, true, "text", false));
+		return state;
+	}
+
+	public void testRoundTrip() {
+
+		for (int compression = -1; compression <= 1; compression += 2) {
+			for (int encryption = 0; encryption < 2; encryption++) {
+				codec.setCompressionThreshold(compression * 16);
+				codec.setEncryption(encryption == 1);
+
+				State state = createState(50);
+				String token = codec.encode(state);
+				assertTrue(token.indexOf('-') < 0);
+
+				State decoded = codec.decode(token);
+				assertEquals(3, decoded.getId());
+				assertEquals("/app/list.html", decoded.getAction());
+				assertEquals(Method.POST, decoded.getMethod());
+				assertTrue(state.isEquivalent(decoded));
+				assertEquals(50, decoded.getParameter("row").getValues().size());
+				assertTrue(decoded.getParameter("name").isEditable());
+			}
+		}
+	}
+
+	public void testCompression() {
+
+		codec.setEncryption(false);
+		codec.setCompressionThreshold(-1);
+		String uncompressed = codec.encode(createState(200));
+		codec.setCompressionThreshold(SignedStateCodec.DEFAULT_COMPRESSION_THRESHOLD);
+		String compressed = codec.encode(createState(200));
+		assertTrue(compressed.length() < uncompressed.length());
+	}
+
+	public void testTamperedToken() {
+
+		String token = codec.encode(createState(2));
+		// The unused bits of the last character are not checked
+		for (int i = 0; i < token.length() - 1; i++) {
+			char c = token.charAt(i) == 'A' ? 'B' : 'A';
+			assertInvalid(codec, token.substring(0, i) + c + token.substring(i + 1));
+		}
+		assertInvalid(codec, token.substring(1));
+		assertInvalid(codec, token + "A");
+		assertInvalid(codec, "");
+		assertInvalid(codec, "%%%%");
+	}
+
+	public void testOtherSecret() {
+
+		String token = codec.encode(createState(2));
+		assertInvalid(createCodec("other"), token);
+		assertNotNull(createCodec("secret").decode(token));
+	}
+
+	public void testBinding() {
+
+		String token = codec.encode(createState(2), "session-1");
+		assertNotNull(codec.decode(token, "session-1"));
+		assertInvalid(codec, token, "session-2");
+		assertInvalid(codec, token, null);
+		assertInvalid(codec, codec.encode(createState(2)), "session-1");
+	}
+
+	public void testKeyRotationAndExpiration() {
+
+		codec.setKeyRotationInterval(60);
+		codec.setMaxAge(300);
+		String token = codec.encode(createState(2));
+
+		// Signed with a previous key
+		now += 299;
+		assertNotNull(codec.decode(token));
+
+		now += 2;
+		assertInvalid(codec, token);
+
+		// Created in the future
+		String future = codec.encode(createState(2));
+		now -= 3600;
+		assertInvalid(codec, future);
+	}
+
+	public void testScope() {
+
+		SignedStateScope scope = new SignedStateScope() {
+			@Override
+			protected String getBinding(final RequestContextHolder context, final boolean create) {
+				return "session-1";
+			}
+		};
+		scope.setCodec(codec);
+
+		String stateId = scope.addState(null, createState(2), "token");
+		assertTrue(stateId.startsWith("S-3-"));
+		assertTrue(scope.isScopeState(stateId));
+		assertFalse(scope.isScopeState("3-1-token"));
+
+		IState restored = scope.restoreState(null, stateId);
+		assertEquals("/app/list.html", restored.getAction());
+
+		try {
+			scope.restoreState(null, "S-4-" + stateId.substring(4));
+			fail();
+		}
+		catch (HDIVException e) {
+			// State id doesn't match
+		}
+	}
+
+	private void assertInvalid(final SignedStateCodec codec, final String token) {
+		assertInvalid(codec, token, null);
+	}
+
+	private void assertInvalid(final SignedStateCodec codec, final String token, final String binding) {
+		try {
+			codec.decode(token, binding);
+			fail();
+		}
+		catch (HDIVException e) {
+			// Expected
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+public class StateTest extends TestCase {
+
+	public void testGetParameter() {
+
+		State state = createState(2000);
+
+		assertEquals("param0", state.getParameter("param0").getName());
+		assertEquals("param1999", state.getParameter("PARAM1999").getName());
+		assertNull(state.getParameter("param2000"));
+
+		// Parameters added after the index is built
+		state.addParameter(new Parameter("other", "1", false, null, true));
+		assertEquals("other", state.getParameter("Other").getName());
+	}
+
+	public void testLatestParameterWins() {
+
+		for (int size : new int[] { 3, 50 }) {
+			State state = createState(size);
+			state.getParameter("param0");
+			Parameter duplicated = new Parameter("PARAM1", "2", false, null, true);
+			state.addParameter(duplicated);
+			assertSame(duplicated, state.getParameter("param1"));
+		}
+	}
+
+	public void testSerialization() throws Exception {
+
+		State state = createState(100);
+		assertNotNull(state.getParameter("param50"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(state);
+		out.close();
+		State deserialized = (State) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+		assertEquals("param50", deserialized.getParameter("param50").getName());
+		assertTrue(state.isEquivalent(deserialized));
+	}
+
+	private State createState(final int parameters) {
+
+		State state = new State(0);
+		state.setAction("/grid.html");
+		for (int i = 0; i < parameters; i++) {
+			state.addParameter(new Parameter("param" + i, String.valueOf(i), false, null, false));
+		}
+		return state;
+	}
+
+}
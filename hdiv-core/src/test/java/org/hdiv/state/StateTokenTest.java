@@ -0,0 +1,71 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.state;
+
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.hdiv.exception.HDIVException;
+import org.hdiv.util.HDIVErrorCodes;
+import org.hdiv.util.HDIVStateUtils;
+
+public class StateTokenTest extends TestCase {
+
+	public void testParse() {
+
+		StateToken token = StateToken.parse("11-3-C1EF82C48A86DE9BB907F37454998CC3");
+		assertEquals(new UUID(0, 11), token.getPageId());
+		assertEquals("11", token.getPagePart());
+		assertEquals(3, token.getStateId());
+		assertEquals("C1EF82C48A86DE9BB907F37454998CC3", token.getSuffix());
+		assertTrue(token.suffixEquals("C1EF82C48A86DE9BB907F37454998CC3"));
+		assertFalse(token.suffixEquals("C1EF82C48A86DE9BB907F37454998CC"));
+		assertFalse(token.suffixEquals(null));
+	}
+
+	public void testParseUuidPageId() {
+
+		UUID pageId = UUID.randomUUID();
+		StateToken token = StateToken.parse(HDIVStateUtils.encode(pageId, 7, "TOKEN"));
+		assertEquals(pageId, token.getPageId());
+		assertEquals(7, token.getStateId());
+		assertTrue(token.suffixEquals("TOKEN"));
+	}
+
+	public void testParseScoped() {
+
+		StateToken token = StateToken.parse("A-5-TOKEN");
+		assertNull(token.getPageId());
+		assertEquals("A", token.getPagePart());
+		assertEquals(5, token.getStateId());
+	}
+
+	public void testInvalid() {
+
+		String[] values = { "1111-", "11", "11-x-TOKEN", "11--TOKEN", "11-99999999999-TOKEN" };
+		for (String value : values) {
+			try {
+				StateToken.parse(value);
+				fail();
+			}
+			catch (HDIVException e) {
+				assertEquals(HDIVErrorCodes.INVALID_HDIV_PARAMETER_VALUE, e.getMessage());
+			}
+		}
+	}
+
+}
@@ -15,8 +15,14 @@
  */
 package org.hdiv.state.scope;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import org.hdiv.AbstractHDIVTestCase;
 import org.hdiv.state.IState;
+import org.hdiv.state.Parameter;
 import org.hdiv.state.State;
 import org.hdiv.util.HDIVStateUtils;
 
@@ -47,4 +53,82 @@ public class ScopedStateCacheTest extends AbstractHDIVTestCase {
 
 	}
 
+	public void testEquivalentState() {
+
+		ScopedStateCache cache = new ScopedStateCache();
+
+		String stateId = cache.addState(createState("/action", "a", "b"), "token1");
+		String sameStateId = cache.addState(createState("/action", "b", "a"), "token2");
+		String otherStateId = cache.addState(createState("/action", "a", "c"), "token3");
+
+		assertEquals(stateId, sameStateId);
+		assertFalse(stateId.equals(otherStateId));
+		assertEquals(2, cache.size());
+	}
+
+	public void testEquivalentEncodedValues() {
+
+		ScopedStateCache cache = new ScopedStateCache();
+
+		String stateId = cache.addState(createMultiValueState("/action", "p", "Hello World", "\u00e9"), "token1");
+		// Same values with a different case, '+' for spaces and the UTF-8 bytes of the accent decoded as ISO-8859-1
+		String sameStateId = cache.addState(createMultiValueState("/action", "p", "hello+world", "\u00c3\u00a9"), "token2");
+
+		assertEquals(stateId, sameStateId);
+		assertEquals(1, cache.size());
+	}
+
+	public void testMaxSize() {
+
+		ScopedStateCache cache = new ScopedStateCache(2);
+
+		String firstId = cache.addState(createState("/action1"), "token");
+		cache.addState(createState("/action2"), "token");
+		cache.addState(createState("/action3"), "token");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.getState(HDIVStateUtils.getStateFromScoped(firstId)));
+
+		// Evicted state is added again with a new id
+		String newFirstId = cache.addState(createState("/action1"), "token");
+		assertFalse(firstId.equals(newFirstId));
+		assertEquals(2, cache.size());
+	}
+
+	public void testSerialization() throws Exception {
+
+		ScopedStateCache cache = new ScopedStateCache();
+		String stateId = cache.addState(createState("/action", "a"), "token");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(cache);
+		oos.close();
+		ScopedStateCache restored = (ScopedStateCache) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+
+		assertEquals(stateId, restored.addState(createState("/action", "a"), "other"));
+		assertEquals(1, restored.size());
+	}
+
+	private State createMultiValueState(final String action, final String name, final String... values) {
+		State state = new State(0);
+		state.setAction(action);
+		Parameter parameter = new Parameter(name, values[0], false, null, false);
+		for (int i = 1; i < values.length; i++) {
+			parameter.addValue(values[i]);
+		}
+		state.addParameter(parameter);
+		return state;
+	}
+
+	private State createState(final String action, final String... values) {
+		State state = new State(0);
+		state.setAction(action);
+		for (String value : values) {
+			state.addParameter(new Parameter("param-" + value, value, false, null, false));
+		}
+		return state;
+	}
+
 }
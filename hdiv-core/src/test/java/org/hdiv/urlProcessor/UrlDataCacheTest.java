@@ -0,0 +1,85 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.urlProcessor;
+
+import org.hdiv.AbstractHDIVTestCase;
+import org.hdiv.context.RequestContextHolder;
+import org.hdiv.util.Method;
+
+public class UrlDataCacheTest extends AbstractHDIVTestCase {
+
+	private LinkUrlProcessor linkUrlProcessor;
+
+	@Override
+	protected void onSetUp() throws Exception {
+		linkUrlProcessor = getApplicationContext().getBean(LinkUrlProcessor.class);
+	}
+
+	private UrlData create(final String url) {
+		return linkUrlProcessor.createUrlData(url, Method.GET, getRequestContext().getHdivParameterName(), getRequestContext());
+	}
+
+	public void testReuseAnalysis() {
+
+		String url = "/testAction.do?params=value#anchor";
+
+		CachedUrlDataImpl first = (CachedUrlDataImpl) create(url);
+		CachedUrlDataImpl second = (CachedUrlDataImpl) create(url);
+
+		assertNotSame(first, second);
+		assertEquals(first.getContextPathRelativeUrl(), second.getContextPathRelativeUrl());
+		assertEquals(first.getUrlWithoutContextPath(), second.getUrlWithoutContextPath());
+		assertEquals("params=value", second.getUrlParams());
+		assertEquals("anchor", second.getAnchor());
+		assertEquals(first.isHdivStateNecessary(getConfig()), second.isHdivStateNecessary(getConfig()));
+		assertTrue(second.getCached() >= 2);
+	}
+
+	public void testComposedParamsNotShared() {
+
+		RequestContextHolder request = getRequestContext();
+		String url = "/testAction.do?params=value";
+
+		String first = linkUrlProcessor.processUrl(request, url);
+		String second = linkUrlProcessor.processUrl(request, url);
+
+		assertTrue(first.startsWith("/testAction.do?params=0&_HDIV_STATE_="));
+		assertTrue(second.startsWith("/testAction.do?params=0&_HDIV_STATE_="));
+		assertFalse(first.equals(second));
+	}
+
+	public void testSessionUrlNotCached() {
+
+		String url = "/testAction.do;jsessionid=67CFB560B6EC2677D51814A2A2B16B24";
+
+		UrlData first = create(url);
+		UrlData second = create(url);
+
+		assertEquals(0, ((CachedUrlDataImpl) first).getCached());
+		assertEquals(0, ((CachedUrlDataImpl) second).getCached());
+	}
+
+	public void testCacheDisabled() {
+
+		linkUrlProcessor.setUrlDataCacheSize(0);
+
+		UrlData urlData = create("/testAction.do?params=value");
+
+		assertEquals(UrlDataImpl.class, urlData.getClass());
+		assertEquals("params=value", ((UrlDataImpl) urlData).getUrlParams());
+	}
+
+}
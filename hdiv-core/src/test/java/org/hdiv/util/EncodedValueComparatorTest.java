@@ -0,0 +1,81 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.util;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class EncodedValueComparatorTest extends TestCase {
+
+	private static final char[] CHARS = { 'a', 'Z', '0', ' ', '+', '%', '&', '*', 'é', 'ñ', '€', 'Ã', '©', 'â', '\u0082',
+			'¬', 'ð', '\u009F', '\u0098', '\u0080', '\uD83D', '\uDE00', 'Â', 'ÿ', 'İ', 'ı' };
+
+	public void testSameEncodedValue() throws UnsupportedEncodingException {
+
+		assertTrue(EncodedValueComparator.isTheSameEncodedValue("a b", "A+B"));
+		assertTrue(EncodedValueComparator.isTheSameEncodedValue("José", misdecode("José")));
+		assertTrue(EncodedValueComparator.isTheSameEncodedValue(misdecode("10 €"), "10 €"));
+		assertTrue(EncodedValueComparator.isTheSameEncodedValue("😀", misdecode("😀")));
+		assertFalse(EncodedValueComparator.isTheSameEncodedValue("José", "Jose"));
+		assertFalse(EncodedValueComparator.isTheSameEncodedValue("José", misdecode("Josè")));
+		assertFalse(EncodedValueComparator.isTheSameEncodedValue("a", "ab"));
+	}
+
+	public void testSameResultAsReDecoding() {
+
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			String value = randomValue(random);
+			String other = random.nextBoolean() ? randomValue(random) : EncodedValueComparator.reDecodeValue(value);
+			if (other == null) {
+				continue;
+			}
+			assertEquals(value + " / " + other, reference(value, other), EncodedValueComparator.isTheSameEncodedValue(value, other));
+			assertEquals(other + " / " + value, reference(other, value), EncodedValueComparator.isTheSameEncodedValue(other, value));
+		}
+	}
+
+	private String randomValue(final Random random) {
+		StringBuilder sb = new StringBuilder();
+		int length = random.nextInt(6);
+		for (int i = 0; i < length; i++) {
+			sb.append(CHARS[random.nextInt(CHARS.length)]);
+		}
+		return sb.toString();
+	}
+
+	private String misdecode(final String value) throws UnsupportedEncodingException {
+		return new String(value.getBytes(Constants.ENCODING_UTF_8), Constants.ENCODING_ISO_8859_1);
+	}
+
+	/**
+	 * Comparison encoding and decoding the values.
+	 */
+	private boolean reference(final String parameterValue, final String value) {
+		if (parameterValue.replace(" ", "+").equalsIgnoreCase(value)) {
+			return true;
+		}
+		String fix = EncodedValueComparator.reDecodeValue(value);
+		if (fix != null && fix.equals(parameterValue)) {
+			return true;
+		}
+		fix = EncodedValueComparator.reDecodeValue(parameterValue);
+		return fix != null && fix.equals(value);
+	}
+
+}
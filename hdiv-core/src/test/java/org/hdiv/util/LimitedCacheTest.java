@@ -0,0 +1,95 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.util;
+
+import junit.framework.TestCase;
+
+public class LimitedCacheTest extends TestCase {
+
+	public void testRegister() {
+
+		LimitedCache<String> cache = new LimitedCache<String>(4);
+		assertNull(cache.getCached("a"));
+		cache.register("a", "A");
+
+		assertEquals("A", cache.getCached("a"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.size());
+	}
+
+	public void testLimit() {
+
+		LimitedCache<String> cache = new LimitedCache<String>(8);
+
+		for (int i = 0; i < 100; i++) {
+			String key = "/url" + i;
+			if (cache.getCached(key) == null) {
+				cache.register(key, key);
+			}
+		}
+		assertTrue(cache.size() <= cache.getMaxSize());
+		assertEquals(100, cache.getMisses());
+		assertEquals(100 - cache.size(), cache.getEvictions() + cache.getRejections());
+	}
+
+	public void testSizeNeverExceedsMaxSize() {
+
+		int[] sizes = { 1, 3, 17, 31, 100, 129 };
+		for (int maxSize : sizes) {
+			LimitedCache<String> cache = new LimitedCache<String>(maxSize);
+			for (int i = 0; i < maxSize * 20; i++) {
+				String key = "/url" + i;
+				// Accessed twice so the new entries are admitted over the old ones
+				cache.getCached(key);
+				cache.getCached(key);
+				cache.register(key, key);
+				assertTrue(cache.size() <= maxSize);
+			}
+		}
+	}
+
+	public void testFrequentEntriesAreKept() {
+
+		LimitedCache<String> cache = new LimitedCache<String>(1);
+		cache.getCached("hot");
+		cache.register("hot", "hot");
+		for (int i = 0; i < 10; i++) {
+			cache.getCached("hot");
+		}
+
+		// One-time keys are not admitted
+		for (int i = 0; i < 10; i++) {
+			String key = "cold" + i;
+			cache.getCached(key);
+			cache.register(key, key);
+		}
+		assertEquals("hot", cache.getCached("hot"));
+		assertEquals(10, cache.getRejections());
+	}
+
+	public void testInvalidSize() {
+
+		try {
+			new LimitedCache<String>(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+}
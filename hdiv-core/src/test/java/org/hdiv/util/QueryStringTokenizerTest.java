@@ -0,0 +1,62 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.util;
+
+import junit.framework.TestCase;
+
+public class QueryStringTokenizerTest extends TestCase {
+
+	public void testTokens() {
+
+		QueryStringTokenizer tokenizer = new QueryStringTokenizer("a=1&&b&amp;c=x=y&d=&");
+
+		assertTrue(tokenizer.next());
+		assertEquals("a", tokenizer.getName());
+		assertEquals("1", tokenizer.getValue());
+		assertTrue(tokenizer.hasValue());
+
+		assertTrue(tokenizer.next());
+		assertEquals("b", tokenizer.getName());
+		assertEquals("", tokenizer.getValue());
+		assertFalse(tokenizer.hasValue());
+
+		assertTrue(tokenizer.next());
+		assertTrue(tokenizer.nameEquals("c"));
+		assertFalse(tokenizer.nameEquals("cc"));
+		assertEquals("x=y", tokenizer.getValue());
+
+		assertTrue(tokenizer.next());
+		assertEquals("d", tokenizer.getName());
+		assertEquals("", tokenizer.getValue());
+		assertTrue(tokenizer.hasValue());
+
+		assertFalse(tokenizer.next());
+	}
+
+	public void testAppendAndReset() {
+
+		QueryStringTokenizer tokenizer = new QueryStringTokenizer();
+		assertFalse(tokenizer.next());
+
+		StringBuilder sb = new StringBuilder();
+		tokenizer.reset(new StringBuilder("first=1&amp"));
+		while (tokenizer.next()) {
+			tokenizer.appendParameter(sb).append('|');
+		}
+		assertEquals("first=1|amp|", sb.toString());
+	}
+
+}
@@ -18,11 +18,16 @@ package org.hdiv.util;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 
+import org.hdiv.context.RequestContext;
 import org.hdiv.exception.HDIVException;
+import org.hdiv.idGenerator.NodeSequencePageIdGenerator;
 import org.hdiv.urlProcessor.UrlData;
 import org.hdiv.urlProcessor.UrlDataImpl;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
 
 public class HDIVUtilTest {
 
@@ -90,6 +95,26 @@ public class HDIVUtilTest {
 		System.out.println("Time:" + (System.currentTimeMillis() - time));
 	}
 
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testCurrentPageId() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContext context = new RequestContext(request, new MockHttpServletResponse(), new MockServletContext());
+
+		HDIVUtil.setCurrentPageId(5, request);
+		Assert.assertEquals(Integer.valueOf(5), HDIVUtil.getCurrentPageId(request));
+
+		// Node ids don't fit in an Integer
+		context.setCurrentPageId(new NodeSequencePageIdGenerator().getNextPageId());
+		try {
+			HDIVUtil.getCurrentPageId(request);
+			Assert.fail();
+		}
+		catch (IllegalStateException e) {
+			// Not truncated
+		}
+	}
+
 	@Test(expected = HDIVException.class)
 	public void testInvalidPageId() {
 		HDIVStateUtils.getPageId("example-1-FEE0710648A1BE0BAEF05904B586A89B");
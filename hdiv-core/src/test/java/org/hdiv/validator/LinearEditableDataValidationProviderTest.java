@@ -0,0 +1,157 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class LinearEditableDataValidationProviderTest extends TestCase {
+
+	private static final String[] VALUES = { "", "plain text", "<script>alert(1)</script>", "<SCRIPT>", "a -- b", "o'neil", "12345",
+			"1234567890", "abcabc", "x<y" };
+
+	private final List<IValidation> validations = new ArrayList<IValidation>();
+
+	private LinearEditableDataValidationProvider provider;
+
+	private DefaultEditableDataValidationProvider defaultProvider;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		ValidationRepository repository = new ValidationRepository() {
+
+			private static final long serialVersionUID = 1L;
+
+			public List<IValidation> findValidations(final String url, final String parameter) {
+				return validations;
+			}
+
+			public List<IValidation> findDefaultValidations() {
+				return validations;
+			}
+		};
+		provider = new LinearEditableDataValidationProvider();
+		provider.setValidationRepository(repository);
+		defaultProvider = new DefaultEditableDataValidationProvider();
+		defaultProvider.setValidationRepository(repository);
+	}
+
+	public void testCombinedRejectedPatterns() {
+
+		validations.add(createValidation("xss", null, "(?i).*<script.*"));
+		validations.add(createValidation("sql", null, ".*--.*"));
+		validations.add(createValidation("quote", null, ".*'.*"));
+		validations.add(createValidation("digits", "[^0-9]*|[0-9]{1,5}", null));
+
+		assertTrue(validate("plain text").isValid());
+		assertEquals("xss", validate("<SCRIPT>").getValidationId());
+		assertEquals("sql", validate("a -- b").getValidationId());
+		assertEquals("quote", validate("o'neil").getValidationId());
+		assertEquals("digits", validate("1234567890").getValidationId());
+		// The first rule matched by any value
+		assertEquals("sql", provider.validate("/url", "param", new String[] { "o'neil", "a -- b" }, "text").getValidationId());
+
+		assertSameResults();
+	}
+
+	public void testComponentType() {
+
+		Validation validation = createValidation("xss", null, ".*<.*");
+		validation.setComponentType("textarea");
+		validations.add(validation);
+
+		assertTrue(validate("x<y").isValid());
+		assertFalse(provider.validate("/url", "param", new String[] { "x<y" }, "textarea").isValid());
+	}
+
+	public void testMaxValueLength() {
+
+		validations.add(createValidation("sql", null, ".*--.*"));
+		provider.setMaxValueLength(5);
+
+		assertTrue(validate("12345").isValid());
+		EditableDataValidationResult result = validate("123456");
+		assertFalse(result.isValid());
+		assertEquals(LinearEditableDataValidationProvider.MAX_VALUE_LENGTH_VALIDATION_ID, result.getValidationId());
+		assertFalse(provider.validate("/url", "param", new String[] { "1", "123456" }, "text").isValid());
+	}
+
+	public void testUnsupportedPatternFallback() {
+
+		// Back references are not supported by the linear engine
+		validations.add(createValidation("repeated", null, "(.+)\\1"));
+		validations.add(createValidation("sql", null, ".*--.*"));
+
+		assertEquals("repeated", validate("abcabc").getValidationId());
+		assertEquals("sql", validate("a -- b").getValidationId());
+		assertTrue(validate("plain text").isValid());
+
+		assertSameResults();
+	}
+
+	public void testCustomValidationFallback() {
+
+		final List<String> validated = new ArrayList<String>();
+		validations.add(new IValidation() {
+
+			private static final long serialVersionUID = 1L;
+
+			public String getName() {
+				return "custom";
+			}
+
+			public boolean validate(final String parameter, final String[] values, final String dataType) {
+				validated.add(values[0]);
+				return !values[0].startsWith("x");
+			}
+		});
+		validations.add(createValidation("sql", null, ".*--.*"));
+
+		assertEquals("custom", validate("x<y").getValidationId());
+		assertEquals("sql", validate("a -- b").getValidationId());
+		// Executed as usual
+		assertEquals(2, validated.size());
+	}
+
+	private void assertSameResults() {
+		for (String value : VALUES) {
+			EditableDataValidationResult expected = defaultProvider.validate("/url", "param", new String[] { value }, "text");
+			EditableDataValidationResult result = validate(value);
+			assertEquals(value, expected.isValid(), result.isValid());
+			assertEquals(value, expected.getValidationId(), result.getValidationId());
+		}
+	}
+
+	private EditableDataValidationResult validate(final String value) {
+		return provider.validate("/url", "param", new String[] { value }, "text");
+	}
+
+	private Validation createValidation(final String name, final String acceptedPattern, final String rejectedPattern) {
+		Validation validation = new Validation();
+		validation.setName(name);
+		if (acceptedPattern != null) {
+			validation.setAcceptedPattern(acceptedPattern);
+		}
+		if (rejectedPattern != null) {
+			validation.setRejectedPattern(rejectedPattern);
+		}
+		return validation;
+	}
+
+}
@@ -44,6 +44,13 @@ public class ValidationContext {
 
 	protected final List<FacesValidatorError> errors;
 
+	/**
+	 * Target url of the request, without the context path. Obtained on first use.
+	 *
+	 * @since 4.0.0
+	 */
+	protected String target;
+
 	public ValidationContext(final FacesContext facesContext) {
 		this.facesContext = facesContext;
 		requestParameters = facesContext.getExternalContext().getRequestParameterMap();
@@ -87,6 +94,17 @@ public class ValidationContext {
 		return requestParameters;
 	}
 
+	/**
+	 * @return target url of the request, without the context path
+	 * @since 4.0.0
+	 */
+	public String getTarget() {
+		if (target == null) {
+			target = UtilsJsf.getTargetUrl(facesContext);
+		}
+		return target;
+	}
+
 	public void acceptParameterValues(final String parameterName, final Collection<? extends Object> parameterValues) {
 		for (Object value : parameterValues) {
 			acceptParameter(parameterName, value);
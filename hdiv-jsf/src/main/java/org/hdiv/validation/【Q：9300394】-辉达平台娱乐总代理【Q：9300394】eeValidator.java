@@ -21,9 +21,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.faces.component.UIComponent;
 import javax.faces.component.UIForm;
+import javax.faces.component.UINamingContainer;
 import javax.faces.component.UIViewRoot;
 import javax.faces.context.FacesContext;
 import javax.faces.context.PartialViewContext;
@@ -47,12 +50,44 @@ public class DefaultComponentTreeValidator implements ComponentTreeValidator {
 
 	private static final Logger log = LoggerFactory.getLogger(DefaultComponentTreeValidator.class);
 
+	private static final ComponentValidator[] NO_VALIDATORS = new ComponentValidator[0];
+
+	/**
+	 * Maximum number of parameters whose exclusion is cached for each target.
+	 *
+	 * @since 4.0.0
+	 */
+	protected static final int EXCLUDED_PARAMETERS_CACHE_SIZE = 1000;
+
+	/**
+	 * Maximum number of targets whose excluded parameters are cached.
+	 *
+	 * @since 4.0.0
+	 */
+	protected static final int EXCLUDED_TARGETS_CACHE_SIZE = 200;
+
 	protected final List<ComponentValidator> componentValidators = new ArrayList<ComponentValidator>();
 
+	/**
+	 * Validators that support each component class, by component family.
+	 *
+	 * @since 4.0.0
+	 */
+	private final ConcurrentMap<Class<?>, ConcurrentMap<String, ComponentValidator[]>> validatorsByComponent = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, ComponentValidator[]>>();
+
+	/**
+	 * Result of {@link #isExcludedParameter(ValidationContext, String)}, by target and parameter name without row indexes.
+	 *
+	 * @since 4.0.0
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, Boolean>> excludedParameters = new ConcurrentHashMap<String, ConcurrentMap<String, Boolean>>();
+
 	protected HDIVConfig config;
 
 	public void createComponentValidators() {
 
+		validatorsByComponent.clear();
+
 		componentValidators.add(new GenericComponentValidator());
 		componentValidators.add(new HtmlInputHiddenValidator());
 		componentValidators.add(new UICommandValidator());
@@ -194,11 +229,54 @@ public class DefaultComponentTreeValidator implements ComponentTreeValidator {
 
 	protected void validateComponent(final ValidationContext context, final UIComponent component) {
 
+		for (ComponentValidator validator : getComponentValidators(component)) {
+			validator.validate(context, component);
+		}
+	}
+
+	/**
+	 * Obtains the validators that support the component. They are searched once for each component class and family.
+	 *
+	 * @param component component to validate
+	 * @return supporting validators
+	 * @since 4.0.0
+	 */
+	protected ComponentValidator[] getComponentValidators(final UIComponent component) {
+
+		String family = component.getFamily();
+		if (family == null) {
+			return findComponentValidators(component);
+		}
+
+		ConcurrentMap<String, ComponentValidator[]> byFamily = validatorsByComponent.get(component.getClass());
+		if (byFamily == null) {
+			byFamily = new ConcurrentHashMap<String, ComponentValidator[]>(4);
+			ConcurrentMap<String, ComponentValidator[]> existing = validatorsByComponent.putIfAbsent(component.getClass(), byFamily);
+			if (existing != null) {
+				byFamily = existing;
+			}
+		}
+
+		ComponentValidator[] validators = byFamily.get(family);
+		if (validators == null) {
+			validators = findComponentValidators(component);
+			byFamily.put(family, validators);
+		}
+		return validators;
+	}
+
+	private ComponentValidator[] findComponentValidators(final UIComponent component) {
+
+		List<ComponentValidator> validators = null;
 		for (ComponentValidator validator : componentValidators) {
 			if (validator.supports(component)) {
-				validator.validate(context, component);
+				if (validators == null) {
+					validators = new ArrayList<ComponentValidator>(componentValidators.size());
+				}
+				validators.add(validator);
 			}
 		}
+		return validators == null ? NO_VALIDATORS : validators.toArray(new ComponentValidator[validators.size()]);
 	}
 
 	protected List<FacesValidatorError> checkParameters(final ValidationContext context, final List<FacesValidatorError> errors) {
@@ -282,8 +360,92 @@ public class DefaultComponentTreeValidator implements ComponentTreeValidator {
 		return config.isStartPage(target, Method.POST);
 	}
 
+	/**
+	 * Checks if the parameter is excluded from validation. The result is cached for each target, and shared by the rows of the data
+	 * tables: exclusion rules are not expected to depend on the row index of a component.
+	 *
+	 * @param context validation context
+	 * @param paramName parameter name
+	 * @return true if the parameter is not validated
+	 */
 	protected boolean isExcludedParameter(final ValidationContext context, final String paramName) {
 
+		String target = context.getTarget();
+		if (paramName == null || target == null) {
+			return isExcludedParameter(target, paramName);
+		}
+
+		ConcurrentMap<String, Boolean> excluded = excludedParameters.get(target);
+		if (excluded == null) {
+			if (excludedParameters.size() >= EXCLUDED_TARGETS_CACHE_SIZE) {
+				excludedParameters.clear();
+			}
+			excluded = new ConcurrentHashMap<String, Boolean>();
+			ConcurrentMap<String, Boolean> existing = excludedParameters.putIfAbsent(target, excluded);
+			if (existing != null) {
+				excluded = existing;
+			}
+		}
+
+		String key = getExcludedParameterKey(context.getFacesContext(), paramName);
+		Boolean result = excluded.get(key);
+		if (result == null) {
+			result = isExcludedParameter(target, paramName);
+			if (excluded.size() >= EXCLUDED_PARAMETERS_CACHE_SIZE) {
+				excluded.clear();
+			}
+			excluded.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the row indexes that data tables add to the client ids, for example <code>form:table:1234:name</code> is returned as
+	 * <code>form:table::name</code>.
+	 *
+	 * @param context faces context
+	 * @param paramName parameter name
+	 * @return key of the parameter in the excluded parameters cache
+	 * @since 4.0.0
+	 */
+	protected String getExcludedParameterKey(final FacesContext context, final String paramName) {
+
+		char separator = UINamingContainer.getSeparatorChar(context);
+		int length = paramName.length();
+		StringBuilder key = null;
+		int start = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i == length || paramName.charAt(i) == separator) {
+				// The first segment is never a row index
+				boolean rowIndex = start > 0 && i > start;
+				for (int j = start; rowIndex && j < i; j++) {
+					rowIndex = Character.isDigit(paramName.charAt(j));
+				}
+				if (rowIndex && key == null) {
+					key = new StringBuilder(length).append(paramName, 0, start);
+				}
+				else if (!rowIndex && key != null) {
+					key.append(paramName, start, i);
+				}
+				if (key != null && i < length) {
+					key.append(separator);
+				}
+				start = i + 1;
+			}
+		}
+		return key == null ? paramName : key.toString();
+	}
+
+	/**
+	 * Checks if the parameter is excluded from validation for the target.
+	 *
+	 * @param target target url
+	 * @param paramName parameter name
+	 * @return true if the parameter is not validated
+	 * @since 4.0.0
+	 */
+	protected boolean isExcludedParameter(final String target, final String paramName) {
+
 		if (UtilsJsf.isFacesViewParamName(paramName)) {
 			return true;
 		}
@@ -295,7 +457,6 @@ public class DefaultComponentTreeValidator implements ComponentTreeValidator {
 			return true;
 		}
 
-		String target = UtilsJsf.getTargetUrl(context.getFacesContext());
 		if (config.isParameterWithoutValidation(target, paramName)) {
 			if (log.isDebugEnabled()) {
 				log.debug("Parameter '" + paramName + "' for url '" + target
@@ -28,6 +28,8 @@ import org.hdiv.validation.ValidationContext;
 public interface ComponentValidator {
 
 	/**
+	 * The result must only depend on the class and the family of the component, as it is cached for them.
+	 *
 	 * @param component {@link UIComponent} to validate.
 	 * @return true if this {@link ComponentValidator} can validate the component.
 	 */
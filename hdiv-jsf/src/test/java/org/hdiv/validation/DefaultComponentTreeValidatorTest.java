@@ -0,0 +1,175 @@
+/**
+ * Copyright 2005-2016 hdiv.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hdiv.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIForm;
+import javax.faces.component.UIInput;
+import javax.faces.component.UIOutput;
+import javax.faces.component.html.HtmlInputHidden;
+import javax.faces.context.FacesContext;
+
+import org.hdiv.AbstractJsfHDIVTestCase;
+import org.hdiv.validators.ComponentValidator;
+
+public class DefaultComponentTreeValidatorTest extends AbstractJsfHDIVTestCase {
+
+	private CountingComponentTreeValidator treeValidator;
+
+	private CountingComponentValidator componentValidator;
+
+	private FacesContext facesContext;
+
+	private UIForm form;
+
+	@Override
+	protected void innerSetUp() throws Exception {
+
+		treeValidator = new CountingComponentTreeValidator();
+		treeValidator.setConfig(getConfig());
+		componentValidator = new CountingComponentValidator();
+		treeValidator.componentValidators.add(componentValidator);
+
+		facesContext = shaleMockObjects.getFacesContext();
+
+		form = new UIForm();
+		form.setId("form");
+		form.getChildren().add(createInput("name"));
+		form.getChildren().add(createInput("surname"));
+		form.getChildren().add(new UIOutput());
+		facesContext.getViewRoot().getChildren().add(form);
+	}
+
+	public void testComponentValidatorsCached() {
+
+		List<String> first = validateForm();
+		// Form, input and output classes
+		assertEquals(3, componentValidator.supportsCount);
+		assertEquals(2, componentValidator.validateCount);
+
+		List<String> second = validateForm();
+		// Validators are not searched again for the same component classes
+		assertEquals(3, componentValidator.supportsCount);
+		assertEquals(4, componentValidator.validateCount);
+		assertEquals(first, second);
+	}
+
+	public void testTreeChange() {
+
+		validateForm();
+		assertEquals(3, componentValidator.supportsCount);
+
+		form.getChildren().remove(0);
+		HtmlInputHidden hidden = new HtmlInputHidden();
+		hidden.setId("hidden");
+		form.getChildren().add(hidden);
+
+		List<String> validated = validateForm();
+		// Only the new component class is resolved
+		assertEquals(4, componentValidator.supportsCount);
+		assertEquals(2, validated.size());
+		assertTrue(validated.contains("form:surname"));
+		assertTrue(validated.contains("form:hidden"));
+		assertFalse(validated.contains("form:name"));
+	}
+
+	public void testExcludedParametersCachedByTarget() {
+
+		setRequestURI("/path/first.faces");
+		ValidationContext context = new ValidationContext(facesContext);
+		boolean excluded = treeValidator.isExcludedParameter(context, "param");
+		assertEquals(1, treeValidator.excludedCount);
+
+		context = new ValidationContext(facesContext);
+		assertEquals(excluded, treeValidator.isExcludedParameter(context, "param"));
+		assertEquals(1, treeValidator.excludedCount);
+
+		// Other views are checked again
+		setRequestURI("/path/second.faces");
+		context = new ValidationContext(facesContext);
+		assertEquals(excluded, treeValidator.isExcludedParameter(context, "param"));
+		assertEquals(2, treeValidator.excludedCount);
+	}
+
+	public void testExcludedParametersCachedByRow() {
+
+		setRequestURI("/path/table.faces");
+		ValidationContext context = new ValidationContext(facesContext);
+		boolean excluded = treeValidator.isExcludedParameter(context, "form:table:1:name");
+		assertEquals(1, treeValidator.excludedCount);
+
+		// Rows of the same table share the cached result
+		for (int i = 2; i < 2000; i++) {
+			assertEquals(excluded, treeValidator.isExcludedParameter(context, "form:table:" + i + ":name"));
+		}
+		assertEquals(1, treeValidator.excludedCount);
+
+		treeValidator.isExcludedParameter(context, "form:table:1:other");
+		assertEquals(2, treeValidator.excludedCount);
+
+		assertEquals("form:table::name", treeValidator.getExcludedParameterKey(facesContext, "form:table:1234:name"));
+		assertEquals("form:table::", treeValidator.getExcludedParameterKey(facesContext, "form:table:12:"));
+		assertEquals("form:t1:name", treeValidator.getExcludedParameterKey(facesContext, "form:t1:name"));
+		assertEquals("1:name", treeValidator.getExcludedParameterKey(facesContext, "1:name"));
+	}
+
+	private List<String> validateForm() {
+		ValidationContext context = new ValidationContext(facesContext);
+		componentValidator.validated.clear();
+		treeValidator.validateComponentTree(context, form);
+		return new ArrayList<String>(componentValidator.validated);
+	}
+
+	private UIInput createInput(final String id) {
+		UIInput input = new UIInput();
+		input.setId(id);
+		return input;
+	}
+
+	private static class CountingComponentTreeValidator extends DefaultComponentTreeValidator {
+
+		private int excludedCount;
+
+		@Override
+		protected boolean isExcludedParameter(final String target, final String paramName) {
+			excludedCount++;
+			return super.isExcludedParameter(target, paramName);
+		}
+	}
+
+	private class CountingComponentValidator implements ComponentValidator {
+
+		private int supportsCount;
+
+		private int validateCount;
+
+		private final List<String> validated = new ArrayList<String>();
+
+		public boolean supports(final UIComponent component) {
+			supportsCount++;
+			return component instanceof UIInput;
+		}
+
+		public void validate(final ValidationContext context, final UIComponent component) {
+			validateCount++;
+			validated.add(component.getClientId(facesContext));
+		}
+	}
+
+}
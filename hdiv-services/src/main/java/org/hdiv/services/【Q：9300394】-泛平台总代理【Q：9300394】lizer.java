@@ -19,8 +19,11 @@ package org.hdiv.services;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.beans.BeanWrapper;
 
@@ -51,92 +54,124 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  */
 public abstract class CustomSecureSerializer extends JsonSerializer<Object> {
 
-	private JsonSerializer<Object> delegatedSerializer;
-
-	private final Map<String, JsonSerializer<Object>> secureIdSerializer = new HashMap<String, JsonSerializer<Object>>();
+	/**
+	 * Generator, provider and secure id serializers of the object being serialized by the current thread.
+	 */
+	private static final ThreadLocal<SerializationContext> context = new ThreadLocal<SerializationContext>();
 
-	private JsonGenerator jsonGen = null;
+	private JsonSerializer<Object> delegatedSerializer;
 
-	private SerializerProvider jsonProvider = null;
+	/**
+	 * Secure id serializers resolved for each serialized class.
+	 *
+	 * @since 4.0.0
+	 */
+	private final ConcurrentMap<Class<?>, Map<String, JsonSerializer<Object>>> secureIdSerializers = new ConcurrentHashMap<Class<?>, Map<String, JsonSerializer<Object>>>();
 
 	public void setDelegatedSerializer(final JsonSerializer<Object> delegatedSerializer) {
 		this.delegatedSerializer = delegatedSerializer;
+		secureIdSerializers.clear();
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public final void serialize(final Object object, final JsonGenerator jgen, final SerializerProvider provider)
 			throws IOException, JsonProcessingException {
 
-		jsonGen = jgen;
-		jsonProvider = provider;
+		boolean flushEnabled = jgen.isEnabled(Feature.FLUSH_PASSED_TO_STREAM);
+
+		jgen.disable(Feature.FLUSH_PASSED_TO_STREAM);
+
+		jgen.writeStartObject();
+
+		Map<String, JsonSerializer<Object>> serializers = getSecureIdSerializers(object, provider);
+		if (!serializers.isEmpty() && jgen.getCurrentValue() == null) {
+			jgen.setCurrentValue(object);
+		}
+
+		// Nested entities may be serialized by this same thread while writing the body
+		SerializationContext previous = context.get();
+		context.set(new SerializationContext(jgen, provider, serializers));
+		try {
+			writeBody(object);
+		}
+		finally {
+			if (previous == null) {
+				context.remove();
+			}
+			else {
+				context.set(previous);
+			}
+		}
+
+		if (flushEnabled) {
+			jgen.enable(Feature.FLUSH_PASSED_TO_STREAM);
+		}
 
-		boolean flushEnabled = jsonGen.isEnabled(Feature.FLUSH_PASSED_TO_STREAM);
+		jgen.writeEndObject();
 
-		jsonGen.disable(Feature.FLUSH_PASSED_TO_STREAM);
+	}
 
-		jsonGen.writeStartObject();
+	/**
+	 * Obtains the serializers of the secure ids of the object, resolving them the first time an object of its class is serialized.
+	 *
+	 * @param object object to serialize
+	 * @param provider serializer provider
+	 * @return serializers by property name. Empty if the object has no secure ids.
+	 */
+	private Map<String, JsonSerializer<Object>> getSecureIdSerializers(final Object object, final SerializerProvider provider) {
 
-		if (delegatedSerializer != null) {
-			String secureIdName = null;
-			Object value = null;
-			if (object instanceof SecureIdentifiable<?>) {
-				if (delegatedSerializer instanceof ContextualSerializer) {
-					secureIdName = "id";
-					value = ((SecureIdentifiable) object).getId();
+		if (!(delegatedSerializer instanceof ContextualSerializer)
+				|| !(object instanceof SecureIdentifiable<?> || object instanceof SecureIdContainer)) {
+			return Collections.emptyMap();
+		}
 
+		Class<?> clazz = object.getClass();
+		Map<String, JsonSerializer<Object>> serializers = secureIdSerializers.get(clazz);
+		if (serializers == null) {
+			serializers = resolveSecureIdSerializers(clazz, (ContextualSerializer) delegatedSerializer, provider);
+			Map<String, JsonSerializer<Object>> existing = secureIdSerializers.putIfAbsent(clazz, serializers);
+			if (existing != null) {
+				serializers = existing;
+			}
+		}
+		return serializers;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, JsonSerializer<Object>> resolveSecureIdSerializers(final Class<?> clazz, final ContextualSerializer contextual,
+			final SerializerProvider provider) {
+
+		Map<String, JsonSerializer<Object>> serializers = new HashMap<String, JsonSerializer<Object>>();
+
+		if (SecureIdentifiable.class.isAssignableFrom(clazz)) {
+			try {
+				Field identifiableField = getIdentityField(clazz);
+				serializers.put("id", (JsonSerializer<Object>) contextual.createContextual(provider,
+						getBeanProperty("id", null, identifiableField != null ? identifiableField.getType() : null)));
+			}
+			catch (Exception e) {
+				// Error getting id of the object. Do not make any task to preserve the original functionality
+			}
+		}
+		else {
+			for (Field field : clazz.getDeclaredFields()) {
+				TrustAssertion trustAssertion = field.getAnnotation(TrustAssertion.class);
+				if (trustAssertion != null) {
 					try {
-						Field identifiableField = getIdentityField(object);
-						JsonSerializer<Object> efective = (JsonSerializer<Object>) ((ContextualSerializer) delegatedSerializer)
-								.createContextual(provider, getBeanProperty(secureIdName, value, null,
-										identifiableField != null ? identifiableField.getType() : null));
-						secureIdSerializer.put(secureIdName, efective);
-						if (jsonGen.getCurrentValue() == null) {
-							jsonGen.setCurrentValue(object);
-						}
+						serializers.put(field.getName(), (JsonSerializer<Object>) contextual.createContextual(provider,
+								getBeanProperty(field.getName(), trustAssertion, field.getType())));
 					}
 					catch (Exception e) {
 						// Error getting id of the object. Do not make any task to preserve the original functionality
 					}
 				}
 			}
-			else if (object instanceof SecureIdContainer) {
-				for (Field field : object.getClass().getDeclaredFields()) {
-					TrustAssertion trustAssertion = field.getAnnotation(TrustAssertion.class);
-					if (trustAssertion != null) {
-						if (delegatedSerializer instanceof ContextualSerializer) {
-							try {
-								field.setAccessible(true);
-								secureIdName = field.getName();
-								value = field.get(object);
-
-								if (delegatedSerializer instanceof ContextualSerializer) {
-									JsonSerializer<Object> efective = ((JsonSerializer<Object>) ((ContextualSerializer) delegatedSerializer)
-											.createContextual(provider,
-													getBeanProperty(secureIdName, value, trustAssertion, field.getType())));
-									secureIdSerializer.put(secureIdName, efective);
-									if (jsonGen.getCurrentValue() == null) {
-										jsonGen.setCurrentValue(object);
-									}
-								}
-							}
-							catch (Exception e) {
-								// Error getting id of the object. Do not make any task to preserve the original functionality
-							}
-						}
-					}
-				}
-			}
 		}
 
-		writeBody(object);
-
-		if (flushEnabled) {
-			jsonGen.enable(Feature.FLUSH_PASSED_TO_STREAM);
+		if (serializers.isEmpty()) {
+			return Collections.emptyMap();
 		}
-
-		jsonGen.writeEndObject();
-
+		return Collections.unmodifiableMap(serializers);
 	}
 
 	/**
@@ -144,8 +179,8 @@ public abstract class CustomSecureSerializer extends JsonSerializer<Object> {
 	 * Gets the id field of the bean even if it is defined into any parent class
 	 * 
 	 **/
-	private Field getIdentityField(final Object obj) {
-		Class<?> clazz = obj.getClass();
+	private Field getIdentityField(final Class<?> type) {
+		Class<?> clazz = type;
 		while (clazz != Object.class) {
 
 			try {
@@ -184,13 +219,19 @@ public abstract class CustomSecureSerializer extends JsonSerializer<Object> {
 	protected void writeField(final BeanWrapper beanWrapper, final String tagName, final String propertyName,
 			final boolean nullValueAsBlank) throws IOException {
 
+		SerializationContext current = context.get();
+		if (current == null) {
+			throw new IllegalStateException("Fields can only be written while serializing an object");
+		}
+		JsonGenerator jsonGen = current.jsonGen;
+
 		Object propertyValue = beanWrapper.getPropertyValue(propertyName);
 
 		jsonGen.writeFieldName(tagName);
 
-		JsonSerializer<Object> jsonEfectiveSerializer = secureIdSerializer.get(propertyName);
+		JsonSerializer<Object> jsonEfectiveSerializer = current.secureIdSerializers.get(propertyName);
 		if (jsonEfectiveSerializer != null) {
-			jsonEfectiveSerializer.serialize(propertyValue, jsonGen, jsonProvider);
+			jsonEfectiveSerializer.serialize(propertyValue, jsonGen, current.jsonProvider);
 		}
 		else {
 			if (propertyValue == null && nullValueAsBlank) {
@@ -202,7 +243,7 @@ public abstract class CustomSecureSerializer extends JsonSerializer<Object> {
 		}
 	}
 
-	private BeanProperty getBeanProperty(final String name, final Object value, final TrustAssertion trustAssertion, final Class<?> type) {
+	private BeanProperty getBeanProperty(final String name, final TrustAssertion trustAssertion, final Class<?> type) {
 
 		return new BeanProperty() {
 
@@ -265,4 +306,20 @@ public abstract class CustomSecureSerializer extends JsonSerializer<Object> {
 
 	}
 
+	private static class SerializationContext {
+
+		private final JsonGenerator jsonGen;
+
+		private final SerializerProvider jsonProvider;
+
+		private final Map<String, JsonSerializer<Object>> secureIdSerializers;
+
+		SerializationContext(final JsonGenerator jsonGen, final SerializerProvider jsonProvider,
+				final Map<String, JsonSerializer<Object>> secureIdSerializers) {
+			this.jsonGen = jsonGen;
+			this.jsonProvider = jsonProvider;
+			this.secureIdSerializers = secureIdSerializers;
+		}
+	}
+
 }
@@ -17,19 +17,23 @@ package org.hdiv.services;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.intercept.MethodInterceptor;
-import org.springframework.aop.framework.ProxyFactory;
-import org.springframework.aop.target.EmptyTargetSource;
 import org.springframework.cglib.proxy.Callback;
 import org.springframework.cglib.proxy.Enhancer;
 import org.springframework.cglib.proxy.Factory;
 import org.springframework.cglib.proxy.MethodProxy;
 import org.springframework.core.ResolvableType;
 import org.springframework.objenesis.ObjenesisStd;
+import org.springframework.objenesis.instantiator.ObjectInstantiator;
 import org.springframework.util.Assert;
 import org.springframework.util.ReflectionUtils;
 
@@ -39,8 +43,21 @@ public class Path {
 
 	private static InvocationMethodProvider invocationMethodProvider = null;
 
+	/**
+	 * Proxy classes generated for each class loader and type, and their instantiators. Only the interceptor changes from one call to
+	 * another.
+	 * <p>
+	 * Reads don't lock. Class loaders and types are weakly referenced by the keys and proxy classes by the values, so the cache doesn't
+	 * keep undeployed web applications in memory. A proxy class lives as long as the class loader where it is defined.
+	 *
+	 * @since 4.0.0
+	 */
+	private static final ConcurrentMap<ProxyKey, ProxyClass> proxyClasses = new ConcurrentHashMap<ProxyKey, ProxyClass>();
+
 	public static void registerInvocationMethodProvider(final InvocationMethodProvider invocationMethodProvider) {
 		Path.invocationMethodProvider = invocationMethodProvider;
+		// Proxies implement the invocation aware class of the provider
+		proxyClasses.clear();
 	}
 
 	public static InvocationMethodProvider getInvocationMethodProvider() {
@@ -129,6 +146,10 @@ public class Path {
 				return getObjectParameters();
 			}
 			else if (Object.class.equals(method.getDeclaringClass())) {
+				if (arg3 != null) {
+					// Invoking the method on the proxy would intercept it again
+					return arg3.invokeSuper(obj, args);
+				}
 				return ReflectionUtils.invokeMethod(method, obj, args);
 			}
 			invocation = getInvocationMethodProvider().getMethodInvocationIntance(targetType, method, args, getInvocation());
@@ -144,7 +165,10 @@ public class Path {
 
 	}
 
-	private static ObjenesisStd OBJENESIS = new ObjenesisStd();
+	/**
+	 * Instantiators are cached with the proxy classes, in {@link #proxyClasses}.
+	 */
+	private static ObjenesisStd OBJENESIS = new ObjenesisStd(false);
 
 	private static <T> T getProxyWithInterceptor(final Class<?> type, final RecordingMethodInterceptor interceptor,
 			final ClassLoader classLoader) {
@@ -155,25 +179,203 @@ public class Path {
 	private static <T> T getProxyWithInterceptor(final Class<?> type, final RecordingMethodInterceptor interceptor,
 			final ClassLoader classLoader, final boolean isfinal) {
 
-		if (type.isInterface()) {
-
-			ProxyFactory factory = new ProxyFactory(EmptyTargetSource.INSTANCE);
-			factory.addInterface(type);
-			factory.addInterface(getInvocationMethodProvider().getInvokationAwareClass());
-			factory.addAdvice(interceptor);
+		Factory factory = (Factory) getInstantiator(type, classLoader).newInstance();
+		factory.setCallbacks(new Callback[] { interceptor });
+		return (T) factory;
+	}
 
-			return (T) factory.getProxy();
+	/**
+	 * Obtains the instantiator of the proxy class of the type, generating the class the first time it is requested for the class
+	 * loader.
+	 *
+	 * @param type proxied class or interface
+	 * @param classLoader class loader where the proxy class is defined
+	 * @return instantiator of the proxy class, that implements {@link Factory} and the invocation aware class
+	 * @since 4.0.0
+	 */
+	private static ObjectInstantiator<?> getInstantiator(final Class<?> type, final ClassLoader classLoader) {
+
+		ProxyClass cached = proxyClasses.get(new LookupProxyKey(classLoader, type));
+		ObjectInstantiator<?> instantiator = cached == null ? null : cached.getInstantiator();
+		if (instantiator != null) {
+			return instantiator;
 		}
 
+		// Concurrent calls may generate the class more than once, the last one is cached
+		Class<?> proxyClass = createProxyClass(type, classLoader);
+		ProxyClass created = new ProxyClass(proxyClass);
+		expungeStaleEntries();
+		proxyClasses.put(new WeakProxyKey(classLoader, type), created);
+		return created.getInstantiator();
+	}
+
+	private static Class<?> createProxyClass(final Class<?> type, final ClassLoader classLoader) {
+
+		Class<?> invokationAwareClass = getInvocationMethodProvider().getInvokationAwareClass();
 		Enhancer enhancer = new Enhancer();
-		enhancer.setSuperclass(type);
-		enhancer.setInterfaces(new Class<?>[] { getInvocationMethodProvider().getInvokationAwareClass() });
+		if (type.isInterface()) {
+			enhancer.setInterfaces(new Class<?>[] { type, invokationAwareClass });
+		}
+		else {
+			enhancer.setSuperclass(type);
+			enhancer.setInterfaces(new Class<?>[] { invokationAwareClass });
+		}
 		enhancer.setCallbackType(org.springframework.cglib.proxy.MethodInterceptor.class);
 		enhancer.setClassLoader(classLoader);
 
-		Factory factory = (Factory) OBJENESIS.newInstance(enhancer.createClass());
-		factory.setCallbacks(new Callback[] { interceptor });
-		return (T) factory;
+		return enhancer.createClass();
+	}
+
+	/**
+	 * Removes the entries of the class loaders and types that have been collected.
+	 */
+	private static void expungeStaleEntries() {
+		for (Iterator<ProxyKey> it = proxyClasses.keySet().iterator(); it.hasNext();) {
+			ProxyKey key = it.next();
+			ProxyClass proxyClass = proxyClasses.get(key);
+			if (key.getType() == null || proxyClass == null || proxyClass.isCleared()) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Class loader and type of a proxy class.
+	 *
+	 * @since 4.0.0
+	 */
+	private abstract static class ProxyKey {
+
+		private final int hash;
+
+		ProxyKey(final ClassLoader classLoader, final Class<?> type) {
+			hash = 31 * System.identityHashCode(classLoader) + System.identityHashCode(type);
+		}
+
+		abstract ClassLoader getClassLoader();
+
+		/**
+		 * @return proxied type, or null if it or its class loader have been collected
+		 */
+		abstract Class<?> getType();
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ProxyKey)) {
+				return false;
+			}
+			ProxyKey other = (ProxyKey) obj;
+			Class<?> type = getType();
+			return type != null && type == other.getType() && getClassLoader() == other.getClassLoader();
+		}
+	}
+
+	/**
+	 * Key used to look up the cache, that holds the class loader and the type strongly.
+	 *
+	 * @since 4.0.0
+	 */
+	private static class LookupProxyKey extends ProxyKey {
+
+		private final ClassLoader classLoader;
+
+		private final Class<?> type;
+
+		LookupProxyKey(final ClassLoader classLoader, final Class<?> type) {
+			super(classLoader, type);
+			this.classLoader = classLoader;
+			this.type = type;
+		}
+
+		@Override
+		ClassLoader getClassLoader() {
+			return classLoader;
+		}
+
+		@Override
+		Class<?> getType() {
+			return type;
+		}
+	}
+
+	/**
+	 * Key stored in the cache, that doesn't keep the class loader and the type in memory.
+	 *
+	 * @since 4.0.0
+	 */
+	private static class WeakProxyKey extends ProxyKey {
+
+		/**
+		 * Null for the bootstrap class loader.
+		 */
+		private final Reference<ClassLoader> classLoader;
+
+		private final Reference<Class<?>> type;
+
+		WeakProxyKey(final ClassLoader classLoader, final Class<?> type) {
+			super(classLoader, type);
+			this.classLoader = classLoader == null ? null : new WeakReference<ClassLoader>(classLoader);
+			this.type = new WeakReference<Class<?>>(type);
+		}
+
+		@Override
+		ClassLoader getClassLoader() {
+			return classLoader == null ? null : classLoader.get();
+		}
+
+		@Override
+		Class<?> getType() {
+			if (classLoader != null && classLoader.get() == null) {
+				return null;
+			}
+			return type.get();
+		}
+	}
+
+	/**
+	 * Proxy class and its instantiator. The instantiator references the proxy class, so it is softly referenced: it is reused by all
+	 * the calls but it doesn't keep an undeployed class loader in memory.
+	 *
+	 * @since 4.0.0
+	 */
+	private static class ProxyClass {
+
+		private final Reference<Class<?>> proxyClass;
+
+		private volatile Reference<ObjectInstantiator<?>> instantiator;
+
+		ProxyClass(final Class<?> proxyClass) {
+			this.proxyClass = new WeakReference<Class<?>>(proxyClass);
+			instantiator = new SoftReference<ObjectInstantiator<?>>(OBJENESIS.getInstantiatorOf(proxyClass));
+		}
+
+		/**
+		 * @return instantiator of the proxy class, or null if the proxy class has been collected
+		 */
+		ObjectInstantiator<?> getInstantiator() {
+			ObjectInstantiator<?> result = instantiator.get();
+			if (result == null) {
+				Class<?> clazz = proxyClass.get();
+				if (clazz == null) {
+					return null;
+				}
+				result = OBJENESIS.getInstantiatorOf(clazz);
+				instantiator = new SoftReference<ObjectInstantiator<?>>(result);
+			}
+			return result;
+		}
+
+		boolean isCleared() {
+			return proxyClass.get() == null;
+		}
 	}
 
 	public static class PathBuilder {
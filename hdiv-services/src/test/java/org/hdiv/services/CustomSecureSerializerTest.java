@@ -16,6 +16,7 @@
 
 package org.hdiv.services;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -160,6 +161,27 @@ public class CustomSecureSerializerTest {
 		verify(jsonGenerator, times(5)).writeObject(Mockito.any());
 	}
 
+	@Test
+	public void secureIdSerializersResolvedOncePerClassTest() throws Exception {
+		final int[] contextualized = new int[1];
+		serializer.setDelegatedSerializer(new CustomContextualSerializer(jsonGenerator) {
+			@Override
+			public JsonSerializer<?> createContextual(final SerializerProvider prov, final BeanProperty property)
+					throws JsonMappingException {
+				contextualized[0]++;
+				return super.createContextual(prov, property);
+			}
+		});
+
+		serializer.serialize(new TrustedTestBean(2L, 1L, "testValue1", "testValue2"), jsonGenerator, null);
+		serializer.serialize(new TrustedTestBean(3L, 4L, "testValue3", "testValue4"), jsonGenerator, null);
+		assertEquals(1, contextualized[0]);
+
+		serializer.serialize(new SecuredTestBean(1L, "testValue1", "testValue2"), jsonGenerator, null);
+		assertEquals(2, contextualized[0]);
+		verify(jsonGenerator, times(3)).writeFieldName("isSecure");
+	}
+
 	public class TestBean {
 
 		private Long id;
@@ -267,16 +289,17 @@ public class CustomSecureSerializerTest {
 	private boolean isIdentifiable() {
 		try {
 
-			Field f = CustomSecureSerializer.class.getDeclaredField("secureIdSerializer");
+			Field f = CustomSecureSerializer.class.getDeclaredField("secureIdSerializers");
 			f.setAccessible(true);
 
-			Map<String, JsonSerializer<Object>> secureIdSerializer = (Map<String, JsonSerializer<Object>>) f.get(serializer);
-			if (!secureIdSerializer.isEmpty()) {
-				return true;
-			}
-			else {
-				return false;
+			Map<Class<?>, Map<String, JsonSerializer<Object>>> secureIdSerializers = (Map<Class<?>, Map<String, JsonSerializer<Object>>>) f
+					.get(serializer);
+			for (Map<String, JsonSerializer<Object>> secureIdSerializer : secureIdSerializers.values()) {
+				if (!secureIdSerializer.isEmpty()) {
+					return true;
+				}
 			}
+			return false;
 		}
 		catch (Exception e) {
 			return false;
@@ -16,6 +16,13 @@
 
 package org.hdiv.services;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,6 +61,59 @@ public class PathTest {
 		Assert.assertEquals("subName", pathId);
 	}
 
+	@Test
+	public void springPathProxyClassReusedTest() throws Exception {
+
+		Patheable first = Path.on(Patheable.class);
+		String firstPath = Path.path(first.getName());
+		Patheable second = Path.on(Patheable.class);
+		String secondPath = Path.path(second.getSubName().getName());
+
+		Assert.assertSame(first.getClass(), second.getClass());
+		Assert.assertEquals("name", firstPath);
+		Assert.assertEquals("subName.name", secondPath);
+	}
+
+	@Test
+	public void springPathConcurrentTest() throws Exception {
+
+		final Class<?> proxyClass = Path.on(Patheable.class).getClass();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 100; i++) {
+				results.add(executor.submit(new Callable<String>() {
+
+					public String call() throws Exception {
+						Patheable patheable = Path.on(Patheable.class);
+						Assert.assertSame(proxyClass, patheable.getClass());
+						return Path.path(patheable.getSubName().getName());
+					}
+				}));
+			}
+			for (Future<String> result : results) {
+				Assert.assertEquals("subName.name", result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void springPathInterfaceTest() throws Exception {
+
+		Assert.assertEquals("subName.name", Path.path(Path.on(Named.class).getSubName().getName()));
+	}
+
+	public interface Named {
+
+		String getName();
+
+		SubClass getSubName();
+
+	}
+
 	public class Patheable {
 
 		private final String name;
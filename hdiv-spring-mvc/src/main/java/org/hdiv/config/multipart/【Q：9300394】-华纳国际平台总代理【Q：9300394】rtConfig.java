@@ -22,6 +22,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.hdiv.config.multipart.exception.HdivMultipartException;
 import org.hdiv.filter.RequestWrapper;
+import org.hdiv.filter.StreamingMultipartValidator;
 import org.hdiv.web.multipart.HdivCommonsMultipartResolver;
 import org.hdiv.web.multipart.HdivStandardServletMultipartResolver;
 import org.slf4j.Logger;
@@ -76,7 +77,14 @@ public class SpringMVCMultipartConfig implements IMultipartConfig {
 		MultipartHttpServletRequest processedRequest = null;
 		try {
 			// Resolve multipart with the original request
-			processedRequest = multipartResolver.resolveMultipart((HttpServletRequest) request.getRequest());
+			HttpServletRequest originalRequest = (HttpServletRequest) request.getRequest();
+			StreamingMultipartValidator validator = request.getMultipartValidator();
+			if (validator != null && multipartResolver instanceof HdivCommonsMultipartResolver) {
+				processedRequest = ((HdivCommonsMultipartResolver) multipartResolver).resolveMultipart(originalRequest, validator);
+			}
+			else {
+				processedRequest = multipartResolver.resolveMultipart(originalRequest);
+			}
 
 		}
 		catch (MultipartException e) {
@@ -15,14 +15,25 @@
  */
 package org.hdiv.web.multipart;
 
+import java.io.IOException;
+import java.util.List;
+
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
 import org.hdiv.config.multipart.IMultipartConfig;
+import org.hdiv.config.multipart.StreamingMultipartParser;
 import org.hdiv.config.multipart.exception.HdivMultipartException;
+import org.hdiv.filter.StreamingMultipartValidator;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
+import org.springframework.web.multipart.support.DefaultMultipartHttpServletRequest;
 import org.springframework.web.util.WebUtils;
 
 /**
@@ -63,4 +74,35 @@ public class HdivCommonsMultipartResolver extends CommonsMultipartResolver {
 		return super.resolveMultipart(request);
 	}
 
+	/**
+	 * Parses the multipart request validating each part as soon as it is received, so that an invalid request is rejected without
+	 * reading or storing the rest of its body.
+	 * 
+	 * @param request multipart request
+	 * @param validator validator of the parts
+	 * @return the parsed request
+	 * @throws MultipartException if the request can not be parsed
+	 * @since 4.0.0
+	 */
+	public MultipartHttpServletRequest resolveMultipart(final HttpServletRequest request, final StreamingMultipartValidator validator) {
+
+		String encoding = determineEncoding(request);
+		FileUpload fileUpload = prepareFileUpload(encoding);
+		try {
+			List<FileItem> items = StreamingMultipartParser.parseRequest(fileUpload, request, encoding, validator);
+			MultipartParsingResult result = parseFileItems(items, encoding);
+			return new DefaultMultipartHttpServletRequest(request, result.getMultipartFiles(), result.getMultipartParameters(),
+					result.getMultipartParameterContentTypes());
+		}
+		catch (FileUploadBase.SizeLimitExceededException ex) {
+			throw new MaxUploadSizeExceededException(fileUpload.getSizeMax(), ex);
+		}
+		catch (FileUploadException ex) {
+			throw new MultipartException("Could not parse multipart servlet request", ex);
+		}
+		catch (IOException ex) {
+			throw new MultipartException("Could not read multipart servlet request", ex);
+		}
+	}
+
 }
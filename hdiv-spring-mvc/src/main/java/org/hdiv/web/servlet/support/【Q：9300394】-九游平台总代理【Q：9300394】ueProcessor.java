@@ -141,6 +141,17 @@ public class HdivRequestDataValueProcessor implements RequestDataValueProcessor,
 		return extraFields;
 	}
 
+	/**
+	 * Determines if the state id of a form must be known when its action is processed, before its fields. By default the state id is
+	 * obtained in {@link #getExtraHiddenFields(RequestContextHolder)}, after the fields.
+	 * 
+	 * @return true if the state id is required when the action is processed
+	 * @since 4.0.0
+	 */
+	protected boolean isFormStateIdRequired() {
+		return false;
+	}
+
 	/**
 	 * Determines if a field type is editable or not.
 	 * 
@@ -190,7 +201,7 @@ public class HdivRequestDataValueProcessor implements RequestDataValueProcessor,
 				action = processedAction;
 			}
 		}
-		return formUrlProcessor.processUrl(request, action, Method.secureValueOf(method));
+		return formUrlProcessor.processUrl(request, action, Method.secureValueOf(method), isFormStateIdRequired());
 	}
 
 	public String processFormFieldValue(final RequestContextHolder request, final String name, String value, final String type) {
@@ -15,6 +15,7 @@
  */
 package org.hdiv.config.multipart;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileUploadException;
 import org.hdiv.config.multipart.exception.HdivMultipartException;
 import org.hdiv.filter.RequestWrapper;
+import org.hdiv.filter.StreamingMultipartValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +71,13 @@ public class StrutsMultipartConfig extends AbstractMultipartConfig {
 
 		List<FileItem> items = null;
 		try {
-			items = upload.parseRequest(request);
+			StreamingMultipartValidator validator = request.getMultipartValidator();
+			if (validator != null) {
+				items = StreamingMultipartParser.parseRequest(upload, request, request.getCharacterEncoding(), validator);
+			}
+			else {
+				items = upload.parseRequest(request);
+			}
 
 		}
 		catch (org.apache.commons.fileupload.DiskFileUpload.SizeLimitExceededException e) {
@@ -86,6 +94,12 @@ public class StrutsMultipartConfig extends AbstractMultipartConfig {
 			}
 			throw new HdivMultipartException(e);
 		}
+		catch (IOException e) {
+			if (log.isErrorEnabled()) {
+				log.error("Failed to read multipart request", e);
+			}
+			throw new HdivMultipartException(e);
+		}
 
 		// Process the uploaded items
 		Iterator<FileItem> iter = items.iterator();
@@ -22,9 +22,11 @@ import javax.servlet.jsp.JspException;
 import org.apache.struts.Globals;
 import org.apache.struts.taglib.TagUtils;
 import org.apache.struts.taglib.html.FormTag;
+import org.hdiv.context.RequestContextHolder;
 import org.hdiv.dataComposer.IDataComposer;
 import org.hdiv.urlProcessor.FormUrlProcessor;
 import org.hdiv.util.HDIVUtil;
+import org.hdiv.util.Method;
 
 /**
  * Renders an HTML <b>&lt;form&gt;</b> element whose contents are described by the body content of this tag. The form implicitly interacts
@@ -45,6 +47,11 @@ public class FormTagHDIV extends FormTag {
 
 	protected FormUrlProcessor formUrlProcessor;
 
+	/**
+	 * True if the state of the form has been added to its action url.
+	 */
+	private boolean stateInAction;
+
 	/**
 	 * Renders the action attribute
 	 * @see org.hdiv.dataComposer.IDataComposer
@@ -64,7 +71,10 @@ public class FormTagHDIV extends FormTag {
 		if (formUrlProcessor == null) {
 			formUrlProcessor = HDIVUtil.getFormUrlProcessor(request.getSession().getServletContext());
 		}
-		final String encodedURL = formUrlProcessor.processUrl(HDIVUtil.getRequestContext(request), url);
+		final RequestContextHolder context = HDIVUtil.getRequestContext(request);
+		final boolean multipart = isMultipart();
+		final String encodedURL = formUrlProcessor.processUrl(context, url, Method.POST, false, multipart);
+		stateInAction = multipart && encodedURL.indexOf(context.getHdivParameterName() + "=") != -1;
 
 		results.append(" action=\"");
 		results.append(encodedURL);
@@ -108,7 +118,8 @@ public class FormTagHDIV extends FormTag {
 		}
 		final String requestId = dataComposer.endRequest();
 
-		if (requestId.length() > 0) {
+		// The state of multipart forms is sent in the action url
+		if (requestId.length() > 0 && !stateInAction) {
 			TagUtils.getInstance().write(pageContext, generateHiddenTag(dataComposer.getHdivParameterName(), requestId));
 		}
 	}
@@ -120,6 +131,13 @@ public class FormTagHDIV extends FormTag {
 	 * @param requestId request identification
 	 * @return HTML <b>&lt;input&gt;</b> element of type hidden
 	 */
+	/**
+	 * @return true if the form is submitted as <code>multipart/form-data</code>
+	 */
+	private boolean isMultipart() {
+		return getEnctype() != null && getEnctype().trim().equalsIgnoreCase("multipart/form-data");
+	}
+
 	private String generateHiddenTag(final String name, final String requestId) {
 
 		final StringBuffer hdivParameter = new StringBuffer(32);
@@ -48,6 +48,14 @@ public class ThymeleafHdivRequestDataValueProcessor extends HdivRequestDataValue
 		return super.processAction(request, action, method);
 	}
 
+	/**
+	 * The state id is written in the extra hidden fields, before the fields of the form are processed.
+	 */
+	@Override
+	protected boolean isFormStateIdRequired() {
+		return true;
+	}
+
 	@SuppressWarnings("deprecation")
 	@Override
 	public Map<String, String> getExtraHiddenFields(final RequestContextHolder ctx) {